@@ -0,0 +1,117 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.platform;
+
+import com.sun.jersey.api.json.JSONJAXBContext;
+import com.sun.jersey.api.json.JSONMarshaller;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobState;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the throughput of serializing the job listing of <code>GET api/scheduler/getJobs</code> to JSON, with
+ * {@link JaxbContextResolver} resolved on every response as Jersey does, from concurrent requests.
+ */
+public class JaxbContextResolverBenchmarkIT {
+
+  private static final int JOB_COUNT = 10000;
+
+  private static final int THREADS = 8;
+
+  private static final int LISTINGS_PER_THREAD = 5;
+
+  private static JaxbContextResolver jaxbContextResolver;
+
+  private static List<Job> jobs;
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    jaxbContextResolver = new JaxbContextResolver();
+    jobs = new ArrayList<>( JOB_COUNT );
+    for ( int i = 0; i < JOB_COUNT; i++ ) {
+      Job job = new Job();
+      job.setJobId( "admin\tjob" + i + "\t" + i );
+      job.setJobName( "job" + i );
+      job.setUserName( "admin" );
+      job.setState( JobState.NORMAL );
+      job.setNextRun( new Date() );
+      job.setJobTrigger( new SimpleJobTrigger( new Date(), null, -1, 3600 ) );
+      job.getJobParams().put( "lineage-id", "lineage" + i );
+      jobs.add( job );
+    }
+  }
+
+  @Test
+  public void testGetJobsSerializationThroughput() throws Exception {
+    // warm up
+    assertTrue( serializeJobs() > 0 );
+
+    ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+    try {
+      long start = System.nanoTime();
+      List<Future<Long>> results = new ArrayList<>();
+      for ( int i = 0; i < THREADS; i++ ) {
+        results.add( executor.submit( () -> {
+          long length = 0;
+          for ( int j = 0; j < LISTINGS_PER_THREAD; j++ ) {
+            length += serializeJobs();
+          }
+          return length;
+        } ) );
+      }
+      for ( Future<Long> result : results ) {
+        assertTrue( result.get() > 0 );
+      }
+      double seconds = ( System.nanoTime() - start ) / 1e9;
+
+      int listings = THREADS * LISTINGS_PER_THREAD;
+      System.out.println( String.format( "getJobs JSON: %d listings of %d jobs on %d threads in %.2fs, %.1f listings/s, "
+        + "%.0f jobs/s", listings, JOB_COUNT, THREADS, seconds, listings / seconds, listings * JOB_COUNT / seconds ) );
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Writes the listing as Jersey's JSON list provider does, the context being resolved once per response.
+   *
+   * @return the length of the JSON written
+   */
+  private static long serializeJobs() throws Exception {
+    JSONMarshaller marshaller = ( (JSONJAXBContext) jaxbContextResolver.getContext( Job.class ) ).createJSONMarshaller();
+    StringWriter writer = new StringWriter();
+    writer.write( "{\"job\":[" );
+    boolean first = true;
+    for ( Job job : jobs ) {
+      if ( !first ) {
+        writer.write( ',' );
+      }
+      marshaller.marshallToJSON( job, writer );
+      first = false;
+    }
+    writer.write( "]}" );
+    return writer.getBuffer().length();
+  }
+}
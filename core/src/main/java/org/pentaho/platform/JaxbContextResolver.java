@@ -17,6 +17,8 @@ import org.pentaho.platform.api.scheduler2.CronJobTrigger;
 import org.pentaho.platform.api.scheduler2.Job;
 import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
 import org.pentaho.platform.web.http.api.resources.JaxbList;
+import org.pentaho.platform.web.http.api.resources.JobScheduleRequest;
+import org.pentaho.platform.web.http.api.resources.JobsResponse;
 import org.pentaho.platform.web.http.api.resources.Setting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,68 +29,106 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Provide a customized JAXBContext that makes the concrete implementations
  * known and available for marshalling
+ * <p>
+ * Contexts are built once per type and cached, those of the types of the busiest endpoints when the resolver is
+ * created, so that serializing a response never waits on a lock nor on a context being built for another type.
  *
  * @author Michael Irwin
  */
 @Provider
 public class JaxbContextResolver implements ContextResolver<JAXBContext> {
 
-  private JAXBContext context;
-  @SuppressWarnings( "rawtypes" )
-  private final ArrayList<Class> types = new ArrayList<Class>();
-  private final ArrayList<String> arrays = new ArrayList<String>();
+  private static final Class<?>[] BASE_TYPES = { ArrayList.class, JaxbList.class, Setting.class };
+
+  private static final String[] BASE_ARRAYS = { "list", "values", "setting" };
+
+  /**
+   * Types whose contexts are built up front, their lists being rendered as JSON arrays in every context
+   */
+  private static final Class<?>[] KNOWN_TYPES = { Job.class, JobScheduleRequest.class, JobsResponse.class };
+
   private final Logger logger = LoggerFactory.getLogger( getClass() );
 
+  /**
+   * Names of the elements always rendered as JSON arrays, even when holding a single value
+   */
+  private final Set<String> knownArrays;
+
+  private final ConcurrentMap<Class<?>, JAXBContext> contexts = new ConcurrentHashMap<>();
+
   public JaxbContextResolver() throws Exception {
-    types.add( ArrayList.class );
-    types.add( JaxbList.class );
-    types.add( Setting.class );
-    arrays.add( "list" );
-    arrays.add( "values" );
-    arrays.add( "setting" );
-    JSONConfiguration config =
-      JSONConfiguration.mapped().rootUnwrapping( true ).arrays( arrays.toArray( new String[] {} ) ).build();
-    context = new JSONJAXBContext( config, types.toArray( new Class[] {} ) );
+    Set<String> arrays = new LinkedHashSet<>( Arrays.asList( BASE_ARRAYS ) );
+    for ( Class<?> type : KNOWN_TYPES ) {
+      arrays.addAll( getArrays( type ) );
+    }
+    knownArrays = Collections.unmodifiableSet( arrays );
+
+    JAXBContext baseContext = createContext( BASE_TYPES, knownArrays );
+    for ( Class<?> type : BASE_TYPES ) {
+      contexts.put( type, baseContext );
+    }
+    for ( Class<?> type : KNOWN_TYPES ) {
+      contexts.put( type, createContext( type ) );
+    }
   }
 
   public JAXBContext getContext( Class<?> objectType ) {
-    synchronized ( types ) {
-      if ( types.contains( objectType ) ) {
-        return context;
-      }
+    JAXBContext context = contexts.get( objectType );
+    if ( context != null ) {
+      return context;
     }
-
-    // need to see if class has any ArrayList types, if so, add those to arrays
-    Field[] fields = objectType.getDeclaredFields();
-    for ( int i = 0; i < fields.length; i++ ) {
-      if ( fields[i].getType().isAssignableFrom( ArrayList.class ) ) {
-        String simpleName = fields[i].getName();
-        simpleName = simpleName.substring( 0, 1 ).toLowerCase() + simpleName.substring( 1 );
-        arrays.add( simpleName );
+    // built at most once, only callers asking for this same type wait for it
+    return contexts.computeIfAbsent( objectType, type -> {
+      try {
+        return createContext( type );
+      } catch ( JAXBException e ) {
+        logger.error( "Error creating JAXBContext for class " + type, e );
+        return null;
       }
-    }
+    } );
+  }
+
+  private JAXBContext createContext( Class<?> objectType ) throws JAXBException {
+    Set<String> arrays = new LinkedHashSet<>( knownArrays );
+    arrays.addAll( getArrays( objectType ) );
+
+    Class<?>[] types = Arrays.copyOf( BASE_TYPES, BASE_TYPES.length + 1 );
+    types[ BASE_TYPES.length ] = objectType;
+    return createContext( types, arrays );
+  }
 
-    String simpleName = objectType.getSimpleName();
-    simpleName = simpleName.substring( 0, 1 ).toLowerCase() + simpleName.substring( 1 );
-    arrays.add( simpleName );
-    try {
-      JSONConfiguration config =
-        JSONConfiguration.mapped().rootUnwrapping( true ).arrays( arrays.toArray( new String[arrays.size()] ) )
-          .build();
-
-      synchronized ( types ) {
-        types.add( objectType );
-        context = new JSONJAXBContext( config, types.toArray( new Class[types.size()] ) );
+  private static JAXBContext createContext( Class<?>[] types, Set<String> arrays ) throws JAXBException {
+    JSONConfiguration config =
+      JSONConfiguration.mapped().rootUnwrapping( true ).arrays( arrays.toArray( new String[ arrays.size() ] ) )
+        .build();
+    return new JSONJAXBContext( config, types );
+  }
+
+  /**
+   * @return the names of the elements of the type to render as JSON arrays: its own and those of its list fields
+   */
+  private static Set<String> getArrays( Class<?> objectType ) {
+    Set<String> arrays = new LinkedHashSet<>();
+    for ( Field field : objectType.getDeclaredFields() ) {
+      if ( field.getType().isAssignableFrom( ArrayList.class ) ) {
+        arrays.add( uncapitalize( field.getName() ) );
       }
-      return context;
-    } catch ( JAXBException e ) {
-      logger.error( "Error creating JAXBContext for class " + objectType, e );
     }
-    return null;
+    arrays.add( uncapitalize( objectType.getSimpleName() ) );
+    return arrays;
   }
 
+  private static String uncapitalize( String name ) {
+    return name.substring( 0, 1 ).toLowerCase() + name.substring( 1 );
+  }
 }
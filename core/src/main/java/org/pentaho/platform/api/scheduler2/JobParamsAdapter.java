@@ -41,7 +41,8 @@ public class JobParamsAdapter extends XmlAdapter<JobParams, Map<String, Object>>
       }
     }
 
-    ArrayList<JobParam> params = new ArrayList<JobParam>();
+    // most parameters hold a single value
+    ArrayList<JobParam> params = new ArrayList<JobParam>( v.size() );
     for ( Map.Entry<String, Object> entry : v.entrySet() ) {
       if ( entry != null && entry.getKey() != null && entry.getValue() != null ) {
         if ( entry.getValue() instanceof Collection ) {
@@ -1,6 +1,7 @@
 package org.pentaho.platform.plugin.services.importer;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.pentaho.platform.api.engine.IPluginResourceLoader;
 import org.pentaho.platform.api.importexport.IImportHelper;
 import org.pentaho.platform.api.importexport.ImportException;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
@@ -19,13 +20,20 @@ import javax.ws.rs.core.Response;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class ScheduleImportUtil implements IImportHelper {
   private static final String RESERVEDMAPKEY_LINEAGE_ID = "lineage-id";
   private static final String SCHEDULE_IMPORT_UTIL_NAME ="schedule-import-util";
+  private static final String RESTORE_WORKERS_SETTING_KEY = "settings/schedule-restore-workers";
 
   public ScheduleImportUtil() {
     super();
@@ -46,7 +54,7 @@ public class ScheduleImportUtil implements IImportHelper {
       if ( solutionImportHandler.isPerformingRestore() ) {
         solutionImportHandler.getLogger().info( Messages.getInstance().getString( "SolutionImportHandler.INFO_COUNT_SCHEDULUE", scheduleList.size() ) );
       }
-      int successfulScheduleImportCount = 0;
+      long phaseStart = System.currentTimeMillis();
       IScheduler scheduler = PentahoSystem.get( IScheduler.class, "IScheduler2", null ); //$NON-NLS-1$
       ISchedulerResource schedulerResource = scheduler.createSchedulerResource();
       if ( solutionImportHandler.isPerformingRestore() ) {
@@ -56,124 +64,280 @@ public class ScheduleImportUtil implements IImportHelper {
       if ( solutionImportHandler.isPerformingRestore() ) {
         solutionImportHandler.getLogger().debug( "Successfully paused the scheduler" );
       }
-      for ( IJobScheduleRequest jobScheduleRequest : scheduleList ) {
-        if ( solutionImportHandler.isPerformingRestore() ) {
-          solutionImportHandler.getLogger().debug( "Restoring schedule name [ " + jobScheduleRequest.getJobName() + "] inputFile [ " + jobScheduleRequest.getInputFile() + " ] outputFile [ " + jobScheduleRequest.getOutputFile() + "]" );
-        }
-        boolean jobExists = false;
+      long pauseMillis = System.currentTimeMillis() - phaseStart;
 
-        List<IJob> jobs = schedulerResource.getJobsList();
-        if ( jobs != null ) {
+      // The existing jobs are listed once, and looked up by lineage id for every schedule
+      phaseStart = System.currentTimeMillis();
+      List<IJob> jobs = schedulerResource.getJobsList();
+      Map<Serializable, Deque<String>> jobIdsByLineageId = jobs != null ? indexByLineageId( jobs ) : null;
+      long indexMillis = System.currentTimeMillis() - phaseStart;
+      long removeMillis = 0;
+      long createMillis = 0;
 
-          //paramRequest to map<String, Serializable>
-          Map<String, Serializable> mapParamsRequest = new HashMap<>();
-          for ( IJobScheduleParam paramRequest : jobScheduleRequest.getJobParameters() ) {
-            mapParamsRequest.put( paramRequest.getName(), paramRequest.getValue() );
+      List<ScheduleRestorePipeline.Outcome> outcomes = new ArrayList<>( scheduleList.size() );
+      List<IJobScheduleRequest> remainingScheduleList = scheduleList;
+      int workerCount = solutionImportHandler.isPerformingRestore() ? getRestoreWorkerCount() : 1;
+      if ( workerCount > 1 && scheduleList.size() > 1 ) {
+        // Schedules sharing their lineage id with an earlier one depend on it, they are imported one by one afterwards
+        List<IJobScheduleRequest> createList = new ArrayList<>();
+        remainingScheduleList = new ArrayList<>();
+        Set<Serializable> lineageIds = new HashSet<>();
+        for ( IJobScheduleRequest jobScheduleRequest : scheduleList ) {
+          Serializable lineageId = getLineageId( jobScheduleRequest );
+          if ( lineageId != null && !lineageIds.add( lineageId ) ) {
+            remainingScheduleList.add( jobScheduleRequest );
+            continue;
           }
+          phaseStart = System.currentTimeMillis();
+          boolean jobExists =
+            resolveExistingJob( solutionImportHandler, scheduler, schedulerResource, jobIdsByLineageId,
+              jobScheduleRequest, lineageId );
+          removeMillis += System.currentTimeMillis() - phaseStart;
+          if ( !jobExists ) {
+            createList.add( jobScheduleRequest );
+          } else {
+            solutionImportHandler.getLogger().info( Messages.getInstance()
+              .getString( "DefaultImportHandler.ERROR_0009_OVERWRITE_CONTENT", jobScheduleRequest.toString() ) );
+          }
+        }
 
-          // We will check the existing job in the repository. If the job being imported exists, we will remove it from the repository
-          for ( IJob job : jobs ) {
-
-            if ( ( mapParamsRequest.get( RESERVEDMAPKEY_LINEAGE_ID ) != null )
-              && ( mapParamsRequest.get( RESERVEDMAPKEY_LINEAGE_ID )
-              .equals( job.getJobParams().get( RESERVEDMAPKEY_LINEAGE_ID ) ) ) ) {
-              jobExists = true;
-            }
-
-            if ( solutionImportHandler.overwriteFile && jobExists ) {
-              if ( solutionImportHandler.isPerformingRestore() ) {
-                solutionImportHandler.getLogger().debug( "Schedule  [ " + jobScheduleRequest.getJobName() + "] already exists and overwrite flag is set to true. Removing the job so we can add it again" );
-              }
-              IJobRequest jobRequest = scheduler.createJobRequest();
-              jobRequest.setJobId( job.getJobId() );
-              schedulerResource.removeJob( jobRequest );
-              jobExists = false;
-              break;
-            }
+        phaseStart = System.currentTimeMillis();
+        ScheduleRestorePipeline pipeline = new ScheduleRestorePipeline( scheduler,
+          jobScheduleRequest -> createJob( solutionImportHandler, schedulerResource, jobScheduleRequest ), workerCount,
+          solutionImportHandler.getLogger() );
+        try {
+          for ( ScheduleRestorePipeline.Outcome outcome : pipeline.run( createList ) ) {
+            recordOutcome( solutionImportHandler, jobIdsByLineageId, outcome );
+            outcomes.add( outcome );
           }
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+          solutionImportHandler.getLogger().error( "Interrupted while restoring schedules", e );
+          remainingScheduleList = Collections.emptyList();
         }
+        createMillis += System.currentTimeMillis() - phaseStart;
+      }
+
+      for ( IJobScheduleRequest jobScheduleRequest : remainingScheduleList ) {
+        if ( solutionImportHandler.isPerformingRestore() ) {
+          solutionImportHandler.getLogger().debug( "Restoring schedule name [ " + jobScheduleRequest.getJobName() + "] inputFile [ " + jobScheduleRequest.getInputFile() + " ] outputFile [ " + jobScheduleRequest.getOutputFile() + "]" );
+        }
+        Serializable lineageId = getLineageId( jobScheduleRequest );
+
+        phaseStart = System.currentTimeMillis();
+        boolean jobExists =
+          resolveExistingJob( solutionImportHandler, scheduler, schedulerResource, jobIdsByLineageId,
+            jobScheduleRequest, lineageId );
+        removeMillis += System.currentTimeMillis() - phaseStart;
 
         if ( !jobExists ) {
-          try {
-            Response response = createSchedulerJob( schedulerResource, jobScheduleRequest );
-            if ( response.getStatus() == Response.Status.OK.getStatusCode() ) {
-              if ( response.getEntity() != null ) {
-                // get the schedule job id from the response and add it to the import session
-                ImportSession.getSession().addImportedScheduleJobId( response.getEntity().toString() );
-                if ( solutionImportHandler.isPerformingRestore() ) {
-                  solutionImportHandler.getLogger().debug( "Successfully restored schedule [ " + jobScheduleRequest.getJobName() + " ] " );
-                }
-                successfulScheduleImportCount++;
-              }
-            } else {
-              solutionImportHandler.getLogger().error( Messages.getInstance().getString( "SolutionImportHandler.ERROR_IMPORTING_SCHEDULE", jobScheduleRequest.getJobName(), response.getEntity() != null
-                ? response.getEntity().toString() : "" ) );
-            }
-          } catch ( Exception e ) {
-            // there is a scenario where if the file scheduled has a space in the file name, that it won't work. the
-            // di server
-
-            // replaces spaces with underscores and the export mechanism can't determine if it needs this to happen
-            // or not
-            // so, if we failed to import and there is a space in the path, try again but this time with replacing
-            // the space(s)
-            if ( jobScheduleRequest.getInputFile().contains( " " ) || jobScheduleRequest.getOutputFile()
-              .contains( " " ) ) {
-              solutionImportHandler.getLogger().debug( Messages.getInstance()
-                .getString( "SolutionImportHandler.SchedulesWithSpaces", jobScheduleRequest.getInputFile() ) );
-              File inFile = new File( jobScheduleRequest.getInputFile() );
-              File outFile = new File( jobScheduleRequest.getOutputFile() );
-              String inputFileName = inFile.getParent() + RepositoryFile.SEPARATOR
-                + inFile.getName().replace( " ", "_" );
-              String outputFileName = outFile.getParent() + RepositoryFile.SEPARATOR
-                + outFile.getName().replace( " ", "_" );
-              jobScheduleRequest.setInputFile( inputFileName );
-              jobScheduleRequest.setOutputFile( outputFileName );
-              try {
-                if ( !File.separator.equals( RepositoryFile.SEPARATOR ) ) {
-                  // on windows systems, the backslashes will result in the file not being found in the repository
-                  jobScheduleRequest.setInputFile( inputFileName.replace( File.separator, RepositoryFile.SEPARATOR ) );
-                  jobScheduleRequest
-                    .setOutputFile( outputFileName.replace( File.separator, RepositoryFile.SEPARATOR ) );
-                }
-                Response response = createSchedulerJob( schedulerResource, jobScheduleRequest );
-                if ( response.getStatus() == Response.Status.OK.getStatusCode() ) {
-                  if ( response.getEntity() != null ) {
-                    // get the schedule job id from the response and add it to the import session
-                    ImportSession.getSession().addImportedScheduleJobId( response.getEntity().toString() );
-                    successfulScheduleImportCount++;
-                  }
-                }
-              } catch ( Exception ex ) {
-                // log it and keep going. we shouldn't stop processing all schedules just because one fails.
-                solutionImportHandler.getLogger().error( Messages.getInstance()
-                  .getString( "SolutionImportHandler.ERROR_0001_ERROR_CREATING_SCHEDULE", "[ " + jobScheduleRequest.getJobName() + " ] cause [ " + ex.getMessage() + " ]" ), ex );
-              }
-            } else {
-              // log it and keep going. we shouldn't stop processing all schedules just because one fails.
-              solutionImportHandler.getLogger().error( Messages.getInstance()
-                .getString( "SolutionImportHandler.ERROR_0001_ERROR_CREATING_SCHEDULE", "[ " + jobScheduleRequest.getJobName() + " ]" ) );
-            }
-          }
+          phaseStart = System.currentTimeMillis();
+          ScheduleRestorePipeline.Outcome outcome = createJob( solutionImportHandler, schedulerResource, jobScheduleRequest );
+          recordOutcome( solutionImportHandler, jobIdsByLineageId, outcome );
+          outcomes.add( outcome );
+          createMillis += System.currentTimeMillis() - phaseStart;
         } else {
           solutionImportHandler.getLogger().info( Messages.getInstance()
             .getString( "DefaultImportHandler.ERROR_0009_OVERWRITE_CONTENT", jobScheduleRequest.toString() ) );
         }
       }
+
+      int successfulScheduleImportCount = 0;
+      StringBuilder failureReport = new StringBuilder();
+      for ( ScheduleRestorePipeline.Outcome outcome : outcomes ) {
+        if ( outcome.getJobId() != null ) {
+          successfulScheduleImportCount++;
+        } else {
+          failureReport.append( "\n  [ " ).append( outcome.getJobScheduleRequest().getJobName() )
+            .append( " ] inputFile [ " ).append( outcome.getJobScheduleRequest().getInputFile() )
+            .append( " ] cause [ " ).append( outcome.getFailure() ).append( " ]" );
+        }
+      }
+      if ( failureReport.length() > 0 ) {
+        solutionImportHandler.getLogger().error( "Unable to import " + ( outcomes.size() - successfulScheduleImportCount )
+          + " of " + scheduleList.size() + " schedules:" + failureReport );
+      }
       if ( solutionImportHandler.isPerformingRestore() ) {
         solutionImportHandler.getLogger().info( Messages.getInstance()
           .getString( "SolutionImportHandler.INFO_SUCCESSFUL_SCHEDULE_IMPORT_COUNT", successfulScheduleImportCount, scheduleList.size() ) );
       }
+      phaseStart = System.currentTimeMillis();
       schedulerResource.start();
       if ( solutionImportHandler.isPerformingRestore() ) {
         solutionImportHandler.getLogger().debug( "Successfully started the scheduler" );
       }
+      long startMillis = System.currentTimeMillis() - phaseStart;
+
+      String timings = "Schedule import timings: pause [ " + pauseMillis + " ms ] index [ " + indexMillis + " ms, "
+        + ( jobs != null ? jobs.size() : 0 ) + " existing jobs ] remove [ " + removeMillis + " ms ] create [ "
+        + createMillis + " ms, " + scheduleList.size() + " schedules, " + workerCount + " workers ] start [ "
+        + startMillis + " ms ]";
+      if ( solutionImportHandler.isPerformingRestore() ) {
+        solutionImportHandler.getLogger().info( timings );
+      } else {
+        solutionImportHandler.getLogger().debug( timings );
+      }
     }
     if ( solutionImportHandler.isPerformingRestore() ) {
       solutionImportHandler.getLogger().info( Messages.getInstance().getString( "SolutionImportHandler.INFO_END_IMPORT_SCHEDULE" ) );
     }
   }
 
+  /**
+   * Checks whether a job already exists for a schedule, and removes it if the import overwrites existing content
+   *
+   * @return true if the job exists and is kept
+   */
+  private boolean resolveExistingJob( SolutionImportHandler solutionImportHandler, IScheduler scheduler,
+                                      ISchedulerResource schedulerResource,
+                                      Map<Serializable, Deque<String>> jobIdsByLineageId,
+                                      IJobScheduleRequest jobScheduleRequest, Serializable lineageId ) {
+    if ( jobIdsByLineageId == null || lineageId == null ) {
+      return false;
+    }
+
+    // We will check the existing job in the repository. If the job being imported exists, we will remove it from the repository
+    Deque<String> existingJobIds = jobIdsByLineageId.get( lineageId );
+    boolean jobExists = existingJobIds != null && !existingJobIds.isEmpty();
+
+    if ( solutionImportHandler.overwriteFile && jobExists ) {
+      if ( solutionImportHandler.isPerformingRestore() ) {
+        solutionImportHandler.getLogger().debug( "Schedule  [ " + jobScheduleRequest.getJobName() + "] already exists and overwrite flag is set to true. Removing the job so we can add it again" );
+      }
+      IJobRequest jobRequest = scheduler.createJobRequest();
+      jobRequest.setJobId( existingJobIds.poll() );
+      schedulerResource.removeJob( jobRequest );
+      jobExists = false;
+    }
+    return jobExists;
+  }
+
+  /**
+   * Creates the job of a schedule, logging why if it could not be created
+   */
+  private ScheduleRestorePipeline.Outcome createJob( SolutionImportHandler solutionImportHandler,
+                                                     ISchedulerResource schedulerResource,
+                                                     IJobScheduleRequest jobScheduleRequest ) {
+    try {
+      Response response = createSchedulerJob( schedulerResource, jobScheduleRequest );
+      if ( response.getStatus() == Response.Status.OK.getStatusCode() ) {
+        return getOutcome( jobScheduleRequest, response );
+      }
+      String cause = response.getEntity() != null ? response.getEntity().toString() : "";
+      solutionImportHandler.getLogger().error( Messages.getInstance().getString( "SolutionImportHandler.ERROR_IMPORTING_SCHEDULE", jobScheduleRequest.getJobName(), cause ) );
+      return ScheduleRestorePipeline.Outcome.failed( jobScheduleRequest, cause );
+    } catch ( Exception e ) {
+      // there is a scenario where if the file scheduled has a space in the file name, that it won't work. the
+      // di server
+
+      // replaces spaces with underscores and the export mechanism can't determine if it needs this to happen
+      // or not
+      // so, if we failed to import and there is a space in the path, try again but this time with replacing
+      // the space(s)
+      if ( jobScheduleRequest.getInputFile().contains( " " ) || jobScheduleRequest.getOutputFile()
+        .contains( " " ) ) {
+        solutionImportHandler.getLogger().debug( Messages.getInstance()
+          .getString( "SolutionImportHandler.SchedulesWithSpaces", jobScheduleRequest.getInputFile() ) );
+        File inFile = new File( jobScheduleRequest.getInputFile() );
+        File outFile = new File( jobScheduleRequest.getOutputFile() );
+        String inputFileName = inFile.getParent() + RepositoryFile.SEPARATOR
+          + inFile.getName().replace( " ", "_" );
+        String outputFileName = outFile.getParent() + RepositoryFile.SEPARATOR
+          + outFile.getName().replace( " ", "_" );
+        jobScheduleRequest.setInputFile( inputFileName );
+        jobScheduleRequest.setOutputFile( outputFileName );
+        try {
+          if ( !File.separator.equals( RepositoryFile.SEPARATOR ) ) {
+            // on windows systems, the backslashes will result in the file not being found in the repository
+            jobScheduleRequest.setInputFile( inputFileName.replace( File.separator, RepositoryFile.SEPARATOR ) );
+            jobScheduleRequest
+              .setOutputFile( outputFileName.replace( File.separator, RepositoryFile.SEPARATOR ) );
+          }
+          return getOutcome( jobScheduleRequest, createSchedulerJob( schedulerResource, jobScheduleRequest ) );
+        } catch ( Exception ex ) {
+          // log it and keep going. we shouldn't stop processing all schedules just because one fails.
+          solutionImportHandler.getLogger().error( Messages.getInstance()
+            .getString( "SolutionImportHandler.ERROR_0001_ERROR_CREATING_SCHEDULE", "[ " + jobScheduleRequest.getJobName() + " ] cause [ " + ex.getMessage() + " ]" ), ex );
+          return ScheduleRestorePipeline.Outcome.failed( jobScheduleRequest, ex.getMessage() );
+        }
+      } else {
+        // log it and keep going. we shouldn't stop processing all schedules just because one fails.
+        solutionImportHandler.getLogger().error( Messages.getInstance()
+          .getString( "SolutionImportHandler.ERROR_0001_ERROR_CREATING_SCHEDULE", "[ " + jobScheduleRequest.getJobName() + " ]" ) );
+        return ScheduleRestorePipeline.Outcome.failed( jobScheduleRequest, e.getMessage() );
+      }
+    }
+  }
+
+  private static ScheduleRestorePipeline.Outcome getOutcome( IJobScheduleRequest jobScheduleRequest,
+                                                             Response response ) {
+    if ( response.getStatus() == Response.Status.OK.getStatusCode() && response.getEntity() != null ) {
+      return ScheduleRestorePipeline.Outcome.created( jobScheduleRequest, response.getEntity().toString() );
+    }
+    return ScheduleRestorePipeline.Outcome.failed( jobScheduleRequest, response.getEntity() != null
+      ? response.getEntity().toString() : "status " + response.getStatus() );
+  }
+
+  private void recordOutcome( SolutionImportHandler solutionImportHandler,
+                              Map<Serializable, Deque<String>> jobIdsByLineageId,
+                              ScheduleRestorePipeline.Outcome outcome ) {
+    if ( outcome.getJobId() != null ) {
+      // get the schedule job id from the response and add it to the import session
+      ImportSession.getSession().addImportedScheduleJobId( outcome.getJobId() );
+      addToLineageIndex( jobIdsByLineageId, getLineageId( outcome.getJobScheduleRequest() ), outcome.getJobId() );
+      if ( solutionImportHandler.isPerformingRestore() ) {
+        solutionImportHandler.getLogger().debug( "Successfully restored schedule [ " + outcome.getJobScheduleRequest().getJobName() + " ] " );
+      }
+    }
+  }
+
+  private static Serializable getLineageId( IJobScheduleRequest jobScheduleRequest ) {
+    //paramRequest to map<String, Serializable>
+    Map<String, Serializable> mapParamsRequest = new HashMap<>();
+    for ( IJobScheduleParam paramRequest : jobScheduleRequest.getJobParameters() ) {
+      mapParamsRequest.put( paramRequest.getName(), paramRequest.getValue() );
+    }
+    return mapParamsRequest.get( RESERVEDMAPKEY_LINEAGE_ID );
+  }
+
+  /**
+   * @return the number of workers restoring schedules concurrently, read from the plugin setting
+   * <code>settings/schedule-restore-workers</code>, 1 to restore them one by one
+   */
+  int getRestoreWorkerCount() {
+    IPluginResourceLoader resourceLoader = PentahoSystem.get( IPluginResourceLoader.class, null );
+    String workerCount = resourceLoader != null
+      ? resourceLoader.getPluginSetting( ScheduleImportUtil.class, RESTORE_WORKERS_SETTING_KEY, "1" ) : "1";
+    try {
+      return Math.max( 1, Integer.parseInt( workerCount.trim() ) );
+    } catch ( NumberFormatException | NullPointerException e ) {
+      return 1;
+    }
+  }
+
+  /**
+   * Indexes jobs by their lineage id, keeping the listing order of jobs sharing one
+   *
+   * @return the ids of the jobs having each lineage id
+   */
+  static Map<Serializable, Deque<String>> indexByLineageId( List<IJob> jobs ) {
+    Map<Serializable, Deque<String>> jobIdsByLineageId = new HashMap<>();
+    for ( IJob job : jobs ) {
+      Serializable lineageId = job.getJobParams() != null ? job.getJobParams().get( RESERVEDMAPKEY_LINEAGE_ID ) : null;
+      if ( lineageId != null ) {
+        jobIdsByLineageId.computeIfAbsent( lineageId, key -> new ArrayDeque<>() ).add( job.getJobId() );
+      }
+    }
+    return jobIdsByLineageId;
+  }
+
+  private static void addToLineageIndex( Map<Serializable, Deque<String>> jobIdsByLineageId, Serializable lineageId,
+                                         String jobId ) {
+    if ( jobIdsByLineageId != null && lineageId != null ) {
+      jobIdsByLineageId.computeIfAbsent( lineageId, key -> new ArrayDeque<>() ).add( jobId );
+    }
+  }
+
   public Response createSchedulerJob( ISchedulerResource scheduler, IJobScheduleRequest jobScheduleRequest )
     throws IOException {
     Response rs = scheduler != null ? (Response) scheduler.createJob( jobScheduleRequest ) : null;
@@ -0,0 +1,209 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.importer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.api.scheduler2.IJobScheduleRequest;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.JobState;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.pentaho.platform.engine.security.SecurityHelper;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.pentaho.platform.util.messages.LocaleHelper;
+
+/**
+ * Creates the jobs of restored schedules on a pool of workers. Each worker takes a batch of schedules and creates
+ * their jobs through the scheduler resource as usual, so input files are validated and output paths resolved
+ * concurrently. When the scheduler is a {@link QuartzScheduler}, the jobs of a batch are then stored in a single job
+ * store transaction instead of one each.
+ * <p>
+ * Workers run as the user performing the restore, with the same locale.
+ */
+class ScheduleRestorePipeline {
+
+  /**
+   * Number of schedules a worker handles at a time, and whose jobs are stored together
+   */
+  static final int BATCH_SIZE = 50;
+
+  /**
+   * Creates the job of a single schedule
+   */
+  interface JobCreator {
+
+    /**
+     * @return the outcome, the job being stored later if the current thread defers jobs
+     */
+    Outcome createJob( IJobScheduleRequest jobScheduleRequest );
+  }
+
+  /**
+   * Result of restoring a schedule
+   */
+  static class Outcome {
+
+    private final IJobScheduleRequest jobScheduleRequest;
+
+    private final String jobId;
+
+    private final String failure;
+
+    private Outcome( IJobScheduleRequest jobScheduleRequest, String jobId, String failure ) {
+      this.jobScheduleRequest = jobScheduleRequest;
+      this.jobId = jobId;
+      this.failure = failure;
+    }
+
+    static Outcome created( IJobScheduleRequest jobScheduleRequest, String jobId ) {
+      return new Outcome( jobScheduleRequest, jobId, null );
+    }
+
+    static Outcome failed( IJobScheduleRequest jobScheduleRequest, String failure ) {
+      return new Outcome( jobScheduleRequest, null, failure );
+    }
+
+    IJobScheduleRequest getJobScheduleRequest() {
+      return jobScheduleRequest;
+    }
+
+    /**
+     * @return the id of the created job, null if it failed
+     */
+    String getJobId() {
+      return jobId;
+    }
+
+    /**
+     * @return why the job could not be created, null if it was
+     */
+    String getFailure() {
+      return failure;
+    }
+  }
+
+  private final IScheduler scheduler;
+
+  private final JobCreator jobCreator;
+
+  private final int workerCount;
+
+  private final Log logger;
+
+  ScheduleRestorePipeline( IScheduler scheduler, JobCreator jobCreator, int workerCount, Log logger ) {
+    this.scheduler = scheduler;
+    this.jobCreator = jobCreator;
+    this.workerCount = workerCount;
+    this.logger = logger;
+  }
+
+  /**
+   * @param jobScheduleRequests the schedules to create jobs for
+   * @return the outcome of each schedule, in the order they were given
+   * @throws InterruptedException if interrupted while waiting for the workers, which are then stopped
+   */
+  List<Outcome> run( List<IJobScheduleRequest> jobScheduleRequests ) throws InterruptedException {
+    IPentahoSession session = PentahoSessionHolder.getSession();
+    String userName = session != null ? session.getName() : null;
+    Locale locale = LocaleHelper.getLocale();
+
+    int batchCount = ( jobScheduleRequests.size() + BATCH_SIZE - 1 ) / BATCH_SIZE;
+    ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, Math.min( workerCount, batchCount ) ) );
+    try {
+      List<List<IJobScheduleRequest>> batches = new ArrayList<>( batchCount );
+      List<Future<List<Outcome>>> results = new ArrayList<>( batchCount );
+      for ( int from = 0; from < jobScheduleRequests.size(); from += BATCH_SIZE ) {
+        List<IJobScheduleRequest> batch =
+          jobScheduleRequests.subList( from, Math.min( from + BATCH_SIZE, jobScheduleRequests.size() ) );
+        batches.add( batch );
+        results.add( executor.submit( () -> runAs( userName, locale, () -> createJobs( batch ) ) ) );
+      }
+
+      List<Outcome> outcomes = new ArrayList<>( jobScheduleRequests.size() );
+      for ( int i = 0; i < batchCount; i++ ) {
+        try {
+          outcomes.addAll( results.get( i ).get() );
+        } catch ( ExecutionException e ) {
+          // the worker could not even start, e.g. the user could not be impersonated
+          logger.error( "Unable to restore a batch of " + batches.get( i ).size() + " schedules", e.getCause() );
+          for ( IJobScheduleRequest jobScheduleRequest : batches.get( i ) ) {
+            outcomes.add( Outcome.failed( jobScheduleRequest, String.valueOf( e.getCause() ) ) );
+          }
+        }
+      }
+      return outcomes;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Creates the jobs of a batch on the current thread, storing them together when possible. Jobs to be paused are
+   * created last and one at a time, as they have to be stored before they can be paused.
+   */
+  List<Outcome> createJobs( List<IJobScheduleRequest> batch ) {
+    QuartzScheduler quartzScheduler = scheduler instanceof QuartzScheduler ? (QuartzScheduler) scheduler : null;
+    Outcome[] outcomes = new Outcome[ batch.size() ];
+
+    if ( quartzScheduler != null ) {
+      quartzScheduler.deferJobs();
+    }
+    Map<String, SchedulerException> failures = Collections.emptyMap();
+    try {
+      for ( int i = 0; i < batch.size(); i++ ) {
+        if ( batch.get( i ).getJobState() == JobState.NORMAL ) {
+          outcomes[ i ] = jobCreator.createJob( batch.get( i ) );
+        }
+      }
+    } finally {
+      if ( quartzScheduler != null ) {
+        failures = quartzScheduler.submitDeferredJobs();
+      }
+    }
+
+    for ( int i = 0; i < batch.size(); i++ ) {
+      if ( outcomes[ i ] == null ) {
+        outcomes[ i ] = jobCreator.createJob( batch.get( i ) );
+      } else if ( outcomes[ i ].getJobId() != null && failures.containsKey( outcomes[ i ].getJobId() ) ) {
+        SchedulerException failure = failures.get( outcomes[ i ].getJobId() );
+        logger.error( "Unable to store the job of schedule [ " + batch.get( i ).getJobName() + " ]", failure );
+        outcomes[ i ] = Outcome.failed( batch.get( i ), String.valueOf( failure.getCause() ) );
+      }
+    }
+
+    List<Outcome> result = new ArrayList<>( batch.size() );
+    Collections.addAll( result, outcomes );
+    return result;
+  }
+
+  private static <T> T runAs( String userName, Locale locale, Callable<T> callable ) throws Exception {
+    Callable<T> withLocale = () -> {
+      LocaleHelper.setLocale( locale );
+      return callable.call();
+    };
+    return userName != null ? SecurityHelper.getInstance().runAsUser( userName, withLocale ) : withLocale.call();
+  }
+}
@@ -28,13 +28,21 @@ import org.pentaho.platform.api.repository2.unified.IStreamListener;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.scheduler2.IBackgroundExecutionStreamProvider;
+import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.engine.core.audit.AuditHelper;
+import org.pentaho.platform.engine.core.audit.MessageTypes;
 import org.pentaho.platform.engine.core.output.FileContentItem;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.security.SecurityHelper;
 import org.pentaho.platform.engine.services.solution.ActionSequenceCompatibilityFormatter;
 import org.pentaho.platform.scheduler2.ISchedulerOutputPathResolver;
 import org.pentaho.platform.scheduler2.messsages.Messages;
+import org.pentaho.platform.scheduler2.quartz.BlockingQuartzJob;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
 import org.pentaho.platform.util.ActionUtil;
+import org.pentaho.platform.util.StringUtil;
 import org.pentaho.platform.util.beans.ActionHarness;
 import org.pentaho.platform.util.messages.LocaleHelper;
 import org.pentaho.platform.workitem.WorkItemLifecycleEventUtil;
@@ -45,8 +53,25 @@ import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
-
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+
+/**
+ * Runs an action for the scheduler, streaming its output to the file given by its stream provider.
+ * <p>
+ * The post-processing of the action (emailing and cleaning up its output, marking its content as generated) runs on
+ * the {@link PostProcessingExecutor} of the scheduler once the output file is ready, after {@link #call()} returned
+ * and the worker thread of the scheduler was released. The execution of the job, its <code>INSTANCE_END</code> audit
+ * record and its <code>COMPLETED</code> job event are therefore reported from the action alone, before its
+ * post-processing is done. A post-processing that fails, or whose output file is not ready within the output file
+ * timeout, is reported afterwards: by a <code>FAILED</code> work item lifecycle event and by an
+ * <code>INSTANCE_FAILED</code> audit record following the <code>INSTANCE_END</code> one.
+ */
 public class ActionRunner implements IActionRunner {
 
   private static final Log logger = LogFactory.getLog( ActionRunner.class );
@@ -56,10 +81,21 @@ public class ActionRunner implements IActionRunner {
   protected IBackgroundExecutionStreamProvider streamProvider;
   protected String actionUser;
 
-  protected String outputFilePath = null;
-  protected boolean streamComplete = false;
+  protected volatile String outputFilePath = null;
+  protected volatile boolean streamComplete = false;
+  /**
+   * @deprecated nothing waits on it any more, see {@link #outputFileReady}
+   */
+  @Deprecated
   protected Object lock = new Object();
 
+  /**
+   * Completed by the stream listener once the output file is created or the stream is complete
+   */
+  protected final CompletableFuture<String> outputFileReady = new CompletableFuture<>();
+
+  protected CompletableFuture<Void> postProcessing = CompletableFuture.completedFuture( null );
+
   public static final String KEY_USE_JCR = "useJcr"; // TODO move to more common place
   public static final String KEY_JCR_OUTPUT_PATH = "jcrOutputPath"; // TODO move to more common place
 
@@ -97,19 +133,29 @@ public class ActionRunner implements IActionRunner {
 
   public Boolean call() throws ActionInvocationException {
     final String workItemName = ActionUtil.extractName( params );
+    final long start = System.currentTimeMillis();
     try {
       final ExecutionResult result = callImpl();
-      if ( result.isSuccess() ) {
-        WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.SUCCEEDED );
-      } else {
-        WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.FAILED );
-      }
+      // the outcome is known once post-processing is done, which may be after this call returns
+      postProcessing = postProcessing.whenComplete( ( ignored, t ) -> {
+        Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        if ( cause instanceof TimeoutException ) {
+          logger.error( "Output file of action " + actionBean.getClass().getName() + " was not ready within "
+            + getOutputFileTimeout() + " ms, it is not post-processed" );
+          WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.FAILED, cause.toString() );
+          makeFailureAuditRecord( (float) ( System.currentTimeMillis() - start ) / 1000 );
+        } else if ( t != null ) {
+          logger.error( "Post-processing of action " + actionBean.getClass().getName() + " failed", t );
+          WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.FAILED, t.toString() );
+          makeFailureAuditRecord( (float) ( System.currentTimeMillis() - start ) / 1000 );
+        } else if ( result.isSuccess() ) {
+          WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.SUCCEEDED );
+        } else {
+          WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.FAILED );
+        }
+      } );
       return result.updateRequired();
     } catch ( final Throwable t ) {
-      // ensure that the main thread isn't blocked on lock
-      synchronized ( lock ) {
-        lock.notifyAll();
-      }
       WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.FAILED, t.toString() );
       // We should not distinguish between checked and unchecked exceptions here. All job execution failures
       // should result in a rethrow of the exception
@@ -118,15 +164,47 @@ public class ActionRunner implements IActionRunner {
     }
   }
 
+  /**
+   * @return the post-processing of the action (emailing and cleaning up its output, marking its content as
+   * generated), which runs on a separate executor once the output file is ready, completed once done and reported
+   */
+  public CompletableFuture<Void> getPostProcessing() {
+    return postProcessing;
+  }
+
+  /**
+   * Audits the failure of the post-processing of a job action, the same way {@link BlockingQuartzJob} audits the
+   * execution of the action itself.
+   *
+   * @param time the time since the action started, in seconds
+   */
+  protected void makeFailureAuditRecord( final float time ) {
+    if ( params == null || params.get( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER ) == null
+      || params.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONID ) == null ) {
+      // not run for a job
+      return;
+    }
+    Object restartFlag = params.get( QuartzScheduler.RESERVEDMAPKEY_RESTART_FLAG );
+    String messageType = Boolean.parseBoolean( String.valueOf( restartFlag ) )
+      ? MessageTypes.RECREATED_INSTANCE_FAILED : MessageTypes.INSTANCE_FAILED;
+    Object actionUserParam = params.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONUSER );
+    Object lineageId = params.get( QuartzScheduler.RESERVEDMAPKEY_LINEAGE_ID );
+    AuditHelper.audit( PentahoSessionHolder.getSession() != null ? PentahoSessionHolder.getSession().getId() : "",
+      actionUserParam != null ? actionUserParam.toString() : "",
+      params.get( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER ).toString(),
+      BlockingQuartzJob.class.getName(),
+      params.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONID ).toString(),
+      messageType,
+      lineageId != null ? lineageId.toString() : "",
+      null,
+      time,
+      null );
+  }
+
   private ExecutionResult callImpl() throws Exception {
     boolean executionStatus = true;
 
-    final Object locale = params.get( LocaleHelper.USER_LOCALE_PARAM );
-    if ( locale instanceof Locale ) {
-      LocaleHelper.setThreadLocaleOverride( (Locale) locale );
-    } else {
-      LocaleHelper.setThreadLocaleOverride( new Locale( (String) locale ) );
-    }
+    setThreadLocale();
     // sync job params to the action bean
     ActionHarness actionHarness = new ActionHarness( actionBean );
 
@@ -171,18 +249,14 @@ public class ActionRunner implements IActionRunner {
       if ( stream instanceof ISourcesStreamEvents ) {
         ( (ISourcesStreamEvents) stream ).addListener( new IStreamListener() {
           public void fileCreated( final String filePath ) {
-            synchronized ( lock ) {
-              outputFilePath = filePath;
-              lock.notifyAll();
-            }
+            outputFilePath = filePath;
+            outputFileReady.complete( filePath );
           }
 
           @Override
           public void streamComplete() {
-            synchronized ( lock ) {
-              lock.notifyAll();
-              streamComplete = true;
-            }
+            streamComplete = true;
+            outputFileReady.complete( outputFilePath );
           }
         } );
         waitForFileCreated = true;
@@ -197,24 +271,88 @@ public class ActionRunner implements IActionRunner {
       IOUtils.closeQuietly( stream );
     }
 
-    if ( waitForFileCreated ) {
-      synchronized ( lock ) {
-        while ( outputFilePath == null && !streamComplete ) {
-          lock.wait( 1000 );
-        }
-      }
-      sendEmail( actionParams );
-      deleteFileIfEmpty();
+    final boolean emailOutput = waitForFileCreated;
+    final IPostProcessingAction postProcessingAction =
+      actionBean instanceof IPostProcessingAction ? (IPostProcessingAction) actionBean : null;
+    if ( postProcessingAction != null ) {
+      closeContentOutputStreams( postProcessingAction );
     }
-    if ( actionBean instanceof IPostProcessingAction ) {
-      closeContentOutputStreams( (IPostProcessingAction) actionBean );
-      markContentAsGenerated( (IPostProcessingAction) actionBean );
+    if ( emailOutput || postProcessingAction != null ) {
+      // the worker is released now, the rest runs once the output file is ready
+      CompletableFuture<?> ready = emailOutput
+        ? outputFileReady.orTimeout( getOutputFileTimeout(), TimeUnit.MILLISECONDS )
+        : CompletableFuture.completedFuture( null );
+      postProcessing = ready.thenRunAsync( () -> runAsActionUser( () -> {
+        if ( emailOutput ) {
+          sendEmail( actionParams );
+          deleteFileIfEmpty();
+        }
+        if ( postProcessingAction != null ) {
+          markContentAsGenerated( postProcessingAction );
+        }
+      } ), getPostProcessingExecutor() );
     }
 
     // Create the ExecutionResult to return the status and whether the update is required or not
     return new ExecutionResult( false, executionStatus );
   }
 
+  private void setThreadLocale() {
+    final Object locale = params.get( LocaleHelper.USER_LOCALE_PARAM );
+    if ( locale instanceof Locale ) {
+      LocaleHelper.setThreadLocaleOverride( (Locale) locale );
+    } else {
+      LocaleHelper.setThreadLocaleOverride( new Locale( (String) locale ) );
+    }
+  }
+
+  /**
+   * Runs post-processing as the action user, in the action locale, the same way {@link DefaultActionInvoker} runs the
+   * action itself.
+   */
+  private void runAsActionUser( final Runnable runnable ) {
+    try {
+      final Callable<Void> callable = () -> {
+        setThreadLocale();
+        runnable.run();
+        return null;
+      };
+      if ( StringUtil.isEmpty( actionUser ) || actionUser.equals( "system session" ) ) { //$NON-NLS-1$
+        SecurityHelper.getInstance().runAsAnonymous( callable );
+      } else {
+        SecurityHelper.getInstance().runAsUser( actionUser, callable );
+      }
+    } catch ( RuntimeException e ) {
+      throw e;
+    } catch ( Exception e ) {
+      throw new CompletionException( e );
+    }
+  }
+
+  /**
+   * @return the executor running post-processing, the {@link PostProcessingExecutor} of the scheduler, or the thread
+   * completing the output file if there is no scheduler
+   */
+  protected Executor getPostProcessingExecutor() {
+    QuartzScheduler scheduler = getQuartzScheduler();
+    return scheduler != null ? scheduler.getPostProcessingExecutor() : Runnable::run;
+  }
+
+  /**
+   * @return the time post-processing waits for the output file to be ready, in milliseconds, after which the action is
+   * reported as failed
+   */
+  protected long getOutputFileTimeout() {
+    QuartzScheduler scheduler = getQuartzScheduler();
+    return scheduler != null ? scheduler.getPostProcessingExecutor().getOutputFileTimeout()
+      : PostProcessingExecutor.DEFAULT_OUTPUT_FILE_TIMEOUT;
+  }
+
+  private static QuartzScheduler getQuartzScheduler() {
+    IScheduler scheduler = PentahoSystem.get( IScheduler.class, "IScheduler2", null ); //$NON-NLS-1$
+    return scheduler instanceof QuartzScheduler ? (QuartzScheduler) scheduler : null;
+  }
+
   /**
    * Get full path parent directory of a given full path filename.
    * @param path
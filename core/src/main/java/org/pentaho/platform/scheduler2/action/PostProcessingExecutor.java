@@ -0,0 +1,164 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.action;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the post-processing of the actions run by {@link ActionRunner} (emailing and cleaning up their output, marking
+ * their content as generated) once their output file is ready, on a fixed pool of daemon threads owned by the
+ * scheduler. The queue in front of the pool is bounded: a post-processing arriving at a full queue runs on the thread
+ * that submits it, which is the thread that wrote the output file, slowing down the actions that produce output faster
+ * than it is processed.
+ * <p>
+ * The scheduler shuts the executor down when it is shut down, waiting for the queued post-processing to complete.
+ */
+public class PostProcessingExecutor implements Executor {
+
+  private static final Log logger = LogFactory.getLog( PostProcessingExecutor.class );
+
+  public static final int DEFAULT_THREADS = 4;
+
+  public static final int DEFAULT_QUEUE_SIZE = 100;
+
+  /**
+   * Time an action waits for its output file to be ready, in milliseconds
+   */
+  public static final long DEFAULT_OUTPUT_FILE_TIMEOUT = 3600000L;
+
+  private final ThreadPoolExecutor executor;
+
+  private final long outputFileTimeout;
+
+  private final AtomicLong submittedCount = new AtomicLong();
+
+  private final AtomicLong callerRunsCount = new AtomicLong();
+
+  public PostProcessingExecutor() {
+    this( DEFAULT_THREADS, DEFAULT_QUEUE_SIZE, DEFAULT_OUTPUT_FILE_TIMEOUT );
+  }
+
+  /**
+   * @param outputFileTimeout time an action waits for its output file to be ready, in milliseconds
+   */
+  public PostProcessingExecutor( int threads, int queueSize, long outputFileTimeout ) {
+    if ( threads < 1 || queueSize < 1 || outputFileTimeout < 1 ) {
+      throw new IllegalArgumentException( "threads: " + threads + ", queue size: " + queueSize
+        + ", output file timeout: " + outputFileTimeout );
+    }
+    this.outputFileTimeout = outputFileTimeout;
+    AtomicInteger threadCount = new AtomicInteger();
+    executor = new ThreadPoolExecutor( threads, threads, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>( queueSize ), runnable -> {
+        Thread thread = new Thread( runnable, "ActionRunner-PostProcessing-" + threadCount.incrementAndGet() );
+        thread.setDaemon( true );
+        return thread;
+      }, ( runnable, pool ) -> {
+        if ( pool.isShutdown() ) {
+          throw new RejectedExecutionException( "Post-processing executor is shut down" );
+        }
+        callerRunsCount.incrementAndGet();
+        runnable.run();
+      } );
+  }
+
+  /**
+   * @throws RejectedExecutionException if the executor is shut down
+   */
+  @Override
+  public void execute( Runnable command ) {
+    submittedCount.incrementAndGet();
+    executor.execute( command );
+  }
+
+  /**
+   * Stops taking post-processing and waits for the queued ones to complete. Those still queued after
+   * <code>timeout</code> are dropped and the running ones interrupted.
+   *
+   * @param timeout in milliseconds
+   * @return false if post-processing was dropped
+   */
+  public boolean shutdown( long timeout ) {
+    executor.shutdown();
+    try {
+      if ( executor.awaitTermination( timeout, TimeUnit.MILLISECONDS ) ) {
+        return true;
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    List<Runnable> dropped = executor.shutdownNow();
+    logger.warn( dropped.size() + " post-processing of actions are dropped, "
+      + executor.getActiveCount() + " are interrupted" );
+    return false;
+  }
+
+  public boolean isShutdown() {
+    return executor.isShutdown();
+  }
+
+  public long getOutputFileTimeout() {
+    return outputFileTimeout;
+  }
+
+  public int getThreads() {
+    return executor.getMaximumPoolSize();
+  }
+
+  /**
+   * @return the number of post-processing running on the pool
+   */
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  /**
+   * @return the number of post-processing waiting for a thread of the pool
+   */
+  public int getDepth() {
+    return executor.getQueue().size();
+  }
+
+  public int getQueueSize() {
+    return executor.getQueue().size() + executor.getQueue().remainingCapacity();
+  }
+
+  public long getSubmittedCount() {
+    return submittedCount.get();
+  }
+
+  /**
+   * @return the number of post-processing completed by the pool, not counting those run by their caller
+   */
+  public long getCompletedCount() {
+    return executor.getCompletedTaskCount();
+  }
+
+  /**
+   * @return the number of post-processing run by their caller because the queue was full
+   */
+  public long getCallerRunsCount() {
+    return callerRunsCount.get();
+  }
+}
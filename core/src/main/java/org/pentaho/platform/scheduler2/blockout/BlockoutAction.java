@@ -24,6 +24,10 @@ import org.pentaho.platform.api.scheduler2.IBlockoutManager;
 /**
  * @author wseyler This is the job that executes when the a block out trigger fires. This job essentially does nothing
  *         more than logging the firing of the trigger.
+ *         <p>
+ *         Blockouts are enforced by {@link org.pentaho.platform.scheduler2.quartz.BlockingQuartzJob}, which skips the
+ *         fires falling within a blockout window as computed from the blockout triggers. The window does not depend on
+ *         this job running, so it returns right away instead of holding a Quartz worker thread until the window ends.
  */
 public class BlockoutAction implements IVarArgsAction {
 
@@ -34,15 +38,16 @@ public class BlockoutAction implements IVarArgsAction {
 
   @Override
   public void execute() throws Exception {
+    // the last run of this blockout has just changed
+    BlockoutManagerUtil.invalidateBlockOutLastRuns();
     Date startDate = new Date();
     long effectiveDuration = duration - ( startDate.getTime() - scheduledFireTime.getTime() );
     if ( effectiveDuration < 0 ) {
       logger.warn( "Blocking Scheduled for " + scheduledFireTime + " for " + this.duration
           + " milliseconds has already expired" );
     } else {
-      logger.warn( "Blocking Started at: " + startDate + " and will last: " + effectiveDuration + " milliseconds" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-      Thread.sleep( effectiveDuration );
-      logger.warn( "Blockout that started at: " + startDate + " has ended at: " + new Date() ); //$NON-NLS-1$ //$NON-NLS-2$
+      logger.warn( "Blocking Started at: " + startDate + " and will last: " + effectiveDuration //$NON-NLS-1$ //$NON-NLS-2$
+          + " milliseconds, until: " + new Date( startDate.getTime() + effectiveDuration ) ); //$NON-NLS-1$
     }
   }
 
@@ -0,0 +1,154 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+
+/**
+ * Finds the schedules a blockout would block, and when. The windows of the blockout are computed once into a
+ * {@link BlockoutWindowIndex}, then the fire times of every schedule are swept against that single timeline, rather
+ * than evaluating the blockout again for each schedule.
+ * <p>
+ * Only conflicts from the time of the analysis on are reported, within {@link BlockoutManagerUtil#FIRE_TIMES_HORIZON}
+ * unless both triggers are simple, in which case the overlap is solved exactly by {@link PeriodicOverlap}.
+ */
+public class BlockoutImpactAnalyzer {
+
+  /**
+   * Number of schedules from which they are analyzed in parallel, on the common fork join pool
+   */
+  static final int PARALLEL_THRESHOLD = 64;
+
+  private final IJobTrigger blockOutJobTrigger;
+
+  private final IScheduler scheduler;
+
+  private final long from;
+
+  private final BlockoutWindowIndex index;
+
+  /**
+   * A schedule blocked by the blockout
+   */
+  public static class Impact {
+
+    private final IJob job;
+
+    private final Date firstConflict;
+
+    Impact( IJob job, Date firstConflict ) {
+      this.job = job;
+      this.firstConflict = firstConflict;
+    }
+
+    public IJob getJob() {
+      return job;
+    }
+
+    /**
+     * @return the first fire time of the schedule falling within a blockout window, or null if the blockout could
+     * only be evaluated as a whole
+     */
+    public Date getFirstConflict() {
+      return firstConflict;
+    }
+  }
+
+  /**
+   * @param blockOutJobTrigger the blockout trigger, with its duration set
+   * @param scheduler          the scheduler fire times are calculated for
+   * @throws SchedulerException if the blockout trigger cannot be evaluated
+   */
+  public BlockoutImpactAnalyzer( IJobTrigger blockOutJobTrigger, IScheduler scheduler ) throws SchedulerException {
+    this( blockOutJobTrigger, scheduler, System.currentTimeMillis() );
+  }
+
+  BlockoutImpactAnalyzer( IJobTrigger blockOutJobTrigger, IScheduler scheduler, long from )
+    throws SchedulerException {
+    this.blockOutJobTrigger = blockOutJobTrigger;
+    this.scheduler = scheduler;
+    this.from = from;
+    this.index = BlockoutWindowIndex.build( Collections.singletonList( blockOutJobTrigger ), from,
+      BlockoutManagerUtil.FIRE_TIMES_HORIZON );
+  }
+
+  /**
+   * @param jobs the scheduled jobs
+   * @return the jobs blocked by the blockout, in the order they were given
+   */
+  public List<Impact> analyze( List<? extends IJob> jobs ) {
+    Stream<? extends IJob> stream = jobs.size() >= PARALLEL_THRESHOLD ? jobs.parallelStream() : jobs.stream();
+    return stream.map( this::getImpact ).filter( Objects::nonNull ).collect( Collectors.toList() );
+  }
+
+  /**
+   * @return the impact of the blockout on the job, or null if it is not blocked
+   */
+  public Impact getImpact( IJob job ) {
+    IJobTrigger scheduleTrigger = job.getJobTrigger();
+    if ( index == null ) {
+      // windows of this type of blockout are not indexed, evaluate it the usual way
+      return BlockoutManagerUtil.willBlockSchedule( scheduleTrigger, blockOutJobTrigger, scheduler )
+        ? new Impact( job, null ) : null;
+    }
+
+    long firstConflict = getFirstConflict( scheduleTrigger );
+    return firstConflict != PeriodicOverlap.NEVER ? new Impact( job, new Date( firstConflict ) ) : null;
+  }
+
+  /**
+   * @return the first fire time of the schedule, at or after the time of the analysis, falling within a blockout
+   * window, or {@link PeriodicOverlap#NEVER}
+   */
+  long getFirstConflict( IJobTrigger scheduleTrigger ) {
+    if ( BlockoutManagerUtil.isComplexTrigger( scheduleTrigger ) ) {
+      long[] fireTimes = BlockoutManagerUtil.getFireTimeMillis( scheduleTrigger, scheduler ).clone();
+      Arrays.sort( fireTimes );
+      return index.firstBlocked( fireTimes );
+    }
+
+    long start = scheduleTrigger.getStartTime().getTime();
+    long interval = ( (SimpleJobTrigger) scheduleTrigger ).getRepeatInterval() * 1000;
+    long end = scheduleTrigger.getEndTime() != null ? scheduleTrigger.getEndTime().getTime() : Long.MAX_VALUE;
+
+    if ( !( blockOutJobTrigger instanceof SimpleJobTrigger ) ) {
+      return index.firstBlocked( start, interval, end );
+    }
+
+    // first upcoming fire time
+    if ( start < from ) {
+      if ( interval <= 0 ) {
+        return PeriodicOverlap.NEVER;
+      }
+      start += ( ( from - start + interval - 1 ) / interval ) * interval;
+    }
+    long blockOutInterval = ( (SimpleJobTrigger) blockOutJobTrigger ).getRepeatInterval() * 1000;
+    long blockOutEnd =
+      blockOutJobTrigger.getEndTime() != null ? blockOutJobTrigger.getEndTime().getTime() : Long.MAX_VALUE;
+    return PeriodicOverlap.firstConflict( start, interval, end, blockOutJobTrigger.getStartTime().getTime(),
+      blockOutInterval, blockOutJobTrigger.getDuration(), blockOutEnd );
+  }
+}
@@ -14,6 +14,7 @@
 package org.pentaho.platform.scheduler2.blockout;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -26,12 +27,24 @@ import org.pentaho.platform.api.scheduler2.Job;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
-import org.pentaho.platform.scheduler2.quartz.QuartzJobKey;
 import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
-import org.quartz.Trigger;
 
 public class BlockoutManagerUtil {
 
+  /**
+   * Determines the maximum amount of fire times allowed to be calculated
+   */
+  private static final int MAX_FIRE_TIMES = 1000;
+
+  /**
+   * How far ahead fire times are calculated
+   */
+  static final long FIRE_TIMES_HORIZON = 4 * TIME.YEAR.time;
+
+  private static final String BLOCK_OUT_LAST_RUNS_KEY = "blockOutLastRuns"; //$NON-NLS-1$
+
+  static final FireTimeCache FIRE_TIME_CACHE = new FireTimeCache();
+
   /**
    * Standard Units of Time
    */
@@ -53,7 +66,7 @@ public class BlockoutManagerUtil {
       return true;
     }
 
-    List<Date> fireTimes = getFireTimes( jobTrigger, scheduler );
+    long[] fireTimes = getFireTimeMillis( jobTrigger, scheduler );
 
     for ( IJobTrigger blockOutJobTrigger : blockOutTriggers ) {
 
@@ -68,14 +81,14 @@ public class BlockoutManagerUtil {
           return false;
         }
 
-        List<Date> blockoutFireTimes = null;
+        FireTimeIterator blockoutFireTimes = null;
         if ( isBlockoutComplex ) {
-          blockoutFireTimes = getFireTimes( blockOutJobTrigger, scheduler );
+          blockoutFireTimes = getFireTimeIterator( blockOutJobTrigger );
         }
 
         // Loop through fire times and verify whether block out is blocking the schedule completely
         boolean scheduleCompletelyBlocked = true;
-        for ( Date fireTime : fireTimes ) {
+        for ( long fireTime : fireTimes ) {
           scheduleCompletelyBlocked =
               isBlockoutComplex ? willComplexBlockOutTriggerBlockDate( blockOutJobTrigger, blockoutFireTimes, fireTime )
                   : willBlockDate( blockOutJobTrigger, fireTime, scheduler );
@@ -119,40 +132,21 @@ public class BlockoutManagerUtil {
     /*
      * Both blockOut and schedule triggers are simple. Continue with mathematical calculations
      */
-    long blockOutRecurrence = getRecurrenceInterval( blockOutJobTrigger );
-    long scheduleRecurrence = getRecurrenceInterval( scheduleTrigger );
-
-    for ( int i = 0; i < 1000; i++ ) {
-      double shiftBy = ( blockOutRecurrence - scheduleRecurrence ) * i / (double) scheduleRecurrence;
-
-      double x1 =
-          ( blockOutJobTrigger.getStartTime().getTime() - scheduleTrigger.getStartTime().getTime() )
-              / (double) scheduleRecurrence + shiftBy;
-
-      double x2 =
-          ( blockOutJobTrigger.getStartTime().getTime() + blockOutJobTrigger.getDuration() - scheduleTrigger
-              .getStartTime().getTime() )
-              / (double) scheduleRecurrence + shiftBy;
-
-      if ( hasIntBetween( x1, x2 ) ) {
-
-        int xShift = (int) Math.ceil( x1 < x2 ? x1 : x2 );
-
-        long scheduleDate = scheduleTrigger.getStartTime().getTime() + scheduleRecurrence * ( i + xShift );
-        long blockOutStartDate = blockOutJobTrigger.getStartTime().getTime() + blockOutRecurrence * i;
-
-        // Test intersection of dates fall within range
-        if ( scheduleTrigger.getStartTime().getTime() <= scheduleDate
-            && ( scheduleTrigger.getEndTime() == null || scheduleDate <= scheduleTrigger.getEndTime().getTime() )
-            && blockOutJobTrigger.getStartTime().getTime() <= blockOutStartDate
-            && ( blockOutJobTrigger.getEndTime() == null || blockOutStartDate <= blockOutJobTrigger.getEndTime()
-                .getTime() ) ) {
-          return true;
-        }
-      }
-    }
+    return getFirstSimpleConflict( scheduleTrigger, blockOutJobTrigger ) != PeriodicOverlap.NEVER;
+  }
 
-    return false;
+  /**
+   * Solves the overlap of two simple triggers exactly, see {@link PeriodicOverlap}.
+   *
+   * @return the first fire time of the schedule falling within a blockout window, or {@link PeriodicOverlap#NEVER}
+   */
+  static long getFirstSimpleConflict( IJobTrigger scheduleTrigger, IJobTrigger blockOutJobTrigger ) {
+    return PeriodicOverlap.firstConflict( scheduleTrigger.getStartTime().getTime(),
+        getRecurrenceInterval( scheduleTrigger ),
+        scheduleTrigger.getEndTime() != null ? scheduleTrigger.getEndTime().getTime() : Long.MAX_VALUE,
+        blockOutJobTrigger.getStartTime().getTime(), getRecurrenceInterval( blockOutJobTrigger ),
+        blockOutJobTrigger.getDuration(),
+        blockOutJobTrigger.getEndTime() != null ? blockOutJobTrigger.getEndTime().getTime() : Long.MAX_VALUE );
   }
 
   private static boolean willComplexBlockOutTriggerBlockSchedule( IJobTrigger blockOutJobTrigger,
@@ -168,9 +162,12 @@ public class BlockoutManagerUtil {
 
     long duration = blockOutJobTrigger.getDuration();
 
-    // Loop through fire times of block out trigger
-    for ( Date blockOutStartDate : getFireTimes( blockOutJobTrigger, scheduler ) ) {
-      Date blockOutEndDate = new Date( blockOutStartDate.getTime() + duration );
+    // Loop through fire times of block out trigger, including a window open now
+    FireTimeIterator blockOutFireTimes =
+        getFireTimeIterator( blockOutJobTrigger, System.currentTimeMillis() - duration, FIRE_TIMES_HORIZON + duration );
+    for ( int i = 0; i < MAX_FIRE_TIMES && blockOutFireTimes.hasNext(); i++ ) {
+      long blockOutStartDate = blockOutFireTimes.nextLong();
+      long blockOutEndDate = blockOutStartDate + duration;
 
       if ( willBlockOutRangeBlockSimpleTrigger( blockOutStartDate, blockOutEndDate, scheduleTrigger, scheduler ) ) {
         return true;
@@ -180,14 +177,14 @@ public class BlockoutManagerUtil {
     return false;
   }
 
-  private static boolean willBlockOutRangeBlockSimpleTrigger( Date startBlockOutRange, Date endBlockOutRange,
+  private static boolean willBlockOutRangeBlockSimpleTrigger( long startBlockOutRange, long endBlockOutRange,
       IJobTrigger scheduleTrigger, IScheduler scheduler ) {
     // ( S1 - S ) / R <= x <= ( S2 - S ) / R
 
     double recurrence = getRecurrenceInterval( scheduleTrigger );
     recurrence = recurrence != 0 ? recurrence : 1;
-    double x1 = ( startBlockOutRange.getTime() - scheduleTrigger.getStartTime().getTime() ) / recurrence;
-    double x2 = ( endBlockOutRange.getTime() - scheduleTrigger.getStartTime().getTime() ) / recurrence;
+    double x1 = ( startBlockOutRange - scheduleTrigger.getStartTime().getTime() ) / recurrence;
+    double x2 = ( endBlockOutRange - scheduleTrigger.getStartTime().getTime() ) / recurrence;
 
     return hasPositiveIntBetween( x1, x2 );
   }
@@ -195,8 +192,10 @@ public class BlockoutManagerUtil {
   private static boolean willBlockComplexScheduleTrigger( IJobTrigger trigger, IJobTrigger blockOut,
       IScheduler scheduler ) {
 
-    for ( Date fireTime : getFireTimes( trigger, scheduler ) ) {
-      if ( willBlockDate( blockOut, fireTime, scheduler ) ) {
+    FireTimeIterator blockOutFireTimes = isComplexTrigger( blockOut ) ? getFireTimeIterator( blockOut ) : null;
+    for ( long fireTime : getFireTimeMillis( trigger, scheduler ) ) {
+      if ( blockOutFireTimes != null ? willComplexBlockOutTriggerBlockDate( blockOut, blockOutFireTimes, fireTime )
+          : willBlockDate( blockOut, fireTime, scheduler ) ) {
         return true;
       }
     }
@@ -206,20 +205,20 @@ public class BlockoutManagerUtil {
 
   private static boolean willComplexBlockOutBlockComplexScheduleTrigger( IJobTrigger blockOutJobTrigger,
       IJobTrigger jobTrigger, IScheduler scheduler ) {
-    List<Date> blockOutFireTimes = getFireTimes( blockOutJobTrigger, scheduler );
+    long[] blockOutFireTimes = getFireTimeMillis( blockOutJobTrigger, scheduler );
 
     int iStart = 0;
-    for ( Date scheduleFireTime : getFireTimes( jobTrigger, scheduler ) ) {
-      for ( int i = iStart; i < blockOutFireTimes.size(); i++ ) {
-        Date blockOutStartDate = blockOutFireTimes.get( i );
+    for ( long scheduleFireTime : getFireTimeMillis( jobTrigger, scheduler ) ) {
+      for ( int i = iStart; i < blockOutFireTimes.length; i++ ) {
+        long blockOutStartDate = blockOutFireTimes[ i ];
 
         // BlockOut start date after scheduled fire time
-        if ( blockOutStartDate.after( scheduleFireTime ) ) {
+        if ( blockOutStartDate > scheduleFireTime ) {
           iStart = i;
           break;
         }
 
-        Date blockOutEndDate = new Date( blockOutStartDate.getTime() + blockOutJobTrigger.getDuration() );
+        long blockOutEndDate = blockOutStartDate + blockOutJobTrigger.getDuration();
 
         if ( isDateIncludedInRangeInclusive( blockOutStartDate, blockOutEndDate, scheduleFireTime ) ) {
           return true;
@@ -231,56 +230,46 @@ public class BlockoutManagerUtil {
     return false;
   }
 
-  private static boolean willBlockDate( IJobTrigger blockOutJobTrigger, Date date, IScheduler scheduler ) {
+  private static boolean willBlockDate( IJobTrigger blockOutJobTrigger, long date, IScheduler scheduler ) {
     // S + Rx <= d <= S + Rx + D
 
     // Out of range of block out
-    if ( date.before( blockOutJobTrigger.getStartTime() )
-        || ( blockOutJobTrigger.getEndTime() != null && date.after( blockOutJobTrigger.getEndTime() ) ) ) {
+    if ( date < blockOutJobTrigger.getStartTime().getTime()
+        || ( blockOutJobTrigger.getEndTime() != null && date > blockOutJobTrigger.getEndTime().getTime() ) ) {
       return false;
     }
 
     if ( isComplexTrigger( blockOutJobTrigger ) ) {
-      return willComplexBlockOutTriggerBlockDate( blockOutJobTrigger, getFireTimes( blockOutJobTrigger, scheduler ),
-          date );
+      // only the windows opened within one duration before the date matter
+      long duration = blockOutJobTrigger.getDuration();
+      return getFireTimeIterator( blockOutJobTrigger, date - duration, duration ).hasNext();
     }
 
     long blockOutRecurrenceInterval = getRecurrenceInterval( blockOutJobTrigger );
 
-    double x1 = ( date.getTime() - blockOutJobTrigger.getStartTime().getTime() ) / (double) blockOutRecurrenceInterval;
+    double x1 = ( date - blockOutJobTrigger.getStartTime().getTime() ) / (double) blockOutRecurrenceInterval;
     double x2 =
-        ( date.getTime() - ( blockOutJobTrigger.getStartTime().getTime() + blockOutJobTrigger.getDuration() ) )
+        ( date - ( blockOutJobTrigger.getStartTime().getTime() + blockOutJobTrigger.getDuration() ) )
             / (double) blockOutRecurrenceInterval;
 
     return hasPositiveIntBetween( x1, x2 );
   }
 
-  private static boolean willComplexBlockOutTriggerBlockDate( IJobTrigger blockOutJobTrigger, List<Date> blockOutDates,
-      Date date ) {
+  /**
+   * @param blockOutFireTimes fire times of the blockout trigger, moved around as needed
+   */
+  private static boolean willComplexBlockOutTriggerBlockDate( IJobTrigger blockOutJobTrigger,
+      FireTimeIterator blockOutFireTimes, long date ) {
 
     // Short circuit if date does not fall within a valid start/end date range
-    if ( date.before( blockOutJobTrigger.getStartTime() )
-        || ( blockOutJobTrigger.getEndTime() != null && date.after( blockOutJobTrigger.getEndTime() ) ) ) {
+    if ( date < blockOutJobTrigger.getStartTime().getTime()
+        || ( blockOutJobTrigger.getEndTime() != null && date > blockOutJobTrigger.getEndTime().getTime() ) ) {
       return false;
     }
 
-    long blockOutDuration = blockOutJobTrigger.getDuration();
-    for ( Date blockOutStartDate : blockOutDates ) {
-
-      // Block out date has passed the date being tested
-      if ( blockOutStartDate.after( date ) ) {
-        break;
-      }
-
-      Date blockOutEndDate = new Date( blockOutStartDate.getTime() + blockOutDuration );
-
-      // Date falls within inclusive block out range
-      if ( isDateIncludedInRangeInclusive( blockOutStartDate, blockOutEndDate, date ) ) {
-        return true;
-      }
-    }
-
-    return false;
+    // Date falls within inclusive block out range if a window opened within one duration before it
+    blockOutFireTimes.seek( date - blockOutJobTrigger.getDuration() );
+    return blockOutFireTimes.hasNext() && blockOutFireTimes.nextLong() <= date;
   }
 
   public static boolean isComplexTrigger( IJobTrigger jobTrigger ) {
@@ -297,60 +286,132 @@ public class BlockoutManagerUtil {
   }
 
   public static List<Date> getFireTimes( IJobTrigger jobTrigger, IScheduler scheduler ) {
-    // Determines the maximum amount of fire times allowed to be calculated
-    int n = 1000;
-
-    Date startDate = new Date( System.currentTimeMillis() );
-    Date endDate = new Date( startDate.getTime() + 4 * TIME.YEAR.time );
+    long[] fireTimes = getFireTimeMillis( jobTrigger, scheduler );
+    List<Date> dates = new ArrayList<Date>( fireTimes.length );
+    for ( long fireTime : fireTimes ) {
+      dates.add( new Date( fireTime ) );
+    }
+    return dates;
+  }
 
+  /**
+   * Same as {@link #getFireTimes(IJobTrigger, IScheduler)}, in milliseconds. The fire times of a trigger are cached
+   * for a short while, see {@link FireTimeCache}, as a single request usually evaluates the same triggers many times.
+   *
+   * @return the last runs of the blockout jobs followed by the upcoming fire times of the trigger. The array may be
+   * shared and must not be modified.
+   */
+  static long[] getFireTimeMillis( IJobTrigger jobTrigger, IScheduler scheduler ) {
     // Quartz Triggers
     if ( scheduler instanceof QuartzScheduler ) {
-      try {
-
-        List<Date> dates = new ArrayList<Date>();
-        boolean endDateIsNull = jobTrigger.getEndTime() == null;
-        Trigger trigger = QuartzScheduler.createQuartzTrigger( jobTrigger, new QuartzJobKey( "test", "test" ) ); //$NON-NLS-1$ //$NON-NLS-2$
-
-        // add previous trigger (it might be currently active)
-        IBlockoutManager manager = PentahoSystem.get( IBlockoutManager.class, "IBlockoutManager", null ); //$NON-NLS-1$;
-        if ( manager != null ) {
-          List<Job> blockouts = (List<Job>)(List<?>)manager.getBlockOutJobs();
-          for ( Job blockout : blockouts ) {
-            if ( blockout.getLastRun() != null ) {
-              dates.add( blockout.getLastRun() );
-            }
-          }
-        }
-          
-        for ( int i = 0; i < n; i++ ) {
-          Date nextFireTime = trigger.getFireTimeAfter( startDate );
+      long now = System.currentTimeMillis();
 
-          if ( ( nextFireTime == null )
-              || ( nextFireTime.after( endDate ) || ( !endDateIsNull
-                  && nextFireTime.after( jobTrigger.getEndTime() ) ) ) ) {
-            break;
-          }
+      // add previous trigger (it might be currently active)
+      long[] blockOutLastRuns = getBlockOutLastRuns( now );
+      long[] fireTimes = getUpcomingFireTimes( jobTrigger, now );
+      if ( blockOutLastRuns.length == 0 ) {
+        return fireTimes;
+      }
 
-          dates.add( nextFireTime );
-          startDate = nextFireTime;
-        }
+      long[] dates = Arrays.copyOf( blockOutLastRuns, blockOutLastRuns.length + fireTimes.length );
+      System.arraycopy( fireTimes, 0, dates, blockOutLastRuns.length, fireTimes.length );
+      return dates;
+    }
+    throw new RuntimeException( "Can not calculate fire times for unsupported Scheduler Type: " //$NON-NLS-1$
+        + scheduler.getClass().getSimpleName() );
+  }
 
-        return dates;
+  private static long[] getUpcomingFireTimes( IJobTrigger jobTrigger, long now ) {
+    String signature = FireTimeCache.signature( jobTrigger );
+    if ( signature == null ) {
+      return computeFireTimes( jobTrigger, now );
+    }
+
+    String key = signature + '|' + MAX_FIRE_TIMES + '|' + FIRE_TIMES_HORIZON;
+    long[] fireTimes = FIRE_TIME_CACHE.get( key, now );
+    if ( fireTimes == null ) {
+      fireTimes = computeFireTimes( jobTrigger, now );
+      FIRE_TIME_CACHE.put( key, fireTimes, now );
+      return fireTimes;
+    }
+
+    // skip the fire times that passed since the sequence was computed
+    int first = 0;
+    while ( first < fireTimes.length && fireTimes[ first ] <= now ) {
+      first++;
+    }
+    return first == 0 ? fireTimes : Arrays.copyOfRange( fireTimes, first, fireTimes.length );
+  }
 
-      } catch ( SchedulerException e ) {
-        throw new RuntimeException( e );
+  private static long[] computeFireTimes( IJobTrigger jobTrigger, long now ) {
+    long[] dates = new long[ MAX_FIRE_TIMES ];
+    int count = 0;
+    FireTimeIterator fireTimes = getFireTimeIterator( jobTrigger, now + 1, FIRE_TIMES_HORIZON - 1 );
+    while ( count < MAX_FIRE_TIMES && fireTimes.hasNext() ) {
+      dates[ count++ ] = fireTimes.nextLong();
+    }
+    return Arrays.copyOf( dates, count );
+  }
+
+  /**
+   * @return the fire times of the trigger up to the usual horizon, for checks seeking through them, possibly back
+   * before the current time
+   */
+  private static FireTimeIterator getFireTimeIterator( IJobTrigger jobTrigger ) {
+    return getFireTimeIterator( jobTrigger, System.currentTimeMillis(), FIRE_TIMES_HORIZON );
+  }
+
+  private static FireTimeIterator getFireTimeIterator( IJobTrigger jobTrigger, long from, long horizon ) {
+    try {
+      return FireTimeIterator.of( jobTrigger, from, horizon );
+    } catch ( SchedulerException e ) {
+      throw new RuntimeException( e );
+    }
+  }
+
+  /**
+   * Drops the cached last runs of the blockouts, after a blockout was added, removed or fired.
+   */
+  static void invalidateBlockOutLastRuns() {
+    FIRE_TIME_CACHE.invalidate( BLOCK_OUT_LAST_RUNS_KEY );
+  }
+
+  private static long[] getBlockOutLastRuns( long now ) {
+    long[] lastRuns = FIRE_TIME_CACHE.get( BLOCK_OUT_LAST_RUNS_KEY, now );
+    if ( lastRuns != null ) {
+      return lastRuns;
+    }
+
+    lastRuns = new long[ 0 ];
+    IBlockoutManager manager = PentahoSystem.get( IBlockoutManager.class, "IBlockoutManager", null ); //$NON-NLS-1$;
+    if ( manager != null ) {
+      List<Job> blockouts = (List<Job>)(List<?>)manager.getBlockOutJobs();
+      lastRuns = new long[ blockouts.size() ];
+      int count = 0;
+      for ( Job blockout : blockouts ) {
+        if ( blockout.getLastRun() != null ) {
+          lastRuns[ count++ ] = blockout.getLastRun().getTime();
+        }
       }
+      lastRuns = Arrays.copyOf( lastRuns, count );
     }
-    throw new RuntimeException( "Can not calculate fire times for unsupported Scheduler Type: " //$NON-NLS-1$
-        + scheduler.getClass().getSimpleName() );
+    FIRE_TIME_CACHE.put( BLOCK_OUT_LAST_RUNS_KEY, lastRuns, now );
+    return lastRuns;
   }
 
   public static boolean shouldFireNow( List<IJobTrigger> blockOutJobTriggers, IScheduler scheduler ) {
+    return shouldFireAt( blockOutJobTriggers, System.currentTimeMillis(), scheduler );
+  }
+
+  /**
+   * @param time the time to check, in milliseconds
+   * @return false if <code>time</code> falls within the window of one of the blockouts
+   */
+  public static boolean shouldFireAt( List<IJobTrigger> blockOutJobTriggers, long time, IScheduler scheduler ) {
 
-    Date currentTime = new Date( System.currentTimeMillis() );
     for ( IJobTrigger blockOutJobTrigger : blockOutJobTriggers ) {
 
-      if ( willBlockDate( blockOutJobTrigger, currentTime, scheduler ) ) {
+      if ( willBlockDate( blockOutJobTrigger, time, scheduler ) ) {
         return false;
       }
     }
@@ -403,16 +464,15 @@ public class BlockoutManagerUtil {
 
   /**
    * @param dateRangeStart
-   *          {@link Date} start of range
+   *          start of range, in milliseconds
    * @param dateRangeEnd
-   *          {@link Date} end of range
+   *          end of range, in milliseconds
    * @param date
-   *          {@link Date}
+   *          date, in milliseconds
    * @return whether the date falls within the date inclusive date range
    */
-  private static boolean isDateIncludedInRangeInclusive( Date dateRangeStart, Date dateRangeEnd, Date date ) {
-    long dateTime = date.getTime();
-    return dateRangeStart.getTime() <= dateTime && dateTime <= dateRangeEnd.getTime();
+  private static boolean isDateIncludedInRangeInclusive( long dateRangeStart, long dateRangeEnd, long date ) {
+    return dateRangeStart <= date && date <= dateRangeEnd;
   }
 
 }
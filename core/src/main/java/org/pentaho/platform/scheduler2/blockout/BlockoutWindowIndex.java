@@ -0,0 +1,275 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobKey;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.quartz.spi.MutableTrigger;
+
+/**
+ * Immutable index of the blockout windows falling within a time range, used to answer "is now blocked" without
+ * looking at the blockout jobs again. Windows are stored as sorted, non overlapping [start, end] ranges in
+ * milliseconds, both ends inclusive, so a lookup is a binary search.
+ * <p>
+ * The windows follow the rules of {@link BlockoutManagerUtil#shouldFireNow(List,
+ * org.pentaho.platform.api.scheduler2.IScheduler)}: a window opens on each fire time of the blockout trigger, lasts
+ * for the blockout duration, and is clipped to the start and end time of the trigger.
+ */
+public class BlockoutWindowIndex {
+
+  /**
+   * Upper bound on the number of windows generated per blockout, the covered range is shortened if it is reached
+   */
+  static final int MAX_WINDOWS_PER_BLOCKOUT = 100000;
+
+  private final long validFrom;
+
+  private final long validUntil;
+
+  private final long[] starts;
+
+  private final long[] ends;
+
+  private BlockoutWindowIndex( long validFrom, long validUntil, long[] starts, long[] ends ) {
+    this.validFrom = validFrom;
+    this.validUntil = validUntil;
+    this.starts = starts;
+    this.ends = ends;
+  }
+
+  /**
+   * Builds the index of the windows of the given blockouts from <code>from</code> up to <code>from + horizon</code>.
+   * Windows that opened before <code>from</code> but are still open at that time are included.
+   *
+   * @param blockOutJobTriggers the blockout triggers, with their duration set
+   * @param from                start of the covered range, in milliseconds
+   * @param horizon             length of the covered range, in milliseconds
+   * @return the index, or null if one of the triggers is of a type the index does not support
+   * @throws SchedulerException if a blockout trigger cannot be evaluated
+   */
+  public static BlockoutWindowIndex build( List<IJobTrigger> blockOutJobTriggers, long from, long horizon )
+    throws SchedulerException {
+    long until = from + horizon;
+    List<long[]> windows = new ArrayList<>();
+    for ( IJobTrigger blockOutJobTrigger : blockOutJobTriggers ) {
+      long coveredUntil;
+      if ( blockOutJobTrigger instanceof SimpleJobTrigger ) {
+        coveredUntil = addSimpleWindows( (SimpleJobTrigger) blockOutJobTrigger, from, until, windows );
+      } else if ( blockOutJobTrigger instanceof ComplexJobTrigger ) {
+        coveredUntil = addComplexWindows( blockOutJobTrigger, from, until, windows );
+      } else {
+        return null;
+      }
+      until = Math.min( until, coveredUntil );
+    }
+    return merge( from, until, windows );
+  }
+
+  /**
+   * @param time the time to check, in milliseconds
+   * @return true if this index holds the windows around <code>time</code>
+   */
+  public boolean covers( long time ) {
+    return validFrom <= time && time < validUntil;
+  }
+
+  /**
+   * @param time a time {@link #covers(long) covered} by this index, in milliseconds
+   * @return true if <code>time</code> falls within a blockout window
+   */
+  public boolean isBlocked( long time ) {
+    int i = Arrays.binarySearch( starts, time );
+    if ( i >= 0 ) {
+      return true;
+    }
+    // index of the last window starting before time
+    i = -i - 2;
+    return i >= 0 && time <= ends[ i ];
+  }
+
+  /**
+   * @param time a time {@link #covers(long) covered} by this index, in milliseconds
+   * @return the end of the window <code>time</code> falls within, overlapping windows being merged, or
+   * {@link PeriodicOverlap#NEVER} if it does not fall within one
+   */
+  public long getWindowEnd( long time ) {
+    int i = Arrays.binarySearch( starts, time );
+    if ( i < 0 ) {
+      i = -i - 2;
+    }
+    return i >= 0 && time <= ends[ i ] ? ends[ i ] : PeriodicOverlap.NEVER;
+  }
+
+  /**
+   * Sweeps sorted fire times against the windows.
+   *
+   * @param fireTimes fire times in ascending order, in milliseconds
+   * @return the first covered fire time falling within a window, or {@link PeriodicOverlap#NEVER}
+   */
+  public long firstBlocked( long[] fireTimes ) {
+    int window = 0;
+    for ( long fireTime : fireTimes ) {
+      if ( fireTime < validFrom ) {
+        continue;
+      }
+      if ( fireTime >= validUntil ) {
+        break;
+      }
+      while ( window < starts.length && ends[ window ] < fireTime ) {
+        window++;
+      }
+      if ( window == starts.length ) {
+        break;
+      }
+      if ( starts[ window ] <= fireTime ) {
+        return fireTime;
+      }
+    }
+    return PeriodicOverlap.NEVER;
+  }
+
+  /**
+   * Finds the first fire time of <code>S + k * R</code>, <code>k &gt;= 0</code>, falling within a window, looking
+   * at the windows in order rather than at every fire time.
+   *
+   * @param start    first fire time, in milliseconds
+   * @param interval time between two fire times, zero or less for a single one
+   * @param end      last possible fire time, {@link Long#MAX_VALUE} if none
+   * @return the first covered fire time falling within a window, or {@link PeriodicOverlap#NEVER}
+   */
+  public long firstBlocked( long start, long interval, long end ) {
+    for ( int window = 0; window < starts.length; window++ ) {
+      long lower = Math.max( starts[ window ], validFrom );
+      long fireTime = start;
+      if ( start < lower ) {
+        if ( interval <= 0 ) {
+          break;
+        }
+        fireTime = start + ( ( lower - start + interval - 1 ) / interval ) * interval;
+      }
+      // windows are disjoint and sorted, so are the first fire times in each of them
+      if ( fireTime > end || fireTime >= validUntil ) {
+        break;
+      }
+      if ( fireTime <= ends[ window ] ) {
+        return fireTime;
+      }
+    }
+    return PeriodicOverlap.NEVER;
+  }
+
+  /**
+   * @return the number of windows after merging overlapping ones
+   */
+  public int size() {
+    return starts.length;
+  }
+
+  /**
+   * S + R * k &lt;= t &lt;= S + R * k + D, for k &gt;= 0
+   */
+  private static long addSimpleWindows( SimpleJobTrigger trigger, long from, long until, List<long[]> windows ) {
+    long start = trigger.getStartTime().getTime();
+    long duration = trigger.getDuration();
+    long recurrence = trigger.getRepeatInterval() * 1000;
+    long end = trigger.getEndTime() != null ? trigger.getEndTime().getTime() : Long.MAX_VALUE;
+
+    if ( recurrence <= 0 ) {
+      addWindow( start, start + duration, start, end, windows );
+      return until;
+    }
+
+    // first window still open at from
+    long k = Math.max( 0, Math.floorDiv( from - start - duration, recurrence ) );
+    for ( int count = 0; start + recurrence * k <= until; k++, count++ ) {
+      long windowStart = start + recurrence * k;
+      if ( windowStart > end ) {
+        break;
+      }
+      if ( count == MAX_WINDOWS_PER_BLOCKOUT ) {
+        return windowStart;
+      }
+      addWindow( windowStart, windowStart + duration, start, end, windows );
+    }
+    return until;
+  }
+
+  private static long addComplexWindows( IJobTrigger trigger, long from, long until, List<long[]> windows )
+    throws SchedulerException {
+    long start = trigger.getStartTime() != null ? trigger.getStartTime().getTime() : Long.MIN_VALUE;
+    long duration = trigger.getDuration();
+    long end = trigger.getEndTime() != null ? trigger.getEndTime().getTime() : Long.MAX_VALUE;
+    long firstFireTime = from - duration;
+    if ( end < firstFireTime ) {
+      return until;
+    }
+
+    MutableTrigger quartzTrigger =
+      QuartzScheduler.createQuartzTrigger( trigger, new QuartzJobKey( "test", "test" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    if ( quartzTrigger.getEndTime() != null && quartzTrigger.getEndTime().getTime() < firstFireTime ) {
+      return until;
+    }
+    // fire times earlier than the trigger's start time are never returned by quartz
+    quartzTrigger.setStartTime( new Date( firstFireTime ) );
+
+    Date fireTime = quartzTrigger.getFireTimeAfter( new Date( firstFireTime - 1 ) );
+    for ( int count = 0; fireTime != null && fireTime.getTime() <= until; count++ ) {
+      if ( fireTime.getTime() > end ) {
+        break;
+      }
+      if ( count == MAX_WINDOWS_PER_BLOCKOUT ) {
+        return fireTime.getTime();
+      }
+      addWindow( fireTime.getTime(), fireTime.getTime() + duration, start, end, windows );
+      fireTime = quartzTrigger.getFireTimeAfter( fireTime );
+    }
+    return until;
+  }
+
+  private static void addWindow( long windowStart, long windowEnd, long triggerStart, long triggerEnd,
+                                 List<long[]> windows ) {
+    long clippedStart = Math.max( windowStart, triggerStart );
+    long clippedEnd = Math.min( windowEnd, triggerEnd );
+    if ( clippedStart <= clippedEnd ) {
+      windows.add( new long[] { clippedStart, clippedEnd } );
+    }
+  }
+
+  private static BlockoutWindowIndex merge( long from, long until, List<long[]> windows ) {
+    windows.sort( ( a, b ) -> Long.compare( a[ 0 ], b[ 0 ] ) );
+
+    long[] starts = new long[ windows.size() ];
+    long[] ends = new long[ windows.size() ];
+    int size = 0;
+    for ( long[] window : windows ) {
+      if ( size > 0 && window[ 0 ] <= ends[ size - 1 ] ) {
+        ends[ size - 1 ] = Math.max( ends[ size - 1 ], window[ 1 ] );
+      } else {
+        starts[ size ] = window[ 0 ];
+        ends[ size ] = window[ 1 ];
+        size++;
+      }
+    }
+    return new BlockoutWindowIndex( from, until, Arrays.copyOf( starts, size ), Arrays.copyOf( ends, size ) );
+  }
+}
@@ -0,0 +1,178 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.JobTrigger;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.quartz.QuartzCronStringFactory;
+
+/**
+ * Bounded, least recently used cache of fire time sequences, stored as sorted arrays of milliseconds. Sequences are
+ * keyed by a {@link #signature(IJobTrigger) signature} of the trigger they were computed for, so equal triggers share
+ * an entry regardless of the object used to describe them.
+ * <p>
+ * Fire times are computed relative to the current time, so entries expire after a short time to live; within it,
+ * callers are expected to skip the fire times that have passed.
+ */
+public class FireTimeCache {
+
+  static final int DEFAULT_MAX_ENTRIES = 256;
+
+  static final long DEFAULT_TIME_TO_LIVE = BlockoutManagerUtil.TIME.MINUTE.time;
+
+  private final long timeToLive;
+
+  private final Map<String, Entry> entries;
+
+  private final AtomicLong hitCount = new AtomicLong();
+
+  private final AtomicLong missCount = new AtomicLong();
+
+  private static class Entry {
+
+    private final long[] fireTimes;
+
+    private final long computedAt;
+
+    Entry( long[] fireTimes, long computedAt ) {
+      this.fireTimes = fireTimes;
+      this.computedAt = computedAt;
+    }
+  }
+
+  public FireTimeCache() {
+    this( DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE );
+  }
+
+  public FireTimeCache( final int maxEntries, long timeToLive ) {
+    this.timeToLive = timeToLive;
+    this.entries = new LinkedHashMap<String, Entry>( 16, 0.75f, true ) {
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<String, Entry> eldest ) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * @param key the signature of the trigger
+   * @param now the current time, in milliseconds
+   * @return the cached fire times, or null if there are none or they have expired. The array is shared and must not
+   * be modified.
+   */
+  public long[] get( String key, long now ) {
+    Entry entry;
+    synchronized ( entries ) {
+      entry = entries.get( key );
+      if ( entry != null && now - entry.computedAt >= timeToLive ) {
+        entries.remove( key );
+        entry = null;
+      }
+    }
+    if ( entry == null ) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    return entry.fireTimes;
+  }
+
+  /**
+   * @param key        the signature of the trigger
+   * @param fireTimes  the fire times, which must not be modified afterwards
+   * @param computedAt the time the fire times were computed at, in milliseconds
+   */
+  public void put( String key, long[] fireTimes, long computedAt ) {
+    synchronized ( entries ) {
+      entries.put( key, new Entry( fireTimes, computedAt ) );
+    }
+  }
+
+  /**
+   * @param key the signature of the trigger
+   */
+  public void invalidate( String key ) {
+    synchronized ( entries ) {
+      entries.remove( key );
+    }
+  }
+
+  public void clear() {
+    synchronized ( entries ) {
+      entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized ( entries ) {
+      return entries.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Builds a canonical description of everything that determines the fire times of a trigger: its type, recurrence,
+   * start and end, start time fields and time zone.
+   *
+   * @param jobTrigger the trigger
+   * @return the signature, or null if fire times of this type of trigger are not cached
+   */
+  public static String signature( IJobTrigger jobTrigger ) {
+    if ( !( jobTrigger instanceof ComplexJobTrigger || jobTrigger instanceof SimpleJobTrigger ) ) {
+      return null;
+    }
+
+    JobTrigger trigger = (JobTrigger) jobTrigger;
+    StringBuilder signature = new StringBuilder( trigger.getClass().getSimpleName() );
+    if ( trigger instanceof ComplexJobTrigger ) {
+      String cronString = trigger.getCronString() != null
+        ? trigger.getCronString()
+        : QuartzCronStringFactory.createCronString( (ComplexJobTrigger) trigger );
+      signature.append( '|' ).append( cronString );
+    } else {
+      SimpleJobTrigger simpleTrigger = (SimpleJobTrigger) trigger;
+      signature.append( '|' ).append( simpleTrigger.getRepeatInterval() )
+        .append( '|' ).append( simpleTrigger.getRepeatCount() );
+    }
+    signature.append( '|' ).append( toMillis( trigger.getStartTime() ) )
+      .append( '|' ).append( toMillis( trigger.getEndTime() ) )
+      .append( '|' ).append( trigger.getStartYear() )
+      .append( '|' ).append( trigger.getStartMonth() )
+      .append( '|' ).append( trigger.getStartDay() )
+      .append( '|' ).append( trigger.getStartHour() )
+      .append( '|' ).append( trigger.getStartMin() )
+      .append( '|' ).append( trigger.getStartAmPm() )
+      .append( '|' ).append( trigger.getTimeZone() )
+      .append( '|' ).append( trigger.getUiPassParam() );
+    return signature.toString();
+  }
+
+  private static String toMillis( Date date ) {
+    return date != null ? Long.toString( date.getTime() ) : "";
+  }
+}
@@ -0,0 +1,187 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import java.util.Date;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobKey;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.quartz.CalendarIntervalTrigger;
+import org.quartz.CronTrigger;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.spi.MutableTrigger;
+
+/**
+ * Lazy, ascending sequence of the fire times of a trigger, in milliseconds, bounded by a horizon. Fire times are
+ * computed one at a time as they are consumed, so callers that stop early pay only for what they looked at.
+ * <p>
+ * Triggers firing at a fixed interval (legacy simple triggers, and calendar interval triggers counting seconds, minutes
+ * or hours) are computed arithmetically without allocating anything per fire time; cron and calendar interval triggers
+ * counting days or more are delegated to Quartz.
+ */
+public class FireTimeIterator implements PrimitiveIterator.OfLong {
+
+  private static final long NONE = Long.MIN_VALUE;
+
+  /**
+   * The trigger fire times are delegated to, null when they are computed arithmetically
+   */
+  private final Trigger trigger;
+
+  private final long start;
+
+  private final long interval;
+
+  /**
+   * Last possible fire time, inclusive
+   */
+  private final long end;
+
+  private long next = NONE;
+
+  private FireTimeIterator( Trigger trigger, long start, long interval, long end, long from ) {
+    this.trigger = trigger;
+    this.start = start;
+    this.interval = interval;
+    this.end = end;
+    seek( from );
+  }
+
+  /**
+   * @param jobTrigger the trigger
+   * @param from       the first fire time returned is at or after this time, in milliseconds
+   * @param horizon    no fire time after <code>from + horizon</code> is returned, in milliseconds
+   * @throws SchedulerException if the trigger cannot be evaluated
+   */
+  public static FireTimeIterator of( IJobTrigger jobTrigger, long from, long horizon ) throws SchedulerException {
+    MutableTrigger quartzTrigger =
+      QuartzScheduler.createQuartzTrigger( jobTrigger, new QuartzJobKey( "test", "test" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    long until = add( from, horizon );
+    if ( jobTrigger.getEndTime() != null ) {
+      until = Math.min( until, jobTrigger.getEndTime().getTime() );
+    }
+
+    if ( quartzTrigger instanceof CronTrigger ) {
+      // quartz never returns fire times before the start time of the trigger, which defaults to its creation
+      long startTime = jobTrigger.getStartTime() != null ? jobTrigger.getStartTime().getTime() : 0;
+      if ( quartzTrigger.getEndTime() != null && quartzTrigger.getEndTime().getTime() < startTime ) {
+        return new FireTimeIterator( null, 0, 0, NONE, from );
+      }
+      quartzTrigger.setStartTime( new Date( startTime ) );
+    }
+    return of( quartzTrigger, from, until - from );
+  }
+
+  /**
+   * @param quartzTrigger the trigger, including legacy simple triggers still found in the job store
+   * @param from          the first fire time returned is at or after this time, in milliseconds
+   * @param horizon       no fire time after <code>from + horizon</code> is returned, in milliseconds
+   */
+  public static FireTimeIterator of( Trigger quartzTrigger, long from, long horizon ) {
+    long until = add( from, horizon );
+    if ( quartzTrigger.getEndTime() != null ) {
+      until = Math.min( until, quartzTrigger.getEndTime().getTime() );
+    }
+    long start = quartzTrigger.getStartTime().getTime();
+
+    if ( quartzTrigger instanceof SimpleTrigger ) {
+      SimpleTrigger simpleTrigger = (SimpleTrigger) quartzTrigger;
+      long interval = simpleTrigger.getRepeatInterval();
+      if ( simpleTrigger.getRepeatCount() == 0 || interval <= 0 ) {
+        interval = 0;
+      } else if ( simpleTrigger.getRepeatCount() != SimpleTrigger.REPEAT_INDEFINITELY ) {
+        until = Math.min( until, add( start, simpleTrigger.getRepeatCount() * interval ) );
+      }
+      return new FireTimeIterator( null, start, interval, until, from );
+    }
+
+    if ( quartzTrigger instanceof CalendarIntervalTrigger ) {
+      CalendarIntervalTrigger calendarIntervalTrigger = (CalendarIntervalTrigger) quartzTrigger;
+      long unit = getFixedUnitMillis( calendarIntervalTrigger );
+      if ( unit > 0 && calendarIntervalTrigger.getRepeatInterval() > 0 ) {
+        return new FireTimeIterator( null, start, calendarIntervalTrigger.getRepeatInterval() * unit, until, from );
+      }
+    }
+
+    return new FireTimeIterator( quartzTrigger, start, 0, until, from );
+  }
+
+  /**
+   * Moves to the first fire time at or after <code>time</code>, which may be before the current position.
+   *
+   * @param time the time to move to, in milliseconds
+   */
+  public void seek( long time ) {
+    if ( trigger != null ) {
+      Date fireTime = trigger.getFireTimeAfter( new Date( time - 1 ) );
+      next = fireTime != null ? bounded( fireTime.getTime() ) : NONE;
+    } else if ( time <= start ) {
+      next = bounded( start );
+    } else if ( interval > 0 ) {
+      long steps = ( time - start - 1 ) / interval + 1;
+      next = steps > ( end - start ) / interval ? NONE : bounded( start + steps * interval );
+    } else {
+      next = NONE;
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    return next != NONE;
+  }
+
+  @Override
+  public long nextLong() {
+    if ( next == NONE ) {
+      throw new NoSuchElementException();
+    }
+    long fireTime = next;
+    if ( trigger != null ) {
+      Date nextFireTime = trigger.getFireTimeAfter( new Date( fireTime ) );
+      next = nextFireTime != null ? bounded( nextFireTime.getTime() ) : NONE;
+    } else {
+      next = interval > 0 && end - fireTime >= interval ? fireTime + interval : NONE;
+    }
+    return fireTime;
+  }
+
+  private long bounded( long fireTime ) {
+    return fireTime <= end ? fireTime : NONE;
+  }
+
+  private static long getFixedUnitMillis( CalendarIntervalTrigger trigger ) {
+    switch ( trigger.getRepeatIntervalUnit() ) {
+      case SECOND:
+        return BlockoutManagerUtil.TIME.SECOND.time;
+      case MINUTE:
+        return BlockoutManagerUtil.TIME.MINUTE.time;
+      case HOUR:
+        return BlockoutManagerUtil.TIME.HOUR.time;
+      default:
+        // days and longer follow the calendar, e.g. across daylight saving changes
+        return 0;
+    }
+  }
+
+  private static long add( long time, long duration ) {
+    long sum = time + duration;
+    // saturate instead of overflowing
+    return duration > 0 && sum < time ? Long.MAX_VALUE : sum;
+  }
+}
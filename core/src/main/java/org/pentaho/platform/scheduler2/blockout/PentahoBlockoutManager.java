@@ -15,6 +15,7 @@ package org.pentaho.platform.scheduler2.blockout;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.pentaho.platform.api.scheduler2.IBlockoutManager;
 import org.pentaho.platform.api.scheduler2.IJob;
@@ -24,11 +25,39 @@ import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.scheduler2.quartz.BlockingQuartzJob;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobKey;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.ListenerManager;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerListener;
+import org.quartz.SchedulerMetaData;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.listeners.SchedulerListenerSupport;
 
 public class PentahoBlockoutManager implements IBlockoutManager {
 
+  /**
+   * How far ahead blockout windows are indexed, the index is rebuilt once this horizon has passed
+   */
+  static final long BLOCK_OUT_INDEX_HORIZON = BlockoutManagerUtil.TIME.DAY.time;
+
   private IScheduler scheduler;
 
+  private final SchedulerListener blockOutIndexListener = new BlockOutIndexListener();
+
+  private final AtomicLong blockOutChanges = new AtomicLong();
+
+  private volatile BlockoutWindowIndex blockOutIndex;
+
+  private volatile long blockOutIndexChanges = -1;
+
+  private volatile Scheduler watchedQuartzScheduler;
+
+  private volatile boolean blockOutIndexEnabled;
+
   public PentahoBlockoutManager() {
     this.scheduler = PentahoSystem.get( IScheduler.class, "IScheduler2", null ); //$NON-NLS-1$
   }
@@ -47,6 +76,13 @@ public class PentahoBlockoutManager implements IBlockoutManager {
   @Override
   public List<IJob> getBlockOutJobs() {
     try {
+      if ( scheduler instanceof QuartzScheduler ) {
+        List<IJob> jobs = ( (QuartzScheduler) scheduler ).getJobsByName( null, BLOCK_OUT_JOB_NAME );
+        for ( IJob job : jobs ) {
+          job.getJobTrigger().setDuration( ( (Number) job.getJobParams().get( DURATION_PARAM ) ).longValue() );
+        }
+        return jobs;
+      }
       List<IJob> jobs = scheduler.getJobs( new IJobFilter() {
         @Override public boolean accept( IJob job ) {
           if ( BLOCK_OUT_JOB_NAME.equals( job.getJobName() ) ) {
@@ -68,38 +104,133 @@ public class PentahoBlockoutManager implements IBlockoutManager {
     return BlockoutManagerUtil.willFire( scheduleTrigger, getBlockOutJobTriggers(), this.scheduler );
   }
 
+  /**
+   * Called before every job execution, so the answer comes from a {@link BlockoutWindowIndex} of the upcoming blockout
+   * windows when possible. The index is rebuilt when a blockout job changes or its horizon has passed. Blockouts are
+   * evaluated from the scheduler instead when changes to them cannot be tracked, see
+   * {@link #getBlockOutIndex(long)}.
+   */
   @Override
   public boolean shouldFireNow() {
-    return BlockoutManagerUtil.shouldFireNow( getBlockOutJobTriggers(), this.scheduler );
+    return shouldFireAt( System.currentTimeMillis() );
+  }
+
+  /**
+   * Same as {@link #shouldFireNow()} for another time, e.g. the time a fire was scheduled for.
+   *
+   * @param time the time to check, in milliseconds
+   * @return false if <code>time</code> falls within a blockout window
+   */
+  public boolean shouldFireAt( long time ) {
+    BlockoutWindowIndex index = getBlockOutIndex( time );
+    if ( index != null ) {
+      return !index.isBlocked( time );
+    }
+    return BlockoutManagerUtil.shouldFireAt( getBlockOutJobTriggers(), time, this.scheduler );
+  }
+
+  /**
+   * @param time the time to check, in milliseconds
+   * @return the end of the blockout window <code>time</code> falls within, <code>time</code> itself if it is not
+   * blocked, or {@link Long#MAX_VALUE} if it is blocked until a time that cannot be told without the blockout window
+   * index
+   */
+  public long getBlockOutEnd( long time ) {
+    BlockoutWindowIndex index = getBlockOutIndex( time );
+    if ( index != null ) {
+      long end = index.getWindowEnd( time );
+      return end == PeriodicOverlap.NEVER ? time : end;
+    }
+    return BlockoutManagerUtil.shouldFireAt( getBlockOutJobTriggers(), time, this.scheduler ) ? time : Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns the blockout window index covering <code>time</code>, building it first if needed.
+   *
+   * @param time the time to look up, in milliseconds
+   * @return the index, or null if changes to blockouts cannot be tracked (e.g. a clustered job store, where other nodes
+   * change blockouts unnoticed) or the blockouts cannot be indexed
+   */
+  BlockoutWindowIndex getBlockOutIndex( long time ) {
+    if ( !watchBlockOutChanges() ) {
+      return null;
+    }
+
+    BlockoutWindowIndex index = blockOutIndex;
+    long changes = blockOutChanges.get();
+    if ( index != null && blockOutIndexChanges == changes && index.covers( time ) ) {
+      return index;
+    }
+
+    try {
+      index = BlockoutWindowIndex.build( getBlockOutJobTriggers(), time, BLOCK_OUT_INDEX_HORIZON );
+    } catch ( SchedulerException e ) {
+      return null;
+    }
+    // an index built while a blockout changed is used for this lookup only
+    if ( changes == blockOutChanges.get() ) {
+      blockOutIndex = index;
+      blockOutIndexChanges = changes;
+    }
+    return index;
+  }
+
+  private boolean watchBlockOutChanges() {
+    if ( !( scheduler instanceof QuartzScheduler ) ) {
+      return false;
+    }
+
+    try {
+      Scheduler quartzScheduler = ( (QuartzScheduler) scheduler ).getQuartzScheduler();
+      if ( quartzScheduler != watchedQuartzScheduler ) {
+        synchronized ( this ) {
+          if ( quartzScheduler != watchedQuartzScheduler ) {
+            SchedulerMetaData metaData = quartzScheduler.getMetaData();
+            ListenerManager listenerManager = quartzScheduler.getListenerManager();
+            blockOutIndexEnabled =
+              listenerManager != null && ( metaData == null || !metaData.isJobStoreClustered() );
+            if ( blockOutIndexEnabled ) {
+              listenerManager.addSchedulerListener( blockOutIndexListener );
+            }
+            blockOutChanges.incrementAndGet();
+            watchedQuartzScheduler = quartzScheduler;
+          }
+        }
+      }
+      return blockOutIndexEnabled;
+    } catch ( org.quartz.SchedulerException e ) {
+      return false;
+    }
   }
 
   public List<IJobTrigger> willBlockSchedules( IJobTrigger testBlockOutJobTrigger ) {
     List<IJobTrigger> blockedSchedules = new ArrayList<IJobTrigger>();
+    for ( BlockoutImpactAnalyzer.Impact impact : getBlockOutImpacts( testBlockOutJobTrigger ) ) {
+      blockedSchedules.add( impact.getJob().getJobTrigger() );
+    }
+    return blockedSchedules;
+  }
 
-    List<IJob> scheduledJobs = new ArrayList<>();
+  /**
+   * Analyzes all scheduled jobs against a blockout in one pass, see {@link BlockoutImpactAnalyzer}.
+   *
+   * @param testBlockOutJobTrigger the blockout trigger, with its duration set
+   * @return the jobs the blockout would block, with the first fire time it would block for each
+   */
+  public List<BlockoutImpactAnalyzer.Impact> getBlockOutImpacts( IJobTrigger testBlockOutJobTrigger ) {
     try {
-      scheduledJobs = this.scheduler.getJobs( new IJobFilter() {
+      List<IJob> scheduledJobs = this.scheduler.getJobs( new IJobFilter() {
 
         @Override
         public boolean accept( IJob job ) {
           return !BLOCK_OUT_JOB_NAME.equals( job.getJobName() );
         }
       } );
+
+      return new BlockoutImpactAnalyzer( testBlockOutJobTrigger, this.scheduler ).analyze( scheduledJobs );
     } catch ( SchedulerException e ) {
       throw new RuntimeException( e );
     }
-
-    // Loop over trigger group names
-    for ( IJob scheduledJob : scheduledJobs ) {
-
-      // Add schedule to list if block out conflicts at all
-      if ( BlockoutManagerUtil.willBlockSchedule( scheduledJob.getJobTrigger(),
-              testBlockOutJobTrigger, this.scheduler ) ) {
-        blockedSchedules.add( scheduledJob.getJobTrigger() );
-      }
-    }
-
-    return blockedSchedules;
   }
 
   @Override
@@ -117,4 +248,54 @@ public class PentahoBlockoutManager implements IBlockoutManager {
     return blockOutJobTriggers;
   }
 
+  /**
+   * Invalidates the blockout window index whenever a blockout job, or a job that cannot be identified, changes.
+   */
+  private class BlockOutIndexListener extends SchedulerListenerSupport {
+
+    private void onChange( String jobName ) {
+      if ( jobName == null || isBlockOut( jobName ) ) {
+        blockOutChanges.incrementAndGet();
+        BlockoutManagerUtil.invalidateBlockOutLastRuns();
+      }
+    }
+
+    private boolean isBlockOut( String jobName ) {
+      try {
+        return BLOCK_OUT_JOB_NAME.equals( QuartzJobKey.parse( jobName ).getJobName() );
+      } catch ( SchedulerException e ) {
+        return true;
+      }
+    }
+
+    @Override
+    public void jobScheduled( Trigger trigger ) {
+      onChange( trigger.getJobKey().getName() );
+    }
+
+    @Override
+    public void jobUnscheduled( TriggerKey triggerKey ) {
+      onChange( triggerKey.getName() );
+    }
+
+    @Override
+    public void triggerFinalized( Trigger trigger ) {
+      onChange( trigger.getJobKey().getName() );
+    }
+
+    @Override
+    public void jobAdded( JobDetail jobDetail ) {
+      onChange( jobDetail.getKey().getName() );
+    }
+
+    @Override
+    public void jobDeleted( JobKey jobKey ) {
+      onChange( jobKey.getName() );
+    }
+
+    @Override
+    public void schedulingDataCleared() {
+      onChange( null );
+    }
+  }
 }
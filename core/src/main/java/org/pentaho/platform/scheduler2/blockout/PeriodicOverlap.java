@@ -0,0 +1,175 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import java.math.BigInteger;
+
+/**
+ * Exact, integer only overlap check between a periodic schedule and a periodic blockout.
+ * <p>
+ * The schedule fires at <code>S + j * Rs</code> and the blockout opens windows <code>[B + i * Rb, B + i * Rb + D]
+ * </code>, for <code>i, j &gt;= 0</code>, each bounded by an optional end. Rather than walking the windows one by one,
+ * the first window holding a fire time is found by solving the linear congruence <code>i * Rb &equiv; (S - B) - v
+ * (mod Rs)</code> for the possible gaps <code>v</code> between a window start and the next fire time. Those gaps are
+ * multiples of <code>gcd(Rs, Rb)</code> apart, so there are at most <code>Rs / gcd(Rs, Rb)</code> of them, and
+ * usually only a handful as recurrences tend to be whole minutes or hours.
+ * <p>
+ * All times and intervals are in milliseconds. An interval of zero or less stands for a single occurrence.
+ */
+public class PeriodicOverlap {
+
+  /**
+   * Returned when the schedule never fires during the blockout
+   */
+  public static final long NEVER = Long.MIN_VALUE;
+
+  private PeriodicOverlap() {
+  }
+
+  /**
+   * @param scheduleStart     first fire time of the schedule
+   * @param scheduleInterval  time between two fires of the schedule
+   * @param scheduleEnd       last possible fire time of the schedule, {@link Long#MAX_VALUE} if none
+   * @param blockOutStart     start of the first blockout window
+   * @param blockOutInterval  time between the starts of two blockout windows
+   * @param duration          length of a blockout window, the window end is inclusive
+   * @param blockOutEnd       last possible start of a blockout window, {@link Long#MAX_VALUE} if none
+   * @return the first fire time of the schedule falling within a blockout window, or {@link #NEVER}
+   */
+  public static long firstConflict( long scheduleStart, long scheduleInterval, long scheduleEnd, long blockOutStart,
+                                    long blockOutInterval, long duration, long blockOutEnd ) {
+    if ( duration < 0 || scheduleStart > scheduleEnd || blockOutStart > blockOutEnd ) {
+      return NEVER;
+    }
+
+    // A window opened at or before the first fire time may still cover it, the latest one allowed is the closest
+    if ( scheduleStart >= blockOutStart ) {
+      long i = 0;
+      if ( blockOutInterval > 0 ) {
+        i = Math.min( ( scheduleStart - blockOutStart ) / blockOutInterval,
+          ( Math.min( scheduleStart, blockOutEnd ) - blockOutStart ) / blockOutInterval );
+      }
+      long windowStart = blockOutStart + i * blockOutInterval;
+      if ( scheduleStart - windowStart <= duration ) {
+        return scheduleStart;
+      }
+      if ( blockOutInterval <= 0 ) {
+        return NEVER;
+      }
+    }
+
+    // Remaining windows start after the first fire time
+    long firstWindow =
+      scheduleStart >= blockOutStart ? ( scheduleStart - blockOutStart ) / blockOutInterval + 1 : 0;
+
+    if ( scheduleInterval <= 0 ) {
+      // the only fire time comes before any of them
+      return NEVER;
+    }
+
+    long n;
+    long gap;
+    long delta = Math.floorMod( scheduleStart - windowStart( blockOutStart, blockOutInterval, firstWindow ),
+      scheduleInterval );
+    if ( blockOutInterval <= 0 ) {
+      // a single window
+      n = 0;
+      gap = delta;
+      if ( gap > duration ) {
+        return NEVER;
+      }
+    } else {
+      // gap of window n: ( delta - n * Rb ) mod Rs, which steps through values congruent to delta mod g
+      long g = gcd( scheduleInterval, blockOutInterval );
+      long modulus = scheduleInterval / g;
+      long inverse = modInverse( ( blockOutInterval / g ) % modulus, modulus );
+      long maxGap = Math.min( duration, scheduleInterval - 1 );
+
+      gap = delta % g;
+      if ( gap > maxGap ) {
+        return NEVER;
+      }
+      // n = ( delta - gap ) / g * inverse mod modulus, decreasing by inverse for each larger gap
+      n = mulMod( ( delta - gap ) / g, inverse, modulus );
+      long bestN = n;
+      long bestGap = gap;
+      for ( long v = gap + g; v <= maxGap && bestN > 0; v += g ) {
+        n -= inverse;
+        if ( n < 0 ) {
+          n += modulus;
+        }
+        if ( n < bestN ) {
+          bestN = n;
+          bestGap = v;
+        }
+      }
+      n = bestN;
+      gap = bestGap;
+    }
+
+    long windowStart;
+    try {
+      windowStart = windowStart( blockOutStart, blockOutInterval, Math.addExact( firstWindow, n ) );
+    } catch ( ArithmeticException e ) {
+      return NEVER;
+    }
+    long fireTime = windowStart + gap;
+    if ( windowStart > blockOutEnd || fireTime > scheduleEnd ) {
+      return NEVER;
+    }
+    return fireTime;
+  }
+
+  private static long windowStart( long blockOutStart, long blockOutInterval, long window ) {
+    return blockOutInterval > 0
+      ? Math.addExact( blockOutStart, Math.multiplyExact( window, blockOutInterval ) )
+      : blockOutStart;
+  }
+
+  static long gcd( long a, long b ) {
+    while ( b != 0 ) {
+      long t = a % b;
+      a = b;
+      b = t;
+    }
+    return a;
+  }
+
+  /**
+   * @return x such that a * x = 1 mod m, for a and m coprime
+   */
+  static long modInverse( long a, long m ) {
+    if ( m == 1 ) {
+      return 0;
+    }
+    long oldR = a;
+    long r = m;
+    long oldS = 1;
+    long s = 0;
+    while ( r != 0 ) {
+      long q = oldR / r;
+      long t = oldR - q * r;
+      oldR = r;
+      r = t;
+      t = oldS - q * s;
+      oldS = s;
+      s = t;
+    }
+    return Math.floorMod( oldS, m );
+  }
+
+  private static long mulMod( long a, long b, long m ) {
+    return BigInteger.valueOf( a ).multiply( BigInteger.valueOf( b ) ).mod( BigInteger.valueOf( m ) ).longValue();
+  }
+}
@@ -16,17 +16,24 @@ package org.pentaho.platform.scheduler2.quartz;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pentaho.platform.api.scheduler2.IBlockoutManager;
+import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.engine.core.audit.AuditHelper;
 import org.pentaho.platform.engine.core.audit.MDCUtil;
 import org.pentaho.platform.engine.core.audit.MessageTypes;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.scheduler2.blockout.BlockoutAction;
 import org.pentaho.platform.scheduler2.blockout.PentahoBlockoutManager;
 import org.quartz.Job;
 import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
 import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+
+import java.util.Date;
 
 /**
  * A Quartz job that checks if execution is currently suspended before passing on to the underlying job
@@ -34,6 +41,9 @@ import org.quartz.SchedulerException;
  * @author kwalker
  */
 public class BlockingQuartzJob implements Job {
+
+  private static volatile IBlockoutManager fallbackBlockoutManager;
+
   public void execute( final JobExecutionContext jobExecutionContext ) throws JobExecutionException {
     JobDataMap jobDataMap = null;
     if ( jobExecutionContext.getJobDetail() != null && jobExecutionContext.getJobDetail().getJobDataMap() != null ) {
@@ -48,22 +58,40 @@ public class BlockingQuartzJob implements Job {
     String messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_START : MessageTypes.INSTANCE_START;
     long start = System.currentTimeMillis();
     long end = start;
+    boolean queued = false;
     try {
-      if ( getBlockoutManager().shouldFireNow() || isBlockoutAction( jobExecutionContext ) ) { // We should always let the blockouts fire //$NON-NLS-1$
-        makeAuditRecord( 0, messageType, jobExecutionContext );
-        createUnderlyingJob().execute( jobExecutionContext );
-        end = System.currentTimeMillis();
-        messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_END : MessageTypes.INSTANCE_END;
+      if ( shouldFire( jobExecutionContext ) || isBlockoutAction( jobExecutionContext ) ) { // We should always let the blockouts fire //$NON-NLS-1$
+        if ( runUnderlyingJob( jobExecutionContext, messageType ) ) {
+          end = System.currentTimeMillis();
+          messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_END : MessageTypes.INSTANCE_END;
+        } else {
+          queued = true;
+        }
+      } else if ( deferFire( jobExecutionContext ) ) {
+        getLogger().warn(
+            "Job '" + jobExecutionContext.getJobDetail().getKey().getName()
+                + "' attempted to run during a blockout period.  This job will run when the blockout ends" );
+        jobExecutionContext.setResult( JobEvent.Type.BLOCKOUT_DEFERRED );
       } else {
         getLogger().warn(
             "Job '" + jobExecutionContext.getJobDetail().getKey().getName()
                 + "' attempted to run during a blockout period.  This job was not executed" );
+        // reported by JobEventBroadcaster
+        jobExecutionContext.setResult( JobEvent.Type.BLOCKOUT_SKIPPED );
       }
+    } catch ( ExecutionLanes.LaneFullException e ) {
+      end = System.currentTimeMillis();
+      messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_FAILED : MessageTypes.INSTANCE_FAILED;
+      getLogger().warn(
+          "Job '" + jobExecutionContext.getJobDetail().getKey().getName() + "' was not executed. " + e.getMessage() );
+      jobExecutionContext.setResult( JobEvent.Type.FAILED );
     } catch ( ActionAdapterQuartzJob.LoggingJobExecutionException le ) {
       // thrown by the execution code - if execution fails, there only thing we do is to write to pro_audit table failing message,
       // no point in trying to execute the job again
       end = System.currentTimeMillis();
       messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_FAILED : MessageTypes.INSTANCE_FAILED;
+      // the failure is not rethrown, so Quartz listeners cannot tell it from a success otherwise
+      jobExecutionContext.setResult( JobEvent.Type.FAILED );
     } catch ( SchedulerException e ) {
       end = System.currentTimeMillis();
       messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_FAILED : MessageTypes.INSTANCE_FAILED;
@@ -74,12 +102,128 @@ public class BlockingQuartzJob implements Job {
       end = System.currentTimeMillis();
       messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_END : MessageTypes.INSTANCE_END;
     } finally {
-      makeAuditRecord( ( (float) ( end - start ) / 1000 ), messageType, jobExecutionContext );
+      // a queued fire is audited when it is fired again for its turn
+      if ( !queued ) {
+        makeAuditRecord( ( (float) ( end - start ) / 1000 ), messageType, jobExecutionContext );
+      }
+    }
+  }
+
+  /**
+   * A fire is blocked when it starts within a blockout window, and also when it was scheduled within one, however late
+   * it starts. Whether a scheduled fire runs then does not depend on how long it waited for a worker thread.
+   */
+  boolean shouldFire( JobExecutionContext jobExecutionContext ) throws SchedulerException {
+    IBlockoutManager blockoutManager = getBlockoutManager();
+    if ( !blockoutManager.shouldFireNow() ) {
+      return false;
+    }
+    if ( blockoutManager instanceof PentahoBlockoutManager ) {
+      Date scheduledFireTime = jobExecutionContext.getScheduledFireTime();
+      return scheduledFireTime == null
+        || ( (PentahoBlockoutManager) blockoutManager ).shouldFireAt( scheduledFireTime.getTime() );
+    }
+    return true;
+  }
+
+  /**
+   * Hands a blocked fire to the {@link DeferredFireQueue} of the scheduler, according to the {@link BlockoutPolicy} of
+   * its job. The job is kept stored until the fire is released, even if this was the last fire of its trigger.
+   *
+   * @return false if the fire is to be skipped
+   */
+  boolean deferFire( JobExecutionContext jobExecutionContext ) {
+    JobDetail jobDetail = jobExecutionContext.getJobDetail();
+    BlockoutPolicy policy = BlockoutPolicy.of( jobDetail.getJobDataMap() );
+    if ( policy == BlockoutPolicy.SKIP ) {
+      return false;
+    }
+    DeferredFireQueue deferredFires = getDeferredFireQueue();
+    if ( deferredFires == null ) {
+      return false;
+    }
+    retainJob( jobExecutionContext );
+    Date scheduledFireTime = jobExecutionContext.getScheduledFireTime();
+    return deferredFires.defer( jobDetail.getKey(), policy,
+      scheduledFireTime != null ? scheduledFireTime.getTime() : System.currentTimeMillis() );
+  }
+
+  /**
+   * @see QuartzScheduler#retainDeferredJob(JobKey, Trigger)
+   */
+  void retainJob( JobExecutionContext jobExecutionContext ) {
+    IScheduler scheduler = PentahoSystem.get( IScheduler.class, "IScheduler2", null ); //$NON-NLS-1$
+    if ( !( scheduler instanceof QuartzScheduler ) ) {
+      return;
+    }
+    JobKey jobKey = jobExecutionContext.getJobDetail().getKey();
+    try {
+      ( (QuartzScheduler) scheduler ).retainDeferredJob( jobKey, jobExecutionContext.getTrigger() );
+    } catch ( SchedulerException | RuntimeException e ) {
+      getLogger().warn( "Unable to keep job '" + jobKey.getName() + "' until the blockout ends, its deferred fire is "
+        + "dropped if this was its last one", e );
     }
   }
 
+  DeferredFireQueue getDeferredFireQueue() {
+    IScheduler scheduler = PentahoSystem.get( IScheduler.class, "IScheduler2", null ); //$NON-NLS-1$
+    return scheduler instanceof QuartzScheduler ? ( (QuartzScheduler) scheduler ).getDeferredFires() : null;
+  }
+
+  /**
+   * Uses the shared blockout manager when one is registered, so the blockout window index it keeps survives from one
+   * job execution to the next. Otherwise a single fallback manager is kept, as each new manager registers its own
+   * listener on the Quartz scheduler.
+   */
   IBlockoutManager getBlockoutManager() throws SchedulerException {
-    return new PentahoBlockoutManager();
+    IBlockoutManager blockoutManager = PentahoSystem.get( IBlockoutManager.class, "IBlockoutManager", null ); //$NON-NLS-1$
+    if ( blockoutManager != null ) {
+      return blockoutManager;
+    }
+    blockoutManager = fallbackBlockoutManager;
+    if ( blockoutManager == null ) {
+      synchronized ( BlockingQuartzJob.class ) {
+        blockoutManager = fallbackBlockoutManager;
+        if ( blockoutManager == null ) {
+          blockoutManager = new PentahoBlockoutManager();
+          fallbackBlockoutManager = blockoutManager;
+        }
+      }
+    }
+    return blockoutManager;
+  }
+
+  /**
+   * Runs the underlying job once the {@link ExecutionLanes execution lane} of its action admits it, auditing its start
+   * then. A fire queued by the lane gives its worker thread back right away, the job being fired again on its turn;
+   * nothing is audited for it until then.
+   *
+   * @return false if the fire was queued
+   */
+  boolean runUnderlyingJob( JobExecutionContext jobExecutionContext, String startMessageType )
+    throws JobExecutionException, ExecutionLanes.LaneFullException {
+    ExecutionLanes.Ticket ticket = enterExecutionLane( jobExecutionContext );
+    if ( ticket == null ) {
+      getLogger().info( "Job '" + jobExecutionContext.getJobDetail().getKey().getName()
+        + "' is queued by its execution lane. This job will run on its turn" );
+      jobExecutionContext.setResult( JobEvent.Type.QUEUED );
+      return false;
+    }
+    try ( ExecutionLanes.Ticket admitted = ticket ) {
+      makeAuditRecord( 0, startMessageType, jobExecutionContext );
+      createUnderlyingJob().execute( jobExecutionContext );
+    }
+    return true;
+  }
+
+  /**
+   * @see QuartzScheduler#enterExecutionLane(JobExecutionContext)
+   */
+  ExecutionLanes.Ticket enterExecutionLane( JobExecutionContext jobExecutionContext )
+    throws ExecutionLanes.LaneFullException {
+    IScheduler scheduler = PentahoSystem.get( IScheduler.class, "IScheduler2", null ); //$NON-NLS-1$
+    return scheduler instanceof QuartzScheduler
+      ? ( (QuartzScheduler) scheduler ).enterExecutionLane( jobExecutionContext ) : ExecutionLanes.NO_TICKET;
   }
 
   Job createUnderlyingJob() {
@@ -0,0 +1,61 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * What becomes of the fires of a job blocked by a blockout, chosen per job with the
+ * {@link #RESERVEDMAPKEY_BLOCKOUT_POLICY} job parameter. Deferred fires are queued by the {@link DeferredFireQueue} of
+ * the scheduler.
+ */
+public enum BlockoutPolicy {
+
+  /**
+   * The fire is dropped, the default
+   */
+  SKIP,
+
+  /**
+   * Each blocked fire runs once the blockout window it falls within ends
+   */
+  RUN_AT_WINDOW_END,
+
+  /**
+   * The fires blocked while a deferred fire of the job is pending are merged into it, the job then runs once when the
+   * blockout window ends
+   */
+  COALESCE;
+
+  public static final String RESERVEDMAPKEY_BLOCKOUT_POLICY = "ActionAdapterQuartzJob-BlockoutPolicy";
+
+  /**
+   * @param jobParams the parameters of a job, may be null
+   * @return the policy named by the {@link #RESERVEDMAPKEY_BLOCKOUT_POLICY} parameter, case and dashes aside, or
+   * {@link #SKIP} if the parameter names none
+   */
+  public static BlockoutPolicy of( Map<String, ?> jobParams ) {
+    Object value = jobParams != null ? jobParams.get( RESERVEDMAPKEY_BLOCKOUT_POLICY ) : null;
+    if ( value != null ) {
+      String name = value.toString().trim().replace( '-', '_' ).toUpperCase( Locale.ROOT );
+      for ( BlockoutPolicy policy : values() ) {
+        if ( policy.name().equals( name ) ) {
+          return policy;
+        }
+      }
+    }
+    return SKIP;
+  }
+}
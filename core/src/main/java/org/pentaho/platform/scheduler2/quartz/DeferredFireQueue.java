@@ -0,0 +1,369 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.quartz.JobKey;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time ordered queue of the fires of jobs blocked by a blockout, held until the blockout window ends, see
+ * {@link BlockoutPolicy}. Fires that are due are released one at a time, {@link #DEFAULT_RELEASE_INTERVAL} apart, so
+ * that the jobs blocked by a long blockout do not all start at once when it ends. A fire due while a blockout is still
+ * in effect, e.g. one that was added since, waits for the end of that blockout too.
+ * <p>
+ * The queue is kept in memory, by a single daemon thread started with the first deferred fire: fires still pending
+ * when the scheduler is shut down are lost, as are fires skipped by a blockout.
+ */
+public class DeferredFireQueue {
+
+  private static final Log logger = LogFactory.getLog( DeferredFireQueue.class );
+
+  /**
+   * Time between two releases, in milliseconds
+   */
+  public static final long DEFAULT_RELEASE_INTERVAL = 500L;
+
+  /**
+   * Time a fire waits before the blockouts are checked again, in milliseconds, when the end of the blockout window
+   * cannot be told
+   */
+  static final long RETRY_INTERVAL = 60000L;
+
+  /**
+   * Runs a job now, on behalf of a deferred fire
+   */
+  @FunctionalInterface
+  public interface Releaser {
+    /**
+     * @return false if the job was not run, e.g. because it was removed or paused since its fire was deferred
+     */
+    boolean release( JobKey jobKey ) throws org.quartz.SchedulerException;
+  }
+
+  /**
+   * Tells when the blockout in effect at a time ends
+   */
+  @FunctionalInterface
+  public interface BlockOutWindows {
+    /**
+     * @return the end of the blockout window <code>time</code> falls within, <code>time</code> itself if it is not
+     * blocked, or {@link Long#MAX_VALUE} if the end of the window cannot be told
+     */
+    long getBlockOutEnd( long time );
+  }
+
+  private final Releaser releaser;
+
+  private final BlockOutWindows windows;
+
+  private final long releaseInterval;
+
+  private final PriorityQueue<DeferredFire> queue = new PriorityQueue<>();
+
+  /**
+   * Pending fires of the jobs whose policy is {@link BlockoutPolicy#COALESCE}
+   */
+  private final Map<JobKey, DeferredFire> coalesced = new HashMap<>();
+
+  private long sequence;
+
+  /**
+   * Earliest time of the next release
+   */
+  private long nextRelease;
+
+  private ScheduledExecutorService executor;
+
+  private ScheduledFuture<?> wakeUp;
+
+  private long wakeUpTime;
+
+  private int maxDepth;
+
+  private final AtomicLong deferredCount = new AtomicLong();
+
+  private final AtomicLong coalescedCount = new AtomicLong();
+
+  private final AtomicLong releasedCount = new AtomicLong();
+
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  private final AtomicLong failedCount = new AtomicLong();
+
+  private final AtomicLong totalReleaseLatency = new AtomicLong();
+
+  private final AtomicLong maxReleaseLatency = new AtomicLong();
+
+  public DeferredFireQueue( Releaser releaser, BlockOutWindows windows ) {
+    this( releaser, windows, DEFAULT_RELEASE_INTERVAL, null );
+  }
+
+  /**
+   * @param executor runs the releases, null to start a daemon thread when the first fire is deferred
+   */
+  DeferredFireQueue( Releaser releaser, BlockOutWindows windows, long releaseInterval,
+                     ScheduledExecutorService executor ) {
+    this.releaser = releaser;
+    this.windows = windows;
+    this.releaseInterval = releaseInterval;
+    this.executor = executor;
+  }
+
+  /**
+   * Defers a fire blocked by a blockout, according to the blockout policy of its job.
+   *
+   * @param scheduledFireTime the time the fire was scheduled for, in milliseconds
+   * @return false if the policy is to skip the fire, true if it was queued or merged into a pending fire of the job
+   */
+  public boolean defer( JobKey jobKey, BlockoutPolicy policy, long scheduledFireTime ) {
+    return defer( jobKey, policy, scheduledFireTime, System.currentTimeMillis() );
+  }
+
+  synchronized boolean defer( JobKey jobKey, BlockoutPolicy policy, long scheduledFireTime, long now ) {
+    if ( policy == null || policy == BlockoutPolicy.SKIP ) {
+      return false;
+    }
+    if ( policy == BlockoutPolicy.COALESCE && coalesced.containsKey( jobKey ) ) {
+      coalescedCount.incrementAndGet();
+      return true;
+    }
+
+    DeferredFire fire = new DeferredFire( jobKey, scheduledFireTime, getReleaseTime( now ), sequence++ );
+    queue.add( fire );
+    if ( policy == BlockoutPolicy.COALESCE ) {
+      coalesced.put( jobKey, fire );
+    }
+    deferredCount.incrementAndGet();
+    maxDepth = Math.max( maxDepth, queue.size() );
+    if ( logger.isDebugEnabled() ) {
+      logger.debug( "Fire of job " + jobKey + " scheduled for " + new Date( scheduledFireTime ) + " deferred until "
+        + new Date( fire.releaseTime ) );
+    }
+    scheduleWakeUp();
+    return true;
+  }
+
+  /**
+   * Releases the first fire if it is due and the release interval allows it, then schedules the next release.
+   */
+  void releaseDue( long now ) {
+    DeferredFire fire;
+    synchronized ( this ) {
+      // called by the task of the current wake up, if any
+      wakeUp = null;
+      fire = queue.peek();
+      if ( fire == null || fire.releaseTime > now || nextRelease > now ) {
+        scheduleWakeUp();
+        return;
+      }
+      queue.poll();
+      long releaseTime = getReleaseTime( now );
+      if ( releaseTime > now ) {
+        // blocked again, by another blockout
+        fire.readyTime = releaseTime;
+        fire.releaseTime = releaseTime;
+        queue.add( fire );
+        scheduleWakeUp();
+        return;
+      }
+      coalesced.remove( fire.jobKey, fire );
+      nextRelease = now + releaseInterval;
+    }
+
+    try {
+      if ( releaser.release( fire.jobKey ) ) {
+        if ( logger.isDebugEnabled() ) {
+          logger.debug( "Fire of job " + fire.jobKey + " scheduled for " + new Date( fire.scheduledFireTime )
+            + " released" );
+        }
+        releasedCount.incrementAndGet();
+        long latency = now - fire.readyTime;
+        totalReleaseLatency.addAndGet( latency );
+        maxReleaseLatency.accumulateAndGet( latency, Math::max );
+      } else {
+        droppedCount.incrementAndGet();
+      }
+    } catch ( org.quartz.SchedulerException | RuntimeException e ) {
+      failedCount.incrementAndGet();
+      logger.warn( "Unable to run job " + fire.jobKey + " after the blockout that blocked it", e );
+    }
+
+    synchronized ( this ) {
+      scheduleWakeUp();
+    }
+  }
+
+  /**
+   * Stops releasing fires, dropping the pending ones. Fires deferred afterwards start the queue again.
+   */
+  public synchronized void shutdown() {
+    if ( !queue.isEmpty() ) {
+      logger.warn( queue.size() + " fires deferred by a blockout are dropped" );
+      droppedCount.addAndGet( queue.size() );
+    }
+    queue.clear();
+    coalesced.clear();
+    if ( wakeUp != null ) {
+      wakeUp.cancel( false );
+      wakeUp = null;
+    }
+    if ( executor != null ) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  /**
+   * @return whether a fire of the job is waiting to be released, not counting the one being released
+   */
+  public synchronized boolean isPending( JobKey jobKey ) {
+    for ( DeferredFire fire : queue ) {
+      if ( fire.jobKey.equals( jobKey ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the number of fires waiting to be released
+   */
+  public synchronized int getDepth() {
+    return queue.size();
+  }
+
+  /**
+   * @return the highest number of fires that waited at once
+   */
+  public synchronized int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * @return the number of fires queued, not counting those merged into a pending fire
+   */
+  public long getDeferredCount() {
+    return deferredCount.get();
+  }
+
+  /**
+   * @return the number of fires merged into a pending fire of their job
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  public long getReleasedCount() {
+    return releasedCount.get();
+  }
+
+  /**
+   * @return the number of fires dropped, because their job was removed or paused meanwhile, or on shutdown
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  /**
+   * @return the total time the released fires waited after the end of their blockout window, in milliseconds
+   */
+  public long getTotalReleaseLatency() {
+    return totalReleaseLatency.get();
+  }
+
+  /**
+   * @return the longest time a released fire waited after the end of its blockout window, in milliseconds
+   */
+  public long getMaxReleaseLatency() {
+    return maxReleaseLatency.get();
+  }
+
+  private long getReleaseTime( long now ) {
+    long end = windows.getBlockOutEnd( now );
+    if ( end == Long.MAX_VALUE ) {
+      return now + RETRY_INTERVAL;
+    }
+    // window ends are inclusive
+    return end > now ? end + 1 : now;
+  }
+
+  private void scheduleWakeUp() {
+    DeferredFire next = queue.peek();
+    if ( next == null ) {
+      return;
+    }
+    long time = Math.max( next.releaseTime, nextRelease );
+    if ( wakeUp != null ) {
+      if ( wakeUpTime <= time ) {
+        return;
+      }
+      wakeUp.cancel( false );
+    }
+    if ( executor == null ) {
+      executor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+        Thread thread = new Thread( runnable, "DeferredFireQueue" );
+        thread.setDaemon( true );
+        return thread;
+      } );
+    }
+    wakeUpTime = time;
+    wakeUp = executor.schedule( () -> releaseDue( System.currentTimeMillis() ),
+      Math.max( 0, time - System.currentTimeMillis() ), TimeUnit.MILLISECONDS );
+  }
+
+  private static class DeferredFire implements Comparable<DeferredFire> {
+
+    private final JobKey jobKey;
+
+    private final long scheduledFireTime;
+
+    /**
+     * The end of the blockout window, when the fire could first be released
+     */
+    private long readyTime;
+
+    private long releaseTime;
+
+    private final long sequence;
+
+    DeferredFire( JobKey jobKey, long scheduledFireTime, long releaseTime, long sequence ) {
+      this.jobKey = jobKey;
+      this.scheduledFireTime = scheduledFireTime;
+      this.readyTime = releaseTime;
+      this.releaseTime = releaseTime;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo( DeferredFire other ) {
+      int result = Long.compare( releaseTime, other.releaseTime );
+      return result != 0 ? result : Long.compare( sequence, other.sequence );
+    }
+  }
+}
@@ -0,0 +1,481 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.quartz.JobDataMap;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Named lanes in front of action invocations, so that a burst of one kind of action (e.g. PDI jobs) does not hold back
+ * the others. A lane is keyed by action id, as resolved by <code>SchedulerResourceUtil.resolveActionId</code> (e.g.
+ * <code>kjb.backgroundExecution</code>), or by action class for actions scheduled by class. Each lane runs at most
+ * <code>maxRunning</code> actions at once and queues the fires of the others, the highest
+ * {@link #RESERVEDMAPKEY_PRIORITY priority} first, then in arrival order. Actions of no lane run right away.
+ * <p>
+ * A queued fire does not hold a Quartz worker thread: {@link BlockingQuartzJob} returns right away, and the job is
+ * fired again through the {@link Releaser} once an action of the lane completed, the new fire holding the turn it was
+ * given, see {@link #RESERVEDMAPKEY_LANE_TURN}. A lane may bound its queue, the fires arriving at a full queue are then
+ * rejected. The queues are kept in memory, fires still queued when the scheduler is shut down are lost.
+ */
+public class ExecutionLanes {
+
+  private static final Log logger = LogFactory.getLog( ExecutionLanes.class );
+
+  /**
+   * Job parameter holding the priority of a job, an integer, higher runs first; the same value is given to the Quartz
+   * triggers of the job, so that it is also fired first among triggers due at the same time
+   */
+  public static final String RESERVEDMAPKEY_PRIORITY = "ActionAdapterQuartzJob-Priority";
+
+  /**
+   * Trigger parameter of a job fired again for its turn in a lane, identifying the turn
+   */
+  public static final String RESERVEDMAPKEY_LANE_TURN = "ActionAdapterQuartzJob-LaneTurn";
+
+  public static final int DEFAULT_PRIORITY = Trigger.DEFAULT_PRIORITY;
+
+  /**
+   * Time a turn is held for the fire it was given to, in milliseconds. A turn whose fire has not arrived by then, e.g.
+   * because its job was removed in between, is given to the next queued fire.
+   */
+  static final long TURN_TIMEOUT = 60000L;
+
+  /**
+   * Ticket of the actions of no lane
+   */
+  public static final Ticket NO_TICKET = () -> {
+  };
+
+  /**
+   * Admission to a lane, to be closed once the action ran
+   */
+  @FunctionalInterface
+  public interface Ticket extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /**
+   * Fires a queued job again, for its turn in a lane
+   */
+  @FunctionalInterface
+  public interface Releaser {
+    /**
+     * @return false if the job was not fired, e.g. because it was removed or paused since its fire was queued
+     */
+    boolean release( QueuedFire fire ) throws org.quartz.SchedulerException;
+  }
+
+  /**
+   * Thrown when a fire arrives at the full queue of a lane
+   */
+  public static class LaneFullException extends Exception {
+    private static final long serialVersionUID = 3385476317542307211L;
+
+    public LaneFullException( String message ) {
+      super( message );
+    }
+  }
+
+  private final Map<String, Lane> lanes;
+
+  public ExecutionLanes( Map<String, Lane> lanes ) {
+    this.lanes = Collections.unmodifiableMap( new LinkedHashMap<>( lanes ) );
+  }
+
+  /**
+   * Parses lanes from a comma separated list of <code>name=maxRunning[/maxQueued]</code> items, e.g.
+   * <code>kjb.backgroundExecution=2/50,prpt.backgroundExecution=8</code>. Invalid items are logged and ignored.
+   *
+   * @param spec     the lanes, may be null
+   * @param releaser fires the queued jobs again on their turn
+   * @return the lanes
+   */
+  public static ExecutionLanes parse( String spec, Releaser releaser ) {
+    Map<String, Lane> lanes = new LinkedHashMap<>();
+    if ( spec != null ) {
+      for ( String item : spec.split( "," ) ) {
+        if ( item.trim().isEmpty() ) {
+          continue;
+        }
+        Lane lane = parseLane( item, releaser );
+        if ( lane != null ) {
+          lanes.put( lane.getName(), lane );
+        } else {
+          logger.warn( "Ignoring invalid execution lane '" + item.trim()
+            + "', expected name=maxRunning[/maxQueued] with maxRunning > 0 and maxQueued >= 0" );
+        }
+      }
+    }
+    return new ExecutionLanes( lanes );
+  }
+
+  private static Lane parseLane( String item, Releaser releaser ) {
+    int separator = item.indexOf( '=' );
+    if ( separator <= 0 ) {
+      return null;
+    }
+    String[] limits = item.substring( separator + 1 ).split( "/" );
+    try {
+      int maxRunning = Integer.parseInt( limits[ 0 ].trim() );
+      int maxQueued = limits.length > 1 ? Integer.parseInt( limits[ 1 ].trim() ) : Integer.MAX_VALUE;
+      if ( maxRunning <= 0 || maxQueued < 0 || limits.length > 2 ) {
+        return null;
+      }
+      return new Lane( item.substring( 0, separator ).trim(), maxRunning, maxQueued, releaser );
+    } catch ( NumberFormatException e ) {
+      return null;
+    }
+  }
+
+  /**
+   * @param jobParams the parameters of a job, may be null
+   * @return the priority of the job, {@link #DEFAULT_PRIORITY} if it has none
+   */
+  public static int getPriority( Map<String, ?> jobParams ) {
+    Object value = jobParams != null ? jobParams.get( RESERVEDMAPKEY_PRIORITY ) : null;
+    if ( value instanceof Number ) {
+      return ( (Number) value ).intValue();
+    }
+    if ( value != null ) {
+      try {
+        return Integer.parseInt( value.toString().trim() );
+      } catch ( NumberFormatException e ) {
+        // default priority
+      }
+    }
+    return DEFAULT_PRIORITY;
+  }
+
+  /**
+   * Admits a fire to the lane of its action, by action id first, then by action class, or queues it if the lane is
+   * busy.
+   *
+   * @param actionId        the action id, may be null
+   * @param actionClassName the action class, may be null
+   * @param fire            the fire
+   * @return the ticket to close once the action ran, null if the fire was queued
+   * @throws LaneFullException if the queue of the lane is full
+   */
+  public Ticket enter( String actionId, String actionClassName, QueuedFire fire ) throws LaneFullException {
+    Lane lane = getLane( actionId, actionClassName );
+    return lane != null ? lane.enter( fire ) : NO_TICKET;
+  }
+
+  /**
+   * @return the lane of the action, by action id first, then by action class, null if none
+   */
+  public Lane getLane( String actionId, String actionClassName ) {
+    Lane lane = actionId != null ? lanes.get( actionId ) : null;
+    return lane == null && actionClassName != null ? lanes.get( actionClassName ) : lane;
+  }
+
+  /**
+   * @return the lanes by name
+   */
+  public Map<String, Lane> getLanes() {
+    return lanes;
+  }
+
+  /**
+   * A fire of a job, as queued by a lane until its turn
+   */
+  public static class QueuedFire {
+
+    private final JobKey jobKey;
+
+    private final JobDataMap triggerData;
+
+    private final int priority;
+
+    private final String turn;
+
+    private final String heldTurn;
+
+    private long sequence;
+
+    private long queuedAt;
+
+    private long turnExpiry;
+
+    /**
+     * @param jobKey      the job fired
+     * @param triggerData the parameters of the trigger that fired the job, given again to the job on its turn
+     * @param priority    the priority of the job, higher runs first
+     */
+    public QueuedFire( JobKey jobKey, JobDataMap triggerData, int priority ) {
+      this.jobKey = jobKey;
+      this.triggerData = new JobDataMap();
+      if ( triggerData != null ) {
+        this.triggerData.putAll( triggerData );
+      }
+      this.heldTurn = (String) this.triggerData.remove( RESERVEDMAPKEY_LANE_TURN );
+      this.priority = priority;
+      this.turn = UUID.randomUUID().toString();
+    }
+
+    public JobKey getJobKey() {
+      return jobKey;
+    }
+
+    /**
+     * @return the parameters to fire the job again with, without its turn
+     */
+    public JobDataMap getTriggerData() {
+      return triggerData;
+    }
+
+    public int getPriority() {
+      return priority;
+    }
+
+    /**
+     * @return the turn given to this fire once it leaves the queue, to be passed as {@link #RESERVEDMAPKEY_LANE_TURN}
+     */
+    public String getTurn() {
+      return turn;
+    }
+  }
+
+  public static class Lane {
+
+    private static final Comparator<QueuedFire> ORDER =
+      Comparator.comparingInt( ( QueuedFire fire ) -> -fire.priority ).thenComparingLong( fire -> fire.sequence );
+
+    private final String name;
+
+    private final int maxRunning;
+
+    private final int maxQueued;
+
+    private final Releaser releaser;
+
+    private final PriorityQueue<QueuedFire> queue = new PriorityQueue<>( ORDER );
+
+    /**
+     * Fires that left the queue and were fired again, by turn, each of them holding a place among the running actions
+     * until it arrives
+     */
+    private final Map<String, QueuedFire> turns = new HashMap<>();
+
+    private long sequence;
+
+    private int running;
+
+    private int maxDepth;
+
+    private final AtomicLong enteredCount = new AtomicLong();
+
+    private final AtomicLong queuedCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong totalWaitTime = new AtomicLong();
+
+    public Lane( String name, int maxRunning, int maxQueued, Releaser releaser ) {
+      this.name = name;
+      this.maxRunning = maxRunning;
+      this.maxQueued = maxQueued;
+      this.releaser = releaser;
+    }
+
+    Ticket enter( QueuedFire fire ) throws LaneFullException {
+      return enter( fire, System.currentTimeMillis() );
+    }
+
+    Ticket enter( QueuedFire fire, long now ) throws LaneFullException {
+      Ticket ticket;
+      Deque<QueuedFire> released;
+      synchronized ( this ) {
+        expireTurns( now );
+        QueuedFire held = fire.heldTurn != null ? turns.remove( fire.heldTurn ) : null;
+        if ( held != null ) {
+          ticket = admit( now - held.queuedAt );
+        } else if ( running + turns.size() < maxRunning && queue.isEmpty() ) {
+          ticket = admit( 0 );
+        } else if ( queue.size() >= maxQueued ) {
+          rejectedCount.incrementAndGet();
+          throw new LaneFullException( "Execution lane '" + name + "' is full, " + running + " running and "
+            + queue.size() + " queued" );
+        } else {
+          fire.sequence = sequence++;
+          fire.queuedAt = now;
+          queue.add( fire );
+          queuedCount.incrementAndGet();
+          maxDepth = Math.max( maxDepth, queue.size() );
+          ticket = null;
+        }
+        released = takeTurns( now );
+      }
+      release( released, now );
+      return ticket;
+    }
+
+    private Ticket admit( long waitTime ) {
+      running++;
+      enteredCount.incrementAndGet();
+      totalWaitTime.addAndGet( waitTime );
+      return this::leave;
+    }
+
+    private void leave() {
+      long now = System.currentTimeMillis();
+      Deque<QueuedFire> released;
+      synchronized ( this ) {
+        running--;
+        released = takeTurns( now );
+      }
+      release( released, now );
+    }
+
+    /**
+     * Takes the fires whose turn came out of the queue, one for each place left among the running actions.
+     */
+    private Deque<QueuedFire> takeTurns( long now ) {
+      Deque<QueuedFire> taken = new ArrayDeque<>();
+      while ( running + turns.size() < maxRunning && !queue.isEmpty() ) {
+        QueuedFire fire = queue.poll();
+        fire.turnExpiry = now + TURN_TIMEOUT;
+        turns.put( fire.turn, fire );
+        taken.add( fire );
+      }
+      return taken;
+    }
+
+    private void expireTurns( long now ) {
+      for ( Iterator<QueuedFire> iterator = turns.values().iterator(); iterator.hasNext(); ) {
+        QueuedFire fire = iterator.next();
+        if ( fire.turnExpiry <= now ) {
+          iterator.remove();
+          logger.warn( "Job " + fire.jobKey + " did not arrive for its turn in execution lane '" + name
+            + "', the turn is given to the next queued fire" );
+        }
+      }
+    }
+
+    /**
+     * Fires the jobs whose turn came, outside of the lock of the lane. The turn of a job that is not fired goes to the
+     * next queued fire.
+     */
+    private void release( Deque<QueuedFire> released, long now ) {
+      while ( !released.isEmpty() ) {
+        QueuedFire fire = released.poll();
+        boolean fired;
+        try {
+          fired = releaser.release( fire );
+        } catch ( org.quartz.SchedulerException | RuntimeException e ) {
+          logger.warn( "Unable to fire job " + fire.jobKey + " for its turn in execution lane '" + name + "'", e );
+          fired = false;
+        }
+        if ( !fired ) {
+          droppedCount.incrementAndGet();
+          synchronized ( this ) {
+            turns.remove( fire.turn );
+            released.addAll( takeTurns( now ) );
+          }
+        }
+      }
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getMaxRunning() {
+      return maxRunning;
+    }
+
+    public int getMaxQueued() {
+      return maxQueued;
+    }
+
+    /**
+     * @return the number of actions running in this lane
+     */
+    public synchronized int getRunning() {
+      return running;
+    }
+
+    /**
+     * @return the number of fires queued in this lane
+     */
+    public synchronized int getDepth() {
+      return queue.size();
+    }
+
+    /**
+     * @return whether the fire is queued, or given a turn it has not taken yet
+     */
+    public synchronized boolean isPending( QueuedFire fire ) {
+      return turns.containsKey( fire.turn ) || queue.contains( fire );
+    }
+
+    /**
+     * @return the number of fires given a turn that have not arrived yet
+     */
+    public synchronized int getPendingTurns() {
+      return turns.size();
+    }
+
+    /**
+     * @return the highest number of fires queued at once in this lane
+     */
+    public synchronized int getMaxDepth() {
+      return maxDepth;
+    }
+
+    public long getEnteredCount() {
+      return enteredCount.get();
+    }
+
+    public long getQueuedCount() {
+      return queuedCount.get();
+    }
+
+    public long getRejectedCount() {
+      return rejectedCount.get();
+    }
+
+    /**
+     * @return the number of queued fires whose job could not be fired on their turn
+     */
+    public long getDroppedCount() {
+      return droppedCount.get();
+    }
+
+    /**
+     * @return the total time fires waited in this lane before their action ran, in milliseconds
+     */
+    public long getTotalWaitTime() {
+      return totalWaitTime.get();
+    }
+  }
+}
@@ -0,0 +1,310 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.TriggerKey;
+import org.quartz.impl.jdbcjobstore.JobStoreTX;
+import org.quartz.impl.jdbcjobstore.TriggerStatus;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.SchedulerSignaler;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link JobStoreTX} that maintains a {@link JobMetadataIndex} in the same transactions as the jobs it stores and
+ * removes, so that {@link QuartzScheduler} can look jobs up with an indexed select. Opted into in
+ * <code>quartz.properties</code> with <code>org.quartz.jobStore.class</code>.
+ * <p>
+ * The index table is created when the job store is initialized, then the existing jobs are backfilled by a daemon
+ * thread, outside of the trigger lock, so that the scheduler starts without waiting for it. Lookups use the index once
+ * the backfill is done.
+ * <p>
+ * The index is a cache: a failure to write it never fails the job store transaction. The write is rolled back to a
+ * savepoint and lookups fall back to filtering the job listing until the next start, which backfills the missing rows
+ * again. Should the table not be available at all, e.g. for lack of privileges to create it, the job store works as a
+ * plain {@link JobStoreTX}.
+ */
+public class IndexedJobStoreTX extends JobStoreTX {
+
+  private static final Log logger = LogFactory.getLog( IndexedJobStoreTX.class );
+
+  private static final Map<String, IndexedJobStoreTX> instances = new ConcurrentHashMap<>();
+
+  /**
+   * Number of jobs backfilled per transaction
+   */
+  static final int BACKFILL_BATCH_SIZE = 100;
+
+  private JobMetadataIndex index;
+
+  /**
+   * Whether the rows are written along with the jobs
+   */
+  private volatile boolean indexMaintained;
+
+  /**
+   * Whether every job has its row, the index then being used by lookups
+   */
+  private volatile boolean indexReady;
+
+  /**
+   * Whether a row could not be written since the start, the index then not being used by lookups until the next start
+   */
+  private boolean indexIncomplete;
+
+  private volatile boolean shutdown;
+
+  /**
+   * @param schedulerName the name of a Quartz scheduler
+   * @return the job store of the scheduler if it is an initialized {@link IndexedJobStoreTX}, null otherwise
+   */
+  public static IndexedJobStoreTX getInstance( String schedulerName ) {
+    return instances.get( schedulerName );
+  }
+
+  @Override
+  public void initialize( ClassLoadHelper loadHelper, SchedulerSignaler signaler ) throws SchedulerConfigException {
+    super.initialize( loadHelper, signaler );
+    index = new JobMetadataIndex( getTablePrefix(), getInstanceName() );
+    try {
+      executeWithoutLock( this::createIndex );
+      // the jobs stored from now on get their row, those missing one are found after that
+      indexMaintained = true;
+      List<JobKey> missing = executeWithoutLock( this::migrateIndex );
+      Thread backfill = new Thread( () -> backfillIndex( missing ), "IndexedJobStoreTX-Backfill-" + getInstanceName() );
+      backfill.setDaemon( true );
+      backfill.start();
+    } catch ( JobPersistenceException | RuntimeException e ) {
+      indexMaintained = false;
+      logger.warn( "Job metadata index " + index.getTableName() + " is not available, job lookups will scan every job",
+        e );
+    }
+    instances.put( getInstanceName(), this );
+  }
+
+  @Override
+  public void shutdown() {
+    shutdown = true;
+    instances.remove( getInstanceName(), this );
+    super.shutdown();
+  }
+
+  /**
+   * @return whether the index is complete and can be queried
+   */
+  public boolean isIndexReady() {
+    return indexReady;
+  }
+
+  /**
+   * @param criteria the value of each field to match
+   * @return the keys of the jobs matching the criteria, see {@link JobMetadataIndex#findJobKeys}
+   * @throws IllegalStateException if the index is not ready
+   */
+  public List<JobKey> findJobKeys( Map<JobMetadataIndex.Field, String> criteria ) throws JobPersistenceException {
+    if ( !indexReady ) {
+      throw new IllegalStateException( "The job metadata index is not available" );
+    }
+    return executeWithoutLock( conn -> {
+      try {
+        return index.findJobKeys( conn, criteria );
+      } catch ( SQLException e ) {
+        throw new JobPersistenceException( "Couldn't look up jobs in the job metadata index: " + e.getMessage(), e );
+      }
+    } );
+  }
+
+  @Override
+  protected void storeJob( Connection conn, JobDetail newJob, boolean replaceExisting )
+    throws JobPersistenceException {
+    super.storeJob( conn, newJob, replaceExisting );
+    updateIndex( conn, newJob.getKey(), () -> index.put( conn, newJob ) );
+  }
+
+  @Override
+  protected boolean removeJob( Connection conn, JobKey jobKey ) throws JobPersistenceException {
+    boolean removed = super.removeJob( conn, jobKey );
+    if ( removed ) {
+      updateIndex( conn, jobKey, () -> index.remove( conn, jobKey ) );
+    }
+    return removed;
+  }
+
+  /**
+   * Removes the row of a non durable job that Quartz deletes along with its last trigger, e.g. once a run-once schedule
+   * completes, which does not go through {@link #removeJob(Connection, JobKey)}.
+   */
+  @Override
+  protected boolean removeTrigger( Connection conn, TriggerKey triggerKey ) throws JobPersistenceException {
+    JobKey jobKey = indexMaintained ? selectJobKey( conn, triggerKey ) : null;
+    boolean removed = super.removeTrigger( conn, triggerKey );
+    if ( removed && jobKey != null && !jobExists( conn, jobKey ) ) {
+      updateIndex( conn, jobKey, () -> index.remove( conn, jobKey ) );
+    }
+    return removed;
+  }
+
+  /**
+   * @return the key of the job of a trigger, null if it cannot be read, the row of the job being left to be swept
+   */
+  private JobKey selectJobKey( Connection conn, TriggerKey triggerKey ) {
+    try {
+      TriggerStatus status = getDelegate().selectTriggerStatus( conn, triggerKey );
+      return status != null ? status.getJobKey() : null;
+    } catch ( SQLException e ) {
+      logger.debug( "Couldn't read the job of trigger " + triggerKey, e );
+      return null;
+    }
+  }
+
+  private boolean jobExists( Connection conn, JobKey jobKey ) {
+    try {
+      return getDelegate().jobExists( conn, jobKey );
+    } catch ( SQLException e ) {
+      logger.debug( "Couldn't tell whether job " + jobKey + " exists", e );
+      return true;
+    }
+  }
+
+  @FunctionalInterface
+  private interface IndexUpdate {
+    void run() throws SQLException;
+  }
+
+  /**
+   * Runs an update of the index within the job store transaction, rolled back to a savepoint should it fail, e.g. for
+   * a value the database does not take. The row of the job is then removed, the index is no longer used by lookups
+   * until the next start backfills it, and the job store transaction goes on.
+   */
+  private void updateIndex( Connection conn, JobKey jobKey, IndexUpdate update ) {
+    if ( !indexMaintained ) {
+      return;
+    }
+    Savepoint savepoint = null;
+    try {
+      savepoint = conn.setSavepoint();
+      update.run();
+      return;
+    } catch ( SQLException | RuntimeException e ) {
+      markIndexIncomplete();
+      logger.warn( "Couldn't update the job metadata index for job " + jobKey
+        + ", job lookups will scan every job until the next start", e );
+    }
+    try {
+      if ( savepoint != null ) {
+        conn.rollback( savepoint );
+        index.remove( conn, jobKey );
+      } else {
+        indexMaintained = false;
+      }
+    } catch ( SQLException e ) {
+      // the job store transaction may be lost along with the savepoint, stop touching the index
+      indexMaintained = false;
+      logger.warn( "Job metadata index " + index.getTableName() + " is no longer maintained", e );
+    }
+  }
+
+  private synchronized void markIndexIncomplete() {
+    indexIncomplete = true;
+    indexReady = false;
+  }
+
+  /**
+   * @return false if a row could not be written meanwhile, the index being left unused
+   */
+  private synchronized boolean markIndexReady() {
+    indexReady = !indexIncomplete;
+    return indexReady;
+  }
+
+  private Void createIndex( Connection conn ) throws JobPersistenceException {
+    try {
+      index.create( conn );
+      return null;
+    } catch ( SQLException e ) {
+      throw new JobPersistenceException( "Couldn't create the job metadata index: " + e.getMessage(), e );
+    }
+  }
+
+  /**
+   * @return the keys of the jobs that have no row yet, the rows of the jobs that no longer exist being removed
+   */
+  private List<JobKey> migrateIndex( Connection conn ) throws JobPersistenceException {
+    try {
+      return index.migrate( conn );
+    } catch ( SQLException e ) {
+      throw new JobPersistenceException( "Couldn't migrate the job metadata index: " + e.getMessage(), e );
+    }
+  }
+
+  /**
+   * Indexes the jobs that had no row, deserializing their job data map once, {@link #BACKFILL_BATCH_SIZE} jobs per
+   * transaction. The jobs stored since have their row already and are left alone.
+   */
+  void backfillIndex( List<JobKey> missing ) {
+    try {
+      int backfilled = 0;
+      for ( int from = 0; from < missing.size() && !shutdown; from += BACKFILL_BATCH_SIZE ) {
+        List<JobKey> batch = missing.subList( from, Math.min( from + BACKFILL_BATCH_SIZE, missing.size() ) );
+        backfilled += executeWithoutLock( conn -> backfillIndex( conn, batch ) );
+      }
+      if ( !shutdown && indexMaintained && markIndexReady() ) {
+        logger.debug( MessageFormat.format( "Job metadata index {0} is ready, {1} jobs backfilled",
+          index.getTableName(), backfilled ) );
+      }
+    } catch ( JobPersistenceException | RuntimeException e ) {
+      logger.warn( "Couldn't backfill job metadata index " + index.getTableName()
+        + ", job lookups will scan every job", e );
+    }
+  }
+
+  private int backfillIndex( Connection conn, List<JobKey> jobKeys ) throws JobPersistenceException {
+    try {
+      int indexed = 0;
+      for ( JobKey jobKey : jobKeys ) {
+        JobDataMap jobDataMap = null;
+        try {
+          JobDetail jobDetail = getDelegate().selectJobDetail( conn, jobKey, getClassLoadHelper() );
+          if ( jobDetail == null ) {
+            // removed since
+            continue;
+          }
+          jobDataMap = jobDetail.getJobDataMap();
+        } catch ( ClassNotFoundException | IOException e ) {
+          logger.warn( "Couldn't read the job data of " + jobKey + ", only its key is indexed", e );
+        }
+        if ( index.putIfAbsent( conn, jobKey, jobDataMap ) ) {
+          indexed++;
+        }
+      }
+      return indexed;
+    } catch ( SQLException e ) {
+      throw new JobPersistenceException( "Couldn't backfill the job metadata index: " + e.getMessage(), e );
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.quartz.JobKey;
+
+/**
+ * A change in the lifecycle of a job, as published by {@link JobEventBroadcaster}.
+ */
+public class JobEvent {
+
+  public enum Type {
+    SCHEDULED, FIRED, COMPLETED, FAILED, PAUSED, RESUMED, REMOVED, BLOCKOUT_SKIPPED, BLOCKOUT_DEFERRED, QUEUED
+  }
+
+  private final Type type;
+
+  private final String jobId;
+
+  private final String jobName;
+
+  private final String userName;
+
+  private final long time;
+
+  public JobEvent( Type type, String jobId, String jobName, String userName, long time ) {
+    this.type = type;
+    this.jobId = jobId;
+    this.jobName = jobName;
+    this.userName = userName;
+    this.time = time;
+  }
+
+  /**
+   * @param type   what happened to the job
+   * @param jobKey the key of a job created by {@link QuartzScheduler}
+   */
+  static JobEvent of( Type type, JobKey jobKey ) {
+    String jobName;
+    try {
+      jobName = QuartzJobKey.parse( jobKey.getName() ).getJobName();
+    } catch ( SchedulerException e ) {
+      // not created by QuartzScheduler, the name is all there is
+      jobName = jobKey.getName();
+    }
+    return new JobEvent( type, jobKey.getName(), jobName, jobKey.getGroup(), System.currentTimeMillis() );
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public String getJobId() {
+    return jobId;
+  }
+
+  public String getJobName() {
+    return jobName;
+  }
+
+  public String getUserName() {
+    return userName;
+  }
+
+  /**
+   * @return when the event happened, in milliseconds since the epoch
+   */
+  public long getTime() {
+    return time;
+  }
+
+  /**
+   * @return a job holding what the event tells about it, enough for the filters deciding who may see the job
+   */
+  Job toJob() {
+    Job job = new Job();
+    job.setJobId( jobId );
+    job.setJobName( jobName );
+    job.setUserName( userName );
+    return job;
+  }
+}
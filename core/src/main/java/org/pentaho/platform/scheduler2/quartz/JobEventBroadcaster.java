@@ -0,0 +1,287 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.pentaho.platform.api.scheduler2.IJobFilter;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.JobListener;
+import org.quartz.SchedulerListener;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.listeners.JobListenerSupport;
+import org.quartz.listeners.SchedulerListenerSupport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Publishes job lifecycle events to the subscriptions of the clients watching the schedules, e.g. through
+ * <code>GET api/scheduler/jobs/events</code>.
+ * <p>
+ * Events are taken from the Quartz listeners returned by {@link #getJobListener()} and
+ * {@link #getSchedulerListener()}, on the threads of the scheduler, so publishing never waits on a subscriber: each
+ * subscription keeps only the latest event of each job until it is taken, which also coalesces bursts, and drops
+ * everything once {@link #MAX_PENDING_EVENTS} jobs are waiting, telling its reader to read the listing again instead.
+ */
+public class JobEventBroadcaster {
+
+  /**
+   * Jobs with an event waiting to be taken, per subscription, before the subscription overflows
+   */
+  static final int MAX_PENDING_EVENTS = 1000;
+
+  /**
+   * Default number of subscriptions at once. Each of them holds a request thread of the servlet container while it is
+   * read, so the limit has to stay well below the size of the container's request thread pool.
+   */
+  public static final int DEFAULT_MAX_SUBSCRIPTIONS = 10;
+
+  /**
+   * Prefix of the triggers created by Quartz to run a job now, see {@link QuartzScheduler#isManualTrigger(Trigger)}
+   */
+  private static final String MANUAL_TRIGGER_PREFIX = "MT_";
+
+  private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+  private final JobListener jobListener = new EventJobListener();
+
+  private final SchedulerListener schedulerListener = new EventSchedulerListener();
+
+  /**
+   * @param filter the jobs whose events are wanted, null for all of them
+   * @return a new subscription, null if there are already {@link #DEFAULT_MAX_SUBSCRIPTIONS}
+   */
+  public Subscription subscribe( IJobFilter filter ) {
+    return subscribe( filter, DEFAULT_MAX_SUBSCRIPTIONS );
+  }
+
+  /**
+   * @param filter           the jobs whose events are wanted, null for all of them
+   * @param maxSubscriptions the number of subscriptions allowed at once
+   * @return a new subscription, null if there are already <code>maxSubscriptions</code>
+   */
+  public synchronized Subscription subscribe( IJobFilter filter, int maxSubscriptions ) {
+    if ( subscriptions.size() >= maxSubscriptions ) {
+      return null;
+    }
+    Subscription subscription = new Subscription( filter );
+    subscriptions.add( subscription );
+    return subscription;
+  }
+
+  public int getSubscriptionCount() {
+    return subscriptions.size();
+  }
+
+  /**
+   * Hands the event to every subscription whose filter accepts its job, without ever blocking.
+   */
+  public void publish( JobEvent event ) {
+    if ( subscriptions.isEmpty() ) {
+      return;
+    }
+    Job job = event.toJob();
+    for ( Subscription subscription : subscriptions ) {
+      subscription.offer( event, job );
+    }
+  }
+
+  public JobListener getJobListener() {
+    return jobListener;
+  }
+
+  public SchedulerListener getSchedulerListener() {
+    return schedulerListener;
+  }
+
+  private void publish( JobEvent.Type type, JobKey jobKey ) {
+    if ( jobKey != null ) {
+      publish( JobEvent.of( type, jobKey ) );
+    }
+  }
+
+  /**
+   * Triggers created by {@link QuartzScheduler} share their key with the job they fire.
+   */
+  private void publish( JobEvent.Type type, TriggerKey triggerKey ) {
+    if ( triggerKey != null ) {
+      publish( type, new JobKey( triggerKey.getName(), triggerKey.getGroup() ) );
+    }
+  }
+
+  /**
+   * The events of the jobs accepted by a filter, waiting to be taken by a single reader.
+   */
+  public class Subscription implements AutoCloseable {
+
+    private final IJobFilter filter;
+
+    /**
+     * Latest event of each job, in the order the jobs first had one
+     */
+    private final Map<String, JobEvent> pendingEvents = new LinkedHashMap<>();
+
+    private boolean overflowed;
+
+    private boolean closed;
+
+    Subscription( IJobFilter filter ) {
+      this.filter = filter;
+    }
+
+    void offer( JobEvent event, Job job ) {
+      if ( filter != null && !filter.accept( job ) ) {
+        return;
+      }
+      synchronized ( this ) {
+        if ( closed || overflowed ) {
+          return;
+        }
+        pendingEvents.put( event.getJobId(), event );
+        if ( pendingEvents.size() > MAX_PENDING_EVENTS ) {
+          pendingEvents.clear();
+          overflowed = true;
+        }
+        notifyAll();
+      }
+    }
+
+    /**
+     * Waits for events and takes them. Once the first one arrives, waits a little longer so that a burst of events,
+     * e.g. from a batch of jobs being paused, is taken at once and events of the same job are coalesced.
+     *
+     * @param timeoutMillis  how long to wait for a first event
+     * @param coalesceMillis how long to wait for more events after the first one
+     * @return the latest event of each job since the previous call, empty if none arrived in time, the subscription
+     * overflowed or it was closed
+     */
+    public synchronized List<JobEvent> take( long timeoutMillis, long coalesceMillis ) throws InterruptedException {
+      awaitUntil( System.currentTimeMillis() + timeoutMillis, true );
+      if ( !pendingEvents.isEmpty() ) {
+        awaitUntil( System.currentTimeMillis() + coalesceMillis, false );
+      }
+      if ( pendingEvents.isEmpty() ) {
+        return Collections.emptyList();
+      }
+      List<JobEvent> events = new ArrayList<>( pendingEvents.values() );
+      pendingEvents.clear();
+      return events;
+    }
+
+    /**
+     * Tells whether events were dropped since the previous call, in which case the reader no longer knows the state
+     * of the jobs and should read the listing again. The subscription then starts collecting events again.
+     */
+    public synchronized boolean takeOverflow() {
+      boolean result = overflowed;
+      overflowed = false;
+      return result;
+    }
+
+    public synchronized boolean isClosed() {
+      return closed;
+    }
+
+    /**
+     * Stops collecting events, waking up the reader if it is waiting for some.
+     */
+    @Override
+    public void close() {
+      subscriptions.remove( this );
+      synchronized ( this ) {
+        closed = true;
+        pendingEvents.clear();
+        notifyAll();
+      }
+    }
+
+    private void awaitUntil( long deadline, boolean untilEvent ) throws InterruptedException {
+      long remaining = deadline - System.currentTimeMillis();
+      while ( remaining > 0 && !closed && !overflowed && !( untilEvent && !pendingEvents.isEmpty() ) ) {
+        wait( remaining );
+        remaining = deadline - System.currentTimeMillis();
+      }
+    }
+  }
+
+  private class EventJobListener extends JobListenerSupport {
+
+    @Override
+    public String getName() {
+      return JobEventBroadcaster.class.getName();
+    }
+
+    @Override
+    public void jobToBeExecuted( JobExecutionContext context ) {
+      publish( JobEvent.Type.FIRED, context.getJobDetail().getKey() );
+    }
+
+    @Override
+    public void jobWasExecuted( JobExecutionContext context, JobExecutionException jobException ) {
+      JobEvent.Type type;
+      if ( jobException != null ) {
+        type = JobEvent.Type.FAILED;
+      } else if ( context.getResult() instanceof JobEvent.Type ) {
+        // set by BlockingQuartzJob when it handled a failure or did not run the job
+        type = (JobEvent.Type) context.getResult();
+      } else {
+        type = JobEvent.Type.COMPLETED;
+      }
+      publish( type, context.getJobDetail().getKey() );
+    }
+  }
+
+  private class EventSchedulerListener extends SchedulerListenerSupport {
+
+    @Override
+    public void jobScheduled( Trigger trigger ) {
+      if ( trigger.getKey() == null || !trigger.getKey().getName().startsWith( MANUAL_TRIGGER_PREFIX ) ) {
+        publish( JobEvent.Type.SCHEDULED, trigger.getJobKey() );
+      }
+    }
+
+    @Override
+    public void jobDeleted( JobKey jobKey ) {
+      publish( JobEvent.Type.REMOVED, jobKey );
+    }
+
+    @Override
+    public void jobPaused( JobKey jobKey ) {
+      publish( JobEvent.Type.PAUSED, jobKey );
+    }
+
+    @Override
+    public void jobResumed( JobKey jobKey ) {
+      publish( JobEvent.Type.RESUMED, jobKey );
+    }
+
+    @Override
+    public void triggerPaused( TriggerKey triggerKey ) {
+      publish( JobEvent.Type.PAUSED, triggerKey );
+    }
+
+    @Override
+    public void triggerResumed( TriggerKey triggerKey ) {
+      publish( JobEvent.Type.RESUMED, triggerKey );
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.pentaho.platform.api.scheduler2.IScheduler;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The job parameters that job filters usually look at, kept in the description of the job's trigger so that they can
+ * be read along with the trigger, without deserializing the job data map of the job.
+ * <p>
+ * The description holds a version prefix followed by one <code>index[=value]</code> item per parameter, the index
+ * being the position of the parameter in {@link #PARAM_NAMES}. An item without a value records that the job does not
+ * have the parameter. Parameters that do not fit in the description column are left out, and are then unknown.
+ */
+public class JobMetadata {
+
+  static final String PREFIX = "pentaho-job:1;";
+
+  /**
+   * Size of the DESCRIPTION column of the Quartz triggers table
+   */
+  static final int MAX_LENGTH = 250;
+
+  static final String RESERVEDMAPKEY_INPUTFILE = "ActionAdapterQuartzJob-StreamProvider-InputFile";
+
+  /**
+   * The parameters kept, by order of precedence when they do not all fit. Items refer to them by index, so new ones
+   * can only be appended.
+   */
+  public static final List<String> PARAM_NAMES = Collections.unmodifiableList( Arrays.asList(
+    IScheduler.RESERVEDMAPKEY_ACTIONUSER,
+    IScheduler.RESERVEDMAPKEY_ACTIONCLASS,
+    IScheduler.RESERVEDMAPKEY_ACTIONID,
+    IScheduler.RESERVEDMAPKEY_LINEAGE_ID,
+    RESERVEDMAPKEY_INPUTFILE ) );
+
+  private final Map<String, Object> params;
+
+  private JobMetadata( Map<String, Object> params ) {
+    this.params = Collections.unmodifiableMap( params );
+  }
+
+  /**
+   * @param jobParams the parameters of a job
+   * @return the description to give to the job's trigger, null if none of the parameters fit
+   */
+  public static String encode( Map<String, Object> jobParams ) {
+    StringBuilder description = new StringBuilder( PREFIX );
+    for ( int i = 0; i < PARAM_NAMES.size(); i++ ) {
+      Object value = jobParams.get( PARAM_NAMES.get( i ) );
+      if ( value != null && !( value instanceof String ) ) {
+        // only plain values are kept, the job data map has to be read for the others
+        continue;
+      }
+      String item = value == null ? i + ";" : i + "=" + encodeValue( (String) value ) + ";";
+      if ( description.length() + item.length() > MAX_LENGTH ) {
+        break;
+      }
+      description.append( item );
+    }
+    return description.length() > PREFIX.length() ? description.toString() : null;
+  }
+
+  /**
+   * @param description the description of a job's trigger, may be null
+   * @return the metadata held by the description, null if it does not hold any, e.g. for jobs scheduled before
+   * metadata was kept
+   */
+  public static JobMetadata parse( String description ) {
+    if ( description == null || !description.startsWith( PREFIX ) ) {
+      return null;
+    }
+    Map<String, Object> params = new HashMap<>();
+    try {
+      for ( String item : description.substring( PREFIX.length() ).split( ";" ) ) {
+        if ( item.isEmpty() ) {
+          continue;
+        }
+        int separator = item.indexOf( '=' );
+        int index = Integer.parseInt( separator < 0 ? item : item.substring( 0, separator ) );
+        if ( index < 0 || index >= PARAM_NAMES.size() ) {
+          // written by a later version, skip what is not known here
+          continue;
+        }
+        params.put( PARAM_NAMES.get( index ), separator < 0 ? null : decodeValue( item.substring( separator + 1 ) ) );
+      }
+    } catch ( IllegalArgumentException e ) {
+      return null;
+    }
+    return new JobMetadata( params );
+  }
+
+  /**
+   * @return whether the metadata tells the value of the parameter, possibly that the job does not have it
+   */
+  public boolean isKnown( String paramName ) {
+    return params.containsKey( paramName );
+  }
+
+  /**
+   * @return the value of the parameter, null if the job does not have it or if it is not known
+   */
+  public Object get( String paramName ) {
+    return params.get( paramName );
+  }
+
+  /**
+   * @return the known parameters, with a null value for the ones the job does not have
+   */
+  public Map<String, Object> getParams() {
+    return params;
+  }
+
+  private static String encodeValue( String value ) {
+    try {
+      return URLEncoder.encode( value, StandardCharsets.UTF_8.name() );
+    } catch ( UnsupportedEncodingException e ) {
+      throw new IllegalStateException( e );
+    }
+  }
+
+  private static String decodeValue( String value ) {
+    try {
+      return URLDecoder.decode( value, StandardCharsets.UTF_8.name() );
+    } catch ( UnsupportedEncodingException e ) {
+      throw new IllegalStateException( e );
+    }
+  }
+}
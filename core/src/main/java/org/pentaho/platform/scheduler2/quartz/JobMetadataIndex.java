@@ -0,0 +1,314 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Side table of the Quartz job store with one indexed row per job, holding the job metadata that lookups filter on,
+ * so that jobs can be found with an indexed select instead of reading and deserializing every job detail.
+ * <p>
+ * Rows are written by {@link IndexedJobStoreTX} with the connection of the job store transaction storing or removing
+ * the job. Should a row be left behind, e.g. while the index was not maintained, lookups only return rows whose job
+ * still exists, and such rows are swept by {@link #migrate}.
+ * <p>
+ * Values are truncated to the size of their column counted in UTF-8 bytes, so that they fit in columns sized in bytes,
+ * the default on Oracle.
+ * <p>
+ * The state of a job is not kept here, it changes on every fire and is read from the triggers of the job.
+ */
+public class JobMetadataIndex {
+
+  static final String TABLE_NAME = "JOB_METADATA";
+
+  /**
+   * Size of the value columns, in bytes
+   */
+  static final int MAX_VALUE_LENGTH = 200;
+
+  static final int MAX_INPUT_FILE_LENGTH = 1000;
+
+  /**
+   * The indexed fields, along with their column and the job parameter they come from
+   */
+  public enum Field {
+    OWNER( "OWNER", null ),
+    JOB_NAME( "JOB_TITLE", null ),
+    ACTION_CLASS( "ACTION_CLASS", IScheduler.RESERVEDMAPKEY_ACTIONCLASS ),
+    ACTION_ID( "ACTION_ID", IScheduler.RESERVEDMAPKEY_ACTIONID ),
+    LINEAGE_ID( "LINEAGE_ID", IScheduler.RESERVEDMAPKEY_LINEAGE_ID ),
+    INPUT_FILE( "INPUT_FILE", JobMetadata.RESERVEDMAPKEY_INPUTFILE );
+
+    private final String column;
+
+    private final String paramName;
+
+    Field( String column, String paramName ) {
+      this.column = column;
+      this.paramName = paramName;
+    }
+
+    int getMaxLength() {
+      return this == INPUT_FILE ? MAX_INPUT_FILE_LENGTH : MAX_VALUE_LENGTH;
+    }
+
+    /**
+     * @return the job parameter the field comes from, null for the owner and the job name which come from the job key
+     */
+    public String getParamName() {
+      return paramName;
+    }
+  }
+
+  private final String tablePrefix;
+
+  private final String schedulerName;
+
+  /**
+   * @param tablePrefix   the table prefix of the job store, e.g. <code>QRTZ6_</code>
+   * @param schedulerName the name of the scheduler, rows of other schedulers sharing the tables are left alone
+   */
+  public JobMetadataIndex( String tablePrefix, String schedulerName ) {
+    this.tablePrefix = tablePrefix;
+    this.schedulerName = schedulerName;
+  }
+
+  public String getTableName() {
+    return tablePrefix + TABLE_NAME;
+  }
+
+  /**
+   * Creates the table and its indexes if missing.
+   */
+  public void create( Connection conn ) throws SQLException {
+    if ( !tableExists( conn ) ) {
+      createTable( conn );
+    }
+  }
+
+  /**
+   * Brings the rows of an existing table up to date: removes the rows of jobs that no longer exist, and returns the
+   * keys of the jobs that have no row yet, for the caller to {@link #putIfAbsent} them.
+   */
+  public List<JobKey> migrate( Connection conn ) throws SQLException {
+    try ( PreparedStatement ps = conn.prepareStatement( "DELETE FROM " + getTableName()
+      + " WHERE SCHED_NAME = ? AND NOT EXISTS ( SELECT 1 FROM " + getJobDetailsTableName() + " WHERE "
+      + joinCondition() + " )" ) ) {
+      ps.setString( 1, schedulerName );
+      ps.executeUpdate();
+    }
+
+    List<JobKey> missing = new ArrayList<>();
+    try ( PreparedStatement ps = conn.prepareStatement( "SELECT JOB_NAME, JOB_GROUP FROM " + getJobDetailsTableName()
+      + " WHERE SCHED_NAME = ? AND NOT EXISTS ( SELECT 1 FROM " + getTableName() + " WHERE " + joinCondition()
+      + " )" ) ) {
+      ps.setString( 1, schedulerName );
+      try ( ResultSet rs = ps.executeQuery() ) {
+        while ( rs.next() ) {
+          missing.add( new JobKey( rs.getString( 1 ), rs.getString( 2 ) ) );
+        }
+      }
+    }
+    return missing;
+  }
+
+  /**
+   * Writes the row of a job, replacing any previous one.
+   */
+  public void put( Connection conn, JobDetail jobDetail ) throws SQLException {
+    put( conn, jobDetail.getKey(), jobDetail.getJobDataMap() );
+  }
+
+  /**
+   * Writes the row of a job, replacing any previous one.
+   *
+   * @param jobDataMap the job data map of the job, null if it cannot be read, only the key fields are then indexed
+   */
+  public void put( Connection conn, JobKey jobKey, JobDataMap jobDataMap ) throws SQLException {
+    remove( conn, jobKey );
+
+    try ( PreparedStatement ps = conn.prepareStatement( "INSERT INTO " + getTableName()
+      + " ( SCHED_NAME, JOB_NAME, JOB_GROUP, OWNER, JOB_TITLE, ACTION_CLASS, ACTION_ID, LINEAGE_ID, INPUT_FILE )"
+      + " VALUES ( ?, ?, ?, ?, ?, ?, ?, ?, ? )" ) ) {
+      ps.setString( 1, schedulerName );
+      ps.setString( 2, jobKey.getName() );
+      ps.setString( 3, jobKey.getGroup() );
+      ps.setString( 4, truncate( jobKey.getGroup(), MAX_VALUE_LENGTH ) );
+      ps.setString( 5, truncate( getJobName( jobKey ), MAX_VALUE_LENGTH ) );
+      ps.setString( 6, getParam( jobDataMap, Field.ACTION_CLASS ) );
+      ps.setString( 7, getParam( jobDataMap, Field.ACTION_ID ) );
+      ps.setString( 8, getParam( jobDataMap, Field.LINEAGE_ID ) );
+      ps.setString( 9, getParam( jobDataMap, Field.INPUT_FILE ) );
+      ps.executeUpdate();
+    }
+  }
+
+  /**
+   * Writes the row of a job unless it has one already, which is then more recent than the job data map given.
+   *
+   * @return false if the job has a row already
+   */
+  public boolean putIfAbsent( Connection conn, JobKey jobKey, JobDataMap jobDataMap ) throws SQLException {
+    try ( PreparedStatement ps = conn.prepareStatement( "SELECT 1 FROM " + getTableName()
+      + " WHERE SCHED_NAME = ? AND JOB_NAME = ? AND JOB_GROUP = ?" ) ) {
+      ps.setString( 1, schedulerName );
+      ps.setString( 2, jobKey.getName() );
+      ps.setString( 3, jobKey.getGroup() );
+      try ( ResultSet rs = ps.executeQuery() ) {
+        if ( rs.next() ) {
+          return false;
+        }
+      }
+    }
+    put( conn, jobKey, jobDataMap );
+    return true;
+  }
+
+  public void remove( Connection conn, JobKey jobKey ) throws SQLException {
+    try ( PreparedStatement ps = conn.prepareStatement( "DELETE FROM " + getTableName()
+      + " WHERE SCHED_NAME = ? AND JOB_NAME = ? AND JOB_GROUP = ?" ) ) {
+      ps.setString( 1, schedulerName );
+      ps.setString( 2, jobKey.getName() );
+      ps.setString( 3, jobKey.getGroup() );
+      ps.executeUpdate();
+    }
+  }
+
+  /**
+   * @param criteria the value of each field to match, all of them having to match
+   * @return the keys of the existing jobs matching the criteria, values longer than their column being matched on
+   * what fits in it, see {@link #truncate(String, int)}
+   */
+  public List<JobKey> findJobKeys( Connection conn, Map<Field, String> criteria ) throws SQLException {
+    StringBuilder sql = new StringBuilder( "SELECT JOB_NAME, JOB_GROUP FROM " ).append( getTableName() )
+      .append( " WHERE SCHED_NAME = ?" );
+    for ( Field field : criteria.keySet() ) {
+      sql.append( " AND " ).append( field.column ).append( " = ?" );
+    }
+    sql.append( " AND EXISTS ( SELECT 1 FROM " ).append( getJobDetailsTableName() ).append( " WHERE " )
+      .append( joinCondition() ).append( " )" );
+
+    List<JobKey> jobKeys = new ArrayList<>();
+    try ( PreparedStatement ps = conn.prepareStatement( sql.toString() ) ) {
+      int index = 1;
+      ps.setString( index++, schedulerName );
+      for ( Map.Entry<Field, String> criterion : criteria.entrySet() ) {
+        // values are stored truncated, callers check the jobs found against the whole value
+        ps.setString( index++, truncate( criterion.getValue(), criterion.getKey().getMaxLength() ) );
+      }
+      try ( ResultSet rs = ps.executeQuery() ) {
+        while ( rs.next() ) {
+          jobKeys.add( new JobKey( rs.getString( 1 ), rs.getString( 2 ) ) );
+        }
+      }
+    }
+    return jobKeys;
+  }
+
+  private boolean tableExists( Connection conn ) throws SQLException {
+    DatabaseMetaData databaseMetaData = conn.getMetaData();
+    String tableName = getTableName();
+    if ( databaseMetaData.storesLowerCaseIdentifiers() ) {
+      tableName = tableName.toLowerCase();
+    } else if ( databaseMetaData.storesUpperCaseIdentifiers() ) {
+      tableName = tableName.toUpperCase();
+    }
+    try ( ResultSet rs = databaseMetaData.getTables( null, null, tableName, null ) ) {
+      return rs.next();
+    }
+  }
+
+  private void createTable( Connection conn ) throws SQLException {
+    String table = getTableName();
+    try ( Statement stmt = conn.createStatement() ) {
+      stmt.executeUpdate( "CREATE TABLE " + table + " ("
+        + " SCHED_NAME VARCHAR(120) NOT NULL,"
+        + " JOB_NAME VARCHAR(200) NOT NULL,"
+        + " JOB_GROUP VARCHAR(200) NOT NULL,"
+        + " OWNER VARCHAR(" + MAX_VALUE_LENGTH + "),"
+        + " JOB_TITLE VARCHAR(" + MAX_VALUE_LENGTH + "),"
+        + " ACTION_CLASS VARCHAR(" + MAX_VALUE_LENGTH + "),"
+        + " ACTION_ID VARCHAR(" + MAX_VALUE_LENGTH + "),"
+        + " LINEAGE_ID VARCHAR(" + MAX_VALUE_LENGTH + "),"
+        + " INPUT_FILE VARCHAR(" + MAX_INPUT_FILE_LENGTH + "),"
+        + " PRIMARY KEY ( SCHED_NAME, JOB_NAME, JOB_GROUP ) )" );
+      // short index names, some databases limit them to 30 characters
+      for ( Field field : new Field[] { Field.OWNER, Field.JOB_NAME, Field.ACTION_CLASS, Field.ACTION_ID,
+        Field.LINEAGE_ID } ) {
+        stmt.executeUpdate( "CREATE INDEX IDX_" + tablePrefix + "JM_" + field.column + " ON " + table
+          + " ( SCHED_NAME, " + field.column + " )" );
+      }
+    }
+  }
+
+  private String getJobDetailsTableName() {
+    return tablePrefix + "JOB_DETAILS";
+  }
+
+  private String joinCondition() {
+    String table = getTableName();
+    String jobDetails = getJobDetailsTableName();
+    return jobDetails + ".SCHED_NAME = " + table + ".SCHED_NAME AND " + jobDetails + ".JOB_NAME = " + table
+      + ".JOB_NAME AND " + jobDetails + ".JOB_GROUP = " + table + ".JOB_GROUP";
+  }
+
+  private static String getJobName( JobKey jobKey ) {
+    try {
+      return QuartzJobKey.parse( jobKey.getName() ).getJobName();
+    } catch ( SchedulerException | RuntimeException e ) {
+      // not scheduled through QuartzScheduler
+      return jobKey.getName();
+    }
+  }
+
+  private static String getParam( JobDataMap jobDataMap, Field field ) {
+    Object value = jobDataMap == null ? null : jobDataMap.get( field.getParamName() );
+    return value instanceof String ? truncate( (String) value, field.getMaxLength() ) : null;
+  }
+
+  /**
+   * @return the longest prefix of the value that takes at most <code>maxBytes</code> bytes in UTF-8, surrogate pairs
+   * being kept whole
+   */
+  static String truncate( String value, int maxBytes ) {
+    if ( value == null || value.length() * 3 <= maxBytes ) {
+      return value;
+    }
+    int bytes = 0;
+    int i = 0;
+    while ( i < value.length() ) {
+      int codePoint = value.codePointAt( i );
+      bytes += codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+      if ( bytes > maxBytes ) {
+        return value.substring( 0, i );
+      }
+      i += Character.charCount( codePoint );
+    }
+    return value;
+  }
+}
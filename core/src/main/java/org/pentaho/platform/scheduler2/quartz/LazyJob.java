@@ -0,0 +1,202 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobTrigger;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A job handed to job filters before its catalog entry is loaded, see
+ * {@link QuartzJobCatalog.Entry#previewJob(Collection)}. Its identity, state, next run and the parameters known from
+ * its {@link JobMetadata} are answered from the preview; anything else loads the entry first, which deserializes the
+ * job data map of the job. Filters that only look at the former never cause a load.
+ */
+class LazyJob extends Job {
+
+  private final QuartzJobCatalog.Entry entry;
+
+  private final Collection<String> paramNames;
+
+  /**
+   * Parameters answered from the preview, including those the job is known not to have
+   */
+  private final Set<String> previewParamNames;
+
+  private final Map<String, Object> params = new Params();
+
+  private boolean loaded;
+
+  LazyJob( QuartzJobCatalog.Entry entry, Job preview, Collection<String> paramNames ) {
+    this.entry = entry;
+    this.paramNames = paramNames;
+    this.previewParamNames = new HashSet<>( preview.getJobParams().keySet() );
+    setJobId( preview.getJobId() );
+    setJobName( preview.getJobName() );
+    setUserName( preview.getUserName() );
+    setGroupName( preview.getGroupName() );
+    setState( preview.getState() );
+    setNextRun( preview.getNextRun() );
+    preview.getJobParams().forEach( ( name, value ) -> {
+      if ( value != null ) {
+        super.getJobParams().put( name, value );
+      }
+    } );
+  }
+
+  /**
+   * @param job a job returned by {@link QuartzJobCatalog.Entry#previewJob(Collection)}
+   * @return the job itself, or for a lazy job a plain copy of it holding the parameters it was previewed for
+   * @throws QuartzJobCatalog.JobLoadException if the job had to be loaded and could not be
+   */
+  static Job resolve( Job job ) {
+    return job instanceof LazyJob ? ( (LazyJob) job ).toJob() : job;
+  }
+
+  private Job toJob() {
+    load();
+    Job job = new Job();
+    job.setJobId( getJobId() );
+    job.setJobName( getJobName() );
+    job.setUserName( getUserName() );
+    job.setGroupName( getGroupName() );
+    job.setSchedulableClass( getSchedulableClass() );
+    job.setState( getState() );
+    job.setLastRun( getLastRun() );
+    job.setNextRun( getNextRun() );
+    job.setJobTrigger( getJobTrigger() );
+    if ( paramNames == null ) {
+      job.setJobParams( getRawParams() );
+    } else {
+      for ( String paramName : paramNames ) {
+        Object value = getRawParams().get( paramName );
+        if ( value != null ) {
+          job.getJobParams().put( paramName, value );
+        }
+      }
+    }
+    return job;
+  }
+
+  /**
+   * Fills in what the preview does not hold from the loaded job. Identity, state and next run are kept, the latter
+   * having been recalculated for this read.
+   */
+  private void load() {
+    if ( loaded ) {
+      return;
+    }
+    Job job = entry.copyJob();
+    loaded = true;
+    super.setJobParams( job.getJobParams() );
+    super.setJobTrigger( job.getJobTrigger() );
+    super.setLastRun( job.getLastRun() );
+    setSchedulableClass( job.getSchedulableClass() );
+  }
+
+  @Override
+  public Map<String, Object> getJobParams() {
+    return params;
+  }
+
+  @Override
+  public void setJobParams( Map<String, Object> jobParams ) {
+    load();
+    super.setJobParams( jobParams );
+  }
+
+  @Override
+  public JobTrigger getJobTrigger() {
+    load();
+    return super.getJobTrigger();
+  }
+
+  @Override
+  public void setJobTrigger( IJobTrigger jobTrigger ) {
+    load();
+    super.setJobTrigger( jobTrigger );
+  }
+
+  @Override
+  public void setJobTrigger( JobTrigger jobTrigger ) {
+    load();
+    super.setJobTrigger( jobTrigger );
+  }
+
+  @Override
+  public Date getLastRun() {
+    load();
+    return super.getLastRun();
+  }
+
+  @Override
+  public void setLastRun( Date lastRun ) {
+    load();
+    super.setLastRun( lastRun );
+  }
+
+  /**
+   * @return the parameter map of the job itself, holding the parameters of the preview until the job is loaded
+   */
+  private Map<String, Object> getRawParams() {
+    return super.getJobParams();
+  }
+
+  /**
+   * The parameters of the job, answering single lookups of the parameters of the preview without loading the job.
+   */
+  private class Params extends AbstractMap<String, Object> {
+
+    private boolean isPreviewed( Object paramName ) {
+      return !loaded && previewParamNames.contains( paramName );
+    }
+
+    private Map<String, Object> getLoaded() {
+      load();
+      return getRawParams();
+    }
+
+    @Override
+    public Object get( Object key ) {
+      return isPreviewed( key ) ? getRawParams().get( key ) : getLoaded().get( key );
+    }
+
+    @Override
+    public boolean containsKey( Object key ) {
+      return isPreviewed( key ) ? getRawParams().containsKey( key ) : getLoaded().containsKey( key );
+    }
+
+    @Override
+    public Object put( String key, Object value ) {
+      return getLoaded().put( key, value );
+    }
+
+    @Override
+    public Object remove( Object key ) {
+      return getLoaded().remove( key );
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+      return getLoaded().entrySet();
+    }
+  }
+}
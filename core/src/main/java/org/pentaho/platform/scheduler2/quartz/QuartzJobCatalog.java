@@ -0,0 +1,534 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.SchedulerListener;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.TriggerListener;
+import org.quartz.listeners.SchedulerListenerSupport;
+import org.quartz.listeners.TriggerListenerSupport;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory catalog of the jobs known to a {@link QuartzScheduler}, used to serve job listings without rebuilding
+ * every {@link Job} from the job store.
+ * <p>
+ * The catalog starts out unprimed; until the scheduler loads it with a full listing, every read is a miss and goes to
+ * the store. After that, changes are tracked per job: the scheduler's own write operations and the Quartz listeners
+ * returned by {@link #getSchedulerListener()} and {@link #getTriggerListener()} mark the affected job as stale, and
+ * the scheduler reloads only the stale jobs on the next read. Changes that cannot be attributed to a single job drop
+ * the whole catalog back to the unprimed state.
+ * <p>
+ * Every change also bumps the catalog version, and the version of the last change of each job is recorded, so readers
+ * can tell which jobs changed since a version they saw, see {@link #getChangedSince(long)}. Jobs that disappear from
+ * the store are remembered for a while along with their last known entry, to report them as removed.
+ * <p>
+ * All methods are safe to call from concurrent threads. Entries are never handed out directly, readers receive copies
+ * from {@link Entry#copyJob()} or {@link Entry#previewJob(Collection)}.
+ */
+public class QuartzJobCatalog {
+
+  /**
+   * Number of removed jobs remembered beyond the known ones, past which they are forgotten and older versions can no
+   * longer be answered
+   */
+  static final int MAX_REMOVED_JOBS = 1000;
+
+  private final Map<JobKey, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Last known entry of the jobs removed from the store
+   */
+  private final Map<JobKey, Entry> removedEntries = new ConcurrentHashMap<>();
+
+  /**
+   * Version of the last change of each job
+   */
+  private final Map<JobKey, Long> changeVersions = new HashMap<>();
+
+  private final AtomicLong version = new AtomicLong();
+
+  /**
+   * Oldest version changes can be told from
+   */
+  private volatile long oldestVersion;
+
+  private final Set<JobKey> staleKeys = ConcurrentHashMap.newKeySet();
+
+  private final AtomicLong generation = new AtomicLong();
+
+  private final AtomicLong hitCount = new AtomicLong();
+
+  private final AtomicLong missCount = new AtomicLong();
+
+  private volatile boolean primed;
+
+  private final SchedulerListener schedulerListener = new CatalogSchedulerListener();
+
+  private final TriggerListener triggerListener = new CatalogTriggerListener();
+
+  /**
+   * A cached job along with the Quartz trigger it was built from. The trigger is kept so the next run can be
+   * recalculated at read time.
+   * <p>
+   * An entry may also be created from a preview of the job, holding what can be told without reading the job data map
+   * of the job, along with a {@link JobLoader} for the rest. The job is then loaded the first time it is copied, and
+   * listings can evaluate their filter against {@link #previewJob(Collection)} beforehand so that only the jobs they
+   * accept are loaded.
+   */
+  public static class Entry {
+
+    private final JobKey jobKey;
+
+    private final Trigger trigger;
+
+    private final Job preview;
+
+    private volatile Job job;
+
+    private JobLoader loader;
+
+    public Entry( JobKey jobKey, Job job, Trigger trigger ) {
+      this.jobKey = jobKey;
+      this.job = job;
+      this.trigger = trigger;
+      this.preview = null;
+    }
+
+    /**
+     * @param preview the job without the parameters missing from its metadata, nor its trigger and last run
+     * @param loader  loads the whole job when it is first needed
+     */
+    public Entry( JobKey jobKey, Job preview, Trigger trigger, JobLoader loader ) {
+      this.jobKey = jobKey;
+      this.preview = preview;
+      this.trigger = trigger;
+      this.loader = loader;
+    }
+
+    public JobKey getJobKey() {
+      return jobKey;
+    }
+
+    public Trigger getTrigger() {
+      return trigger;
+    }
+
+    /**
+     * @return whether the whole job is held, rather than only its preview
+     */
+    public boolean isLoaded() {
+      return job != null;
+    }
+
+    /**
+     * @return a copy of the cached job with its own parameter map, which the caller is free to modify
+     * @throws JobLoadException if the job had to be loaded and could not be
+     */
+    public Job copyJob() {
+      return copyJob( null );
+    }
+
+    /**
+     * @param paramNames the parameters to copy, null for all of them
+     * @return a copy of the cached job with its own parameter map holding only the given parameters
+     * @throws JobLoadException if the job had to be loaded and could not be
+     */
+    public Job copyJob( Collection<String> paramNames ) {
+      return copy( getJob(), paramNames );
+    }
+
+    /**
+     * Returns a copy of the job to evaluate a filter against. Unless the job is already loaded, the copy is a
+     * {@link LazyJob} that answers from the preview and loads the job only when asked for something the preview does
+     * not hold; pass it to {@link LazyJob#resolve(Job)} once accepted.
+     *
+     * @param paramNames the parameters to copy, null for all of them
+     */
+    public Job previewJob( Collection<String> paramNames ) {
+      Job loaded = job;
+      return loaded != null ? copy( loaded, paramNames ) : new LazyJob( this, preview, paramNames );
+    }
+
+    private Job getJob() {
+      Job loaded = job;
+      if ( loaded == null ) {
+        synchronized ( this ) {
+          loaded = job;
+          if ( loaded == null ) {
+            try {
+              loaded = loader.load( jobKey, trigger );
+            } catch ( SchedulerException | org.quartz.SchedulerException e ) {
+              throw new JobLoadException( e );
+            }
+            job = loaded;
+            loader = null;
+          }
+        }
+      }
+      return loaded;
+    }
+
+    private static Job copy( Job job, Collection<String> paramNames ) {
+      Job copy = new Job();
+      copy.setJobId( job.getJobId() );
+      copy.setJobName( job.getJobName() );
+      copy.setUserName( job.getUserName() );
+      copy.setGroupName( job.getGroupName() );
+      copy.setSchedulableClass( job.getSchedulableClass() );
+      copy.setState( job.getState() );
+      copy.setLastRun( job.getLastRun() );
+      copy.setNextRun( job.getNextRun() );
+      copy.setJobTrigger( job.getJobTrigger() );
+      if ( paramNames == null ) {
+        copy.setJobParams( job.getJobParams() );
+      } else {
+        for ( String paramName : paramNames ) {
+          Object value = job.getJobParams().get( paramName );
+          if ( value != null ) {
+            copy.getJobParams().put( paramName, value );
+          }
+        }
+      }
+      return copy;
+    }
+  }
+
+  /**
+   * Loads the whole job of an entry created from a preview.
+   */
+  @FunctionalInterface
+  public interface JobLoader {
+    Job load( JobKey jobKey, Trigger trigger ) throws SchedulerException, org.quartz.SchedulerException;
+  }
+
+  /**
+   * Thrown when the job of an entry could not be loaded, the cause being the failure of its {@link JobLoader}.
+   */
+  public static class JobLoadException extends RuntimeException {
+    private static final long serialVersionUID = -2516093417650317853L;
+
+    public JobLoadException( Exception cause ) {
+      super( cause );
+    }
+  }
+
+  /**
+   * @return true once the catalog holds a full listing of the store
+   */
+  public boolean isPrimed() {
+    return primed;
+  }
+
+  /**
+   * @return the current generation, to be passed to {@link #prime(Collection, long)} once the listing it guards has
+   * been loaded
+   */
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Replaces the catalog content with a full listing. The catalog is only marked as primed if it has not been
+   * invalidated since <code>expectedGeneration</code> was read, so a listing that raced with a bulk change is not
+   * trusted.
+   *
+   * @param loaded             the full listing
+   * @param expectedGeneration the generation read before the listing was loaded
+   */
+  public synchronized void prime( Collection<Entry> loaded, long expectedGeneration ) {
+    entries.clear();
+    removedEntries.clear();
+    for ( Entry entry : loaded ) {
+      entries.put( entry.getJobKey(), entry );
+    }
+    primed = generation.get() == expectedGeneration;
+  }
+
+  /**
+   * @return the cached entries
+   */
+  public Collection<Entry> getEntries() {
+    return new ArrayList<>( entries.values() );
+  }
+
+  /**
+   * @return the cached entry of a job, or its last known entry if it was removed, null if neither is known
+   */
+  public Entry getEntry( JobKey jobKey ) {
+    Entry entry = entries.get( jobKey );
+    return entry != null ? entry : removedEntries.get( jobKey );
+  }
+
+  /**
+   * @return whether the job is known to have been removed from the store
+   */
+  public boolean isRemoved( JobKey jobKey ) {
+    return !entries.containsKey( jobKey ) && removedEntries.containsKey( jobKey );
+  }
+
+  public void put( Entry entry ) {
+    entries.put( entry.getJobKey(), entry );
+    removedEntries.remove( entry.getJobKey() );
+  }
+
+  public void remove( JobKey jobKey ) {
+    Entry entry = entries.remove( jobKey );
+    if ( entry != null ) {
+      removedEntries.put( jobKey, entry );
+    }
+  }
+
+  /**
+   * Marks a single job as changed in the store, so that it is reloaded on the next read.
+   *
+   * @param jobKey the key of the changed job
+   */
+  public void invalidate( JobKey jobKey ) {
+    if ( jobKey != null ) {
+      // marked stale before the version moves, so a reader that sees the new version also reloads the job
+      staleKeys.add( jobKey );
+      recordChange( jobKey );
+    }
+  }
+
+  /**
+   * Drops the whole catalog back to the unprimed state, the next read will load a full listing from the store.
+   */
+  public synchronized void invalidateAll() {
+    generation.incrementAndGet();
+    primed = false;
+    entries.clear();
+    removedEntries.clear();
+    changeVersions.clear();
+    oldestVersion = version.incrementAndGet();
+  }
+
+  /**
+   * @return the current version, which moves forward on every change
+   */
+  public long getVersion() {
+    return version.get();
+  }
+
+  /**
+   * @param since a version previously returned by {@link #getVersion()}
+   * @return the keys of the jobs changed after that version, including removed ones, or null when the catalog cannot
+   * tell, e.g. after it was invalidated as a whole or if it does not know the version
+   */
+  public synchronized Set<JobKey> getChangedSince( long since ) {
+    if ( since < oldestVersion || since > version.get() ) {
+      return null;
+    }
+    Set<JobKey> changed = new HashSet<>();
+    if ( since < version.get() ) {
+      changeVersions.forEach( ( jobKey, changeVersion ) -> {
+        if ( changeVersion > since ) {
+          changed.add( jobKey );
+        }
+      } );
+    }
+    return changed;
+  }
+
+  private synchronized void recordChange( JobKey jobKey ) {
+    changeVersions.put( jobKey, version.incrementAndGet() );
+
+    if ( changeVersions.size() > entries.size() + staleKeys.size() + MAX_REMOVED_JOBS ) {
+      // forget the removed jobs, and with them every version until now
+      changeVersions.keySet().removeIf( key -> !entries.containsKey( key ) && !staleKeys.contains( key ) );
+      removedEntries.clear();
+      oldestVersion = version.get();
+    }
+  }
+
+  public boolean hasStaleEntries() {
+    return !staleKeys.isEmpty();
+  }
+
+  /**
+   * Removes and returns the keys of all jobs marked as stale. Keys invalidated after this call are kept for the next
+   * one.
+   *
+   * @return the stale job keys
+   */
+  public List<JobKey> drainStaleKeys() {
+    List<JobKey> drained = new ArrayList<>();
+    for ( JobKey jobKey : staleKeys ) {
+      if ( staleKeys.remove( jobKey ) ) {
+        drained.add( jobKey );
+      }
+    }
+    return drained;
+  }
+
+  public void recordHit() {
+    hitCount.incrementAndGet();
+  }
+
+  public void recordMiss() {
+    missCount.incrementAndGet();
+  }
+
+  /**
+   * @return the number of listings served from the catalog
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return the number of listings that had to be loaded from the store
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public SchedulerListener getSchedulerListener() {
+    return schedulerListener;
+  }
+
+  public TriggerListener getTriggerListener() {
+    return triggerListener;
+  }
+
+  /**
+   * Triggers created by {@link QuartzScheduler} share their key with the job they fire, so a trigger key identifies
+   * the job as well.
+   */
+  private void invalidate( TriggerKey triggerKey ) {
+    if ( triggerKey != null ) {
+      invalidate( new JobKey( triggerKey.getName(), triggerKey.getGroup() ) );
+    }
+  }
+
+  private void invalidate( Trigger trigger ) {
+    if ( trigger != null ) {
+      invalidate( trigger.getJobKey() );
+    }
+  }
+
+  private class CatalogSchedulerListener extends SchedulerListenerSupport {
+
+    @Override
+    public void jobScheduled( Trigger trigger ) {
+      invalidate( trigger );
+    }
+
+    @Override
+    public void jobUnscheduled( TriggerKey triggerKey ) {
+      invalidate( triggerKey );
+    }
+
+    @Override
+    public void triggerFinalized( Trigger trigger ) {
+      invalidate( trigger );
+    }
+
+    @Override
+    public void triggerPaused( TriggerKey triggerKey ) {
+      invalidate( triggerKey );
+    }
+
+    @Override
+    public void triggersPaused( String triggerGroup ) {
+      invalidateAll();
+    }
+
+    @Override
+    public void triggerResumed( TriggerKey triggerKey ) {
+      invalidate( triggerKey );
+    }
+
+    @Override
+    public void triggersResumed( String triggerGroup ) {
+      invalidateAll();
+    }
+
+    @Override
+    public void jobAdded( JobDetail jobDetail ) {
+      invalidate( jobDetail.getKey() );
+    }
+
+    @Override
+    public void jobDeleted( JobKey jobKey ) {
+      remove( jobKey );
+      invalidate( jobKey );
+    }
+
+    @Override
+    public void jobPaused( JobKey jobKey ) {
+      invalidate( jobKey );
+    }
+
+    @Override
+    public void jobsPaused( String jobGroup ) {
+      invalidateAll();
+    }
+
+    @Override
+    public void jobResumed( JobKey jobKey ) {
+      invalidate( jobKey );
+    }
+
+    @Override
+    public void jobsResumed( String jobGroup ) {
+      invalidateAll();
+    }
+
+    @Override
+    public void schedulingDataCleared() {
+      invalidateAll();
+    }
+  }
+
+  private class CatalogTriggerListener extends TriggerListenerSupport {
+
+    @Override
+    public String getName() {
+      return QuartzJobCatalog.class.getName();
+    }
+
+    @Override
+    public void triggerFired( Trigger trigger, JobExecutionContext context ) {
+      invalidate( trigger );
+    }
+
+    @Override
+    public void triggerMisfired( Trigger trigger ) {
+      invalidate( trigger );
+    }
+
+    @Override
+    public void triggerComplete( Trigger trigger, JobExecutionContext context,
+                                 Trigger.CompletedExecutionInstruction triggerInstructionCode ) {
+      invalidate( trigger );
+    }
+  }
+}
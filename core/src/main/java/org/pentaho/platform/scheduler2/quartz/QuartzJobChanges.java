@@ -0,0 +1,68 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.pentaho.platform.api.scheduler2.IJob;
+
+import java.util.List;
+
+/**
+ * Jobs changed since a given version of the job catalog, see {@link QuartzScheduler#getJobChanges(String,
+ * org.pentaho.platform.api.scheduler2.IJobFilter)}.
+ */
+public class QuartzJobChanges {
+
+  private final String version;
+
+  private final boolean reset;
+
+  private final List<IJob> jobs;
+
+  private final List<String> removedJobIds;
+
+  public QuartzJobChanges( String version, boolean reset, List<IJob> jobs, List<String> removedJobIds ) {
+    this.version = version;
+    this.reset = reset;
+    this.jobs = jobs;
+    this.removedJobIds = removedJobIds;
+  }
+
+  /**
+   * @return the version to ask for the next changes from, null if changes are not tracked
+   */
+  public String getVersion() {
+    return version;
+  }
+
+  /**
+   * @return true if the changes could not be told from the given version, {@link #getJobs()} then holds every job
+   */
+  public boolean isReset() {
+    return reset;
+  }
+
+  /**
+   * @return the jobs added or changed, or every job if {@link #isReset()}
+   */
+  public List<IJob> getJobs() {
+    return jobs;
+  }
+
+  /**
+   * @return the ids of the jobs removed, or no longer accepted by the filter
+   */
+  public List<String> getRemovedJobIds() {
+    return removedJobIds;
+  }
+}
@@ -19,11 +19,13 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pentaho.platform.api.action.IAction;
 import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.api.engine.IPluginResourceLoader;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
 import org.pentaho.platform.api.scheduler2.CronJobTrigger;
 import org.pentaho.platform.api.scheduler2.IBackgroundExecutionStreamProvider;
+import org.pentaho.platform.api.scheduler2.IBlockoutManager;
 import org.pentaho.platform.api.scheduler2.IComplexJobTrigger;
 import org.pentaho.platform.api.scheduler2.ICronJobTrigger;
 import org.pentaho.platform.api.scheduler2.IJob;
@@ -46,6 +48,8 @@ import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.security.SecurityHelper;
+import org.pentaho.platform.scheduler2.action.PostProcessingExecutor;
+import org.pentaho.platform.scheduler2.blockout.PentahoBlockoutManager;
 import org.pentaho.platform.scheduler2.messsages.Messages;
 import org.pentaho.platform.scheduler2.recur.ITimeRecurrence;
 import org.pentaho.platform.scheduler2.recur.IncrementalRecurrence;
@@ -68,9 +72,12 @@ import org.quartz.DateBuilder;
 import org.quartz.JobBuilder;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
 import org.quartz.JobKey;
+import org.quartz.ListenerManager;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerFactory;
+import org.quartz.SchedulerMetaData;
 import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
@@ -90,12 +97,17 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
 /**
@@ -145,6 +157,52 @@ public class QuartzScheduler implements IScheduler {
 
   private final ReentrantReadWriteLock jobDetailLock = new ReentrantReadWriteLock();
 
+  private final QuartzJobCatalog jobCatalog = new QuartzJobCatalog();
+
+  private final Object jobCatalogLock = new Object();
+
+  private volatile boolean jobCatalogEnabled;
+
+  private final JobEventBroadcaster jobEvents = new JobEventBroadcaster();
+
+  private final DeferredFireQueue deferredFires =
+    new DeferredFireQueue( this::releaseDeferredFire, QuartzScheduler::getBlockOutEnd );
+
+  /**
+   * Holders of the non-durable jobs stored durably while a fire of theirs is to run later, see
+   * {@link #retainJob(JobKey, Trigger, Object)}
+   */
+  private final Map<JobKey, Set<Object>> retainedJobs = new HashMap<>();
+
+  private static final String EXECUTION_LANES_SETTING_KEY = "settings/execution-lanes";
+
+  private volatile ExecutionLanes executionLanes;
+
+  private static final String POST_PROCESSING_THREADS_SETTING_KEY = "settings/post-processing-threads";
+
+  private static final String POST_PROCESSING_QUEUE_SETTING_KEY = "settings/post-processing-queue";
+
+  private static final String OUTPUT_FILE_TIMEOUT_SETTING_KEY = "settings/output-file-timeout";
+
+  /**
+   * Time the shutdown waits for the queued post-processing of actions to complete, in milliseconds
+   */
+  static final long POST_PROCESSING_SHUTDOWN_TIMEOUT = 30000L;
+
+  private final Object postProcessingLock = new Object();
+
+  private PostProcessingExecutor postProcessingExecutor;
+
+  /**
+   * Distinguishes the catalog versions of this instance from those of a previous run
+   */
+  private final String jobCatalogEpoch = Long.toString( System.currentTimeMillis(), Character.MAX_RADIX );
+
+  /**
+   * Jobs created by the current thread since {@link #deferJobs()}, awaiting {@link #submitDeferredJobs()}
+   */
+  private final ThreadLocal<Map<JobDetail, Set<? extends Trigger>>> deferredJobs = new ThreadLocal<>();
+
   public QuartzScheduler( SchedulerFactory schedulerFactory ) {
     this.quartzSchedulerFactory = schedulerFactory;
   }
@@ -184,6 +242,8 @@ public class QuartzScheduler implements IScheduler {
        * us in that regard.
        */
       quartzSchedulerInstance = quartzSchedulerFactory.getScheduler();
+      registerJobCatalog( quartzSchedulerInstance );
+      registerJobEvents( quartzSchedulerInstance );
     }
 
     logger.debug( "Using quartz scheduler " + quartzSchedulerInstance );
@@ -192,6 +252,342 @@ public class QuartzScheduler implements IScheduler {
 
   private void setQuartzScheduler( Scheduler quartzScheduler ) {
     this.quartzSchedulerInstance = quartzScheduler;
+    if ( quartzScheduler == null ) {
+      jobCatalogEnabled = false;
+      jobCatalog.invalidateAll();
+    }
+  }
+
+  /**
+   * Hooks the job catalog up to the Quartz listeners that keep it current. The catalog is left disabled, and listings
+   * are read from the job store, when the listeners cannot be registered or when the job store is clustered, since
+   * changes made by other nodes are not reported to this one.
+   *
+   * @param scheduler the newly obtained quartz scheduler
+   */
+  private void registerJobCatalog( Scheduler scheduler ) {
+    jobCatalogEnabled = false;
+    jobCatalog.invalidateAll();
+    try {
+      SchedulerMetaData metaData = scheduler.getMetaData();
+      ListenerManager listenerManager = scheduler.getListenerManager();
+      if ( listenerManager == null || ( metaData != null && metaData.isJobStoreClustered() ) ) {
+        return;
+      }
+      listenerManager.addSchedulerListener( jobCatalog.getSchedulerListener() );
+      listenerManager.addTriggerListener( jobCatalog.getTriggerListener() );
+      jobCatalogEnabled = true;
+    } catch ( org.quartz.SchedulerException e ) {
+      logger.warn( "Unable to register the job catalog, job listings will be read from the job store", e );
+    }
+  }
+
+  /**
+   * Hooks the job event broadcaster up to the Quartz listeners it publishes from. With a clustered job store, only the
+   * jobs fired by this node and the changes made through it are reported.
+   *
+   * @param scheduler the newly obtained quartz scheduler
+   */
+  private void registerJobEvents( Scheduler scheduler ) {
+    try {
+      ListenerManager listenerManager = scheduler.getListenerManager();
+      if ( listenerManager != null ) {
+        listenerManager.addSchedulerListener( jobEvents.getSchedulerListener() );
+        listenerManager.addJobListener( jobEvents.getJobListener() );
+      }
+    } catch ( org.quartz.SchedulerException e ) {
+      logger.warn( "Unable to register the job event listeners, no job event will be published", e );
+    }
+  }
+
+  /**
+   * @return the broadcaster of the lifecycle events of the jobs
+   */
+  public JobEventBroadcaster getJobEvents() {
+    return jobEvents;
+  }
+
+  /**
+   * @return the queue of the fires deferred by a blockout, see {@link BlockoutPolicy}, exposing its depth and counters
+   */
+  public DeferredFireQueue getDeferredFires() {
+    return deferredFires;
+  }
+
+  /**
+   * @return the execution lanes in front of action invocations, read from the plugin setting
+   * <code>settings/execution-lanes</code> on first use, see {@link ExecutionLanes#parse(String,
+   * ExecutionLanes.Releaser)}
+   */
+  public ExecutionLanes getExecutionLanes() {
+    ExecutionLanes lanes = executionLanes;
+    if ( lanes == null ) {
+      IPluginResourceLoader resourceLoader = PentahoSystem.get( IPluginResourceLoader.class, null );
+      lanes = ExecutionLanes.parse( resourceLoader != null
+        ? resourceLoader.getPluginSetting( QuartzScheduler.class, EXECUTION_LANES_SETTING_KEY, null ) : null,
+        this::releaseLaneTurn );
+      executionLanes = lanes;
+    }
+    return lanes;
+  }
+
+  public void setExecutionLanes( ExecutionLanes executionLanes ) {
+    this.executionLanes = executionLanes;
+  }
+
+  /**
+   * @return the executor running the post-processing of actions, created on first use from the plugin settings
+   * <code>settings/post-processing-threads</code>, <code>settings/post-processing-queue</code> and
+   * <code>settings/output-file-timeout</code> (in seconds), and shut down along with the scheduler
+   */
+  public PostProcessingExecutor getPostProcessingExecutor() {
+    synchronized ( postProcessingLock ) {
+      if ( postProcessingExecutor == null ) {
+        IPluginResourceLoader resourceLoader = PentahoSystem.get( IPluginResourceLoader.class, null );
+        postProcessingExecutor = new PostProcessingExecutor(
+          getPositiveSetting( resourceLoader, POST_PROCESSING_THREADS_SETTING_KEY,
+            PostProcessingExecutor.DEFAULT_THREADS ),
+          getPositiveSetting( resourceLoader, POST_PROCESSING_QUEUE_SETTING_KEY,
+            PostProcessingExecutor.DEFAULT_QUEUE_SIZE ),
+          1000L * getPositiveSetting( resourceLoader, OUTPUT_FILE_TIMEOUT_SETTING_KEY,
+            (int) ( PostProcessingExecutor.DEFAULT_OUTPUT_FILE_TIMEOUT / 1000L ) ) );
+      }
+      return postProcessingExecutor;
+    }
+  }
+
+  public void setPostProcessingExecutor( PostProcessingExecutor postProcessingExecutor ) {
+    synchronized ( postProcessingLock ) {
+      this.postProcessingExecutor = postProcessingExecutor;
+    }
+  }
+
+  private static int getPositiveSetting( IPluginResourceLoader resourceLoader, String key, int defaultValue ) {
+    String setting =
+      resourceLoader != null ? resourceLoader.getPluginSetting( QuartzScheduler.class, key, null ) : null;
+    if ( setting == null || setting.trim().isEmpty() ) {
+      return defaultValue;
+    }
+    try {
+      int value = Integer.parseInt( setting.trim() );
+      if ( value > 0 ) {
+        return value;
+      }
+    } catch ( NumberFormatException e ) {
+      // logged below
+    }
+    logger.warn( "Ignoring invalid " + key + " setting: " + setting );
+    return defaultValue;
+  }
+
+  /**
+   * Keeps a job stored while a fire of it is deferred by a blockout, see {@link #retainJob(JobKey, Trigger, Object)}.
+   * To be called before the fire is deferred.
+   *
+   * @param trigger the trigger of the deferred fire
+   */
+  public void retainDeferredJob( JobKey jobKey, Trigger trigger ) throws org.quartz.SchedulerException {
+    retainJob( jobKey, trigger, deferredFires );
+  }
+
+  /**
+   * Keeps a job stored on behalf of a fire that is to run later. Quartz deletes a non-durable job once its last trigger
+   * completes, which the fire of a run once job, or the last fire of a recurring one, is; the job is then stored
+   * durably until every holder released it, see {@link #releaseRetainedJob(Scheduler, JobKey, Object, boolean)}. A job
+   * that has other triggers than the one of the fire is left alone, Quartz keeps it for them.
+   * <p>
+   * Done under {@link #jobDetailLock}, so that the job is not stored again while it is rescheduled, see
+   * {@link #saveTriggerNowDate(JobKey, Date)}.
+   *
+   * @param trigger the trigger of the fire
+   * @param holder  the holder of the job, released with the same object
+   */
+  void retainJob( JobKey jobKey, Trigger trigger, Object holder ) throws org.quartz.SchedulerException {
+    if ( trigger == null || trigger.getNextFireTime() != null ) {
+      return;
+    }
+    jobDetailLock.writeLock().lock();
+    try {
+      synchronized ( retainedJobs ) {
+        Set<Object> holders = retainedJobs.get( jobKey );
+        if ( holders != null ) {
+          holders.add( holder );
+          return;
+        }
+        Scheduler scheduler = getQuartzScheduler();
+        if ( hasOtherTriggers( scheduler, jobKey, trigger.getKey() ) ) {
+          return;
+        }
+        JobDetail jobDetail = scheduler.getJobDetail( jobKey );
+        if ( jobDetail != null && !jobDetail.isDurable() ) {
+          scheduler.addJob( jobDetail.getJobBuilder().storeDurably( true ).build(), true );
+          holders = new HashSet<>();
+          holders.add( holder );
+          retainedJobs.put( jobKey, holders );
+        }
+      }
+    } finally {
+      jobDetailLock.writeLock().unlock();
+    }
+  }
+
+  private static boolean hasOtherTriggers( Scheduler scheduler, JobKey jobKey, TriggerKey triggerKey )
+    throws org.quartz.SchedulerException {
+    for ( Trigger trigger : scheduler.getTriggersOfJob( jobKey ) ) {
+      if ( !trigger.getKey().equals( triggerKey ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Runs a job on behalf of a fire deferred by a blockout, unless the job was removed or paused since. A job retained
+   * for its deferred fires is released with the last of them, before it runs.
+   */
+  boolean releaseDeferredFire( JobKey jobKey ) throws org.quartz.SchedulerException {
+    return fireAgain( jobKey, deferredFires.isPending( jobKey ) ? null : deferredFires, new JobDataMap() );
+  }
+
+  /**
+   * Fires a job queued by its {@link ExecutionLanes execution lane} again, for its turn, unless the job was removed or
+   * paused since.
+   */
+  boolean releaseLaneTurn( ExecutionLanes.QueuedFire fire ) throws org.quartz.SchedulerException {
+    JobDataMap triggerData = new JobDataMap();
+    triggerData.putAll( fire.getTriggerData() );
+    triggerData.put( ExecutionLanes.RESERVEDMAPKEY_LANE_TURN, fire.getTurn() );
+    return fireAgain( fire.getJobKey(), fire.getTurn(), triggerData );
+  }
+
+  /**
+   * @param holder the holder releasing the job, null if the job stays retained
+   * @return false if the job was removed or paused
+   */
+  private boolean fireAgain( JobKey jobKey, Object holder, JobDataMap triggerData )
+    throws org.quartz.SchedulerException {
+    Scheduler scheduler = getQuartzScheduler();
+    if ( !scheduler.checkExists( jobKey ) ) {
+      synchronized ( retainedJobs ) {
+        retainedJobs.remove( jobKey );
+      }
+      return false;
+    }
+    boolean paused = scheduler.getTriggerState(
+      new TriggerKey( jobKey.getName(), jobKey.getGroup() ) ) == Trigger.TriggerState.PAUSED;
+    // the job is triggered under the lock it is retained in, so that it is either retained before, or seen with the
+    // trigger of this fire
+    jobDetailLock.writeLock().lock();
+    try {
+      if ( holder != null ) {
+        // made non-durable again before it runs, so that Quartz deletes it as usual once it completed
+        releaseRetainedJob( scheduler, jobKey, holder, !paused );
+      }
+      if ( paused ) {
+        return false;
+      }
+      scheduler.triggerJob( jobKey, triggerData );
+    } finally {
+      jobDetailLock.writeLock().unlock();
+    }
+    return true;
+  }
+
+  /**
+   * Stores a retained job as non-durable again once its last holder released it. A job left without triggers is
+   * deleted, unless it is about to run. Done under {@link #jobDetailLock}, the triggers of the job being read within
+   * it, so that a job rescheduled meanwhile is kept.
+   *
+   * @param holder the holder releasing the job, null for all of them
+   * @param toRun  whether the job is triggered right after
+   */
+  private void releaseRetainedJob( Scheduler scheduler, JobKey jobKey, Object holder, boolean toRun )
+    throws org.quartz.SchedulerException {
+    jobDetailLock.writeLock().lock();
+    try {
+      synchronized ( retainedJobs ) {
+        Set<Object> holders = retainedJobs.get( jobKey );
+        if ( holders == null || ( holder != null && ( !holders.remove( holder ) || !holders.isEmpty() ) ) ) {
+          return;
+        }
+        retainedJobs.remove( jobKey );
+        JobDetail jobDetail = scheduler.getJobDetail( jobKey );
+        if ( jobDetail == null || !jobDetail.isDurable() ) {
+          // removed, or stored again since, e.g. when rescheduled
+          return;
+        }
+        if ( !toRun && scheduler.getTriggersOfJob( jobKey ).isEmpty() ) {
+          scheduler.deleteJob( jobKey );
+        } else {
+          scheduler.addJob( jobDetail.getJobBuilder().storeDurably( false ).build(), true, true );
+        }
+      }
+    } finally {
+      jobDetailLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Admits a fire to the {@link ExecutionLanes execution lane} of its action, or queues it to be fired again on its
+   * turn. A queued fire retains its job until it is fired again, see {@link #retainJob(JobKey, Trigger, Object)}; the
+   * job is not touched for a fire admitted right away. The turn of the fire may come before the job is retained, in
+   * which case it is released here if the fire is no longer pending.
+   *
+   * @return the ticket to close once the action ran, null if the fire was queued
+   * @throws ExecutionLanes.LaneFullException if the queue of the lane is full
+   */
+  public ExecutionLanes.Ticket enterExecutionLane( JobExecutionContext context )
+    throws ExecutionLanes.LaneFullException {
+    JobDataMap jobData = context.getMergedJobDataMap();
+    ExecutionLanes.Lane lane = getExecutionLanes().getLane( jobData.getString( RESERVEDMAPKEY_ACTIONID ),
+      jobData.getString( RESERVEDMAPKEY_ACTIONCLASS ) );
+    if ( lane == null ) {
+      return ExecutionLanes.NO_TICKET;
+    }
+    JobKey jobKey = context.getJobDetail().getKey();
+    Trigger trigger = context.getTrigger();
+    ExecutionLanes.QueuedFire fire = new ExecutionLanes.QueuedFire( jobKey,
+      trigger != null ? trigger.getJobDataMap() : null, ExecutionLanes.getPriority( jobData ) );
+    ExecutionLanes.Ticket ticket = lane.enter( fire );
+    if ( ticket != null ) {
+      return ticket;
+    }
+    try {
+      retainJob( jobKey, trigger, fire.getTurn() );
+    } catch ( org.quartz.SchedulerException e ) {
+      logger.warn( "Unable to keep job " + jobKey + " while it is queued, it is dropped if this was its last fire", e );
+    }
+    if ( !lane.isPending( fire ) ) {
+      // fired again for its turn, and admitted, or dropped, before it was retained
+      releaseQueuedJob( jobKey, fire );
+    }
+    return null;
+  }
+
+  private void releaseQueuedJob( JobKey jobKey, ExecutionLanes.QueuedFire fire ) {
+    try {
+      releaseRetainedJob( getQuartzScheduler(), jobKey, fire.getTurn(), true );
+    } catch ( org.quartz.SchedulerException e ) {
+      logger.warn( "Unable to store job " + jobKey + " as non-durable again", e );
+    }
+  }
+
+  /**
+   * @see PentahoBlockoutManager#getBlockOutEnd(long)
+   */
+  private static long getBlockOutEnd( long time ) {
+    IBlockoutManager blockoutManager = PentahoSystem.get( IBlockoutManager.class, "IBlockoutManager", null ); //$NON-NLS-1$
+    if ( blockoutManager instanceof PentahoBlockoutManager ) {
+      return ( (PentahoBlockoutManager) blockoutManager ).getBlockOutEnd( time );
+    }
+    return blockoutManager == null || blockoutManager.shouldFireNow() ? time : Long.MAX_VALUE;
+  }
+
+  /**
+   * @return the in-memory catalog serving {@link #getJobs(IJobFilter)}, exposing its hit and miss counters
+   */
+  public QuartzJobCatalog getJobCatalog() {
+    return jobCatalog;
   }
 
   /**
@@ -252,6 +648,64 @@ public class QuartzScheduler implements IScheduler {
     return ret;
   }
 
+  /**
+   * Makes the jobs created by the current thread from now on be collected rather than stored one at a time, until
+   * {@link #submitDeferredJobs()} stores them together. This spares a job store transaction per job when many are
+   * created at once, as when restoring schedules. Jobs created while deferring have no next run set, and cannot be
+   * paused, updated or removed before they are submitted.
+   */
+  public void deferJobs() {
+    if ( deferredJobs.get() == null ) {
+      deferredJobs.set( new LinkedHashMap<>() );
+    }
+  }
+
+  /**
+   * Stores the jobs created by the current thread since {@link #deferJobs()} in a single job store transaction, and
+   * stops deferring. If the job store rejects them as a whole, they are stored one at a time so that only the
+   * offending jobs fail.
+   *
+   * @return the jobs that could not be stored, by job id, with the cause
+   */
+  public Map<String, SchedulerException> submitDeferredJobs() {
+    Map<JobDetail, Set<? extends Trigger>> jobs = deferredJobs.get();
+    deferredJobs.remove();
+    Map<String, SchedulerException> failures = new LinkedHashMap<>();
+    if ( jobs == null || jobs.isEmpty() ) {
+      return failures;
+    }
+
+    try {
+      Scheduler scheduler = getQuartzScheduler();
+      jobDetailLock.writeLock().lock();
+      try {
+        scheduler.scheduleJobs( jobs, false );
+      } finally {
+        jobDetailLock.writeLock().unlock();
+        jobs.keySet().forEach( jobDetail -> jobCatalog.invalidate( jobDetail.getKey() ) );
+      }
+      logger.debug( MessageFormat.format( "Scheduled {0} deferred jobs successfully", jobs.size() ) );
+      return failures;
+    } catch ( org.quartz.SchedulerException e ) {
+      logger.debug( "Unable to schedule the deferred jobs together, scheduling them one at a time", e );
+    }
+
+    for ( Map.Entry<JobDetail, Set<? extends Trigger>> job : jobs.entrySet() ) {
+      JobKey jobKey = job.getKey().getKey();
+      jobDetailLock.writeLock().lock();
+      try {
+        getQuartzScheduler().scheduleJob( job.getKey(), job.getValue(), false );
+      } catch ( org.quartz.SchedulerException e ) {
+        failures.put( jobKey.getName(), new SchedulerException( Messages.getInstance().getString(
+          QUARTZ_SCHEDULER_ERROR_0001_FAILED_TO_SCHEDULE_JOB, jobKey.getName() ), e ) );
+      } finally {
+        jobDetailLock.writeLock().unlock();
+        jobCatalog.invalidate( jobKey );
+      }
+    }
+    return failures;
+  }
+
   public static MutableTrigger createQuartzTrigger( IJobTrigger jobTrigger, QuartzJobKey jobId ) throws SchedulerException {
     validateJobTrigger( jobTrigger );
 
@@ -469,6 +923,8 @@ public class QuartzScheduler implements IScheduler {
     logger.debug( " QuartzScheduler has received a request to createJob with jobId " + jobId );
 
     MutableTrigger quartzTrigger = createQuartzTrigger( trigger, jobId );
+    // fired first among the triggers due at the same time
+    quartzTrigger.setPriority( ExecutionLanes.getPriority( jobParams ) );
 
     Calendar triggerCalendar =
       quartzTrigger instanceof CronTrigger ? createQuartzCalendar( (ComplexJobTrigger) trigger ) : null;
@@ -491,6 +947,7 @@ public class QuartzScheduler implements IScheduler {
     }
 
     JobDetail jobDetail = createJobDetails( jobId, jobParams );
+    quartzTrigger.setDescription( JobMetadata.encode( jobParams ) );
 
     try {
       Scheduler scheduler = getQuartzScheduler();
@@ -509,14 +966,21 @@ public class QuartzScheduler implements IScheduler {
         }
       }
 
-      jobDetailLock.writeLock().lock();
-      try {
-        scheduler.scheduleJob( jobDetail, quartzTrigger );
-      } finally {
-        jobDetailLock.writeLock().unlock();
-      }
+      Map<JobDetail, Set<? extends Trigger>> deferred = deferredJobs.get();
+      if ( deferred != null ) {
+        deferred.put( jobDetail, Collections.singleton( quartzTrigger ) );
+        logger.debug( MessageFormat.format( "Deferred scheduling of job {0}", jobId ) );
+      } else {
+        jobDetailLock.writeLock().lock();
+        try {
+          scheduler.scheduleJob( jobDetail, quartzTrigger );
+        } finally {
+          jobDetailLock.writeLock().unlock();
+          jobCatalog.invalidate( jobDetail.getKey() );
+        }
 
-      logger.debug( MessageFormat.format( "Scheduled job {0} successfully", jobId ) );
+        logger.debug( MessageFormat.format( "Scheduled job {0} successfully", jobId ) );
+      }
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages.getInstance().getString(
         QUARTZ_SCHEDULER_ERROR_0001_FAILED_TO_SCHEDULE_JOB, jobName ), e );
@@ -567,12 +1031,27 @@ public class QuartzScheduler implements IScheduler {
       saveTriggerNowDate( jobKey, new Date() );
 
       getQuartzScheduler().triggerJob( jobKey );
+      jobCatalog.invalidate( jobKey );
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages.getInstance().getString(
         QUARTZ_SCHEDULER_ERROR_0007_FAILED_TO_GET_JOB, jobId ), e );
     }
   }
 
+  /**
+   * Triggers several jobs at once, holding the job detail lock for the whole batch.
+   *
+   * @param jobIds the ids of the jobs
+   * @return the jobs that could not be triggered, by job id, with the cause
+   */
+  public Map<String, SchedulerException> triggerNow( Collection<String> jobIds ) {
+    Date now = new Date();
+    return forEachJob( jobIds, ( scheduler, jobKey ) -> {
+      saveTriggerNowDate( jobKey, now );
+      scheduler.triggerJob( jobKey );
+    }, QUARTZ_SCHEDULER_ERROR_0007_FAILED_TO_GET_JOB );
+  }
+
   private void saveTriggerNowDate( JobKey jobKey, Date newDate ) throws org.quartz.SchedulerException {
     jobDetailLock.writeLock().lock();
     try {
@@ -645,7 +1124,7 @@ public class QuartzScheduler implements IScheduler {
       }
 
       job.setJobId( jobId );
-      setJobTrigger( scheduler, job, trigger );
+      setJobTrigger( scheduler, job, trigger, jobDetail, new HashMap<>() );
       return job;
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages.getInstance().getString(
@@ -672,69 +1151,430 @@ public class QuartzScheduler implements IScheduler {
 
   /**
    * {@inheritDoc}
+   * <p>
+   * Jobs are served from the {@link QuartzJobCatalog} where possible, see {@link #getJobCatalog()}. Each call returns
+   * fresh copies, with the next run recalculated against the current time.
    */
-  @SuppressWarnings( "unchecked" )
   public List<IJob> getJobs( IJobFilter filter ) throws SchedulerException {
+    return getJobs( filter, null );
+  }
+
+  /**
+   * Same as {@link #getJobs(IJobFilter)}, the jobs holding only some of their parameters, for listings that do not
+   * need all of them. Only the given parameters are copied out of the catalog.
+   *
+   * @param paramNames the parameters to return with each job, null for all of them
+   */
+  public List<IJob> getJobs( IJobFilter filter, Collection<String> paramNames ) throws SchedulerException {
     ArrayList<IJob> jobs = new ArrayList<>();
+    try {
+      for ( QuartzJobCatalog.Entry entry : getJobCatalogEntries( getQuartzScheduler() ) ) {
+        Job job = entry.previewJob( paramNames );
+        setJobNextRun( job, entry.getTrigger() );
+        if ( ( filter == null ) || filter.accept( job ) ) {
+          jobs.add( LazyJob.resolve( job ) );
+        }
+      }
+    } catch ( org.quartz.SchedulerException | QuartzJobCatalog.JobLoadException e ) {
+      throw new SchedulerException(
+        Messages.getString( QUARTZ_SCHEDULER_ERROR_0004_FAILED_TO_LIST_JOBS ), e );
+    }
+    return jobs;
+  }
+
+  /**
+   * Finds the jobs whose metadata match the given values. When the job store is an {@link IndexedJobStoreTX}, the
+   * jobs are looked up with an indexed select on its {@link JobMetadataIndex} and only the jobs found are read from
+   * the job store; otherwise the job listing is filtered.
+   *
+   * @param criteria the value of each field to match, all of them having to match
+   */
+  public List<IJob> findJobs( Map<JobMetadataIndex.Field, String> criteria ) throws SchedulerException {
+    IJobFilter filter = job -> matches( job, criteria );
+    try {
+      IndexedJobStoreTX jobStore = IndexedJobStoreTX.getInstance( getQuartzScheduler().getSchedulerName() );
+      if ( jobStore == null || !jobStore.isIndexReady() ) {
+        return getJobs( filter );
+      }
+      List<IJob> jobs = new ArrayList<>();
+      for ( JobKey jobKey : jobStore.findJobKeys( criteria ) ) {
+        Job job = getJob( jobKey.getName() );
+        // checked again as the index holds truncated values
+        if ( job != null && filter.accept( job ) ) {
+          jobs.add( job );
+        }
+      }
+      return jobs;
+    } catch ( org.quartz.SchedulerException e ) {
+      throw new SchedulerException(
+        Messages.getString( QUARTZ_SCHEDULER_ERROR_0004_FAILED_TO_LIST_JOBS ), e );
+    }
+  }
+
+  /**
+   * Finds jobs by name. Owners are job groups and job names are part of the job key, see {@link QuartzJobKey}, so the
+   * jobs are matched on their keys: the keys held by the {@link QuartzJobCatalog} when it is enabled, otherwise an
+   * indexed select on the {@link JobMetadataIndex}, see {@link #findJobs(Map)}. Only when neither is available are the
+   * job keys read from the job store. Only the jobs found are read in full.
+   *
+   * @param owner   the owner of the jobs, null for any owner
+   * @param jobName the name of the jobs
+   */
+  public List<IJob> getJobsByName( String owner, String jobName ) throws SchedulerException {
+    if ( !jobCatalogEnabled && isJobIndexReady() ) {
+      Map<JobMetadataIndex.Field, String> criteria = new EnumMap<>( JobMetadataIndex.Field.class );
+      if ( owner != null ) {
+        criteria.put( JobMetadataIndex.Field.OWNER, owner );
+      }
+      criteria.put( JobMetadataIndex.Field.JOB_NAME, jobName );
+      return findJobs( criteria );
+    }
+    return getJobsByName( owner, jobName::equals );
+  }
+
+  /**
+   * Same as {@link #getJobsByName(String, String)}, for the jobs whose name is accepted by a predicate. Without the
+   * job catalog, the job keys are read from the job store, as a predicate cannot be looked up in the index.
+   */
+  public List<IJob> getJobsByName( String owner, Predicate<String> jobName ) throws SchedulerException {
     try {
       Scheduler scheduler = getQuartzScheduler();
-      for ( String groupName : scheduler.getJobGroupNames() ) {
-        scheduler.getJobKeys( GroupMatcher.jobGroupEquals( groupName ) );
-        for ( JobKey jobKey : scheduler.getJobKeys( GroupMatcher.jobGroupEquals( groupName ) ) ) {
-          String jobId = jobKey.getName();
-          Trigger trigger = getSingleJobTrigger( jobKey );
-          if ( trigger == null ) {
-            continue;
-          }
-          Job job = new Job();
-          job.setGroupName( groupName );
-          JobDetail jobDetail = getJobDetail( jobKey );
-          if ( jobDetail != null ) {
-            job.setUserName( jobDetail.getKey().getGroup() );
-            job.setJobParams( jobDetail.getJobDataMap().getWrappedMap() );
+      List<IJob> jobs = new ArrayList<>();
+      if ( jobCatalogEnabled ) {
+        for ( QuartzJobCatalog.Entry entry : getJobCatalogEntries( scheduler ) ) {
+          JobKey jobKey = entry.getJobKey();
+          if ( ( owner == null || owner.equals( jobKey.getGroup() ) ) && jobName.test( getJobName( jobKey ) ) ) {
+            Job job = entry.copyJob();
+            setJobNextRun( job, entry.getTrigger() );
+            jobs.add( job );
           }
-
-          job.setJobId( jobId );
-          setJobTrigger( scheduler, job, trigger );
-          job.setJobName( QuartzJobKey.parse( jobId ).getJobName() );
-          setJobNextRun( job, trigger );
-          job.setLastRun( getLastRun( trigger ) );
-          if ( ( filter == null ) || filter.accept( job ) ) {
+        }
+        return jobs;
+      }
+      GroupMatcher<JobKey> matcher = owner == null ? GroupMatcher.anyJobGroup() : GroupMatcher.jobGroupEquals( owner );
+      for ( JobKey jobKey : scheduler.getJobKeys( matcher ) ) {
+        if ( jobName.test( getJobName( jobKey ) ) ) {
+          Job job = getJob( jobKey.getName() );
+          if ( job != null ) {
             jobs.add( job );
           }
         }
       }
+      return jobs;
+    } catch ( org.quartz.SchedulerException | QuartzJobCatalog.JobLoadException e ) {
+      throw new SchedulerException(
+        Messages.getString( QUARTZ_SCHEDULER_ERROR_0004_FAILED_TO_LIST_JOBS ), e );
+    }
+  }
+
+  /**
+   * @return whether the job store keeps a {@link JobMetadataIndex} that is ready for lookups
+   */
+  private boolean isJobIndexReady() throws SchedulerException {
+    try {
+      String schedulerName = getQuartzScheduler().getSchedulerName();
+      IndexedJobStoreTX jobStore = schedulerName == null ? null : IndexedJobStoreTX.getInstance( schedulerName );
+      return jobStore != null && jobStore.isIndexReady();
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException(
         Messages.getString( QUARTZ_SCHEDULER_ERROR_0004_FAILED_TO_LIST_JOBS ), e );
     }
-    return jobs;
   }
 
-  protected Date getLastRun( Trigger trigger ) {
-    Date previousTriggerNow = getPreviousTriggerNow( trigger );
-    Date previousFireTime = trigger.getPreviousFireTime();
+  /**
+   * @return the jobs running the given action class, looked up in the job metadata index, see
+   * {@link #findJobs(Map)}
+   */
+  public List<IJob> getJobsByActionClass( String actionClass ) throws SchedulerException {
+    return findJobs( Collections.singletonMap( JobMetadataIndex.Field.ACTION_CLASS, actionClass ) );
+  }
 
-    if ( previousTriggerNow == null ) {
-      return previousFireTime;
+  /**
+   * @return the jobs of the given lineage id, looked up in the job metadata index, see {@link #findJobs(Map)}
+   */
+  public List<IJob> getJobsByLineageId( String lineageId ) throws SchedulerException {
+    return findJobs( Collections.singletonMap( JobMetadataIndex.Field.LINEAGE_ID, lineageId ) );
+  }
+
+  /**
+   * @return the user defined name of a job, the whole key name for jobs not scheduled through this scheduler
+   */
+  private static String getJobName( JobKey jobKey ) {
+    try {
+      return QuartzJobKey.parse( jobKey.getName() ).getJobName();
+    } catch ( SchedulerException | RuntimeException e ) {
+      return jobKey.getName();
     }
+  }
 
-    return ( previousFireTime == null || previousTriggerNow.after( previousFireTime ) )
-         ? previousTriggerNow : previousFireTime;
+  private static boolean matches( IJob job, Map<JobMetadataIndex.Field, String> criteria ) {
+    for ( Map.Entry<JobMetadataIndex.Field, String> criterion : criteria.entrySet() ) {
+      Object value;
+      switch ( criterion.getKey() ) {
+        case OWNER:
+          value = job.getUserName();
+          break;
+        case JOB_NAME:
+          value = job.getJobName();
+          break;
+        default:
+          value = job.getJobParams().get( criterion.getKey().getParamName() );
+          break;
+      }
+      if ( !criterion.getValue().equals( value ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return an opaque token that changes whenever any job is added, changed, removed or fired, null when the job
+   * catalog is disabled and changes are not tracked
+   */
+  public String getJobsVersion() {
+    return jobCatalogEnabled ? jobCatalogEpoch + "." + jobCatalog.getVersion() : null;
   }
 
-  private Date getPreviousTriggerNow( Trigger trigger ) {
+  /**
+   * Returns the jobs that changed since a version previously returned by {@link #getJobsVersion()} or by this method.
+   * When the changes cannot be told, e.g. for an unknown version or after the catalog was invalidated as a whole,
+   * every job accepted by the filter is returned instead, flagged as a reset. Asking for the current version does not
+   * touch the job store.
+   *
+   * @param since  the version the caller is up to date with, null for every job
+   * @param filter the jobs to return, also applied to the last known version of removed jobs so that jobs the caller
+   *               cannot see are not reported; it should not depend on what changes in a job, e.g. only on its owner.
+   *               May be null
+   * @return the changes, along with the version to ask for the next ones
+   */
+  public QuartzJobChanges getJobChanges( String since, IJobFilter filter ) throws SchedulerException {
+    if ( !jobCatalogEnabled ) {
+      return new QuartzJobChanges( null, true, getJobs( filter ), Collections.emptyList() );
+    }
+
+    try {
+      Scheduler scheduler = getQuartzScheduler();
+      synchronized ( jobCatalogLock ) {
+        long version = jobCatalog.getVersion();
+        Set<JobKey> changedKeys = null;
+        long sinceVersion = parseJobsVersion( since );
+        if ( sinceVersion >= 0 ) {
+          changedKeys = jobCatalog.getChangedSince( sinceVersion );
+          if ( changedKeys != null && changedKeys.isEmpty() ) {
+            return new QuartzJobChanges( since, false, Collections.emptyList(), Collections.emptyList() );
+          }
+        }
+
+        Collection<QuartzJobCatalog.Entry> entries = getJobCatalogEntries( scheduler );
+        String newVersion = jobCatalogEpoch + "." + version;
+        List<IJob> jobs = new ArrayList<>();
+        if ( changedKeys == null ) {
+          for ( QuartzJobCatalog.Entry entry : entries ) {
+            Job job = entry.previewJob( null );
+            setJobNextRun( job, entry.getTrigger() );
+            if ( ( filter == null ) || filter.accept( job ) ) {
+              jobs.add( LazyJob.resolve( job ) );
+            }
+          }
+          return new QuartzJobChanges( newVersion, true, jobs, Collections.emptyList() );
+        }
+
+        List<String> removedJobIds = new ArrayList<>();
+        for ( JobKey jobKey : changedKeys ) {
+          QuartzJobCatalog.Entry entry = jobCatalog.getEntry( jobKey );
+          if ( entry == null ) {
+            // never listed, so never seen by the caller either
+            continue;
+          }
+          Job job = entry.previewJob( null );
+          setJobNextRun( job, entry.getTrigger() );
+          if ( ( filter != null ) && !filter.accept( job ) ) {
+            continue;
+          }
+          if ( jobCatalog.isRemoved( jobKey ) ) {
+            removedJobIds.add( job.getJobId() );
+          } else {
+            jobs.add( LazyJob.resolve( job ) );
+          }
+        }
+        return new QuartzJobChanges( newVersion, false, jobs, removedJobIds );
+      }
+    } catch ( org.quartz.SchedulerException | QuartzJobCatalog.JobLoadException e ) {
+      throw new SchedulerException(
+        Messages.getString( QUARTZ_SCHEDULER_ERROR_0004_FAILED_TO_LIST_JOBS ), e );
+    }
+  }
+
+  /**
+   * @return the catalog version of a token of this instance, -1 if the token is missing or not one of this instance
+   */
+  private long parseJobsVersion( String token ) {
+    if ( token == null || !token.startsWith( jobCatalogEpoch + "." ) ) {
+      return -1;
+    }
+    try {
+      return Long.parseLong( token.substring( jobCatalogEpoch.length() + 1 ) );
+    } catch ( NumberFormatException e ) {
+      return -1;
+    }
+  }
+
+  /**
+   * Returns the entries of every job, served from the job catalog when it is enabled and primed. Jobs marked as
+   * changed since the last read are reloaded individually first. An unprimed catalog, e.g. right after startup, is
+   * loaded with a full listing from the job store.
+   */
+  private Collection<QuartzJobCatalog.Entry> getJobCatalogEntries( Scheduler scheduler )
+    throws SchedulerException, org.quartz.SchedulerException {
+    if ( !jobCatalogEnabled ) {
+      jobCatalog.recordMiss();
+      return loadJobCatalogEntries( scheduler );
+    }
+    if ( jobCatalog.isPrimed() && !jobCatalog.hasStaleEntries() ) {
+      jobCatalog.recordHit();
+      return jobCatalog.getEntries();
+    }
+
+    synchronized ( jobCatalogLock ) {
+      if ( !jobCatalog.isPrimed() ) {
+        jobCatalog.recordMiss();
+        long generation = jobCatalog.getGeneration();
+        List<QuartzJobCatalog.Entry> entries = loadJobCatalogEntries( scheduler );
+        jobCatalog.prime( entries, generation );
+        return entries;
+      }
+
+      try {
+        Map<String, Calendar> calendars = new HashMap<>();
+        for ( JobKey jobKey : jobCatalog.drainStaleKeys() ) {
+          QuartzJobCatalog.Entry entry = loadJobCatalogEntry( scheduler, jobKey, calendars );
+          if ( entry == null ) {
+            jobCatalog.remove( jobKey );
+          } else {
+            jobCatalog.put( entry );
+          }
+        }
+      } catch ( SchedulerException | org.quartz.SchedulerException | RuntimeException e ) {
+        // the drained keys are lost at this point, so start over from the store on the next read
+        jobCatalog.invalidateAll();
+        throw e;
+      }
+      jobCatalog.recordHit();
+      return jobCatalog.getEntries();
+    }
+  }
+
+  /**
+   * Loads every job from the job store in a single pass: all job keys are read with one scan across every group, and
+   * the {@link JobDetail} fetched for each job is reused when resolving its last run instead of being fetched again.
+   * Calendars are looked up at most once per listing.
+   */
+  private List<QuartzJobCatalog.Entry> loadJobCatalogEntries( Scheduler scheduler )
+    throws SchedulerException, org.quartz.SchedulerException {
+    List<QuartzJobCatalog.Entry> entries = new ArrayList<>();
+    Map<String, Calendar> calendars = new HashMap<>();
+    for ( JobKey jobKey : scheduler.getJobKeys( GroupMatcher.anyJobGroup() ) ) {
+      QuartzJobCatalog.Entry entry = loadJobCatalogEntry( scheduler, jobKey, calendars );
+      if ( entry != null ) {
+        entries.add( entry );
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Creates the catalog entry of a job. When the trigger of the job carries its {@link JobMetadata}, the entry only
+   * holds a preview of the job built from its key, trigger and metadata, and the job data map is read the first time
+   * the entry is copied. Listings evaluate their filter against the preview, so that only the jobs they accept have
+   * their job data map deserialized. Jobs scheduled before metadata was kept are loaded right away.
+   */
+  private QuartzJobCatalog.Entry loadJobCatalogEntry( Scheduler scheduler, JobKey jobKey,
+                                                      Map<String, Calendar> calendars )
+    throws SchedulerException, org.quartz.SchedulerException {
+    Trigger trigger = getSingleJobTrigger( jobKey );
+    if ( trigger == null ) {
+      return null;
+    }
+    JobMetadata metadata = JobMetadata.parse( trigger.getDescription() );
+    if ( metadata != null ) {
+      return new QuartzJobCatalog.Entry( jobKey, createJobPreview( scheduler, jobKey, trigger, metadata ), trigger,
+        ( key, jobTrigger ) -> loadJob( scheduler, key, jobTrigger, new HashMap<>() ) );
+    }
+    return new QuartzJobCatalog.Entry( jobKey, loadJob( scheduler, jobKey, trigger, calendars ), trigger );
+  }
+
+  private Job loadJob( Scheduler scheduler, JobKey jobKey, Trigger trigger, Map<String, Calendar> calendars )
+    throws SchedulerException, org.quartz.SchedulerException {
+    Job job = new Job();
+    job.setGroupName( jobKey.getGroup() );
+    JobDetail jobDetail = getJobDetail( jobKey );
+    if ( jobDetail != null ) {
+      job.setUserName( jobDetail.getKey().getGroup() );
+      job.setJobParams( jobDetail.getJobDataMap().getWrappedMap() );
+    }
+
+    job.setJobId( jobKey.getName() );
+    setJobTrigger( scheduler, job, trigger, jobDetail, calendars );
+    return job;
+  }
+
+  /**
+   * @return the job as far as it can be told without reading its job data map
+   */
+  private Job createJobPreview( Scheduler scheduler, JobKey jobKey, Trigger trigger, JobMetadata metadata )
+    throws org.quartz.SchedulerException {
+    Job job = new Job();
+    job.setJobId( jobKey.getName() );
+    job.setJobName( QuartzJobKey.parse( jobKey.getName() ).getJobName() );
+    job.setUserName( jobKey.getGroup() );
+    job.setGroupName( jobKey.getGroup() );
+    job.setJobParams( metadata.getParams() );
+    job.setState( getJobState( scheduler, trigger.getKey() ) );
+    job.setNextRun( trigger.getNextFireTime() );
+    return job;
+  }
+
+  protected Date getLastRun( Trigger trigger ) {
     JobDetail jobDetail;
 
     try {
       jobDetail = getJobDetail( trigger.getJobKey() );
     } catch ( org.quartz.SchedulerException e ) {
       logger.warn( "Job not found: " + trigger.getJobKey().toString(), e  );
+      jobDetail = null;
+    }
+
+    return getLastRun( trigger, jobDetail );
+  }
+
+  /**
+   * Same as {@link #getLastRun(Trigger)}, but uses an already loaded {@link JobDetail} rather than fetching it again
+   * from the job store.
+   *
+   * @param trigger   the trigger of the job
+   * @param jobDetail the job detail of the trigger's job, may be null
+   * @return the most recent of the trigger's previous fire time and the last "run now" of the job
+   */
+  protected Date getLastRun( Trigger trigger, JobDetail jobDetail ) {
+    Date previousTriggerNow = getPreviousTriggerNow( jobDetail );
+    Date previousFireTime = trigger.getPreviousFireTime();
+
+    if ( previousTriggerNow == null ) {
+      return previousFireTime;
+    }
+
+    return ( previousFireTime == null || previousTriggerNow.after( previousFireTime ) )
+         ? previousTriggerNow : previousFireTime;
+  }
+
+  private Date getPreviousTriggerNow( JobDetail jobDetail ) {
+    if ( jobDetail == null ) {
       return null;
     }
 
     JobDataMap jobDataMap = jobDetail.getJobDataMap();
-    if ( !jobDetail.getJobDataMap().containsKey( RESERVEDMAPKEY_PREVIOUS_TRIGGER_NOW ) ) {
+    if ( jobDataMap == null || !jobDataMap.containsKey( RESERVEDMAPKEY_PREVIOUS_TRIGGER_NOW ) ) {
       return null;
     }
 
@@ -755,7 +1595,8 @@ public class QuartzScheduler implements IScheduler {
       : nextFire );
   }
 
-  private void setJobTrigger( Scheduler scheduler, Job job, Trigger trigger ) throws SchedulerException,
+  private void setJobTrigger( Scheduler scheduler, Job job, Trigger trigger, JobDetail jobDetail,
+                              Map<String, Calendar> calendars ) throws SchedulerException,
     org.quartz.SchedulerException {
     QuartzJobKey jobKey = QuartzJobKey.parse( job.getJobId() );
     String groupName = jobKey.getUserName();
@@ -841,7 +1682,7 @@ public class QuartzScheduler implements IScheduler {
       }
       job.setJobTrigger( complexJobTrigger );
       if ( trigger.getCalendarName() != null ) {
-        Calendar calendar = scheduler.getCalendar( trigger.getCalendarName() );
+        Calendar calendar = getCalendar( scheduler, trigger.getCalendarName(), calendars );
         if ( calendar instanceof QuartzSchedulerAvailability ) {
           QuartzSchedulerAvailability quartzSchedulerAvailability = (QuartzSchedulerAvailability) calendar;
 
@@ -855,32 +1696,37 @@ public class QuartzScheduler implements IScheduler {
       complexJobTrigger.setTimeZone( cronTrigger.getTimeZone().toZoneId().getId() );
     }
 
-    Trigger.TriggerState triggerState = scheduler.getTriggerState( new TriggerKey( job.getJobId(), groupName ) );
-    switch ( triggerState ) {
+    job.setState( getJobState( scheduler, new TriggerKey( job.getJobId(), groupName ) ) );
+
+    job.setJobName( jobKey.getJobName() );
+    job.setNextRun( trigger.getNextFireTime() );
+    job.setLastRun( getLastRun( trigger, jobDetail ) );
+
+  }
+
+  private JobState getJobState( Scheduler scheduler, TriggerKey triggerKey ) throws org.quartz.SchedulerException {
+    switch ( scheduler.getTriggerState( triggerKey ) ) {
       case NORMAL:
-        job.setState( JobState.NORMAL );
-        break;
+        return JobState.NORMAL;
       case BLOCKED:
-        job.setState( JobState.BLOCKED );
-        break;
+        return JobState.BLOCKED;
       case COMPLETE:
-        job.setState( JobState.COMPLETE );
-        break;
+        return JobState.COMPLETE;
       case ERROR:
-        job.setState( JobState.ERROR );
-        break;
+        return JobState.ERROR;
       case PAUSED:
-        job.setState( JobState.PAUSED );
-        break;
+        return JobState.PAUSED;
       default:
-        job.setState( JobState.UNKNOWN );
-        break;
+        return JobState.UNKNOWN;
     }
+  }
 
-    job.setJobName( QuartzJobKey.parse( job.getJobId() ).getJobName() );
-    job.setNextRun( trigger.getNextFireTime() );
-    job.setLastRun( getLastRun( trigger ) );
-
+  private Calendar getCalendar( Scheduler scheduler, String calendarName, Map<String, Calendar> calendars )
+    throws org.quartz.SchedulerException {
+    if ( !calendars.containsKey( calendarName ) ) {
+      calendars.put( calendarName, scheduler.getCalendar( calendarName ) );
+    }
+    return calendars.get( calendarName );
   }
 
   private void setPentahoTriggerDates( IJobTrigger trigger, Date start, Date end, TimeZone timeZone ) {
@@ -938,13 +1784,71 @@ public class QuartzScheduler implements IScheduler {
   public void pauseJob( String jobId ) throws SchedulerException {
     try {
       Scheduler scheduler = getQuartzScheduler();
-      scheduler.pauseJob( new JobKey( jobId, QuartzJobKey.parse( jobId ).getUserName() ) );
+      JobKey jobKey = new JobKey( jobId, QuartzJobKey.parse( jobId ).getUserName() );
+      scheduler.pauseJob( jobKey );
+      jobCatalog.invalidate( jobKey );
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages
         .getString( QUARTZ_SCHEDULER_ERROR_0005_FAILED_TO_PAUSE_JOBS ), e );
     }
   }
 
+  /**
+   * Pauses several jobs at once, holding the job detail lock for the whole batch.
+   *
+   * @param jobIds the ids of the jobs
+   * @return the jobs that could not be paused, by job id, with the cause
+   */
+  public Map<String, SchedulerException> pauseJobs( Collection<String> jobIds ) {
+    return forEachJob( jobIds, Scheduler::pauseJob, QUARTZ_SCHEDULER_ERROR_0005_FAILED_TO_PAUSE_JOBS );
+  }
+
+  /**
+   * Resumes several jobs at once, holding the job detail lock for the whole batch.
+   *
+   * @param jobIds the ids of the jobs
+   * @return the jobs that could not be resumed, by job id, with the cause
+   */
+  public Map<String, SchedulerException> resumeJobs( Collection<String> jobIds ) {
+    return forEachJob( jobIds, Scheduler::resumeJob, QUARTZ_SCHEDULER_ERROR_0005_FAILED_TO_RESUME_JOBS );
+  }
+
+  private interface JobOperation {
+    void apply( Scheduler scheduler, JobKey jobKey ) throws org.quartz.SchedulerException;
+  }
+
+  private Map<String, SchedulerException> forEachJob( Collection<String> jobIds, JobOperation operation,
+                                                      String errorKey ) {
+    Map<String, SchedulerException> failures = new LinkedHashMap<>();
+    Scheduler scheduler;
+    try {
+      scheduler = getQuartzScheduler();
+    } catch ( org.quartz.SchedulerException e ) {
+      for ( String jobId : jobIds ) {
+        failures.put( jobId, new SchedulerException( Messages.getInstance().getString( errorKey, jobId ), e ) );
+      }
+      return failures;
+    }
+
+    jobDetailLock.writeLock().lock();
+    try {
+      for ( String jobId : jobIds ) {
+        JobKey jobKey = null;
+        try {
+          jobKey = new JobKey( jobId, QuartzJobKey.parse( jobId ).getUserName() );
+          operation.apply( scheduler, jobKey );
+        } catch ( org.quartz.SchedulerException | SchedulerException e ) {
+          failures.put( jobId, new SchedulerException( Messages.getInstance().getString( errorKey, jobId ), e ) );
+        } finally {
+          jobCatalog.invalidate( jobKey );
+        }
+      }
+    } finally {
+      jobDetailLock.writeLock().unlock();
+    }
+    return failures;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -952,7 +1856,9 @@ public class QuartzScheduler implements IScheduler {
     jobDetailLock.writeLock().lock();
     try {
       Scheduler scheduler = getQuartzScheduler();
-      scheduler.deleteJob( new JobKey( jobId, QuartzJobKey.parse( jobId ).getUserName() ) );
+      JobKey jobKey = new JobKey( jobId, QuartzJobKey.parse( jobId ).getUserName() );
+      scheduler.deleteJob( jobKey );
+      jobCatalog.invalidate( jobKey );
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages
         .getString( QUARTZ_SCHEDULER_ERROR_0005_FAILED_TO_PAUSE_JOBS ), e );
@@ -978,7 +1884,9 @@ public class QuartzScheduler implements IScheduler {
   public void resumeJob( String jobId ) throws SchedulerException {
     try {
       Scheduler scheduler = getQuartzScheduler();
-      scheduler.resumeJob( new JobKey( jobId, QuartzJobKey.parse( jobId ).getUserName() ) );
+      JobKey jobKey = new JobKey( jobId, QuartzJobKey.parse( jobId ).getUserName() );
+      scheduler.resumeJob( jobKey );
+      jobCatalog.invalidate( jobKey );
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages.getString(
         QUARTZ_SCHEDULER_ERROR_0005_FAILED_TO_RESUME_JOBS ), e );
@@ -1219,11 +2127,30 @@ public class QuartzScheduler implements IScheduler {
    * {@inheritDoc}
    */
   public void shutdown() throws SchedulerException {
+    deferredFires.shutdown();
     try {
+      // the deferred and queued fires are dropped, so are the jobs kept for them
+      List<JobKey> retained;
+      synchronized ( retainedJobs ) {
+        retained = new ArrayList<>( retainedJobs.keySet() );
+      }
+      for ( JobKey jobKey : retained ) {
+        releaseRetainedJob( getQuartzScheduler(), jobKey, null, false );
+      }
       getQuartzScheduler().shutdown( true );
       setQuartzScheduler( null );
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( e );
+    } finally {
+      // the jobs are complete, the post-processing of their output is drained
+      PostProcessingExecutor executor;
+      synchronized ( postProcessingLock ) {
+        executor = postProcessingExecutor;
+        postProcessingExecutor = null;
+      }
+      if ( executor != null ) {
+        executor.shutdown( POST_PROCESSING_SHUTDOWN_TIMEOUT );
+      }
     }
   }
 
@@ -0,0 +1,268 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Quartz {@link ThreadPool} running each job on a thread of its own, a virtual thread when the JVM supports them (Java
+ * 21 and later), so that jobs spending their time waiting on I/O can run by the hundreds without as many platform
+ * threads. On older JVMs, or with <code>useVirtualThreads</code> turned off, jobs run on new platform threads.
+ * Configured in <code>quartz.properties</code>:
+ * <pre>
+ * org.quartz.threadPool.class = org.pentaho.platform.scheduler2.quartz.VirtualThreadPool
+ * org.quartz.threadPool.threadCount = 200
+ * </pre>
+ * <code>threadCount</code> bounds the number of jobs running at once, as for the Quartz <code>SimpleThreadPool</code>.
+ * The jobs running at once per action are bounded by the {@link ExecutionLanes}, which queue the others without
+ * holding a thread of the pool.
+ */
+public class VirtualThreadPool implements ThreadPool {
+
+  private static final Log logger = LogFactory.getLog( VirtualThreadPool.class );
+
+  private int threadCount = 10;
+
+  private int threadPriority = Thread.NORM_PRIORITY;
+
+  private boolean makeThreadsDaemons;
+
+  private boolean threadsInheritContextClassLoaderOfInitializingThread;
+
+  private boolean useVirtualThreads = true;
+
+  private String threadNamePrefix;
+
+  private String instanceName;
+
+  private ThreadFactory threadFactory;
+
+  private boolean virtual;
+
+  private ClassLoader contextClassLoader;
+
+  private final Object runningLock = new Object();
+
+  private int running;
+
+  private boolean shutdown;
+
+  private final AtomicLong threadCounter = new AtomicLong();
+
+  @Override
+  public void initialize() throws SchedulerConfigException {
+    if ( threadCount <= 0 ) {
+      throw new SchedulerConfigException( "Thread count must be > 0" );
+    }
+    if ( threadNamePrefix == null ) {
+      threadNamePrefix = ( instanceName != null ? instanceName : "VirtualThreadPool" ) + "_Worker-";
+    }
+    if ( threadsInheritContextClassLoaderOfInitializingThread ) {
+      contextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    threadFactory = useVirtualThreads ? createVirtualThreadFactory( threadNamePrefix ) : null;
+    virtual = threadFactory != null;
+    if ( !virtual ) {
+      threadFactory = runnable -> {
+        Thread thread = new Thread( runnable, threadNamePrefix + threadCounter.incrementAndGet() );
+        thread.setPriority( threadPriority );
+        thread.setDaemon( makeThreadsDaemons );
+        return thread;
+      };
+    }
+    logger.info( "Running up to " + threadCount + " jobs at once on " + ( virtual ? "virtual" : "platform" )
+      + " threads" );
+  }
+
+  /**
+   * Runs the job on a new thread, waiting first until fewer than <code>threadCount</code> jobs are running.
+   *
+   * @return false if the pool is shut down
+   */
+  @Override
+  public boolean runInThread( Runnable runnable ) {
+    if ( runnable == null ) {
+      return false;
+    }
+    synchronized ( runningLock ) {
+      while ( running >= threadCount && !shutdown ) {
+        try {
+          runningLock.wait( 500 );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+      if ( shutdown ) {
+        return false;
+      }
+      running++;
+    }
+
+    try {
+      threadFactory.newThread( () -> run( runnable ) ).start();
+      return true;
+    } catch ( RuntimeException | Error e ) {
+      release();
+      throw e;
+    }
+  }
+
+  private void run( Runnable runnable ) {
+    if ( contextClassLoader != null ) {
+      Thread.currentThread().setContextClassLoader( contextClassLoader );
+    }
+    try {
+      runnable.run();
+    } finally {
+      release();
+    }
+  }
+
+  private void release() {
+    synchronized ( runningLock ) {
+      running--;
+      runningLock.notifyAll();
+    }
+  }
+
+  /**
+   * Waits until at least one more job can run.
+   *
+   * @return the number of jobs that can start right away, 1 if the pool is shut down, as Quartz expects
+   */
+  @Override
+  public int blockForAvailableThreads() {
+    synchronized ( runningLock ) {
+      while ( running >= threadCount && !shutdown ) {
+        try {
+          runningLock.wait( 500 );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+      return Math.max( 1, threadCount - running );
+    }
+  }
+
+  @Override
+  public void shutdown( boolean waitForJobsToComplete ) {
+    synchronized ( runningLock ) {
+      shutdown = true;
+      runningLock.notifyAll();
+      if ( !waitForJobsToComplete ) {
+        return;
+      }
+      while ( running > 0 ) {
+        logger.debug( "Waiting for " + running + " jobs to complete" );
+        try {
+          runningLock.wait( 100 );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of jobs running
+   */
+  public int getRunningCount() {
+    synchronized ( runningLock ) {
+      return running;
+    }
+  }
+
+  /**
+   * @return true if jobs run on virtual threads
+   */
+  public boolean isVirtual() {
+    return virtual;
+  }
+
+  @Override
+  public int getPoolSize() {
+    return threadCount;
+  }
+
+  @Override
+  public void setInstanceId( String schedInstId ) {
+    // not used
+  }
+
+  @Override
+  public void setInstanceName( String schedName ) {
+    this.instanceName = schedName;
+  }
+
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  public void setThreadCount( int threadCount ) {
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * Priority of the platform threads, virtual threads always having the normal priority
+   */
+  public void setThreadPriority( int threadPriority ) {
+    this.threadPriority = threadPriority;
+  }
+
+  /**
+   * Whether platform threads are daemons, virtual threads always are
+   */
+  public void setMakeThreadsDaemons( boolean makeThreadsDaemons ) {
+    this.makeThreadsDaemons = makeThreadsDaemons;
+  }
+
+  public void setThreadsInheritContextClassLoaderOfInitializingThread( boolean inherit ) {
+    this.threadsInheritContextClassLoaderOfInitializingThread = inherit;
+  }
+
+  public void setUseVirtualThreads( boolean useVirtualThreads ) {
+    this.useVirtualThreads = useVirtualThreads;
+  }
+
+  public void setThreadNamePrefix( String threadNamePrefix ) {
+    this.threadNamePrefix = threadNamePrefix;
+  }
+
+  /**
+   * Gets a factory of virtual threads through reflection, the plugin being built for JVMs that do not have them.
+   *
+   * @return the factory, null if the JVM does not support virtual threads
+   */
+  static ThreadFactory createVirtualThreadFactory( String namePrefix ) {
+    try {
+      Class<?> builderClass = Class.forName( "java.lang.Thread$Builder" );
+      Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null );
+      builder = builderClass.getMethod( "name", String.class, long.class ).invoke( builder, namePrefix, 1L );
+      return (ThreadFactory) builderClass.getMethod( "factory" ).invoke( builder );
+    } catch ( ReflectiveOperationException | RuntimeException e ) {
+      // before Java 21, or Java 19 and 20 without preview features
+      return null;
+    }
+  }
+}
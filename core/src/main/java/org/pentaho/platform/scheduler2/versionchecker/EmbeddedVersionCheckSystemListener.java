@@ -22,6 +22,7 @@ import org.pentaho.platform.api.scheduler2.IJobFilter;
 import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
 
 import java.util.List;
 
@@ -68,7 +69,9 @@ public class EmbeddedVersionCheckSystemListener implements IPluginLifecycleListe
     };
 
     // Like old code - remove the existing job
-    List<IJob> matchingJobs = scheduler.getJobs( filter );
+    List<IJob> matchingJobs = scheduler instanceof QuartzScheduler
+      ? ( (QuartzScheduler) scheduler ).getJobsByName( null, name -> name.contains( VERSION_CHECK_JOBNAME ) )
+      : scheduler.getJobs( filter );
     if ( ( matchingJobs != null ) && ( matchingJobs.size() > 0 ) ) {
       for ( IJob verCkJob : matchingJobs ) {
         scheduler.removeJob( verCkJob.getJobId() );
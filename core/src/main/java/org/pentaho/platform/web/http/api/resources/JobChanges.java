@@ -0,0 +1,76 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import org.pentaho.platform.api.scheduler2.Job;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jobs added, changed or removed since a given version of the job listing, as returned by
+ * <code>GET api/scheduler/jobs/changes</code>.
+ */
+@XmlRootElement
+public class JobChanges implements Serializable {
+  private static final long serialVersionUID = 4393427431925683312L;
+
+  private String version;
+
+  private boolean reset;
+
+  private List<Job> jobs = new ArrayList<>();
+
+  private List<String> removedJobIds = new ArrayList<>();
+
+  /**
+   * @return the version to ask for the next changes from, null if the scheduler does not track changes
+   */
+  public String getVersion() {
+    return version;
+  }
+
+  public void setVersion( String version ) {
+    this.version = version;
+  }
+
+  /**
+   * @return true if the changes could not be told, {@link #getJobs()} then holds every job and replaces the listing
+   */
+  public boolean isReset() {
+    return reset;
+  }
+
+  public void setReset( boolean reset ) {
+    this.reset = reset;
+  }
+
+  public List<Job> getJobs() {
+    return jobs;
+  }
+
+  public void setJobs( List<Job> jobs ) {
+    this.jobs = jobs;
+  }
+
+  public List<String> getRemovedJobIds() {
+    return removedJobIds;
+  }
+
+  public void setRemovedJobIds( List<String> removedJobIds ) {
+    this.removedJobIds = removedJobIds;
+  }
+}
@@ -0,0 +1,117 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.scheduler2.quartz.JobEvent;
+import org.pentaho.platform.scheduler2.quartz.JobEventBroadcaster;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes the events of a job event subscription as a <code>text/event-stream</code>, the format read by the
+ * browsers' <code>EventSource</code>. Each event is sent as a message whose data is the event in JSON. A message of type
+ * <code>OVERFLOW</code> tells that events were dropped and that the listing should be read again.
+ * <p>
+ * The stream ends after {@link #MAX_STREAM_MILLIS}, or as soon as the client is gone, so that no request thread is held
+ * forever; <code>EventSource</code> reconnects by itself.
+ */
+class JobEventStream implements StreamingOutput {
+
+  static final String MEDIA_TYPE = "text/event-stream";
+
+  /**
+   * Without any event, a comment is sent this often to find out whether the client is still there
+   */
+  static final long KEEP_ALIVE_MILLIS = 15000;
+
+  /**
+   * How long to wait for more events once one arrives, so that bursts go out in a single write
+   */
+  static final long COALESCE_MILLIS = 250;
+
+  static final long MAX_STREAM_MILLIS = 30 * 60 * 1000;
+
+  /**
+   * How long the client waits before reconnecting
+   */
+  private static final long RETRY_MILLIS = 5000;
+
+  private static final String OVERFLOW_DATA = "{\"type\":\"OVERFLOW\"}";
+
+  private static final Log logger = LogFactory.getLog( JobEventStream.class );
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final JobEventBroadcaster.Subscription subscription;
+
+  private final long maxStreamMillis;
+
+  JobEventStream( JobEventBroadcaster.Subscription subscription ) {
+    this( subscription, MAX_STREAM_MILLIS );
+  }
+
+  JobEventStream( JobEventBroadcaster.Subscription subscription, long maxStreamMillis ) {
+    this.subscription = subscription;
+    this.maxStreamMillis = maxStreamMillis;
+  }
+
+  @Override
+  public void write( OutputStream output ) throws IOException {
+    long end = System.currentTimeMillis() + maxStreamMillis;
+    try {
+      Writer writer = new OutputStreamWriter( output, StandardCharsets.UTF_8 );
+      writer.write( "retry: " + RETRY_MILLIS + "\n\n" );
+      writer.flush();
+
+      long remaining = maxStreamMillis;
+      while ( remaining > 0 && !subscription.isClosed() ) {
+        List<JobEvent> events = subscription.take( Math.min( KEEP_ALIVE_MILLIS, remaining ), COALESCE_MILLIS );
+        if ( subscription.takeOverflow() ) {
+          writeMessage( writer, OVERFLOW_DATA );
+        }
+        for ( JobEvent event : events ) {
+          writeMessage( writer, objectMapper.writeValueAsString( event ) );
+        }
+        if ( events.isEmpty() ) {
+          writer.write( ": keep-alive\n\n" );
+        }
+        writer.flush();
+        remaining = end - System.currentTimeMillis();
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    } catch ( IOException e ) {
+      // the client went away
+      logger.debug( "Job event stream closed by the client", e );
+    } finally {
+      subscription.close();
+    }
+  }
+
+  private void writeMessage( Writer writer, String data ) throws IOException {
+    writer.write( "data: " );
+    writer.write( data );
+    writer.write( "\n\n" );
+  }
+}
@@ -103,6 +103,9 @@ public class JobScheduleRequest implements Serializable, IJobScheduleRequest {
   protected String gatheringMetrics;
   protected String logLevel;
 
+  // higher runs first, see ExecutionLanes; null for the default priority
+  protected Integer priority;
+
   public String getInputFile() {
     return inputFile;
   }
@@ -256,4 +259,12 @@ public class JobScheduleRequest implements Serializable, IJobScheduleRequest {
   public void setLogLevel( String logLevel ) {
     this.logLevel = logLevel;
   }
+
+  public Integer getPriority() {
+    return priority;
+  }
+
+  public void setPriority( Integer priority ) {
+    this.priority = priority;
+  }
 }
@@ -0,0 +1,179 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobState;
+import org.pentaho.platform.api.scheduler2.JobTrigger;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * What a list of jobs shows of each of them, as returned by <code>GET api/scheduler/getJobs?view=summary</code>:
+ * everything but the job parameters, of which only the input and output files are kept.
+ */
+@XmlRootElement
+public class JobSummary implements Serializable {
+  private static final long serialVersionUID = -2297395871404725412L;
+
+  static final String STREAM_PROVIDER_INPUT_FILE = "ActionAdapterQuartzJob-StreamProvider-InputFile";
+
+  /**
+   * The job parameters a summary is made from
+   */
+  public static final List<String> PARAM_NAMES = Collections.unmodifiableList(
+    Arrays.asList( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER, STREAM_PROVIDER_INPUT_FILE ) );
+
+  // e.g. "input file = /home/admin/report.prpt:outputFile = /home/admin/report.*", older jobs use "output file"
+  private static final String INPUT_FILE_SEPARATOR = "input file =";
+
+  private static final Pattern OUTPUT_FILE_SEPARATOR = Pattern.compile( ":output file\\s*=|:outputFile\\s*=" );
+
+  private String jobId;
+
+  private String jobName;
+
+  private String userName;
+
+  private JobState state;
+
+  private Date lastRun;
+
+  private Date nextRun;
+
+  private String inputFile;
+
+  private String outputFile;
+
+  private JobTrigger jobTrigger;
+
+  public static JobSummary of( IJob job ) {
+    JobSummary summary = new JobSummary();
+    summary.setJobId( job.getJobId() );
+    summary.setJobName( job.getJobName() );
+    summary.setUserName( job.getUserName() );
+    summary.setState( job.getState() );
+    summary.setLastRun( job.getLastRun() );
+    summary.setNextRun( job.getNextRun() );
+    if ( job instanceof Job ) {
+      summary.setJobTrigger( ( (Job) job ).getJobTrigger() );
+    }
+
+    Object streamProvider = job.getJobParams().get( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER );
+    String[] files = streamProvider != null ? OUTPUT_FILE_SEPARATOR.split( streamProvider.toString(), 2 ) : null;
+    if ( files != null && files.length == 2 ) {
+      summary.setOutputFile( files[ 1 ].trim() );
+    }
+
+    // jobs scheduled in PUC have the input file on its own, those scheduled in PDI only in the stream provider
+    Object inputFile = job.getJobParams().get( STREAM_PROVIDER_INPUT_FILE );
+    if ( inputFile != null && !inputFile.toString().isEmpty() ) {
+      summary.setInputFile( inputFile.toString() );
+    } else if ( files != null && files[ 0 ].contains( INPUT_FILE_SEPARATOR ) ) {
+      summary.setInputFile(
+        files[ 0 ].substring( files[ 0 ].indexOf( INPUT_FILE_SEPARATOR ) + INPUT_FILE_SEPARATOR.length() ).trim() );
+    }
+    return summary;
+  }
+
+  public String getJobId() {
+    return jobId;
+  }
+
+  public void setJobId( String jobId ) {
+    this.jobId = jobId;
+  }
+
+  public String getJobName() {
+    return jobName;
+  }
+
+  public void setJobName( String jobName ) {
+    this.jobName = jobName;
+  }
+
+  public String getUserName() {
+    return userName;
+  }
+
+  public void setUserName( String userName ) {
+    this.userName = userName;
+  }
+
+  public JobState getState() {
+    return state;
+  }
+
+  public void setState( JobState state ) {
+    this.state = state;
+  }
+
+  public Date getLastRun() {
+    return lastRun;
+  }
+
+  public void setLastRun( Date lastRun ) {
+    this.lastRun = lastRun;
+  }
+
+  public Date getNextRun() {
+    return nextRun;
+  }
+
+  public void setNextRun( Date nextRun ) {
+    this.nextRun = nextRun;
+  }
+
+  /**
+   * @return the repository path of the scheduled file, null if it cannot be told
+   */
+  public String getInputFile() {
+    return inputFile;
+  }
+
+  public void setInputFile( String inputFile ) {
+    this.inputFile = inputFile;
+  }
+
+  /**
+   * @return the path pattern of the generated content, e.g. <code>/home/admin/report.*</code>, null if there is none
+   */
+  public String getOutputFile() {
+    return outputFile;
+  }
+
+  public void setOutputFile( String outputFile ) {
+    this.outputFile = outputFile;
+  }
+
+  /**
+   * @return the schedule of the job
+   */
+  public JobTrigger getJobTrigger() {
+    return jobTrigger;
+  }
+
+  public void setJobTrigger( JobTrigger jobTrigger ) {
+    this.jobTrigger = jobTrigger;
+  }
+}
@@ -0,0 +1,149 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.IJobFilter;
+import org.pentaho.platform.api.scheduler2.JobState;
+
+import javax.xml.bind.DatatypeConverter;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Filtering, sorting and paging criteria for a job listing, as given by the query parameters of
+ * <code>GET api/scheduler/getJobs</code>. The filtering part is an {@link IJobFilter}, so it is evaluated by the
+ * scheduler while the listing is assembled; sorting and paging are applied to the filtered result.
+ * <p>
+ * <code>sortBy</code> accepts <code>name</code>, <code>owner</code>, <code>state</code>, <code>nextRun</code> and
+ * <code>lastRun</code>, optionally prefixed with <code>-</code> for descending order. Dates are ISO-8601 date-times,
+ * the same format used for job dates in the listing itself.
+ */
+public class JobsQuery implements IJobFilter {
+
+  private final int offset;
+
+  private final Integer limit;
+
+  private final Comparator<IJob> comparator;
+
+  private final String owner;
+
+  private final JobState state;
+
+  private final String nameContains;
+
+  private final Date nextRunBefore;
+
+  private final Date nextRunAfter;
+
+  /**
+   * @throws IllegalArgumentException if any of the parameters is not valid
+   */
+  public JobsQuery( Integer offset, Integer limit, String sortBy, String owner, String state, String nameContains,
+                    String nextRunBefore, String nextRunAfter ) {
+    if ( ( offset != null && offset < 0 ) || ( limit != null && limit < 0 ) ) {
+      throw new IllegalArgumentException( "offset and limit must not be negative" ); //$NON-NLS-1$
+    }
+    this.offset = offset == null ? 0 : offset;
+    this.limit = limit;
+    this.comparator = parseSortBy( sortBy );
+    this.owner = isEmpty( owner ) ? null : owner;
+    this.state = isEmpty( state ) ? null : JobState.valueOf( state.toUpperCase( Locale.ROOT ) );
+    this.nameContains = isEmpty( nameContains ) ? null : nameContains.toLowerCase( Locale.ROOT );
+    this.nextRunBefore = parseDate( nextRunBefore );
+    this.nextRunAfter = parseDate( nextRunAfter );
+  }
+
+  @Override
+  public boolean accept( IJob job ) {
+    if ( owner != null && !owner.equals( job.getUserName() ) ) {
+      return false;
+    }
+    if ( state != null && state != job.getState() ) {
+      return false;
+    }
+    if ( nameContains != null
+      && ( job.getJobName() == null || !job.getJobName().toLowerCase( Locale.ROOT ).contains( nameContains ) ) ) {
+      return false;
+    }
+    if ( nextRunBefore != null && ( job.getNextRun() == null || !job.getNextRun().before( nextRunBefore ) ) ) {
+      return false;
+    }
+    return nextRunAfter == null || ( job.getNextRun() != null && job.getNextRun().after( nextRunAfter ) );
+  }
+
+  /**
+   * Sorts the filtered jobs and returns the requested page of them.
+   *
+   * @param jobs the jobs accepted by this query, sorted in place
+   * @return the requested page, empty if the offset is past the end of the list
+   */
+  public <T extends IJob> List<T> page( List<T> jobs ) {
+    if ( comparator != null ) {
+      jobs.sort( comparator );
+    }
+    if ( offset >= jobs.size() ) {
+      return Collections.emptyList();
+    }
+    int end = limit == null ? jobs.size() : (int) Math.min( jobs.size(), (long) offset + limit );
+    return jobs.subList( offset, end );
+  }
+
+  private static Comparator<IJob> parseSortBy( String sortBy ) {
+    if ( isEmpty( sortBy ) ) {
+      return null;
+    }
+    boolean descending = sortBy.startsWith( "-" );
+    String property = descending ? sortBy.substring( 1 ) : sortBy;
+
+    Comparator<IJob> comparator;
+    switch ( property ) {
+      case "name":
+        comparator = nullsLast( IJob::getJobName );
+        break;
+      case "owner":
+        comparator = nullsLast( IJob::getUserName );
+        break;
+      case "state":
+        comparator = nullsLast( IJob::getState );
+        break;
+      case "nextRun":
+        comparator = nullsLast( IJob::getNextRun );
+        break;
+      case "lastRun":
+        comparator = nullsLast( IJob::getLastRun );
+        break;
+      default:
+        throw new IllegalArgumentException( "Unsupported sortBy: " + sortBy ); //$NON-NLS-1$
+    }
+    return descending ? comparator.reversed() : comparator;
+  }
+
+  private static <U extends Comparable<? super U>> Comparator<IJob> nullsLast( Function<IJob, U> keyExtractor ) {
+    return Comparator.comparing( keyExtractor, Comparator.nullsLast( Comparator.naturalOrder() ) );
+  }
+
+  private static Date parseDate( String date ) {
+    return isEmpty( date ) ? null : DatatypeConverter.parseDateTime( date ).getTime();
+  }
+
+  private static boolean isEmpty( String value ) {
+    return value == null || value.isEmpty();
+  }
+}
@@ -31,6 +31,7 @@ import org.pentaho.platform.api.scheduler2.Job;
 import org.pentaho.platform.api.scheduler2.JobState;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.scheduler2.quartz.JobEventBroadcaster;
 import org.pentaho.platform.web.http.api.proxies.BlockStatusProxy;
 import org.pentaho.platform.web.http.api.resources.services.ISchedulerServicePlugin;
 import org.pentaho.platform.web.http.messages.Messages;
@@ -44,13 +45,18 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.APPLICATION_XML;
@@ -70,6 +76,13 @@ public class SchedulerResource implements ISchedulerResource {
   public static final String REMOVED_JOB_STATE = "REMOVED";
   public static final String ERROR_JOB_STATE = "UNKNOWN_ERROR";
 
+  /** Response header carrying the number of jobs matching a filtered listing, before paging */
+  public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+  private static final String VIEW_SUMMARY = "summary";
+
+  private static final String VIEW_FULL = "full";
+
   public SchedulerResource() {
     this( PentahoSystem.get( ISchedulerServicePlugin.class, "ISchedulerService2", null ) ); // TODO don't pass in key
   }
@@ -522,6 +535,33 @@ public class SchedulerResource implements ISchedulerResource {
    *   &lt;/jobs&gt;
    * </pre>
    *
+   * <p>The listing can be filtered, sorted and paged on the server, e.g.
+   * GET pentaho/api/scheduler/getJobs?owner=admin&amp;state=NORMAL&amp;sortBy=-nextRun&amp;offset=0&amp;limit=20.
+   * The number of jobs matching the filters, before paging, is returned in the <code>X-Total-Count</code> header.
+   * Without any of these parameters every visible job is returned, as before.</p>
+   *
+   * <p>Unless filtered by next run, the response carries an <code>ETag</code> that changes whenever any job changes.
+   * Sending it back in <code>If-None-Match</code> gets a <code>304 Not Modified</code> response while nothing
+   * changed. See also <code>GET pentaho/api/scheduler/jobs/changes</code>.</p>
+   *
+   * <p>List views can ask for <code>view=summary</code> to get, for each job, everything but its parameters, of which
+   * only the input and output files are kept, e.g.
+   * <code>{"jobSummary":[{"jobId":"...","jobName":"JobName","userName":"admin","state":"NORMAL",
+   * "inputFile":"/public/report.prpt","outputFile":"/home/admin/JobName.*","jobTrigger":{...},...}]}</code>.
+   * The full job is available from <code>GET pentaho/api/scheduler/jobinfo</code>.</p>
+   *
+   * @param offset        Index of the first job to return (Optional, defaults to 0).
+   * @param limit         Maximum number of jobs to return (Optional, defaults to all).
+   * @param sortBy        One of <code>name</code>, <code>owner</code>, <code>state</code>, <code>nextRun</code> or
+   *                      <code>lastRun</code>, prefixed with <code>-</code> for descending order (Optional).
+   * @param owner         Only return jobs owned by this user (Optional).
+   * @param state         Only return jobs in this state, e.g. <code>NORMAL</code> or <code>PAUSED</code> (Optional).
+   * @param nameContains  Only return jobs whose name contains this text, ignoring case (Optional).
+   * @param nextRunBefore Only return jobs whose next run is before this ISO-8601 date-time (Optional).
+   * @param nextRunAfter  Only return jobs whose next run is after this ISO-8601 date-time (Optional).
+   * @param view          <code>summary</code> for job summaries, <code>full</code> for full jobs (Optional, defaults
+   *                      to <code>full</code>).
+   * @param request       The request, to evaluate <code>If-None-Match</code> against.
    * @return A list of jobs that are visible to the current users.
    */
   @GET
@@ -529,8 +569,178 @@ public class SchedulerResource implements ISchedulerResource {
   @Produces( { APPLICATION_JSON, APPLICATION_XML } )
   @StatusCodes( {
     @ResponseCode( code = 200, condition = "Jobs retrieved successfully." ),
+    @ResponseCode( code = 304, condition = "No job changed since the version given in If-None-Match." ),
+    @ResponseCode( code = 400, condition = "Invalid paging, sorting, filtering or view parameters." ),
+    @ResponseCode( code = 403, condition = "The user may not see any job." ),
+    @ResponseCode( code = 500, condition = "Error while retrieving jobs." ),
+  } )
+  public Response getAllJobs( @QueryParam( "offset" ) Integer offset,
+                              @QueryParam( "limit" ) Integer limit,
+                              @QueryParam( "sortBy" ) String sortBy,
+                              @QueryParam( "owner" ) String owner,
+                              @QueryParam( "state" ) String state,
+                              @QueryParam( "nameContains" ) String nameContains,
+                              @QueryParam( "nextRunBefore" ) String nextRunBefore,
+                              @QueryParam( "nextRunAfter" ) String nextRunAfter,
+                              @QueryParam( "view" ) String view,
+                              @Context Request request ) {
+    JobsQuery query;
+    try {
+      query = new JobsQuery( offset, limit, sortBy, owner, state, nameContains, nextRunBefore, nextRunAfter );
+    } catch ( IllegalArgumentException e ) {
+      return buildStatusResponse( Status.BAD_REQUEST );
+    }
+    if ( view != null && !VIEW_SUMMARY.equals( view ) && !VIEW_FULL.equals( view ) ) {
+      return buildStatusResponse( Status.BAD_REQUEST );
+    }
+    boolean summary = VIEW_SUMMARY.equals( view );
+
+    // the next run of a job moves with time alone, so listings filtered on it are never conditional
+    EntityTag entityTag = null;
+    if ( request != null && nextRunBefore == null && nextRunAfter == null ) {
+      String version;
+      try {
+        // checks the permissions of the user before any precondition is evaluated
+        version = schedulerService.getJobsVersion();
+      } catch ( IllegalAccessException e ) {
+        return buildStatusResponse( FORBIDDEN );
+      }
+      if ( version != null ) {
+        // each view is a representation of its own
+        entityTag = new EntityTag( summary ? version + "-" + VIEW_SUMMARY : version, true );
+        Response.ResponseBuilder notModified = request.evaluatePreconditions( entityTag );
+        if ( notModified != null ) {
+          return notModified.build();
+        }
+      }
+    }
+
+    try {
+      if ( summary ) {
+        List<IJob> jobs = schedulerService.getJobSummaries( query );
+        List<JobSummary> page = new ArrayList<>();
+        for ( IJob job : query.page( jobs ) ) {
+          page.add( JobSummary.of( job ) );
+        }
+        Response response = buildJobSummariesResponse( page, jobs.size() );
+        return entityTag != null ? Response.fromResponse( response ).tag( entityTag ).build() : response;
+      }
+
+      List<Job> jobs = (List<Job>) (List<?>) schedulerService.getJobs( query );
+      List<Job> page = new ArrayList<>( query.page( jobs ) );
+      Response response = buildJobsPageResponse( page, jobs.size() );
+      return entityTag != null ? Response.fromResponse( response ).tag( entityTag ).build() : response;
+    } catch ( IllegalAccessException e ) {
+      return buildStatusResponse( FORBIDDEN );
+    } catch ( Exception e ) {
+      throw new RuntimeException( e );
+    }
+  }
+
+  /**
+   * Same as {@link #getAllJobs(Integer, Integer, String, String, String, String, String, String, String, Request)},
+   * returning full jobs, without conditional request handling.
+   */
+  public Response getAllJobs( Integer offset, Integer limit, String sortBy, String owner, String state,
+                              String nameContains, String nextRunBefore, String nextRunAfter ) {
+    return getAllJobs( offset, limit, sortBy, owner, state, nameContains, nextRunBefore, nextRunAfter, null, null );
+  }
+
+  /**
+   * Retrieve the jobs added, changed or removed since a previous listing, as seen by the current user. Polling this
+   * endpoint with the version returned by the previous call costs next to nothing while no job changes.
+   *
+   * <p><b>Example Request:</b><br />
+   * GET pentaho/api/scheduler/jobs/changes?since=lq7x2k3a.1523
+   * </p>
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *   &lt;jobChanges&gt;
+   *     &lt;jobs&gt;
+   *       &lt;jobId&gt;admin  JobName 1410786491777&lt;/jobId&gt;
+   *       &lt;jobName&gt;JobName&lt;/jobName&gt;
+   *       &lt;state&gt;PAUSED&lt;/state&gt;
+   *       &lt;userName&gt;admin&lt;/userName&gt;
+   *     &lt;/jobs&gt;
+   *     &lt;removedJobIds&gt;admin  OtherJobName 1410786491503&lt;/removedJobIds&gt;
+   *     &lt;reset&gt;false&lt;/reset&gt;
+   *     &lt;version&gt;lq7x2k3a.1527&lt;/version&gt;
+   *   &lt;/jobChanges&gt;
+   * </pre>
+   *
+   * @param since The version returned by the previous call (Optional). Without it, or when the changes since that
+   *              version cannot be told, e.g. after a server restart, every job is returned and <code>reset</code>
+   *              is true.
+   * @return The changed jobs, the ids of the removed jobs and the version to ask for the next changes from.
+   */
+  @GET
+  @Path( "/jobs/changes" )
+  @Produces( { APPLICATION_JSON, APPLICATION_XML } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Changes retrieved successfully." ),
     @ResponseCode( code = 500, condition = "Error while retrieving jobs." ),
   } )
+  public JobChanges getJobChanges( @QueryParam( "since" ) String since ) {
+    try {
+      return schedulerService.getJobChanges( since );
+    } catch ( Exception e ) {
+      throw new RuntimeException( e );
+    }
+  }
+
+  /**
+   * Stream the lifecycle events of the jobs visible to the current user, as Server-Sent Events, so that clients learn
+   * about scheduled, fired, completed, failed, paused, resumed, removed, blockout-skipped, blockout-deferred and queued
+   * jobs without polling. Events of the same job arriving in a burst are coalesced, only the latest one being sent.
+   *
+   * <p><b>Example Request:</b><br />
+   * GET pentaho/api/scheduler/jobs/events
+   * </p>
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.txt">
+   *   retry: 5000
+   *
+   *   data: {"type":"COMPLETED","jobId":"admin\tJobName\t1410786491777","jobName":"JobName","userName":"admin",
+   *   "time":1410786500123}
+   *
+   *   : keep-alive
+   * </pre>
+   *
+   * <p>A message of type <code>OVERFLOW</code> tells that the client fell behind and that events were dropped; the
+   * listing should then be read again, e.g. through <code>GET pentaho/api/scheduler/jobs/changes</code>. The stream
+   * ends after half an hour, <code>EventSource</code> clients reconnect by themselves.</p>
+   *
+   * @return A stream of job events.
+   */
+  @GET
+  @Path( "/jobs/events" )
+  @Produces( JobEventStream.MEDIA_TYPE )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Events are streamed." ),
+    @ResponseCode( code = 403, condition = "The user may not see any job." ),
+    @ResponseCode( code = 503, condition = "The scheduler does not publish events or has as many subscribers as the "
+      + "job-event-streams setting allows." ),
+  } )
+  public Response getJobEvents() {
+    JobEventBroadcaster.Subscription subscription;
+    try {
+      // permissions are checked here, on the request thread, before the stream is written
+      subscription = schedulerService.subscribeToJobEvents();
+    } catch ( IllegalAccessException e ) {
+      return buildStatusResponse( FORBIDDEN );
+    }
+    if ( subscription == null ) {
+      return buildStatusResponse( Status.SERVICE_UNAVAILABLE );
+    }
+    return Response.ok( new JobEventStream( subscription ), JobEventStream.MEDIA_TYPE )
+      .header( "Cache-Control", "no-cache" )
+      // asks proxies such as nginx not to buffer the stream
+      .header( "X-Accel-Buffering", "no" )
+      .build();
+  }
+
   public List<Job> getAllJobs() {
     try {
       return (List<Job>) (List<?>) schedulerService.getJobs();
@@ -1014,6 +1224,170 @@ public class SchedulerResource implements ISchedulerResource {
     }
   }
 
+  /**
+   * Pause all the specified scheduled jobs, in a single call to the scheduler.
+   *
+   * <p><b>Example Request:</b><br />
+   * POST pentaho/api/scheduler/pauseJobs
+   * </p>
+   * <br /><b>POST data:</b>
+   * <pre function="syntax.xml">
+   *   &lt;jobsRequest&gt;
+   *     &lt;jobIds&gt;
+   *       &lt;jobId&gt;admin  JobName 1410786491777&lt;/jobId&gt;
+   *       &lt;jobId&gt;admin  OtherJobName 1410786491503&lt;/jobId&gt;
+   *     &lt;/jobIds&gt;
+   *   &lt;/jobsRequest&gt;
+   * </pre>
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *   &lt;JobsResponse&gt;
+   *     &lt;changes&gt;
+   *       &lt;entry&gt;
+   *         &lt;key&gt;admin  JobName 1410786491777&lt;/key&gt;
+   *         &lt;value&gt;PAUSED&lt;/value&gt;
+   *       &lt;/entry&gt;
+   *       &lt;entry&gt;
+   *         &lt;key&gt;admin  OtherJobName 1410786491503&lt;/key&gt;
+   *         &lt;value&gt;UNKNOWN_ERROR&lt;/value&gt;
+   *       &lt;/entry&gt;
+   *     &lt;/changes&gt;
+   *   &lt;/JobsResponse&gt;
+   * </pre>
+   *
+   * @param jobsRequest A JobsRequest object containing a list of jobIds.
+   * @return A jax-rs Response object containing all the scheduled jobs ids and their new status.
+   */
+  @POST
+  @Path( "/pauseJobs" )
+  @Produces( { APPLICATION_XML, APPLICATION_JSON } )
+  @Consumes( { APPLICATION_XML, APPLICATION_JSON } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Successfully returned the new states of all the jobs." ),
+    @ResponseCode( code = 500, condition = "Invalid request or server error." )
+  } )
+  public JobsResponse pauseJobs( JobsRequest jobsRequest ) {
+    try {
+      return toJobsResponse( jobsRequest.getJobIds(), schedulerService.pauseJobs( jobsRequest.getJobIds() ) );
+    } catch ( SchedulerException e ) {
+      throw new RuntimeException( e );
+    }
+  }
+
+  /**
+   * Resume all the specified scheduled jobs, in a single call to the scheduler.
+   *
+   * <p><b>Example Request:</b><br />
+   * POST pentaho/api/scheduler/resumeJobs
+   * </p>
+   * <br /><b>POST data:</b>
+   * <pre function="syntax.xml">
+   *   &lt;jobsRequest&gt;
+   *     &lt;jobIds&gt;
+   *       &lt;jobId&gt;admin  JobName 1410786491777&lt;/jobId&gt;
+   *       &lt;jobId&gt;admin  OtherJobName 1410786491503&lt;/jobId&gt;
+   *     &lt;/jobIds&gt;
+   *   &lt;/jobsRequest&gt;
+   * </pre>
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *   &lt;JobsResponse&gt;
+   *     &lt;changes&gt;
+   *       &lt;entry&gt;
+   *         &lt;key&gt;admin  JobName 1410786491777&lt;/key&gt;
+   *         &lt;value&gt;NORMAL&lt;/value&gt;
+   *       &lt;/entry&gt;
+   *       &lt;entry&gt;
+   *         &lt;key&gt;admin  OtherJobName 1410786491503&lt;/key&gt;
+   *         &lt;value&gt;UNKNOWN_ERROR&lt;/value&gt;
+   *       &lt;/entry&gt;
+   *     &lt;/changes&gt;
+   *   &lt;/JobsResponse&gt;
+   * </pre>
+   *
+   * @param jobsRequest A JobsRequest object containing a list of jobIds.
+   * @return A jax-rs Response object containing all the scheduled jobs ids and their new status.
+   */
+  @POST
+  @Path( "/resumeJobs" )
+  @Produces( { APPLICATION_XML, APPLICATION_JSON } )
+  @Consumes( { APPLICATION_XML, APPLICATION_JSON } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Successfully returned the new states of all the jobs." ),
+    @ResponseCode( code = 500, condition = "Invalid request or server error." )
+  } )
+  public JobsResponse resumeJobs( JobsRequest jobsRequest ) {
+    try {
+      return toJobsResponse( jobsRequest.getJobIds(), schedulerService.resumeJobs( jobsRequest.getJobIds() ) );
+    } catch ( SchedulerException e ) {
+      throw new RuntimeException( e );
+    }
+  }
+
+  /**
+   * Execute all the specified scheduled jobs, in a single call to the scheduler.
+   *
+   * <p><b>Example Request:</b><br />
+   * POST pentaho/api/scheduler/triggerJobsNow
+   * </p>
+   * <br /><b>POST data:</b>
+   * <pre function="syntax.xml">
+   *   &lt;jobsRequest&gt;
+   *     &lt;jobIds&gt;
+   *       &lt;jobId&gt;admin  JobName 1410786491777&lt;/jobId&gt;
+   *       &lt;jobId&gt;admin  OtherJobName 1410786491503&lt;/jobId&gt;
+   *     &lt;/jobIds&gt;
+   *   &lt;/jobsRequest&gt;
+   * </pre>
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *   &lt;JobsResponse&gt;
+   *     &lt;changes&gt;
+   *       &lt;entry&gt;
+   *         &lt;key&gt;admin  JobName 1410786491777&lt;/key&gt;
+   *         &lt;value&gt;NORMAL&lt;/value&gt;
+   *       &lt;/entry&gt;
+   *       &lt;entry&gt;
+   *         &lt;key&gt;admin  OtherJobName 1410786491503&lt;/key&gt;
+   *         &lt;value&gt;UNKNOWN_ERROR&lt;/value&gt;
+   *       &lt;/entry&gt;
+   *     &lt;/changes&gt;
+   *   &lt;/JobsResponse&gt;
+   * </pre>
+   *
+   * @param jobsRequest A JobsRequest object containing a list of jobIds.
+   * @return A jax-rs Response object containing all the scheduled jobs ids and their new status.
+   */
+  @POST
+  @Path( "/triggerJobsNow" )
+  @Produces( { APPLICATION_XML, APPLICATION_JSON } )
+  @Consumes( { APPLICATION_XML, APPLICATION_JSON } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Successfully returned the new states of all the jobs." ),
+    @ResponseCode( code = 500, condition = "Invalid request or server error." )
+  } )
+  public JobsResponse triggerJobsNow( JobsRequest jobsRequest ) {
+    try {
+      return toJobsResponse( jobsRequest.getJobIds(), schedulerService.triggerNow( jobsRequest.getJobIds() ) );
+    } catch ( SchedulerException e ) {
+      throw new RuntimeException( e );
+    }
+  }
+
+  private JobsResponse toJobsResponse( List<String> jobIds, Map<String, JobState> states ) {
+    JobsResponse response = new JobsResponse();
+
+    for ( String jobId : jobIds ) {
+      JobState state = states.get( jobId );
+      response.addChanges( jobId, state != null ? state.name() : ERROR_JOB_STATE );
+    }
+
+    return response;
+  }
+
   private JobsResponse removeJobs( List<String> jobIds ) {
     JobsResponse response = new JobsResponse();
 
@@ -1614,6 +1988,15 @@ public class SchedulerResource implements ISchedulerResource {
     return Response.serverError().entity( entity ).build();
   }
 
+  protected Response buildJobsPageResponse( List<Job> page, int totalCount ) {
+    return Response.ok( new GenericEntity<List<Job>>( page ) { } ).header( TOTAL_COUNT_HEADER, totalCount ).build();
+  }
+
+  protected Response buildJobSummariesResponse( List<JobSummary> page, int totalCount ) {
+    return Response.ok( new GenericEntity<List<JobSummary>>( page ) { } ).header( TOTAL_COUNT_HEADER, totalCount )
+      .build();
+  }
+
   protected Response buildStatusResponse( Status status ) {
     return Response.status( status ).build();
   }
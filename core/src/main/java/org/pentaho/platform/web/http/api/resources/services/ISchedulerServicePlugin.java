@@ -15,18 +15,22 @@ package org.pentaho.platform.web.http.api.resources.services;
 
 import org.pentaho.platform.api.repository2.unified.webservices.RepositoryFileDto;
 import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.IJobFilter;
 import org.pentaho.platform.api.scheduler2.IJobTrigger;
 import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.api.scheduler2.Job;
 import org.pentaho.platform.api.scheduler2.JobState;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.scheduler2.quartz.JobEventBroadcaster;
 import org.pentaho.platform.web.http.api.proxies.BlockStatusProxy;
+import org.pentaho.platform.web.http.api.resources.JobChanges;
 import org.pentaho.platform.web.http.api.resources.JobRequest;
 import org.pentaho.platform.web.http.api.resources.JobScheduleRequest;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for pentaho platform scheduling service with focus
@@ -55,6 +59,34 @@ public interface ISchedulerServicePlugin {
 
   List<IJob> getJobs() throws SchedulerException, IllegalAccessException;
 
+  List<IJob> getJobs( IJobFilter filter ) throws SchedulerException, IllegalAccessException;
+
+  /**
+   * @return the visible jobs accepted by the filter, holding only the parameters needed to list them
+   */
+  List<IJob> getJobSummaries( IJobFilter filter ) throws SchedulerException, IllegalAccessException;
+
+  /**
+   * @return a token that changes whenever any job visible to the current user may have changed, null if the scheduler
+   * does not track changes
+   * @throws IllegalAccessException if the current user may not see any job
+   */
+  String getJobsVersion() throws IllegalAccessException;
+
+  /**
+   * @param since a version returned by {@link #getJobsVersion()} or by a previous call, null for every job
+   * @return the visible jobs added, changed or removed since that version
+   */
+  JobChanges getJobChanges( String since ) throws SchedulerException, IllegalAccessException;
+
+  /**
+   * Subscribes to the lifecycle events of the jobs the current user may see. The subscription must be closed once it
+   * is no longer read.
+   *
+   * @return the subscription, null if the scheduler does not publish events or has too many subscriptions already
+   */
+  JobEventBroadcaster.Subscription subscribeToJobEvents() throws IllegalAccessException;
+
   boolean isScheduleAllowed( String id );
 
   String doGetCanSchedule();
@@ -75,6 +107,12 @@ public interface ISchedulerServicePlugin {
 
   JobState resumeJob( String jobId ) throws SchedulerException;
 
+  Map<String, JobState> pauseJobs( List<String> jobIds ) throws SchedulerException;
+
+  Map<String, JobState> resumeJobs( List<String> jobIds ) throws SchedulerException;
+
+  Map<String, JobState> triggerNow( List<String> jobIds ) throws SchedulerException;
+
   boolean removeJob( String jobId ) throws SchedulerException;
 
   IJob getJob( String jobId ) throws SchedulerException;
@@ -42,6 +42,10 @@ import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.security.SecurityHelper;
 import org.pentaho.platform.scheduler2.blockout.BlockoutAction;
+import org.pentaho.platform.scheduler2.quartz.ExecutionLanes;
+import org.pentaho.platform.scheduler2.quartz.JobEventBroadcaster;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobChanges;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
 import org.pentaho.platform.security.policy.rolebased.actions.AdministerSecurityAction;
 import org.pentaho.platform.security.policy.rolebased.actions.SchedulerAction;
 import org.pentaho.platform.security.policy.rolebased.actions.SchedulerExecuteAction;
@@ -49,6 +53,8 @@ import org.pentaho.platform.util.ActionUtil;
 import org.pentaho.platform.util.messages.LocaleHelper;
 import org.pentaho.platform.web.http.api.proxies.BlockStatusProxy;
 import org.pentaho.platform.web.http.api.resources.ComplexJobTriggerProxy;
+import org.pentaho.platform.web.http.api.resources.JobChanges;
+import org.pentaho.platform.web.http.api.resources.JobSummary;
 import org.pentaho.platform.web.http.api.resources.JobRequest;
 import org.pentaho.platform.web.http.api.resources.JobScheduleParam;
 import org.pentaho.platform.web.http.api.resources.JobScheduleRequest;
@@ -60,18 +66,26 @@ import org.pentaho.platform.web.http.api.resources.SessionResource;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.Serializable;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import com.google.common.annotations.VisibleForTesting;
 
 public class SchedulerService implements ISchedulerServicePlugin {
   private static final String FALLBACK_SETTING_KEY = "settings/scheduler-fallback";
+  private static final String JOB_EVENT_STREAMS_SETTING_KEY = "settings/job-event-streams";
+  private static final String CONTENT_CLEANER_ACTION_CLASS = "org.pentaho.platform.admin.GeneratedContentCleaner";
   private static final Log logger = LogFactory.getLog( SchedulerService.class );
   protected IScheduler scheduler = PentahoSystem.get( IScheduler.class, "IScheduler2", null ); //$NON-NLS-1$
   protected IAuthorizationPolicy policy;
@@ -227,6 +241,10 @@ public class SchedulerService implements ISchedulerServicePlugin {
       parameterMap.put( "logLevel", scheduleRequest.getLogLevel() );
     }
 
+    if ( scheduleRequest.getPriority() != null ) {
+      parameterMap.put( ExecutionLanes.RESERVEDMAPKEY_PRIORITY, scheduleRequest.getPriority() );
+    }
+
     if ( inputFile.isPresent() ) {
       String fileName = inputFile.get().getName();
       if ( isPdiFile( fileName ) ) {
@@ -330,7 +348,18 @@ public class SchedulerService implements ISchedulerServicePlugin {
     // changed to get name via the current session
     final boolean canAdminister = canAdminister();
 
-    List<IJob> jobs = getScheduler().getJobs( getJobFilter( canAdminister, principalName ) );
+    IJobFilter jobFilter = getJobFilter( canAdminister, principalName );
+    IScheduler scheduler = getScheduler();
+    if ( scheduler instanceof QuartzScheduler ) {
+      for ( IJob job : ( (QuartzScheduler) scheduler ).getJobsByActionClass( CONTENT_CLEANER_ACTION_CLASS ) ) {
+        if ( jobFilter.accept( job ) ) {
+          return (Job) job;
+        }
+      }
+      return null;
+    }
+
+    List<IJob> jobs = scheduler.getJobs( jobFilter );
 
     if ( !jobs.isEmpty() ) {
       return (Job) jobs.get( 0 );
@@ -390,12 +419,11 @@ public class SchedulerService implements ISchedulerServicePlugin {
     public boolean accept( IJob job ) {
       String actionClass = (String) job.getJobParams().get( "ActionAdapterQuartzJob-ActionClass" );
 
-      if ( canAdminister && "org.pentaho.platform.admin.GeneratedContentCleaner".equals( actionClass ) ) {
+      if ( canAdminister && CONTENT_CLEANER_ACTION_CLASS.equals( actionClass ) ) {
         return true;
       }
 
-      return principalName.equals( job.getUserName() ) && "org.pentaho.platform.admin.GeneratedContentCleaner".equals(
-        actionClass );
+      return principalName.equals( job.getUserName() ) && CONTENT_CLEANER_ACTION_CLASS.equals( actionClass );
     }
   }
 
@@ -465,6 +493,87 @@ public class SchedulerService implements ISchedulerServicePlugin {
     return job.getState();
   }
 
+  @Override
+  public Map<String, JobState> pauseJobs( List<String> jobIds ) throws SchedulerException {
+    return controlJobs( jobIds, getScheduler() instanceof QuartzScheduler
+      ? ( (QuartzScheduler) getScheduler() )::pauseJobs
+      : allowedJobIds -> forEachJob( allowedJobIds, getScheduler()::pauseJob ) );
+  }
+
+  @Override
+  public Map<String, JobState> resumeJobs( List<String> jobIds ) throws SchedulerException {
+    return controlJobs( jobIds, getScheduler() instanceof QuartzScheduler
+      ? ( (QuartzScheduler) getScheduler() )::resumeJobs
+      : allowedJobIds -> forEachJob( allowedJobIds, getScheduler()::resumeJob ) );
+  }
+
+  @Override
+  public Map<String, JobState> triggerNow( List<String> jobIds ) throws SchedulerException {
+    return controlJobs( jobIds, getScheduler() instanceof QuartzScheduler
+      ? ( (QuartzScheduler) getScheduler() )::triggerNow
+      : allowedJobIds -> forEachJob( allowedJobIds, getScheduler()::triggerNow ) );
+  }
+
+  private interface JobsOperation {
+    /**
+     * @return the jobs the operation failed for, by job id
+     */
+    Map<String, ? extends Exception> apply( List<String> jobIds );
+  }
+
+  private interface JobOperation {
+    void apply( String jobId ) throws SchedulerException;
+  }
+
+  /**
+   * Applies an operation to the jobs the current user is allowed to control, with a single call to the scheduler.
+   * As with single jobs, the state of jobs the user is not allowed to control is returned unchanged.
+   *
+   * @return the state of each job after the operation, by job id, leaving out the jobs that do not exist or that the
+   * operation failed for
+   */
+  private Map<String, JobState> controlJobs( List<String> jobIds, JobsOperation operation )
+    throws SchedulerException {
+    Set<String> requestedJobIds = new HashSet<>( jobIds );
+    boolean canControlAll = isScheduleAllowed() || isExecuteScheduleAllowed();
+    String userName = getSession().getName();
+
+    Map<String, JobState> states = new HashMap<>();
+    List<String> allowedJobIds = new ArrayList<>();
+    for ( IJob job : getScheduler().getJobs( job -> requestedJobIds.contains( job.getJobId() ) ) ) {
+      if ( canControlAll || userName.equals( job.getUserName() ) ) {
+        allowedJobIds.add( job.getJobId() );
+      } else {
+        states.put( job.getJobId(), job.getState() );
+      }
+    }
+    if ( allowedJobIds.isEmpty() ) {
+      return states;
+    }
+
+    Map<String, ? extends Exception> failures = operation.apply( allowedJobIds );
+    failures.forEach( ( jobId, e ) -> logger.warn( e.getMessage(), e ) );
+
+    Set<String> changedJobIds = new HashSet<>( allowedJobIds );
+    changedJobIds.removeAll( failures.keySet() );
+    for ( IJob job : getScheduler().getJobs( job -> changedJobIds.contains( job.getJobId() ) ) ) {
+      states.put( job.getJobId(), job.getState() );
+    }
+    return states;
+  }
+
+  private static Map<String, SchedulerException> forEachJob( List<String> jobIds, JobOperation operation ) {
+    Map<String, SchedulerException> failures = new HashMap<>();
+    for ( String jobId : jobIds ) {
+      try {
+        operation.apply( jobId );
+      } catch ( SchedulerException e ) {
+        failures.put( jobId, e );
+      }
+    }
+    return failures;
+  }
+
   @Override
   public boolean removeJob( String jobId ) throws SchedulerException {
     Job job = (Job) getJob( jobId );
@@ -713,6 +822,128 @@ public class SchedulerService implements ISchedulerServicePlugin {
 
   @Override
   public List<IJob> getJobs() throws SchedulerException, IllegalAccessException {
+    return getJobs( null );
+  }
+
+  /**
+   * Same as {@link #getJobs()}, further restricted to the jobs accepted by <code>filter</code>. The filter is handed to
+   * the scheduler together with the visibility check, so jobs are filtered while the listing is assembled.
+   *
+   * @param filter additional criteria, may be null
+   * @return the visible jobs accepted by the filter
+   */
+  @Override
+  public List<IJob> getJobs( IJobFilter filter ) throws SchedulerException, IllegalAccessException {
+    return getScheduler().getJobs( getVisibleJobFilter( filter ) );
+  }
+
+  /**
+   * Same as {@link #getJobs(IJobFilter)}, the jobs holding only the parameters a {@link JobSummary} is made from.
+   */
+  @Override
+  public List<IJob> getJobSummaries( IJobFilter filter ) throws SchedulerException, IllegalAccessException {
+    IJobFilter visibleJobFilter = getVisibleJobFilter( filter );
+    IScheduler scheduler = getScheduler();
+    if ( scheduler instanceof QuartzScheduler ) {
+      return ( (QuartzScheduler) scheduler ).getJobs( visibleJobFilter, JobSummary.PARAM_NAMES );
+    }
+    return scheduler.getJobs( visibleJobFilter );
+  }
+
+  /**
+   * The version is specific to what the current user sees: it ends with a digest of the user name and of the
+   * permissions deciding which jobs are visible, so that a user whose permissions changed gets a new version.
+   *
+   * @throws IllegalAccessException if the current user may not see any job
+   */
+  @Override
+  public String getJobsVersion() throws IllegalAccessException {
+    if ( !isScheduleAllowed() && !isExecuteScheduleAllowed() ) {
+      throw new IllegalAccessException();
+    }
+    IScheduler scheduler = getScheduler();
+    if ( !( scheduler instanceof QuartzScheduler ) ) {
+      return null;
+    }
+    String version = ( (QuartzScheduler) scheduler ).getJobsVersion();
+    if ( version == null ) {
+      return null;
+    }
+    String scope = canAdminister() + "\n" + isExecuteScheduleAllowed() + "\n" + getSession().getName();
+    return version + "-" + sha256( scope );
+  }
+
+  private static String sha256( String value ) {
+    try {
+      byte[] digest = MessageDigest.getInstance( "SHA-256" ).digest( value.getBytes( StandardCharsets.UTF_8 ) );
+      return String.format( "%064x", new BigInteger( 1, digest ) );
+    } catch ( NoSuchAlgorithmException e ) {
+      // every Java platform implements SHA-256
+      throw new IllegalStateException( e );
+    }
+  }
+
+  @Override
+  public JobChanges getJobChanges( String since ) throws SchedulerException, IllegalAccessException {
+    IJobFilter visibleJobFilter = getVisibleJobFilter( null );
+    JobChanges jobChanges = new JobChanges();
+
+    IScheduler scheduler = getScheduler();
+    if ( !( scheduler instanceof QuartzScheduler ) ) {
+      jobChanges.setReset( true );
+      for ( IJob job : scheduler.getJobs( visibleJobFilter ) ) {
+        jobChanges.getJobs().add( (Job) job );
+      }
+      return jobChanges;
+    }
+
+    QuartzJobChanges changes = ( (QuartzScheduler) scheduler ).getJobChanges( since, visibleJobFilter );
+    jobChanges.setVersion( changes.getVersion() );
+    jobChanges.setReset( changes.isReset() );
+    for ( IJob job : changes.getJobs() ) {
+      jobChanges.getJobs().add( (Job) job );
+    }
+    jobChanges.getRemovedJobIds().addAll( changes.getRemovedJobIds() );
+    return jobChanges;
+  }
+
+  @Override
+  public JobEventBroadcaster.Subscription subscribeToJobEvents() throws IllegalAccessException {
+    IJobFilter visibleJobFilter = getVisibleJobFilter( null );
+    IScheduler scheduler = getScheduler();
+    if ( !( scheduler instanceof QuartzScheduler ) ) {
+      return null;
+    }
+    return ( (QuartzScheduler) scheduler ).getJobEvents().subscribe( visibleJobFilter, getMaxJobEventStreams() );
+  }
+
+  /**
+   * The number of job event streams open at once, from the plugin setting `settings/job-event-streams`. Each stream
+   * holds a request thread of the servlet container, so the setting has to stay well below the container's pool size.
+   *
+   * @return the configured number, {@link JobEventBroadcaster#DEFAULT_MAX_SUBSCRIPTIONS} if it is missing or invalid
+   */
+  public static int getMaxJobEventStreams() {
+    IPluginResourceLoader resourceLoader = PentahoSystem.get( IPluginResourceLoader.class, null );
+    String setting = resourceLoader == null ? null
+      : resourceLoader.getPluginSetting( SchedulerService.class, JOB_EVENT_STREAMS_SETTING_KEY, null );
+    if ( setting == null || setting.trim().isEmpty() ) {
+      return JobEventBroadcaster.DEFAULT_MAX_SUBSCRIPTIONS;
+    }
+    try {
+      return Math.max( 0, Integer.parseInt( setting.trim() ) );
+    } catch ( NumberFormatException e ) {
+      logger.warn( "Ignoring invalid " + JOB_EVENT_STREAMS_SETTING_KEY + " setting: " + setting );
+      return JobEventBroadcaster.DEFAULT_MAX_SUBSCRIPTIONS;
+    }
+  }
+
+  /**
+   * @param filter additional criteria, may be null
+   * @return a filter accepting the jobs the current user may see that are also accepted by <code>filter</code>
+   * @throws IllegalAccessException if the current user may not see any job
+   */
+  private IJobFilter getVisibleJobFilter( IJobFilter filter ) throws IllegalAccessException {
     if ( !isScheduleAllowed() && !isExecuteScheduleAllowed() ) {
       throw new IllegalAccessException();
     }
@@ -723,13 +954,17 @@ public class SchedulerService implements ISchedulerServicePlugin {
     final boolean canAdminister = canAdminister();
     final boolean canExecuteSchedule = isExecuteScheduleAllowed();
 
-    return getScheduler().getJobs( job -> {
+    return job -> {
+      if ( filter != null && !filter.accept( job ) ) {
+        return false;
+      }
+
       if ( canAdminister || canExecuteSchedule ) {
         return !IBlockoutManager.BLOCK_OUT_JOB_NAME.equals( job.getJobName() );
       }
 
       return principalName.equals( job.getUserName() );
-    } );
+    };
   }
 
   protected boolean canAdminister() {
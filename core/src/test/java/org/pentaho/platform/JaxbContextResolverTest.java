@@ -0,0 +1,82 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.platform;
+
+import com.sun.jersey.api.json.JSONJAXBContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.web.http.api.resources.JobChanges;
+
+import javax.xml.bind.JAXBContext;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JaxbContextResolverTest {
+
+  private JaxbContextResolver jaxbContextResolver;
+
+  @Before
+  public void setUp() throws Exception {
+    jaxbContextResolver = new JaxbContextResolver();
+  }
+
+  @Test
+  public void testContextIsBuiltOncePerType() {
+    JAXBContext jobContext = jaxbContextResolver.getContext( Job.class );
+    JAXBContext jobChangesContext = jaxbContextResolver.getContext( JobChanges.class );
+
+    assertNotNull( jobContext );
+    assertNotNull( jobChangesContext );
+    assertSame( jobContext, jaxbContextResolver.getContext( Job.class ) );
+    assertSame( jobChangesContext, jaxbContextResolver.getContext( JobChanges.class ) );
+  }
+
+  @Test
+  public void testConcurrentCallersShareTheContext() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool( 4 );
+    try {
+      Callable<JAXBContext> getContext = () -> jaxbContextResolver.getContext( JobChanges.class );
+      List<Future<JAXBContext>> contexts = new ArrayList<>();
+      for ( int i = 0; i < 8; i++ ) {
+        contexts.add( executor.submit( getContext ) );
+      }
+      for ( Future<JAXBContext> context : contexts ) {
+        assertSame( contexts.get( 0 ).get(), context.get() );
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testListsAreJsonArrays() throws Exception {
+    JobChanges jobChanges = new JobChanges();
+    jobChanges.getRemovedJobIds().add( "admin\tjob\tuuid" );
+
+    StringWriter writer = new StringWriter();
+    ( (JSONJAXBContext) jaxbContextResolver.getContext( JobChanges.class ) ).createJSONMarshaller()
+      .marshallToJSON( jobChanges, writer );
+
+    assertTrue( writer.toString(), writer.toString().contains( "\"removedJobIds\":[" ) );
+  }
+}
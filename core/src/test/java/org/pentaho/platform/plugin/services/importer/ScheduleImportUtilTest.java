@@ -15,6 +15,7 @@ import org.pentaho.platform.api.mimetype.IMimeType;
 import org.pentaho.platform.api.mimetype.IPlatformMimeResolver;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.scheduler2.ICronJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJob;
 import org.pentaho.platform.api.scheduler2.IJobScheduleParam;
 import org.pentaho.platform.api.scheduler2.IJobScheduleRequest;
 import org.pentaho.platform.api.scheduler2.IScheduler;
@@ -33,7 +34,12 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -199,6 +205,32 @@ public class ScheduleImportUtilTest {
     }
   }
 
+  @Test
+  public void testIndexByLineageId() {
+    List<IJob> jobs = new ArrayList<>();
+    jobs.add( createJob( "job1", "lineage1" ) );
+    jobs.add( createJob( "job2", null ) );
+    jobs.add( createJob( "job3", "lineage2" ) );
+    jobs.add( createJob( "job4", "lineage1" ) );
+
+    Map<Serializable, Deque<String>> index = ScheduleImportUtil.indexByLineageId( jobs );
+
+    Assert.assertEquals( 2, index.size() );
+    Assert.assertEquals( Arrays.asList( "job1", "job4" ), new ArrayList<>( index.get( "lineage1" ) ) );
+    Assert.assertEquals( Collections.singletonList( "job3" ), new ArrayList<>( index.get( "lineage2" ) ) );
+  }
+
+  private IJob createJob( String jobId, String lineageId ) {
+    Map<String, Serializable> jobParams = new HashMap<>();
+    if ( lineageId != null ) {
+      jobParams.put( "lineage-id", lineageId );
+    }
+    IJob job = mock( IJob.class );
+    when( job.getJobId() ).thenReturn( jobId );
+    when( job.getJobParams() ).thenReturn( jobParams );
+    return job;
+  }
+
 
   private static class FakeJobSchedluerRequest implements IJobScheduleRequest {
     private String inputFile;
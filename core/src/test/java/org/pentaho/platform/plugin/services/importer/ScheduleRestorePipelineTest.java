@@ -0,0 +1,107 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.plugin.services.importer;
+
+import org.apache.commons.logging.Log;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.pentaho.platform.api.scheduler2.IJobScheduleRequest;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.JobState;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ScheduleRestorePipelineTest {
+
+  @Test
+  public void testJobsOfABatchAreStoredTogether() {
+    QuartzScheduler scheduler = mock( QuartzScheduler.class );
+    IJobScheduleRequest first = createRequest( "first", JobState.NORMAL );
+    IJobScheduleRequest paused = createRequest( "paused", JobState.PAUSED );
+    IJobScheduleRequest rejected = createRequest( "rejected", JobState.NORMAL );
+    ScheduleRestorePipeline.JobCreator jobCreator = mock( ScheduleRestorePipeline.JobCreator.class );
+    when( jobCreator.createJob( any() ) ).thenAnswer( invocation -> {
+      IJobScheduleRequest request = invocation.getArgument( 0 );
+      return ScheduleRestorePipeline.Outcome.created( request, request.getJobName() + "Id" );
+    } );
+    when( scheduler.submitDeferredJobs() ).thenReturn(
+      Collections.singletonMap( "rejectedId", new SchedulerException( "rejected", new Exception( "exists" ) ) ) );
+
+    ScheduleRestorePipeline pipeline = new ScheduleRestorePipeline( scheduler, jobCreator, 1, mock( Log.class ) );
+    List<ScheduleRestorePipeline.Outcome> outcomes = pipeline.createJobs( Arrays.asList( first, paused, rejected ) );
+
+    // the paused job is created once the others are stored
+    InOrder inOrder = inOrder( scheduler, jobCreator );
+    inOrder.verify( scheduler ).deferJobs();
+    inOrder.verify( jobCreator ).createJob( first );
+    inOrder.verify( jobCreator ).createJob( rejected );
+    inOrder.verify( scheduler ).submitDeferredJobs();
+    inOrder.verify( jobCreator ).createJob( paused );
+
+    assertEquals( 3, outcomes.size() );
+    assertEquals( "firstId", outcomes.get( 0 ).getJobId() );
+    assertEquals( "pausedId", outcomes.get( 1 ).getJobId() );
+    assertSame( rejected, outcomes.get( 2 ).getJobScheduleRequest() );
+    assertNull( outcomes.get( 2 ).getJobId() );
+    assertEquals( "java.lang.Exception: exists", outcomes.get( 2 ).getFailure() );
+  }
+
+  @Test
+  public void testRunKeepsOrder() throws Exception {
+    List<IJobScheduleRequest> requests = new ArrayList<>();
+    for ( int i = 0; i < 3 * ScheduleRestorePipeline.BATCH_SIZE + 1; i++ ) {
+      requests.add( createRequest( "job" + i, JobState.NORMAL ) );
+    }
+    ScheduleRestorePipeline pipeline = new ScheduleRestorePipeline( mock( IScheduler.class ),
+      request -> request.getJobName().endsWith( "7" )
+        ? ScheduleRestorePipeline.Outcome.failed( request, "failed" )
+        : ScheduleRestorePipeline.Outcome.created( request, request.getJobName() + "Id" ), 4, mock( Log.class ) );
+
+    List<ScheduleRestorePipeline.Outcome> outcomes;
+    try ( MockedStatic<PentahoSessionHolder> pentahoSessionHolderMockedStatic =
+            Mockito.mockStatic( PentahoSessionHolder.class ) ) {
+      pentahoSessionHolderMockedStatic.when( PentahoSessionHolder::getSession ).thenReturn( null );
+      outcomes = pipeline.run( requests );
+    }
+
+    assertEquals( requests.size(), outcomes.size() );
+    for ( int i = 0; i < requests.size(); i++ ) {
+      assertSame( requests.get( i ), outcomes.get( i ).getJobScheduleRequest() );
+      assertEquals( i % 10 == 7 ? null : "job" + i + "Id", outcomes.get( i ).getJobId() );
+    }
+  }
+
+  private IJobScheduleRequest createRequest( String jobName, JobState jobState ) {
+    IJobScheduleRequest request = mock( IJobScheduleRequest.class );
+    when( request.getJobName() ).thenReturn( jobName );
+    when( request.getJobState() ).thenReturn( jobState );
+    return request;
+  }
+}
@@ -25,6 +25,8 @@ import org.pentaho.platform.api.action.ActionInvocationException;
 import org.pentaho.platform.api.action.IAction;
 import org.pentaho.platform.api.engine.IAuthorizationPolicy;
 import org.pentaho.platform.api.engine.ISecurityHelper;
+import org.pentaho.platform.api.repository2.unified.ISourcesStreamEvents;
+import org.pentaho.platform.api.repository2.unified.IStreamListener;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.scheduler2.IBackgroundExecutionStreamProvider;
@@ -38,14 +40,25 @@ import org.pentaho.platform.util.messages.LocaleHelper;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.times;
@@ -57,6 +70,8 @@ import static org.pentaho.platform.scheduler2.action.ActionRunner.KEY_USE_JCR;
 @RunWith( MockitoJUnitRunner.class )
 public class ActionRunnerTest {
 
+  private final List<Float> failureAudits = new ArrayList<>();
+
   @Test
   public void testCallInvokesExecute() throws Exception {
     Map<String, Object> paramsMap = createMapWithUserLocale();
@@ -247,4 +262,115 @@ public class ActionRunnerTest {
     assertEquals( alternateDirectory, actionParams2.get( KEY_JCR_OUTPUT_PATH ) );
   }
 
+  @Test
+  public void testPostProcessingRunsOnceTheOutputFileIsCreated() throws Exception {
+    IBackgroundExecutionStreamProvider mockStreamProvider = Mockito.mock( IBackgroundExecutionStreamProvider.class );
+    String outputPath = "/home/someUser/someOutput.*";
+    when( mockStreamProvider.getOutputPath() ).thenReturn( outputPath );
+    OutputStream mockOutputStream =
+      Mockito.mock( OutputStream.class, Mockito.withSettings().extraInterfaces( ISourcesStreamEvents.class ) );
+    when( mockStreamProvider.getOutputStream() ).thenReturn( mockOutputStream );
+    AtomicReference<IStreamListener> listener = new AtomicReference<>();
+    Mockito.doAnswer( invocation -> {
+      listener.set( invocation.getArgument( 0 ) );
+      return null;
+    } ).when( (ISourcesStreamEvents) mockOutputStream ).addListener( any() );
+    ISecurityHelper mockSecurityHelper = Mockito.mock( ISecurityHelper.class );
+    SecurityHelper.setMockInstance( mockSecurityHelper );
+    when( mockSecurityHelper.runAsUser( Mockito.anyString(), Mockito.any() ) )
+      .thenAnswer( invocation -> ( (Callable<?>) invocation.getArgument( 1 ) ).call() );
+    List<String> emailed = new ArrayList<>();
+
+    IAction actionBeanSpy = Mockito.spy( new TestAction() );
+    ActionRunner actionRunner =
+      new ActionRunner( actionBeanSpy, "actionUser", createMapWithUserLocale(), mockStreamProvider ) {
+        @Override
+        protected String resolveOutputFilePath() {
+          return outputPath;
+        }
+
+        @Override
+        protected Executor getPostProcessingExecutor() {
+          return Runnable::run;
+        }
+
+        @Override
+        protected void sendEmail( Map<String, Object> actionParams ) {
+          emailed.add( outputFilePath );
+        }
+
+        @Override
+        protected void deleteFileIfEmpty() {
+        }
+
+        @Override
+        protected void makeFailureAuditRecord( float time ) {
+          failureAudits.add( time );
+        }
+      };
+
+    actionRunner.call();
+
+    verify( actionBeanSpy ).execute();
+    assertFalse( actionRunner.getPostProcessing().isDone() );
+    assertTrue( emailed.isEmpty() );
+
+    listener.get().fileCreated( "/home/someUser/someOutput.pdf" );
+
+    assertTrue( actionRunner.getPostProcessing().isDone() );
+    assertEquals( Collections.singletonList( "/home/someUser/someOutput.pdf" ), emailed );
+    assertTrue( failureAudits.isEmpty() );
+  }
+
+  @Test
+  public void testPostProcessingFailsWhenTheOutputFileIsNotReadyInTime() throws Exception {
+    IBackgroundExecutionStreamProvider mockStreamProvider = Mockito.mock( IBackgroundExecutionStreamProvider.class );
+    String outputPath = "/home/someUser/someOutput.*";
+    when( mockStreamProvider.getOutputPath() ).thenReturn( outputPath );
+    OutputStream mockOutputStream =
+      Mockito.mock( OutputStream.class, Mockito.withSettings().extraInterfaces( ISourcesStreamEvents.class ) );
+    when( mockStreamProvider.getOutputStream() ).thenReturn( mockOutputStream );
+    List<String> emailed = new ArrayList<>();
+
+    IAction actionBeanSpy = Mockito.spy( new TestAction() );
+    ActionRunner actionRunner =
+      new ActionRunner( actionBeanSpy, "actionUser", createMapWithUserLocale(), mockStreamProvider ) {
+        @Override
+        protected String resolveOutputFilePath() {
+          return outputPath;
+        }
+
+        @Override
+        protected Executor getPostProcessingExecutor() {
+          return Runnable::run;
+        }
+
+        @Override
+        protected long getOutputFileTimeout() {
+          return 10;
+        }
+
+        @Override
+        protected void sendEmail( Map<String, Object> actionParams ) {
+          emailed.add( outputFilePath );
+        }
+
+        @Override
+        protected void makeFailureAuditRecord( float time ) {
+          failureAudits.add( time );
+        }
+      };
+
+    actionRunner.call();
+
+    try {
+      actionRunner.getPostProcessing().get( 5, TimeUnit.SECONDS );
+      fail();
+    } catch ( ExecutionException e ) {
+      assertTrue( e.getCause() instanceof TimeoutException );
+    }
+    assertTrue( emailed.isEmpty() );
+    // the job was reported as completed, the failure is audited after it
+    assertEquals( 1, failureAudits.size() );
+  }
 }
@@ -0,0 +1,114 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.action;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PostProcessingExecutorTest {
+
+  private final CountDownLatch release = new CountDownLatch( 1 );
+
+  private final AtomicInteger done = new AtomicInteger();
+
+  private PostProcessingExecutor executor;
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    if ( executor != null ) {
+      executor.shutdown( 1000 );
+    }
+  }
+
+  @Test
+  public void testPostProcessingRunsOnTheCallerWhenTheQueueIsFull() throws Exception {
+    executor = new PostProcessingExecutor( 1, 1, 1000 );
+    CountDownLatch started = new CountDownLatch( 1 );
+    executor.execute( () -> {
+      started.countDown();
+      await();
+    } );
+    assertTrue( started.await( 5, TimeUnit.SECONDS ) );
+    executor.execute( done::incrementAndGet );
+    assertEquals( 1, executor.getDepth() );
+
+    AtomicReference<Thread> runner = new AtomicReference<>();
+    executor.execute( () -> runner.set( Thread.currentThread() ) );
+
+    assertSame( Thread.currentThread(), runner.get() );
+    assertEquals( 3, executor.getSubmittedCount() );
+    assertEquals( 1, executor.getCallerRunsCount() );
+    assertEquals( 1, executor.getActiveCount() );
+    assertEquals( 1, executor.getQueueSize() );
+  }
+
+  @Test
+  public void testShutdownDrainsTheQueue() {
+    executor = new PostProcessingExecutor( 1, 10, 1000 );
+    executor.execute( this::await );
+    executor.execute( done::incrementAndGet );
+    executor.execute( done::incrementAndGet );
+    release.countDown();
+
+    assertTrue( executor.shutdown( 5000 ) );
+
+    assertEquals( 2, done.get() );
+    assertEquals( 3, executor.getCompletedCount() );
+  }
+
+  @Test
+  public void testShutdownDropsWhatIsNotDoneInTime() {
+    executor = new PostProcessingExecutor( 1, 10, 1000 );
+    executor.execute( this::await );
+    executor.execute( done::incrementAndGet );
+
+    assertFalse( executor.shutdown( 10 ) );
+
+    assertTrue( executor.isShutdown() );
+    assertEquals( 0, done.get() );
+  }
+
+  @Test( expected = RejectedExecutionException.class )
+  public void testShutDownExecutorRejects() {
+    executor = new PostProcessingExecutor();
+    executor.shutdown( 1000 );
+
+    executor.execute( done::incrementAndGet );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidSize() {
+    new PostProcessingExecutor( 0, 10, 1000 );
+  }
+
+  private void await() {
+    try {
+      release.await( 5, TimeUnit.SECONDS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
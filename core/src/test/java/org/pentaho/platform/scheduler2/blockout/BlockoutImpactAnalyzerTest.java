@@ -0,0 +1,138 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.blockout.BlockoutManagerUtil.TIME;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class BlockoutImpactAnalyzerTest {
+
+  private static final long FROM = 1893456000000L; // 2030-01-01T00:00:00Z
+
+  @Test
+  public void testSimpleBlockout() throws Exception {
+    // two hours every day from 01:30
+    SimpleJobTrigger blockOut = createSimpleTrigger( FROM + 90 * TIME.MINUTE.time, TIME.DAY.time / 1000 );
+    blockOut.setDuration( 2 * TIME.HOUR.time );
+    IJob hourly = createJob( createSimpleTrigger( FROM - TIME.DAY.time, TIME.HOUR.time / 1000 ) );
+    IJob atHalfPastFive = createJob( createSimpleTrigger( FROM + 330 * TIME.MINUTE.time, TIME.DAY.time / 1000 ) );
+
+    BlockoutImpactAnalyzer analyzer = new BlockoutImpactAnalyzer( blockOut, mock( QuartzScheduler.class ), FROM );
+    List<BlockoutImpactAnalyzer.Impact> impacts = analyzer.analyze( Arrays.asList( hourly, atHalfPastFive ) );
+
+    assertEquals( 1, impacts.size() );
+    assertSame( hourly, impacts.get( 0 ).getJob() );
+    assertEquals( FROM + 2 * TIME.HOUR.time, impacts.get( 0 ).getFirstConflict().getTime() );
+  }
+
+  @Test
+  public void testPastConflictsAreIgnored() throws Exception {
+    SimpleJobTrigger blockOut = createSimpleTrigger( FROM - TIME.DAY.time, 0 );
+    blockOut.setDuration( TIME.HOUR.time );
+    IJob runOnce = createJob( createSimpleTrigger( FROM - TIME.DAY.time, 0 ) );
+
+    BlockoutImpactAnalyzer analyzer = new BlockoutImpactAnalyzer( blockOut, mock( QuartzScheduler.class ), FROM );
+
+    assertNull( analyzer.getImpact( runOnce ) );
+  }
+
+  @Test
+  public void testComplexBlockout() throws Exception {
+    // ten minutes at the top of every hour, against a schedule every 25 minutes from five past the hour
+    Calendar calendar = Calendar.getInstance();
+    calendar.setTimeInMillis( FROM + TIME.HOUR.time );
+    calendar.set( Calendar.MINUTE, 0 );
+    calendar.set( Calendar.SECOND, 0 );
+    calendar.set( Calendar.MILLISECOND, 0 );
+    long topOfHour = calendar.getTimeInMillis();
+    ComplexJobTrigger blockOut = new ComplexJobTrigger();
+    blockOut.setCronString( "0 0 * * * ?" );
+    blockOut.setStartTime( new Date( FROM - TIME.DAY.time ) );
+    blockOut.setDuration( 10 * TIME.MINUTE.time );
+    IJob job = createJob( createSimpleTrigger( topOfHour + 5 * TIME.MINUTE.time, 25 * 60 ) );
+
+    BlockoutImpactAnalyzer analyzer = new BlockoutImpactAnalyzer( blockOut, mock( QuartzScheduler.class ), FROM );
+    BlockoutImpactAnalyzer.Impact impact = analyzer.getImpact( job );
+
+    assertEquals( topOfHour + 5 * TIME.MINUTE.time, impact.getFirstConflict().getTime() );
+  }
+
+  @Test
+  public void testComplexScheduleMatchesWillBlockSchedule() throws Exception {
+    QuartzScheduler scheduler = mock( QuartzScheduler.class );
+    long now = System.currentTimeMillis();
+    SimpleJobTrigger blockOut = createSimpleTrigger( now - now % TIME.DAY.time + 11 * TIME.HOUR.time,
+      TIME.DAY.time / 1000 );
+    blockOut.setDuration( 2 * TIME.HOUR.time );
+    ComplexJobTrigger atNoon = new ComplexJobTrigger();
+    atNoon.setCronString( "0 0 12 * * ?" );
+    ComplexJobTrigger atNine = new ComplexJobTrigger();
+    atNine.setCronString( "0 0 9 * * ?" );
+
+    BlockoutImpactAnalyzer analyzer = new BlockoutImpactAnalyzer( blockOut, scheduler );
+
+    for ( IJobTrigger schedule : Arrays.asList( atNoon, atNine ) ) {
+      assertEquals( BlockoutManagerUtil.willBlockSchedule( schedule, blockOut, scheduler ),
+        analyzer.getImpact( createJob( schedule ) ) != null );
+    }
+  }
+
+  @Test
+  public void testParallelAnalysisKeepsOrder() throws Exception {
+    SimpleJobTrigger blockOut = createSimpleTrigger( FROM, TIME.DAY.time / 1000 );
+    blockOut.setDuration( TIME.HOUR.time );
+    List<IJob> jobs = new ArrayList<>();
+    for ( int i = 0; i < 2 * BlockoutImpactAnalyzer.PARALLEL_THRESHOLD; i++ ) {
+      // every other job fires within the window
+      jobs.add( createJob( createSimpleTrigger( FROM + ( i % 2 == 0 ? i : TIME.HOUR.time + 1 + i ),
+        TIME.DAY.time / 1000 ) ) );
+    }
+
+    BlockoutImpactAnalyzer analyzer = new BlockoutImpactAnalyzer( blockOut, mock( QuartzScheduler.class ), FROM );
+    List<BlockoutImpactAnalyzer.Impact> impacts = analyzer.analyze( jobs );
+
+    assertEquals( BlockoutImpactAnalyzer.PARALLEL_THRESHOLD, impacts.size() );
+    for ( int i = 0; i < impacts.size(); i++ ) {
+      assertSame( jobs.get( 2 * i ), impacts.get( i ).getJob() );
+      assertEquals( FROM + 2 * i, impacts.get( i ).getFirstConflict().getTime() );
+    }
+  }
+
+  private SimpleJobTrigger createSimpleTrigger( long start, long repeatIntervalSeconds ) {
+    return new SimpleJobTrigger( new Date( start ), null, -1, repeatIntervalSeconds );
+  }
+
+  private IJob createJob( IJobTrigger trigger ) {
+    Job job = new Job();
+    job.setJobTrigger( trigger );
+    return job;
+  }
+}
@@ -0,0 +1,176 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.CronJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.blockout.BlockoutManagerUtil.TIME;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BlockoutWindowIndexTest {
+
+  private static final long FROM = 1893456000000L; // 2030-01-01T00:00:00Z
+
+  @Test
+  public void testSimpleBlockout() throws Exception {
+    // one hour every day, starting a day before the indexed range
+    IJobTrigger blockOut = createSimpleBlockOut( FROM - TIME.DAY.time, null, TIME.DAY.time / 1000, TIME.HOUR.time );
+
+    BlockoutWindowIndex index =
+      BlockoutWindowIndex.build( Collections.singletonList( blockOut ), FROM, 3 * TIME.DAY.time );
+
+    assertTrue( index.covers( FROM ) );
+    assertFalse( index.covers( FROM + 3 * TIME.DAY.time ) );
+    assertTrue( index.isBlocked( FROM ) );
+    assertTrue( index.isBlocked( FROM + TIME.HOUR.time ) );
+    assertFalse( index.isBlocked( FROM + TIME.HOUR.time + 1 ) );
+    assertTrue( index.isBlocked( FROM + 2 * TIME.DAY.time + TIME.MINUTE.time ) );
+    assertFalse( index.isBlocked( FROM - 1 ) );
+  }
+
+  @Test
+  public void testBlockoutEndTimeClipsWindows() throws Exception {
+    IJobTrigger blockOut =
+      createSimpleBlockOut( FROM, new Date( FROM + TIME.DAY.time + TIME.MINUTE.time ), TIME.DAY.time / 1000,
+        TIME.HOUR.time );
+
+    BlockoutWindowIndex index =
+      BlockoutWindowIndex.build( Collections.singletonList( blockOut ), FROM, 3 * TIME.DAY.time );
+
+    assertEquals( 2, index.size() );
+    assertTrue( index.isBlocked( FROM + TIME.DAY.time + TIME.MINUTE.time ) );
+    assertFalse( index.isBlocked( FROM + TIME.DAY.time + TIME.MINUTE.time + 1 ) );
+    assertFalse( index.isBlocked( FROM + 2 * TIME.DAY.time ) );
+  }
+
+  @Test
+  public void testOverlappingWindowsAreMerged() throws Exception {
+    List<IJobTrigger> blockOuts = Arrays.asList(
+      createSimpleBlockOut( FROM, null, TIME.DAY.time / 1000, 2 * TIME.HOUR.time ),
+      createSimpleBlockOut( FROM + TIME.HOUR.time, null, TIME.DAY.time / 1000, 2 * TIME.HOUR.time ) );
+
+    BlockoutWindowIndex index = BlockoutWindowIndex.build( blockOuts, FROM, TIME.DAY.time / 2 );
+
+    assertEquals( 1, index.size() );
+    assertTrue( index.isBlocked( FROM + 3 * TIME.HOUR.time ) );
+    assertFalse( index.isBlocked( FROM + 3 * TIME.HOUR.time + 1 ) );
+  }
+
+  @Test
+  public void testGetWindowEnd() throws Exception {
+    List<IJobTrigger> blockOuts = Arrays.asList(
+      createSimpleBlockOut( FROM, null, TIME.DAY.time / 1000, 2 * TIME.HOUR.time ),
+      createSimpleBlockOut( FROM + TIME.HOUR.time, null, TIME.DAY.time / 1000, 2 * TIME.HOUR.time ) );
+
+    BlockoutWindowIndex index = BlockoutWindowIndex.build( blockOuts, FROM, TIME.DAY.time / 2 );
+
+    assertEquals( FROM + 3 * TIME.HOUR.time, index.getWindowEnd( FROM ) );
+    assertEquals( FROM + 3 * TIME.HOUR.time, index.getWindowEnd( FROM + 2 * TIME.HOUR.time ) );
+    assertEquals( FROM + 3 * TIME.HOUR.time, index.getWindowEnd( FROM + 3 * TIME.HOUR.time ) );
+    assertEquals( PeriodicOverlap.NEVER, index.getWindowEnd( FROM + 3 * TIME.HOUR.time + 1 ) );
+    assertEquals( PeriodicOverlap.NEVER, index.getWindowEnd( FROM - 1 ) );
+  }
+
+  @Test
+  public void testComplexBlockout() throws Exception {
+    Calendar calendar = Calendar.getInstance();
+    calendar.setTimeInMillis( FROM );
+    calendar.set( Calendar.MINUTE, 5 );
+    long fiveMinutesPastTheHour = calendar.getTimeInMillis();
+
+    ComplexJobTrigger blockOut = new ComplexJobTrigger();
+    blockOut.setCronString( "0 0 * * * ?" );
+    blockOut.setStartTime( new Date( FROM - TIME.DAY.time ) );
+    blockOut.setDuration( 10 * TIME.MINUTE.time );
+
+    BlockoutWindowIndex index =
+      BlockoutWindowIndex.build( Collections.singletonList( blockOut ), fiveMinutesPastTheHour, TIME.DAY.time );
+
+    // the window that opened before the indexed range is included
+    assertTrue( index.isBlocked( fiveMinutesPastTheHour ) );
+    assertFalse( index.isBlocked( fiveMinutesPastTheHour + 10 * TIME.MINUTE.time ) );
+    assertTrue( index.isBlocked( fiveMinutesPastTheHour + TIME.HOUR.time ) );
+  }
+
+  @Test
+  public void testFirstBlocked() throws Exception {
+    // one hour every day from 02:00
+    IJobTrigger blockOut =
+      createSimpleBlockOut( FROM + 2 * TIME.HOUR.time, null, TIME.DAY.time / 1000, TIME.HOUR.time );
+    BlockoutWindowIndex index =
+      BlockoutWindowIndex.build( Collections.singletonList( blockOut ), FROM, 4 * TIME.DAY.time );
+
+    long[] fireTimes = { FROM - TIME.HOUR.time, FROM + TIME.HOUR.time, FROM + 2 * TIME.HOUR.time + 1 };
+    assertEquals( FROM + 2 * TIME.HOUR.time + 1, index.firstBlocked( fireTimes ) );
+    assertEquals( PeriodicOverlap.NEVER, index.firstBlocked( new long[] { FROM + TIME.HOUR.time } ) );
+
+    // every 5 hours from 23:00 the day before, reaching 02:00 after three days
+    long start = FROM - TIME.HOUR.time;
+    assertEquals( FROM + 3 * TIME.DAY.time + 2 * TIME.HOUR.time,
+      index.firstBlocked( start, 5 * TIME.HOUR.time, Long.MAX_VALUE ) );
+    assertEquals( PeriodicOverlap.NEVER, index.firstBlocked( start, 5 * TIME.HOUR.time, FROM + 3 * TIME.DAY.time ) );
+    assertEquals( FROM + 2 * TIME.HOUR.time + 30 * TIME.MINUTE.time,
+      index.firstBlocked( FROM + 2 * TIME.HOUR.time + 30 * TIME.MINUTE.time, 0, Long.MAX_VALUE ) );
+  }
+
+  @Test
+  public void testUnsupportedTrigger() throws Exception {
+    CronJobTrigger blockOut = new CronJobTrigger();
+    blockOut.setCronString( "0 0 * * * ?" );
+
+    assertNull( BlockoutWindowIndex.build( Collections.singletonList( blockOut ), FROM, TIME.DAY.time ) );
+  }
+
+  @Test
+  public void testMatchesShouldFireNow() throws Exception {
+    Random random = new Random( 42 );
+    for ( int run = 0; run < 200; run++ ) {
+      long now = System.currentTimeMillis();
+      // window boundaries are kept half a second away from now
+      long base = now - now % 1000 + 500;
+      List<IJobTrigger> blockOuts = new ArrayList<>();
+      for ( int i = 0; i < 1 + random.nextInt( 3 ); i++ ) {
+        long interval = 1 + random.nextInt( 120 );
+        long start = base - random.nextInt( 600 ) * TIME.SECOND.time;
+        Date end = random.nextBoolean() ? null : new Date( base + random.nextInt( 600 ) * TIME.SECOND.time );
+        blockOuts.add( createSimpleBlockOut( start, end, interval, random.nextInt( 60 ) * TIME.SECOND.time ) );
+      }
+
+      BlockoutWindowIndex index = BlockoutWindowIndex.build( blockOuts, now, TIME.HOUR.time );
+
+      assertEquals( BlockoutManagerUtil.shouldFireNow( blockOuts, null ), !index.isBlocked( now ) );
+    }
+  }
+
+  private IJobTrigger createSimpleBlockOut( long start, Date end, long repeatIntervalSeconds, long duration ) {
+    SimpleJobTrigger blockOut = new SimpleJobTrigger( new Date( start ), end, -1, repeatIntervalSeconds );
+    blockOut.setDuration( duration );
+    return blockOut;
+  }
+}
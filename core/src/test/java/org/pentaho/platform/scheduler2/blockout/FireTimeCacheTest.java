@@ -0,0 +1,105 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.CronJobTrigger;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class FireTimeCacheTest {
+
+  @Test
+  public void testGetAndExpire() {
+    FireTimeCache cache = new FireTimeCache( 10, 1000 );
+    long[] fireTimes = { 1L, 2L };
+
+    cache.put( "key", fireTimes, 0 );
+
+    assertSame( fireTimes, cache.get( "key", 999 ) );
+    assertNull( cache.get( "key", 1000 ) );
+    assertEquals( 1, cache.getHitCount() );
+    assertEquals( 1, cache.getMissCount() );
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsEvicted() {
+    FireTimeCache cache = new FireTimeCache( 2, 1000 );
+    cache.put( "a", new long[ 0 ], 0 );
+    cache.put( "b", new long[ 0 ], 0 );
+    cache.get( "a", 0 );
+
+    cache.put( "c", new long[ 0 ], 0 );
+
+    assertEquals( 2, cache.size() );
+    assertNull( cache.get( "b", 0 ) );
+    assertEquals( 0, cache.get( "a", 0 ).length );
+  }
+
+  @Test
+  public void testInvalidate() {
+    FireTimeCache cache = new FireTimeCache( 10, 1000 );
+    cache.put( "a", new long[ 0 ], 0 );
+    cache.put( "b", new long[ 0 ], 0 );
+
+    cache.invalidate( "a" );
+
+    assertNull( cache.get( "a", 0 ) );
+    assertEquals( 0, cache.get( "b", 0 ).length );
+  }
+
+  @Test
+  public void testSignature() {
+    Date start = new Date( 1893456000000L );
+    SimpleJobTrigger trigger = new SimpleJobTrigger( start, null, -1, 3600 );
+    SimpleJobTrigger sameTrigger = new SimpleJobTrigger( new Date( start.getTime() ), null, -1, 3600 );
+    SimpleJobTrigger otherTrigger = new SimpleJobTrigger( start, null, -1, 7200 );
+    ComplexJobTrigger complexTrigger = new ComplexJobTrigger();
+    complexTrigger.setCronString( "0 0 * * * ?" );
+
+    assertEquals( FireTimeCache.signature( trigger ), FireTimeCache.signature( sameTrigger ) );
+    assertNotEquals( FireTimeCache.signature( trigger ), FireTimeCache.signature( otherTrigger ) );
+    assertNotEquals( FireTimeCache.signature( trigger ), FireTimeCache.signature( complexTrigger ) );
+    assertNull( FireTimeCache.signature( new CronJobTrigger() ) );
+  }
+
+  @Test
+  public void testGetFireTimesIsCached() {
+    BlockoutManagerUtil.FIRE_TIME_CACHE.clear();
+    QuartzScheduler scheduler = mock( QuartzScheduler.class );
+    ComplexJobTrigger trigger = new ComplexJobTrigger();
+    trigger.setCronString( "0 0 12 * * ?" );
+    long hits = BlockoutManagerUtil.FIRE_TIME_CACHE.getHitCount();
+
+    List<Date> fireTimes = BlockoutManagerUtil.getFireTimes( trigger, scheduler );
+    long[] cachedFireTimes = BlockoutManagerUtil.getFireTimeMillis( trigger, scheduler );
+
+    assertFalse( fireTimes.isEmpty() );
+    // blockout last runs and fire times are both served from the cache on the second call
+    assertEquals( hits + 2, BlockoutManagerUtil.FIRE_TIME_CACHE.getHitCount() );
+    assertArrayEquals( fireTimes.stream().mapToLong( Date::getTime ).toArray(), cachedFireTimes );
+  }
+}
@@ -0,0 +1,132 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.blockout.BlockoutManagerUtil.TIME;
+import org.quartz.DateBuilder;
+import org.quartz.Trigger;
+import org.quartz.impl.triggers.CalendarIntervalTriggerImpl;
+import org.quartz.impl.triggers.SimpleTriggerImpl;
+
+import java.util.Date;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FireTimeIteratorTest {
+
+  private static final long FROM = 1893456000000L; // 2030-01-01T00:00:00Z
+
+  @Test
+  public void testLegacySimpleTrigger() {
+    SimpleTriggerImpl trigger = new SimpleTriggerImpl();
+    trigger.setStartTime( new Date( FROM ) );
+    trigger.setRepeatInterval( TIME.MINUTE.time );
+    trigger.setRepeatCount( 3 );
+
+    FireTimeIterator fireTimes = FireTimeIterator.of( trigger, FROM + 1, TIME.DAY.time );
+
+    assertEquals( FROM + TIME.MINUTE.time, fireTimes.nextLong() );
+    assertEquals( FROM + 2 * TIME.MINUTE.time, fireTimes.nextLong() );
+    assertEquals( FROM + 3 * TIME.MINUTE.time, fireTimes.nextLong() );
+    assertFalse( fireTimes.hasNext() );
+  }
+
+  @Test( expected = NoSuchElementException.class )
+  public void testHorizon() {
+    SimpleTriggerImpl trigger = new SimpleTriggerImpl();
+    trigger.setStartTime( new Date( FROM ) );
+    trigger.setRepeatInterval( TIME.HOUR.time );
+    trigger.setRepeatCount( SimpleTriggerImpl.REPEAT_INDEFINITELY );
+
+    FireTimeIterator fireTimes = FireTimeIterator.of( trigger, FROM, TIME.HOUR.time );
+
+    assertEquals( FROM, fireTimes.nextLong() );
+    assertEquals( FROM + TIME.HOUR.time, fireTimes.nextLong() );
+    fireTimes.nextLong();
+  }
+
+  @Test
+  public void testFixedCalendarIntervalMatchesQuartz() {
+    CalendarIntervalTriggerImpl trigger = new CalendarIntervalTriggerImpl();
+    trigger.setStartTime( new Date( FROM + 17 * TIME.SECOND.time ) );
+    trigger.setRepeatInterval( 7 );
+    trigger.setRepeatIntervalUnit( DateBuilder.IntervalUnit.MINUTE );
+    trigger.setEndTime( new Date( FROM + TIME.DAY.time ) );
+
+    assertMatchesQuartz( trigger, FROM - TIME.HOUR.time, 2 * TIME.DAY.time );
+  }
+
+  @Test
+  public void testDailyCalendarIntervalMatchesQuartz() {
+    CalendarIntervalTriggerImpl trigger = new CalendarIntervalTriggerImpl();
+    trigger.setStartTime( new Date( FROM + 9 * TIME.HOUR.time ) );
+    trigger.setRepeatInterval( 1 );
+    trigger.setRepeatIntervalUnit( DateBuilder.IntervalUnit.DAY );
+
+    assertMatchesQuartz( trigger, FROM, 400 * TIME.DAY.time );
+  }
+
+  @Test
+  public void testCronTriggerHonorsStartTime() throws Exception {
+    ComplexJobTrigger trigger = new ComplexJobTrigger();
+    trigger.setCronString( "0 0 * * * ?" );
+    trigger.setStartTime( new Date( FROM ) );
+
+    // seeking before the start time of the trigger stops at its start
+    FireTimeIterator fireTimes = FireTimeIterator.of( trigger, FROM - TIME.DAY.time, 3 * TIME.DAY.time );
+    long first = fireTimes.nextLong();
+    assertTrue( first >= FROM && first < FROM + TIME.HOUR.time );
+    assertEquals( first + TIME.HOUR.time, fireTimes.nextLong() );
+
+    // and seeking back again
+    fireTimes.seek( first );
+    assertEquals( first, fireTimes.nextLong() );
+    fireTimes.seek( first + TIME.DAY.time - TIME.MINUTE.time );
+    assertEquals( first + TIME.DAY.time, fireTimes.nextLong() );
+    // up to the horizon
+    fireTimes.seek( FROM + 2 * TIME.DAY.time + 1 );
+    assertFalse( fireTimes.hasNext() );
+  }
+
+  @Test
+  public void testSimpleJobTriggerEndTime() throws Exception {
+    SimpleJobTrigger trigger =
+      new SimpleJobTrigger( new Date( FROM ), new Date( FROM + 2 * TIME.HOUR.time ), -1, TIME.HOUR.time / 1000 );
+
+    FireTimeIterator fireTimes = FireTimeIterator.of( trigger, FROM, TIME.DAY.time );
+
+    int count = 0;
+    while ( fireTimes.hasNext() ) {
+      assertTrue( fireTimes.nextLong() <= FROM + 2 * TIME.HOUR.time );
+      count++;
+    }
+    assertEquals( 3, count );
+  }
+
+  private void assertMatchesQuartz( Trigger trigger, long from, long horizon ) {
+    FireTimeIterator fireTimes = FireTimeIterator.of( trigger, from, horizon );
+    Date expected = trigger.getFireTimeAfter( new Date( from - 1 ) );
+    while ( expected != null && expected.getTime() <= from + horizon ) {
+      assertEquals( expected.getTime(), fireTimes.nextLong() );
+      expected = trigger.getFireTimeAfter( expected );
+    }
+    assertFalse( fireTimes.hasNext() );
+  }
+}
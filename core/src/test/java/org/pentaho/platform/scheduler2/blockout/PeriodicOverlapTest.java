@@ -0,0 +1,193 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.blockout.BlockoutManagerUtil.TIME;
+
+import java.util.Date;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.pentaho.platform.scheduler2.blockout.PeriodicOverlap.NEVER;
+
+public class PeriodicOverlapTest {
+
+  private static final long NO_END = Long.MAX_VALUE;
+
+  private static final long HOUR = TIME.HOUR.time;
+
+  private static final long DAY = TIME.DAY.time;
+
+  @Test
+  public void testHourlyScheduleDailyBlockout() {
+    // blockout from 01:30 to 03:00 every day, schedule on the hour starting at 00:00
+    assertEquals( 2 * HOUR, PeriodicOverlap.firstConflict( 0, HOUR, NO_END, 90 * 60000, DAY, 90 * 60000, NO_END ) );
+    // blockout from 01:30 to 01:45, never on the hour
+    assertEquals( NEVER, PeriodicOverlap.firstConflict( 0, HOUR, NO_END, 90 * 60000, DAY, 15 * 60000, NO_END ) );
+  }
+
+  @Test
+  public void testScheduleStartingInsideWindow() {
+    assertEquals( 10, PeriodicOverlap.firstConflict( 10, 100, NO_END, 0, 1000, 20, NO_END ) );
+    // the last window before the schedule start is past the blockout end, an earlier one still covers it
+    assertEquals( 10, PeriodicOverlap.firstConflict( 10, 100, NO_END, 0, 5, 10, 4 ) );
+  }
+
+  @Test
+  public void testSingleOccurrences() {
+    assertEquals( 50, PeriodicOverlap.firstConflict( 50, 0, NO_END, 40, 0, 10, NO_END ) );
+    assertEquals( NEVER, PeriodicOverlap.firstConflict( 51, 0, NO_END, 40, 0, 10, NO_END ) );
+    assertEquals( NEVER, PeriodicOverlap.firstConflict( 30, 0, NO_END, 40, 100, 10, NO_END ) );
+    assertEquals( 60, PeriodicOverlap.firstConflict( 0, 30, NO_END, 45, 0, 20, NO_END ) );
+    assertEquals( NEVER, PeriodicOverlap.firstConflict( 0, 30, 59, 45, 0, 20, NO_END ) );
+  }
+
+  @Test
+  public void testEnds() {
+    // fires at 2, 6, 10, 14 against windows [0, 1], [7, 8], [14, 15]: first conflict in the third window
+    assertEquals( 14, PeriodicOverlap.firstConflict( 2, 4, NO_END, 0, 7, 1, NO_END ) );
+    assertEquals( NEVER, PeriodicOverlap.firstConflict( 2, 4, 13, 0, 7, 1, NO_END ) );
+    assertEquals( NEVER, PeriodicOverlap.firstConflict( 2, 4, NO_END, 0, 7, 1, 13 ) );
+    assertEquals( NEVER, PeriodicOverlap.firstConflict( 2, 4, NO_END, 0, 7, -1, NO_END ) );
+  }
+
+  @Test
+  public void testConflictBeyondThousandWindows() {
+    // windows of 1 minute, every 3001 minutes, against a schedule every 3000 minutes offset by 2000 minutes:
+    // they only meet in window 1999, which used to be past the number of windows looked at
+    long minute = TIME.MINUTE.time;
+    SimpleJobTrigger schedule = new SimpleJobTrigger( new Date( 2000 * minute ), null, -1, 3000 * 60 );
+    SimpleJobTrigger blockOut = new SimpleJobTrigger( new Date( 0 ), null, -1, 3001 * 60 );
+    blockOut.setDuration( minute );
+
+    long conflict = BlockoutManagerUtil.getFirstSimpleConflict( schedule, blockOut );
+
+    assertEquals( ( 2000 + 3000 * 1999 ) * minute, conflict );
+    assertTrue( BlockoutManagerUtil.willBlockSchedule( schedule, blockOut, null ) );
+    assertFalse( legacyWillBlockSchedule( 2000 * minute, 3000 * minute, NO_END, 0, 3001 * minute, minute, NO_END ) );
+  }
+
+  @Test
+  public void testMatchesEnumeration() {
+    Random random = new Random( 7 );
+    for ( int n = 0; n < 20000; n++ ) {
+      long scheduleInterval = random.nextInt( 5 ) == 0 ? 0 : 1 + random.nextInt( 60 );
+      long blockOutInterval = random.nextInt( 5 ) == 0 ? 0 : 1 + random.nextInt( 60 );
+      long scheduleStart = random.nextInt( 200 );
+      long blockOutStart = random.nextInt( 200 );
+      long duration = random.nextInt( 30 ) - 1;
+      long scheduleEnd = scheduleStart + random.nextInt( 3000 );
+      long blockOutEnd = random.nextBoolean() ? NO_END : blockOutStart + random.nextInt( 3000 );
+
+      String message = scheduleStart + "/" + scheduleInterval + "/" + scheduleEnd + " " + blockOutStart + "/"
+        + blockOutInterval + "/" + duration + "/" + blockOutEnd;
+      assertEquals( message,
+        enumerateFirstConflict( scheduleStart, scheduleInterval, scheduleEnd, blockOutStart, blockOutInterval, duration,
+          blockOutEnd ),
+        PeriodicOverlap.firstConflict( scheduleStart, scheduleInterval, scheduleEnd, blockOutStart, blockOutInterval,
+          duration, blockOutEnd ) );
+    }
+  }
+
+  @Test
+  public void testAgreesWithLegacyLoop() {
+    Random random = new Random( 11 );
+    long second = TIME.SECOND.time;
+    for ( int n = 0; n < 5000; n++ ) {
+      long scheduleInterval = ( 1 + random.nextInt( 4 * 3600 ) ) * second;
+      long blockOutInterval = ( 1 + random.nextInt( 4 * 3600 ) ) * second;
+      long blockOutStart = 1_700_000_000_000L + random.nextInt( 86400 ) * second;
+      // half a second off the window bounds, so the floating point loop never has to decide a tie
+      long scheduleStart = blockOutStart - random.nextInt( 86400 ) * second - 500;
+      long duration = random.nextInt( 3600 ) * second;
+      long scheduleEnd = random.nextBoolean() ? NO_END : scheduleStart + random.nextInt( 1000 ) * scheduleInterval;
+      // the legacy loop only looks at the first 1000 windows
+      long blockOutEnd = blockOutStart + random.nextInt( 1000 ) * blockOutInterval;
+
+      boolean legacy = legacyWillBlockSchedule( scheduleStart, scheduleInterval, scheduleEnd, blockOutStart,
+        blockOutInterval, duration, blockOutEnd );
+      long conflict = PeriodicOverlap.firstConflict( scheduleStart, scheduleInterval, scheduleEnd, blockOutStart,
+        blockOutInterval, duration, blockOutEnd );
+      assertEquals( legacy, conflict != NEVER );
+    }
+  }
+
+  @Test
+  public void testLargeCoprimeIntervals() {
+    // gaps step by one second over about a week worth of candidates
+    long second = TIME.SECOND.time;
+    long scheduleInterval = 604801 * second;
+    long blockOutInterval = 86399 * second;
+    long conflict =
+      PeriodicOverlap.firstConflict( 0, scheduleInterval, NO_END, 5 * second, blockOutInterval, 0, NO_END );
+
+    assertTrue( conflict != NEVER );
+    assertEquals( 0, conflict % scheduleInterval );
+    assertEquals( 0, ( conflict - 5 * second ) % blockOutInterval );
+  }
+
+  /**
+   * Walks every fire time of the schedule and checks the latest window opened at or before it
+   */
+  private static long enumerateFirstConflict( long scheduleStart, long scheduleInterval, long scheduleEnd,
+                                              long blockOutStart, long blockOutInterval, long duration,
+                                              long blockOutEnd ) {
+    for ( long fireTime = scheduleStart; fireTime <= scheduleEnd; fireTime += scheduleInterval ) {
+      for ( long window = 0; ; window++ ) {
+        long windowStart = blockOutStart + window * blockOutInterval;
+        if ( windowStart > fireTime || windowStart > blockOutEnd ) {
+          break;
+        }
+        if ( fireTime - windowStart <= duration ) {
+          return fireTime;
+        }
+        if ( blockOutInterval == 0 ) {
+          break;
+        }
+      }
+      if ( scheduleInterval == 0 ) {
+        break;
+      }
+    }
+    return NEVER;
+  }
+
+  /**
+   * The floating point loop previously used by {@link BlockoutManagerUtil#willBlockSchedule}
+   */
+  private static boolean legacyWillBlockSchedule( long scheduleStart, long scheduleRecurrence, long scheduleEnd,
+                                                  long blockOutStart, long blockOutRecurrence, long duration,
+                                                  long blockOutEnd ) {
+    for ( int i = 0; i < 1000; i++ ) {
+      double shiftBy = ( blockOutRecurrence - scheduleRecurrence ) * i / (double) scheduleRecurrence;
+      double x1 = ( blockOutStart - scheduleStart ) / (double) scheduleRecurrence + shiftBy;
+      double x2 = ( blockOutStart + duration - scheduleStart ) / (double) scheduleRecurrence + shiftBy;
+
+      if ( Math.floor( Math.max( x1, x2 ) ) - Math.ceil( Math.min( x1, x2 ) ) >= 0 ) {
+        int xShift = (int) Math.ceil( Math.min( x1, x2 ) );
+        long scheduleDate = scheduleStart + scheduleRecurrence * ( i + xShift );
+        long blockOutStartDate = blockOutStart + blockOutRecurrence * i;
+        if ( scheduleStart <= scheduleDate && scheduleDate <= scheduleEnd && blockOutStart <= blockOutStartDate
+          && blockOutStartDate <= blockOutEnd ) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -25,8 +25,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.pentaho.platform.api.scheduler2.IBlockoutManager;
 import org.pentaho.platform.engine.core.audit.MDCUtil;
+import org.pentaho.platform.engine.core.audit.MessageTypes;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.StandaloneSession;
+import org.pentaho.platform.scheduler2.blockout.PentahoBlockoutManager;
 import org.quartz.Job;
 import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
@@ -34,6 +36,11 @@ import org.quartz.JobExecutionException;
 import org.quartz.SchedulerException;
 import org.quartz.impl.JobDetailImpl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
 /**
  * Unit tests for BlockingQuartzJob
  * 
@@ -46,6 +53,12 @@ public class BlockingQuartzJobTest {
 
   private IBlockoutManager blockoutManager;
 
+  private DeferredFireQueue deferredFires;
+
+  private ExecutionLanes.Ticket laneTicket = ExecutionLanes.NO_TICKET;
+
+  private final List<String> auditRecords = new ArrayList<>();
+
   private Mockery mockery;
 
   private Log logger;
@@ -94,6 +107,7 @@ public class BlockingQuartzJobTest {
         one( blockoutManager ).shouldFireNow();
         will( returnValue( false ) );
         one( logger ).warn( "Job 'myjob' attempted to run during a blockout period.  This job was not executed" );
+        one( context ).setResult( JobEvent.Type.BLOCKOUT_SKIPPED );
         allowing( context ).getJobDetail();
         will( returnValue( jobDetail ) );
       }
@@ -115,8 +129,79 @@ public class BlockingQuartzJobTest {
         one( blockoutManager ).shouldFireNow();
         will( returnValue( false ) );
         one( logger ).warn( "Job 'myjob' attempted to run during a blockout period.  This job was not executed" );
+        one( context ).setResult( JobEvent.Type.BLOCKOUT_SKIPPED );
+        allowing( context ).getJobDetail();
+        will( returnValue( new JobDetailImpl( "myjob", BlockingQuartzJob.class ) ) );
+      }
+    } );
+    blockingJob.execute( context );
+  }
+
+  @Test
+  public void testJobScheduledDuringABlockoutIsBlockedWhenStartingAfterIt() throws JobExecutionException {
+    PentahoBlockoutManager pentahoBlockoutManager = mockery.mock( PentahoBlockoutManager.class );
+    blockoutManager = pentahoBlockoutManager;
+    Date scheduledFireTime = new Date( System.currentTimeMillis() - 60000 );
+    BlockingQuartzJob blockingJob = createTestBlockingJob( false );
+    mockery.checking( new Expectations() {
+      {
+        one( pentahoBlockoutManager ).shouldFireNow();
+        will( returnValue( true ) );
+        one( pentahoBlockoutManager ).shouldFireAt( scheduledFireTime.getTime() );
+        will( returnValue( false ) );
+        allowing( context ).getScheduledFireTime();
+        will( returnValue( scheduledFireTime ) );
+        one( logger ).warn( "Job 'myjob' attempted to run during a blockout period.  This job was not executed" );
+        one( context ).setResult( JobEvent.Type.BLOCKOUT_SKIPPED );
+        allowing( context ).getJobDetail();
+        will( returnValue( new JobDetailImpl( "myjob", BlockingQuartzJob.class ) ) );
+        never( underlyingJob ).execute( with( any( JobExecutionContext.class ) ) );
+      }
+    } );
+    blockingJob.execute( context );
+    // audited when fired again for its turn
+    Assert.assertTrue( auditRecords.isEmpty() );
+  }
+
+  @Test
+  public void testJobIsDeferredDuringABlockoutByItsPolicy() throws JobExecutionException {
+    deferredFires = mockery.mock( DeferredFireQueue.class );
+    JobDetail jobDetail = new JobDetailImpl( "myjob", BlockingQuartzJob.class );
+    jobDetail.getJobDataMap().put( BlockoutPolicy.RESERVEDMAPKEY_BLOCKOUT_POLICY, "run-at-window-end" );
+    Date scheduledFireTime = new Date();
+    BlockingQuartzJob blockingJob = createTestBlockingJob( false );
+    mockery.checking( new Expectations() {
+      {
+        one( blockoutManager ).shouldFireNow();
+        will( returnValue( false ) );
+        allowing( context ).getScheduledFireTime();
+        will( returnValue( scheduledFireTime ) );
+        one( deferredFires ).defer( jobDetail.getKey(), BlockoutPolicy.RUN_AT_WINDOW_END, scheduledFireTime.getTime() );
+        will( returnValue( true ) );
+        one( logger ).warn( "Job 'myjob' attempted to run during a blockout period.  This job will run when the"
+          + " blockout ends" );
+        one( context ).setResult( JobEvent.Type.BLOCKOUT_DEFERRED );
+        allowing( context ).getJobDetail();
+        will( returnValue( jobDetail ) );
+        never( underlyingJob ).execute( with( any( JobExecutionContext.class ) ) );
+      }
+    } );
+    blockingJob.execute( context );
+  }
+
+  @Test
+  public void testJobQueuedByItsLaneIsNotRun() throws JobExecutionException {
+    laneTicket = null;
+    BlockingQuartzJob blockingJob = createTestBlockingJob( false );
+    mockery.checking( new Expectations() {
+      {
+        one( blockoutManager ).shouldFireNow();
+        will( returnValue( true ) );
         allowing( context ).getJobDetail();
         will( returnValue( new JobDetailImpl( "myjob", BlockingQuartzJob.class ) ) );
+        one( logger ).info( "Job 'myjob' is queued by its execution lane. This job will run on its turn" );
+        one( context ).setResult( JobEvent.Type.QUEUED );
+        never( underlyingJob ).execute( with( any( JobExecutionContext.class ) ) );
       }
     } );
     blockingJob.execute( context );
@@ -143,6 +228,7 @@ public class BlockingQuartzJobTest {
       throw new RuntimeException( e );
     }
     blockingJob.execute( context );
+    assertEquals( Arrays.asList( MessageTypes.INSTANCE_START, MessageTypes.INSTANCE_END ), auditRecords );
   }
 
   @Test
@@ -183,6 +269,16 @@ public class BlockingQuartzJobTest {
         }
       }
 
+      @Override
+      ExecutionLanes.Ticket enterExecutionLane( JobExecutionContext jobExecutionContext ) {
+        return laneTicket;
+      }
+
+      @Override
+      DeferredFireQueue getDeferredFireQueue() {
+        return deferredFires;
+      }
+
       @Override
       Log getLogger() {
         return logger;
@@ -190,7 +286,7 @@ public class BlockingQuartzJobTest {
 
       @Override
       protected void makeAuditRecord( float time, String messageType, JobExecutionContext jobExecutionContext ) {
-
+        auditRecords.add( messageType );
       }
     };
   }
@@ -0,0 +1,161 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.JobKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class DeferredFireQueueTest {
+
+  private static final JobKey JOB_A = new JobKey( "admin\tA\tuuidA", "admin" );
+
+  private static final JobKey JOB_B = new JobKey( "admin\tB\tuuidB", "admin" );
+
+  private static final JobKey JOB_C = new JobKey( "admin\tC\tuuidC", "admin" );
+
+  private final List<JobKey> released = new ArrayList<>();
+
+  private long windowEnd;
+
+  private boolean releasable;
+
+  private DeferredFireQueue queue;
+
+  @Before
+  public void setUp() {
+    released.clear();
+    windowEnd = 1000;
+    releasable = true;
+    queue = new DeferredFireQueue( jobKey -> {
+      released.add( jobKey );
+      return releasable;
+    }, time -> time <= windowEnd ? windowEnd : time, 500, mock( ScheduledExecutorService.class ) );
+  }
+
+  @Test
+  public void testSkippedFireIsNotDeferred() {
+    assertFalse( queue.defer( JOB_A, BlockoutPolicy.SKIP, 100, 100 ) );
+    assertEquals( 0, queue.getDepth() );
+    assertEquals( 0, queue.getDeferredCount() );
+  }
+
+  @Test
+  public void testFiresAreReleasedAfterTheWindowOneAtATime() {
+    assertTrue( queue.defer( JOB_A, BlockoutPolicy.RUN_AT_WINDOW_END, 100, 100 ) );
+    assertTrue( queue.defer( JOB_B, BlockoutPolicy.RUN_AT_WINDOW_END, 200, 200 ) );
+    assertTrue( queue.defer( JOB_C, BlockoutPolicy.RUN_AT_WINDOW_END, 300, 300 ) );
+    assertEquals( 3, queue.getDepth() );
+
+    queue.releaseDue( 900 );
+    assertTrue( released.isEmpty() );
+
+    queue.releaseDue( 1001 );
+    queue.releaseDue( 1001 );
+    assertEquals( Collections.singletonList( JOB_A ), released );
+
+    queue.releaseDue( 1501 );
+    queue.releaseDue( 2001 );
+    assertEquals( Arrays.asList( JOB_A, JOB_B, JOB_C ), released );
+    assertEquals( 0, queue.getDepth() );
+    assertEquals( 3, queue.getMaxDepth() );
+    assertEquals( 3, queue.getReleasedCount() );
+    assertEquals( 1000, queue.getMaxReleaseLatency() );
+    assertEquals( 1500, queue.getTotalReleaseLatency() );
+  }
+
+  @Test
+  public void testCoalescedFiresAreReleasedOnce() {
+    queue.defer( JOB_A, BlockoutPolicy.COALESCE, 100, 100 );
+    queue.defer( JOB_A, BlockoutPolicy.COALESCE, 200, 200 );
+    queue.defer( JOB_A, BlockoutPolicy.COALESCE, 300, 300 );
+    assertEquals( 1, queue.getDepth() );
+    assertEquals( 2, queue.getCoalescedCount() );
+
+    queue.releaseDue( 1001 );
+    assertEquals( Collections.singletonList( JOB_A ), released );
+
+    // a fire blocked afterwards is deferred again
+    windowEnd = 3000;
+    queue.defer( JOB_A, BlockoutPolicy.COALESCE, 2000, 2000 );
+    assertEquals( 1, queue.getDepth() );
+    assertEquals( 2, queue.getDeferredCount() );
+  }
+
+  @Test
+  public void testFireBeingReleasedIsNoLongerPending() {
+    List<Boolean> pending = new ArrayList<>();
+    DeferredFireQueue queue = new DeferredFireQueue( jobKey -> pending.add( this.queue.isPending( jobKey ) ),
+      time -> time <= windowEnd ? windowEnd : time, 500, mock( ScheduledExecutorService.class ) );
+    this.queue = queue;
+    queue.defer( JOB_A, BlockoutPolicy.RUN_AT_WINDOW_END, 100, 100 );
+    queue.defer( JOB_A, BlockoutPolicy.RUN_AT_WINDOW_END, 200, 200 );
+    assertTrue( queue.isPending( JOB_A ) );
+    assertFalse( queue.isPending( JOB_B ) );
+
+    queue.releaseDue( 1001 );
+    queue.releaseDue( 1501 );
+    assertEquals( Arrays.asList( true, false ), pending );
+    assertFalse( queue.isPending( JOB_A ) );
+  }
+
+  @Test
+  public void testFireBlockedAgainWaitsForTheNextWindowEnd() {
+    queue.defer( JOB_A, BlockoutPolicy.RUN_AT_WINDOW_END, 100, 100 );
+    windowEnd = 3000;
+
+    queue.releaseDue( 1001 );
+    assertTrue( released.isEmpty() );
+    assertEquals( 1, queue.getDepth() );
+
+    queue.releaseDue( 3001 );
+    assertEquals( Collections.singletonList( JOB_A ), released );
+    assertEquals( 0, queue.getMaxReleaseLatency() );
+  }
+
+  @Test
+  public void testFireOfARemovedJobIsDropped() {
+    releasable = false;
+    queue.defer( JOB_A, BlockoutPolicy.RUN_AT_WINDOW_END, 100, 100 );
+
+    queue.releaseDue( 1001 );
+
+    assertEquals( 0, queue.getReleasedCount() );
+    assertEquals( 1, queue.getDroppedCount() );
+  }
+
+  @Test
+  public void testPolicyIsReadFromTheJobParameters() {
+    assertEquals( BlockoutPolicy.SKIP, BlockoutPolicy.of( null ) );
+    assertEquals( BlockoutPolicy.SKIP, BlockoutPolicy.of( Collections.emptyMap() ) );
+    assertEquals( BlockoutPolicy.SKIP, BlockoutPolicy.of(
+      Collections.singletonMap( BlockoutPolicy.RESERVEDMAPKEY_BLOCKOUT_POLICY, "unknown" ) ) );
+    assertEquals( BlockoutPolicy.RUN_AT_WINDOW_END, BlockoutPolicy.of(
+      Collections.singletonMap( BlockoutPolicy.RESERVEDMAPKEY_BLOCKOUT_POLICY, "run-at-window-end" ) ) );
+    assertEquals( BlockoutPolicy.COALESCE, BlockoutPolicy.of(
+      Collections.singletonMap( BlockoutPolicy.RESERVEDMAPKEY_BLOCKOUT_POLICY, "Coalesce" ) ) );
+  }
+}
@@ -0,0 +1,229 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.JobDataMap;
+import org.quartz.JobKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ExecutionLanesTest {
+
+  private static final String KJB = "kjb.backgroundExecution";
+
+  private final List<ExecutionLanes.QueuedFire> released = new ArrayList<>();
+
+  private boolean releasable;
+
+  @Before
+  public void setUp() {
+    released.clear();
+    releasable = true;
+  }
+
+  @Test
+  public void testParse() {
+    ExecutionLanes lanes = parse( " kjb.backgroundExecution = 2/50, prpt.backgroundExecution=8,bad=x,=1,odd=1/2/3," );
+
+    assertEquals( 2, lanes.getLanes().size() );
+    assertEquals( 2, lanes.getLanes().get( KJB ).getMaxRunning() );
+    assertEquals( 50, lanes.getLanes().get( KJB ).getMaxQueued() );
+    assertEquals( Integer.MAX_VALUE, lanes.getLanes().get( "prpt.backgroundExecution" ).getMaxQueued() );
+    assertTrue( parse( null ).getLanes().isEmpty() );
+  }
+
+  @Test
+  public void testLaneByActionIdThenClass() {
+    ExecutionLanes lanes = parse( KJB + "=1,org.pentaho.test.Action=1" );
+
+    assertEquals( KJB, lanes.getLane( KJB, "org.pentaho.test.Action" ).getName() );
+    assertEquals( "org.pentaho.test.Action", lanes.getLane( null, "org.pentaho.test.Action" ).getName() );
+    assertNull( lanes.getLane( "prpt.backgroundExecution", null ) );
+  }
+
+  @Test
+  public void testGetPriority() {
+    assertEquals( ExecutionLanes.DEFAULT_PRIORITY, ExecutionLanes.getPriority( null ) );
+    assertEquals( 9, ExecutionLanes.getPriority(
+      Collections.singletonMap( ExecutionLanes.RESERVEDMAPKEY_PRIORITY, 9 ) ) );
+    assertEquals( 7, ExecutionLanes.getPriority(
+      Collections.singletonMap( ExecutionLanes.RESERVEDMAPKEY_PRIORITY, " 7" ) ) );
+    assertEquals( ExecutionLanes.DEFAULT_PRIORITY, ExecutionLanes.getPriority(
+      Collections.singletonMap( ExecutionLanes.RESERVEDMAPKEY_PRIORITY, "high" ) ) );
+  }
+
+  @Test
+  public void testQueuedFiresAreFiredAgainByPriority() throws Exception {
+    ExecutionLanes lanes = parse( KJB + "=1" );
+    ExecutionLanes.Lane lane = lanes.getLanes().get( KJB );
+
+    ExecutionLanes.Ticket first = lanes.enter( KJB, null, fire( "first", 5 ) );
+    assertNotNull( first );
+    for ( int priority : new int[] { 1, 9, 5 } ) {
+      // queued, the fire gives its thread back
+      assertNull( lanes.enter( KJB, null, fire( "job" + priority, priority ) ) );
+    }
+    assertEquals( 3, lane.getDepth() );
+
+    first.close();
+    assertEquals( 1, released.size() );
+    assertEquals( "job9", released.get( 0 ).getJobKey().getName() );
+    assertEquals( 1, lane.getPendingTurns() );
+
+    // the turn is held for the fire it was given to
+    assertNull( lanes.enter( KJB, null, fire( "late", 9 ) ) );
+    ExecutionLanes.Ticket turn = lanes.enter( KJB, null, refire( released.get( 0 ) ) );
+    assertNotNull( turn );
+    assertEquals( 0, lane.getPendingTurns() );
+    assertEquals( 1, lane.getRunning() );
+
+    turn.close();
+    turn = lanes.enter( KJB, null, refire( released.get( 1 ) ) );
+    turn.close();
+    turn = lanes.enter( KJB, null, refire( released.get( 2 ) ) );
+    turn.close();
+    turn = lanes.enter( KJB, null, refire( released.get( 3 ) ) );
+    turn.close();
+
+    List<String> order = new ArrayList<>();
+    for ( ExecutionLanes.QueuedFire fire : released ) {
+      order.add( fire.getJobKey().getName() );
+    }
+    assertEquals( Arrays.asList( "job9", "late", "job5", "job1" ), order );
+    assertEquals( 0, lane.getRunning() );
+    assertEquals( 5, lane.getEnteredCount() );
+    assertEquals( 4, lane.getQueuedCount() );
+    assertEquals( 3, lane.getMaxDepth() );
+  }
+
+  @Test
+  public void testTriggerDataIsGivenBackWithTheTurn() throws Exception {
+    ExecutionLanes lanes = parse( KJB + "=1" );
+    JobDataMap triggerData = new JobDataMap();
+    triggerData.put( "param", "value" );
+
+    ExecutionLanes.Ticket first = lanes.enter( KJB, null, fire( "first", 5 ) );
+    lanes.enter( KJB, null, new ExecutionLanes.QueuedFire( new JobKey( "queued", "admin" ), triggerData, 5 ) );
+    first.close();
+
+    assertEquals( "value", released.get( 0 ).getTriggerData().getString( "param" ) );
+    assertNull( released.get( 0 ).getTriggerData().get( ExecutionLanes.RESERVEDMAPKEY_LANE_TURN ) );
+  }
+
+  @Test
+  public void testTurnOfAFireNotFiredGoesToTheNext() throws Exception {
+    ExecutionLanes lanes = parse( KJB + "=1" );
+    ExecutionLanes.Lane lane = lanes.getLanes().get( KJB );
+
+    ExecutionLanes.Ticket first = lanes.enter( KJB, null, fire( "first", 5 ) );
+    lanes.enter( KJB, null, fire( "removed", 5 ) );
+    lanes.enter( KJB, null, fire( "next", 5 ) );
+    releasable = false;
+    first.close();
+
+    // neither job could be fired
+    assertEquals( 2, released.size() );
+    assertEquals( 2, lane.getDroppedCount() );
+    assertEquals( 0, lane.getPendingTurns() );
+    assertNotNull( lanes.enter( KJB, null, fire( "other", 5 ) ) );
+  }
+
+  @Test
+  public void testTurnNotTakenExpires() throws Exception {
+    ExecutionLanes.Lane lane = parse( KJB + "=1" ).getLanes().get( KJB );
+
+    ExecutionLanes.Ticket first = lane.enter( fire( "first", 5 ), 0 );
+    lane.enter( fire( "lost", 5 ), 0 );
+    lane.enter( fire( "next", 5 ), 0 );
+    first.close();
+    assertEquals( 1, lane.getPendingTurns() );
+
+    // the fire of the lost job never arrives, its turn goes to the next one
+    assertNull( lane.enter( fire( "later", 5 ), System.currentTimeMillis() + ExecutionLanes.TURN_TIMEOUT ) );
+    assertEquals( "next", released.get( 1 ).getJobKey().getName() );
+    assertEquals( 1, lane.getPendingTurns() );
+  }
+
+  @Test
+  public void testFireIsPendingUntilItTakesItsTurn() throws Exception {
+    ExecutionLanes.Lane lane = parse( KJB + "=1" ).getLanes().get( KJB );
+    ExecutionLanes.Ticket first = lane.enter( fire( "first", 5 ), 0 );
+    ExecutionLanes.QueuedFire queued = fire( "queued", 5 );
+    assertNull( lane.enter( queued, 0 ) );
+    assertTrue( lane.isPending( queued ) );
+
+    first.close();
+    assertTrue( lane.isPending( queued ) );
+
+    JobDataMap turn = new JobDataMap();
+    turn.put( ExecutionLanes.RESERVEDMAPKEY_LANE_TURN, queued.getTurn() );
+    assertNotNull( lane.enter( new ExecutionLanes.QueuedFire( queued.getJobKey(), turn, 5 ), 0 ) );
+    assertFalse( lane.isPending( queued ) );
+  }
+
+  @Test
+  public void testFullLaneRejects() throws Exception {
+    ExecutionLanes lanes = parse( KJB + "=1/0" );
+
+    try ( ExecutionLanes.Ticket ticket = lanes.enter( KJB, null, fire( "first", 5 ) ) ) {
+      lanes.enter( KJB, null, fire( "second", 5 ) );
+      fail();
+    } catch ( ExecutionLanes.LaneFullException e ) {
+      assertEquals( 1, lanes.getLanes().get( KJB ).getRejectedCount() );
+    }
+  }
+
+  @Test
+  public void testActionOfNoLaneRunsRightAway() throws Exception {
+    ExecutionLanes lanes = parse( KJB + "=1" );
+
+    assertSame( ExecutionLanes.NO_TICKET, lanes.enter( "prpt.backgroundExecution", null, fire( "report", 5 ) ) );
+    assertSame( ExecutionLanes.NO_TICKET, lanes.enter( "prpt.backgroundExecution", null, fire( "report", 5 ) ) );
+  }
+
+  private ExecutionLanes parse( String spec ) {
+    return ExecutionLanes.parse( spec, fire -> {
+      released.add( fire );
+      return releasable;
+    } );
+  }
+
+  private static ExecutionLanes.QueuedFire fire( String name, int priority ) {
+    return new ExecutionLanes.QueuedFire( new JobKey( name, "admin" ), null, priority );
+  }
+
+  /**
+   * @return the fire of a job fired again for its turn
+   */
+  private static ExecutionLanes.QueuedFire refire( ExecutionLanes.QueuedFire fire ) {
+    JobDataMap triggerData = new JobDataMap();
+    triggerData.putAll( fire.getTriggerData() );
+    triggerData.put( ExecutionLanes.RESERVEDMAPKEY_LANE_TURN, fire.getTurn() );
+    return new ExecutionLanes.QueuedFire( fire.getJobKey(), triggerData, fire.getPriority() );
+  }
+}
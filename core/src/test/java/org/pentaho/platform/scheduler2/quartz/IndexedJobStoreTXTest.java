@@ -0,0 +1,281 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.impl.jdbcjobstore.JobStoreTX;
+import org.quartz.utils.ConnectionProvider;
+import org.quartz.utils.DBConnectionManager;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Scanner;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs {@link IndexedJobStoreTX} and {@link JobMetadataIndex} against an in-memory HSQLDB holding the Quartz tables.
+ */
+public class IndexedJobStoreTXTest {
+
+  private static final String SCHEDULER_NAME = "IndexedJobStoreTXTest";
+
+  private static final JobKey REPORT = new JobKey( "admin\tReport\tuuid1", "admin" );
+
+  private static final JobKey TRANSFORMATION = new JobKey( "suzy\tTransformation\tuuid2", "suzy" );
+
+  @Rule
+  public TestName testName = new TestName();
+
+  private String url;
+
+  private String dataSource;
+
+  private Scheduler scheduler;
+
+  public static class NoOpJob implements Job {
+    @Override
+    public void execute( JobExecutionContext context ) {
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    url = "jdbc:hsqldb:mem:" + testName.getMethodName();
+    dataSource = testName.getMethodName();
+    DBConnectionManager.getInstance().addConnectionProvider( dataSource, new ConnectionProvider() {
+      @Override
+      public Connection getConnection() throws SQLException {
+        return DriverManager.getConnection( url, "SA", "" );
+      }
+
+      @Override
+      public void shutdown() {
+      }
+
+      @Override
+      public void initialize() {
+      }
+    } );
+    try ( InputStream ddl = JobStoreTX.class.getClassLoader()
+      .getResourceAsStream( "org/quartz/impl/jdbcjobstore/tables_hsqldb.sql" ) ) {
+      assertNotNull( ddl );
+      execute( new Scanner( ddl, StandardCharsets.UTF_8.name() ).useDelimiter( "\\A" ).next() );
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if ( scheduler != null ) {
+      scheduler.shutdown( true );
+    }
+    execute( "SHUTDOWN" );
+  }
+
+  @Test
+  public void testExistingJobsAreBackfilled() throws Exception {
+    scheduler = startScheduler( JobStoreTX.class.getName() );
+    scheduler.addJob( createJob( REPORT, "org.pentaho.ReportAction", "lineage1" ), false );
+    scheduler.shutdown( true );
+
+    scheduler = startScheduler( IndexedJobStoreTX.class.getName() );
+    IndexedJobStoreTX jobStore = awaitIndexReady();
+
+    assertEquals( 1, countRows( REPORT ) );
+    assertEquals( Collections.singletonList( REPORT ),
+      jobStore.findJobKeys( criteria( JobMetadataIndex.Field.ACTION_CLASS, "org.pentaho.ReportAction" ) ) );
+    assertEquals( Collections.singletonList( REPORT ),
+      jobStore.findJobKeys( criteria( JobMetadataIndex.Field.JOB_NAME, "Report" ) ) );
+  }
+
+  @Test
+  public void testStoredAndRemovedJobsAreIndexed() throws Exception {
+    scheduler = startScheduler( IndexedJobStoreTX.class.getName() );
+    IndexedJobStoreTX jobStore = awaitIndexReady();
+
+    scheduler.addJob( createJob( REPORT, "org.pentaho.ReportAction", "lineage1" ), false );
+    scheduler.addJob( createJob( TRANSFORMATION, "org.pentaho.TransformationAction", "lineage2" ), false );
+
+    assertEquals( Collections.singletonList( TRANSFORMATION ),
+      jobStore.findJobKeys( criteria( JobMetadataIndex.Field.LINEAGE_ID, "lineage2" ) ) );
+    assertEquals( Collections.singletonList( REPORT ),
+      jobStore.findJobKeys( criteria( JobMetadataIndex.Field.OWNER, "admin" ) ) );
+
+    // replaced, the row follows
+    scheduler.addJob( createJob( REPORT, "org.pentaho.ReportAction", "lineage3" ), true );
+    assertTrue( jobStore.findJobKeys( criteria( JobMetadataIndex.Field.LINEAGE_ID, "lineage1" ) ).isEmpty() );
+    assertEquals( Collections.singletonList( REPORT ),
+      jobStore.findJobKeys( criteria( JobMetadataIndex.Field.LINEAGE_ID, "lineage3" ) ) );
+
+    scheduler.deleteJob( REPORT );
+    assertEquals( 0, countRows( REPORT ) );
+    assertTrue( jobStore.findJobKeys( criteria( JobMetadataIndex.Field.OWNER, "admin" ) ).isEmpty() );
+  }
+
+  @Test
+  public void testRowOfRunOnceJobIsRemovedWithItsTrigger() throws Exception {
+    scheduler = startScheduler( IndexedJobStoreTX.class.getName() );
+    awaitIndexReady();
+
+    JobDetail runOnce = JobBuilder.newJob( NoOpJob.class ).withIdentity( REPORT )
+      .usingJobData( IScheduler.RESERVEDMAPKEY_ACTIONCLASS, "org.pentaho.ReportAction" ).build();
+    scheduler.scheduleJob( runOnce, TriggerBuilder.newTrigger().forJob( REPORT ).startNow().build() );
+    assertEquals( 1, countRows( REPORT ) );
+
+    await( () -> {
+      try {
+        return !scheduler.checkExists( REPORT );
+      } catch ( org.quartz.SchedulerException e ) {
+        throw new IllegalStateException( e );
+      }
+    } );
+    assertEquals( 0, countRows( REPORT ) );
+  }
+
+  @Test
+  public void testFailedIndexWriteDoesNotFailTheJobStore() throws Exception {
+    scheduler = startScheduler( IndexedJobStoreTX.class.getName() );
+    IndexedJobStoreTX jobStore = awaitIndexReady();
+    execute( "DROP TABLE QRTZ_JOB_METADATA" );
+
+    scheduler.addJob( createJob( REPORT, "org.pentaho.ReportAction", "lineage1" ), false );
+
+    assertTrue( scheduler.checkExists( REPORT ) );
+    assertFalse( jobStore.isIndexReady() );
+    scheduler.deleteJob( REPORT );
+    assertFalse( scheduler.checkExists( REPORT ) );
+  }
+
+  @Test
+  public void testMultibyteValuesAreTruncatedToTheirColumn() throws Exception {
+    scheduler = startScheduler( IndexedJobStoreTX.class.getName() );
+    IndexedJobStoreTX jobStore = awaitIndexReady();
+    StringBuilder inputFile = new StringBuilder( "/public/" );
+    while ( inputFile.length() < JobMetadataIndex.MAX_INPUT_FILE_LENGTH ) {
+      inputFile.append( "\u65e5\u672c" );
+    }
+    JobDetail job = createJob( REPORT, "org.pentaho.ReportAction", "lineage1" );
+    job.getJobDataMap().put( JobMetadata.RESERVEDMAPKEY_INPUTFILE, inputFile.toString() );
+
+    scheduler.addJob( job, false );
+
+    assertTrue( jobStore.isIndexReady() );
+    assertEquals( Collections.singletonList( REPORT ),
+      jobStore.findJobKeys( criteria( JobMetadataIndex.Field.INPUT_FILE, inputFile.toString() ) ) );
+  }
+
+  private Scheduler startScheduler( String jobStoreClass ) throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty( "org.quartz.scheduler.instanceName", SCHEDULER_NAME );
+    properties.setProperty( "org.quartz.scheduler.skipUpdateCheck", "true" );
+    properties.setProperty( "org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool" );
+    properties.setProperty( "org.quartz.threadPool.threadCount", "1" );
+    properties.setProperty( "org.quartz.jobStore.class", jobStoreClass );
+    properties.setProperty( "org.quartz.jobStore.driverDelegateClass",
+      "org.quartz.impl.jdbcjobstore.HSQLDBDelegate" );
+    properties.setProperty( "org.quartz.jobStore.dataSource", dataSource );
+    properties.setProperty( "org.quartz.jobStore.tablePrefix", "QRTZ_" );
+    Scheduler started = new StdSchedulerFactory( properties ).getScheduler();
+    started.start();
+    return started;
+  }
+
+  private IndexedJobStoreTX awaitIndexReady() throws InterruptedException {
+    IndexedJobStoreTX jobStore = IndexedJobStoreTX.getInstance( SCHEDULER_NAME );
+    assertNotNull( jobStore );
+    await( jobStore::isIndexReady );
+    return jobStore;
+  }
+
+  private static void await( BooleanSupplier condition ) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while ( !condition.getAsBoolean() ) {
+      assertTrue( "timed out", System.currentTimeMillis() < deadline );
+      Thread.sleep( 50 );
+    }
+  }
+
+  private static JobDetail createJob( JobKey jobKey, String actionClass, String lineageId ) {
+    return JobBuilder.newJob( NoOpJob.class ).withIdentity( jobKey ).storeDurably()
+      .usingJobData( IScheduler.RESERVEDMAPKEY_ACTIONCLASS, actionClass )
+      .usingJobData( IScheduler.RESERVEDMAPKEY_LINEAGE_ID, lineageId ).build();
+  }
+
+  private static Map<JobMetadataIndex.Field, String> criteria( JobMetadataIndex.Field field, String value ) {
+    Map<JobMetadataIndex.Field, String> criteria = new EnumMap<>( JobMetadataIndex.Field.class );
+    criteria.put( field, value );
+    return criteria;
+  }
+
+  private int countRows( JobKey jobKey ) throws SQLException {
+    try ( Connection conn = DriverManager.getConnection( url, "SA", "" );
+          PreparedStatement ps = conn.prepareStatement(
+            "SELECT COUNT(*) FROM QRTZ_JOB_METADATA WHERE JOB_NAME = ? AND JOB_GROUP = ?" ) ) {
+      ps.setString( 1, jobKey.getName() );
+      ps.setString( 2, jobKey.getGroup() );
+      try ( ResultSet rs = ps.executeQuery() ) {
+        rs.next();
+        return rs.getInt( 1 );
+      }
+    }
+  }
+
+  /**
+   * Runs a script of statements separated by semicolons, ignoring comment lines
+   */
+  private void execute( String script ) throws SQLException {
+    StringBuilder sql = new StringBuilder();
+    for ( String line : script.split( "\n" ) ) {
+      String trimmed = line.trim();
+      if ( !trimmed.startsWith( "#" ) && !trimmed.startsWith( "--" ) ) {
+        sql.append( line ).append( '\n' );
+      }
+    }
+    try ( Connection conn = DriverManager.getConnection( url, "SA", "" );
+          Statement stmt = conn.createStatement() ) {
+      for ( String statement : sql.toString().split( ";" ) ) {
+        if ( !statement.trim().isEmpty() ) {
+          stmt.execute( statement );
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JobEventBroadcasterTest {
+
+  private static final JobKey JOB_KEY = new JobKey( "admin\tjob\tuuid", "admin" );
+
+  private static final JobKey OTHER_JOB_KEY = new JobKey( "suzy\tother\tuuid", "suzy" );
+
+  private JobEventBroadcaster broadcaster;
+
+  @Before
+  public void setUp() {
+    broadcaster = new JobEventBroadcaster();
+  }
+
+  @Test
+  public void testEventsOfAJobAreCoalesced() throws Exception {
+    JobEventBroadcaster.Subscription subscription = broadcaster.subscribe( null );
+
+    broadcaster.getSchedulerListener().jobPaused( JOB_KEY );
+    broadcaster.getSchedulerListener().jobPaused( OTHER_JOB_KEY );
+    broadcaster.getSchedulerListener().jobResumed( JOB_KEY );
+
+    List<JobEvent> events = subscription.take( 0, 0 );
+    assertEquals( 2, events.size() );
+    assertEquals( "admin\tjob\tuuid", events.get( 0 ).getJobId() );
+    assertEquals( "job", events.get( 0 ).getJobName() );
+    assertEquals( "admin", events.get( 0 ).getUserName() );
+    assertEquals( JobEvent.Type.RESUMED, events.get( 0 ).getType() );
+    assertEquals( JobEvent.Type.PAUSED, events.get( 1 ).getType() );
+    assertTrue( subscription.take( 0, 0 ).isEmpty() );
+  }
+
+  @Test
+  public void testEventsAreFiltered() throws Exception {
+    JobEventBroadcaster.Subscription subscription = broadcaster.subscribe( job -> "admin".equals( job.getUserName() ) );
+
+    broadcaster.getSchedulerListener().jobDeleted( OTHER_JOB_KEY );
+    broadcaster.getSchedulerListener().jobDeleted( JOB_KEY );
+
+    List<JobEvent> events = subscription.take( 0, 0 );
+    assertEquals( 1, events.size() );
+    assertEquals( JobEvent.Type.REMOVED, events.get( 0 ).getType() );
+    assertEquals( "admin\tjob\tuuid", events.get( 0 ).getJobId() );
+  }
+
+  @Test
+  public void testSubscriptionOverflows() throws Exception {
+    JobEventBroadcaster.Subscription subscription = broadcaster.subscribe( null );
+
+    for ( int i = 0; i <= JobEventBroadcaster.MAX_PENDING_EVENTS; i++ ) {
+      broadcaster.getSchedulerListener().jobPaused( new JobKey( "admin\tjob" + i + "\tuuid", "admin" ) );
+    }
+
+    assertTrue( subscription.take( 0, 0 ).isEmpty() );
+    assertTrue( subscription.takeOverflow() );
+    assertFalse( subscription.takeOverflow() );
+
+    broadcaster.getSchedulerListener().jobPaused( JOB_KEY );
+    assertEquals( 1, subscription.take( 0, 0 ).size() );
+  }
+
+  @Test
+  public void testSubscriptionsAreBounded() {
+    for ( int i = 0; i < JobEventBroadcaster.DEFAULT_MAX_SUBSCRIPTIONS; i++ ) {
+      broadcaster.subscribe( null );
+    }
+    assertNull( broadcaster.subscribe( null ) );
+  }
+
+  @Test
+  public void testSubscriptionsAreBoundedByTheGivenLimit() {
+    assertNotNull( broadcaster.subscribe( null, 2 ) );
+    assertNotNull( broadcaster.subscribe( null, 2 ) );
+    assertNull( broadcaster.subscribe( null, 2 ) );
+    assertNull( broadcaster.subscribe( null, 0 ) );
+  }
+
+  @Test
+  public void testClosedSubscriptionIsDropped() throws Exception {
+    JobEventBroadcaster.Subscription subscription = broadcaster.subscribe( null );
+    subscription.close();
+
+    broadcaster.getSchedulerListener().jobPaused( JOB_KEY );
+
+    assertEquals( 0, broadcaster.getSubscriptionCount() );
+    assertTrue( subscription.isClosed() );
+    // returns at once instead of waiting for an event
+    assertTrue( subscription.take( 60000, 0 ).isEmpty() );
+  }
+
+  @Test
+  public void testExecutionResults() throws Exception {
+    JobEventBroadcaster.Subscription subscription = broadcaster.subscribe( null );
+    JobExecutionContext context = mockContext( JOB_KEY );
+
+    broadcaster.getJobListener().jobToBeExecuted( context );
+    assertEquals( JobEvent.Type.FIRED, subscription.take( 0, 0 ).get( 0 ).getType() );
+
+    broadcaster.getJobListener().jobWasExecuted( context, null );
+    assertEquals( JobEvent.Type.COMPLETED, subscription.take( 0, 0 ).get( 0 ).getType() );
+
+    when( context.getResult() ).thenReturn( JobEvent.Type.BLOCKOUT_SKIPPED );
+    broadcaster.getJobListener().jobWasExecuted( context, null );
+    assertEquals( JobEvent.Type.BLOCKOUT_SKIPPED, subscription.take( 0, 0 ).get( 0 ).getType() );
+
+    when( context.getResult() ).thenReturn( JobEvent.Type.FAILED );
+    broadcaster.getJobListener().jobWasExecuted( context, null );
+    assertEquals( JobEvent.Type.FAILED, subscription.take( 0, 0 ).get( 0 ).getType() );
+  }
+
+  private JobExecutionContext mockContext( JobKey jobKey ) {
+    JobDetail jobDetail = mock( JobDetail.class );
+    when( jobDetail.getKey() ).thenReturn( jobKey );
+    JobExecutionContext context = mock( JobExecutionContext.class );
+    when( context.getJobDetail() ).thenReturn( jobDetail );
+    return context;
+  }
+}
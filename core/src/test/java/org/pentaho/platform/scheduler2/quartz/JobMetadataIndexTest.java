@@ -0,0 +1,167 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.quartz.JobDataMap;
+import org.quartz.JobKey;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JobMetadataIndexTest {
+
+  private static final JobKey JOB_KEY = new JobKey( "admin\tReport\tuuid", "admin" );
+
+  private Connection conn;
+
+  private PreparedStatement ps;
+
+  private ResultSet rs;
+
+  private JobMetadataIndex index;
+
+  @Before
+  public void setUp() throws Exception {
+    conn = mock( Connection.class );
+    ps = mock( PreparedStatement.class );
+    rs = mock( ResultSet.class );
+    when( conn.prepareStatement( anyString() ) ).thenReturn( ps );
+    when( ps.executeQuery() ).thenReturn( rs );
+    index = new JobMetadataIndex( "QRTZ6_", "scheduler" );
+  }
+
+  @Test
+  public void testPut() throws Exception {
+    JobDataMap jobDataMap = new JobDataMap();
+    jobDataMap.put( IScheduler.RESERVEDMAPKEY_ACTIONCLASS, "org.pentaho.Action" );
+    jobDataMap.put( IScheduler.RESERVEDMAPKEY_LINEAGE_ID, "lineage" );
+    jobDataMap.put( JobMetadata.RESERVEDMAPKEY_INPUTFILE, new StringBuilder( "/not/a/string" ) );
+
+    index.put( conn, JOB_KEY, jobDataMap );
+
+    verify( conn ).prepareStatement( startsWith( "DELETE FROM QRTZ6_JOB_METADATA WHERE" ) );
+    verify( conn ).prepareStatement( startsWith( "INSERT INTO QRTZ6_JOB_METADATA" ) );
+    verify( ps ).setString( 4, "admin" );
+    verify( ps ).setString( 5, "Report" );
+    verify( ps ).setString( 6, "org.pentaho.Action" );
+    verify( ps ).setString( 7, null );
+    verify( ps ).setString( 8, "lineage" );
+    verify( ps ).setString( 9, null );
+  }
+
+  @Test
+  public void testFindJobKeys() throws Exception {
+    when( rs.next() ).thenReturn( true, false );
+    when( rs.getString( 1 ) ).thenReturn( JOB_KEY.getName() );
+    when( rs.getString( 2 ) ).thenReturn( JOB_KEY.getGroup() );
+    Map<JobMetadataIndex.Field, String> criteria = new LinkedHashMap<>();
+    criteria.put( JobMetadataIndex.Field.OWNER, "admin" );
+    StringBuilder longName = new StringBuilder();
+    while ( longName.length() <= JobMetadataIndex.MAX_VALUE_LENGTH ) {
+      longName.append( "name" );
+    }
+    criteria.put( JobMetadataIndex.Field.JOB_NAME, longName.toString() );
+
+    List<JobKey> jobKeys = index.findJobKeys( conn, criteria );
+
+    assertEquals( 1, jobKeys.size() );
+    assertEquals( JOB_KEY, jobKeys.get( 0 ) );
+    verify( conn ).prepareStatement( contains( "WHERE SCHED_NAME = ? AND OWNER = ? AND JOB_TITLE = ? AND EXISTS" ) );
+    verify( ps ).setString( 1, "scheduler" );
+    verify( ps ).setString( 2, "admin" );
+    verify( ps ).setString( 3, longName.substring( 0, JobMetadataIndex.MAX_VALUE_LENGTH ) );
+  }
+
+  @Test
+  public void testCreateMissingTable() throws Exception {
+    DatabaseMetaData metaData = mock( DatabaseMetaData.class );
+    ResultSet tables = mock( ResultSet.class );
+    Statement stmt = mock( Statement.class );
+    when( conn.getMetaData() ).thenReturn( metaData );
+    when( metaData.storesUpperCaseIdentifiers() ).thenReturn( true );
+    when( metaData.getTables( isNull(), isNull(), any(), isNull() ) ).thenReturn( tables );
+    when( conn.createStatement() ).thenReturn( stmt );
+
+    index.create( conn );
+
+    verify( metaData ).getTables( null, null, "QRTZ6_JOB_METADATA", null );
+    verify( stmt ).executeUpdate( startsWith( "CREATE TABLE QRTZ6_JOB_METADATA" ) );
+    verify( stmt, times( 5 ) ).executeUpdate( startsWith( "CREATE INDEX IDX_QRTZ6_JM_" ) );
+  }
+
+  @Test
+  public void testCreateKeepsExistingTable() throws Exception {
+    DatabaseMetaData metaData = mock( DatabaseMetaData.class );
+    ResultSet tables = mock( ResultSet.class );
+    when( tables.next() ).thenReturn( true );
+    when( conn.getMetaData() ).thenReturn( metaData );
+    when( metaData.getTables( isNull(), isNull(), any(), isNull() ) ).thenReturn( tables );
+
+    index.create( conn );
+
+    verify( conn, never() ).createStatement();
+  }
+
+  @Test
+  public void testMigrate() throws Exception {
+    when( rs.next() ).thenReturn( true, false );
+    when( rs.getString( 1 ) ).thenReturn( JOB_KEY.getName() );
+    when( rs.getString( 2 ) ).thenReturn( JOB_KEY.getGroup() );
+
+    List<JobKey> missing = index.migrate( conn );
+
+    verify( conn ).prepareStatement(
+      startsWith( "DELETE FROM QRTZ6_JOB_METADATA WHERE SCHED_NAME = ? AND NOT EXISTS" ) );
+    verify( ps, atLeastOnce() ).setString( 1, "scheduler" );
+    assertEquals( 1, missing.size() );
+    assertTrue( missing.contains( JOB_KEY ) );
+  }
+
+  @Test
+  public void testTruncateCountsUtf8Bytes() {
+    assertEquals( "abc", JobMetadataIndex.truncate( "abc", 3 ) );
+    assertEquals( "ab", JobMetadataIndex.truncate( "abcd", 2 ) );
+    // two bytes each
+    assertEquals( "\u00e9\u00e9", JobMetadataIndex.truncate( "\u00e9\u00e9\u00e9", 5 ) );
+    // three bytes each
+    assertEquals( "\u65e5", JobMetadataIndex.truncate( "\u65e5\u672c", 5 ) );
+    // a surrogate pair, four bytes, is not split
+    assertEquals( "a", JobMetadataIndex.truncate( "a\ud83d\ude00", 4 ) );
+    assertNull( JobMetadataIndex.truncate( null, 4 ) );
+  }
+}
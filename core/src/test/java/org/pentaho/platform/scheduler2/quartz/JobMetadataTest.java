@@ -0,0 +1,74 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JobMetadataTest {
+
+  @Test
+  public void testEncodeAndParse() {
+    Map<String, Object> jobParams = new HashMap<>();
+    jobParams.put( IScheduler.RESERVEDMAPKEY_ACTIONUSER, "admin" );
+    jobParams.put( IScheduler.RESERVEDMAPKEY_ACTIONCLASS, "org.pentaho.Action" );
+    jobParams.put( JobMetadata.RESERVEDMAPKEY_INPUTFILE, "/home/admin/Sales; 50% = done.prpt" );
+    jobParams.put( "other", "ignored" );
+
+    String description = JobMetadata.encode( jobParams );
+    assertTrue( description.length() <= JobMetadata.MAX_LENGTH );
+
+    JobMetadata metadata = JobMetadata.parse( description );
+    assertEquals( "admin", metadata.get( IScheduler.RESERVEDMAPKEY_ACTIONUSER ) );
+    assertEquals( "org.pentaho.Action", metadata.get( IScheduler.RESERVEDMAPKEY_ACTIONCLASS ) );
+    assertEquals( "/home/admin/Sales; 50% = done.prpt", metadata.get( JobMetadata.RESERVEDMAPKEY_INPUTFILE ) );
+    // known not to be set
+    assertTrue( metadata.isKnown( IScheduler.RESERVEDMAPKEY_ACTIONID ) );
+    assertNull( metadata.get( IScheduler.RESERVEDMAPKEY_ACTIONID ) );
+    assertFalse( metadata.isKnown( "other" ) );
+  }
+
+  @Test
+  public void testParametersThatDoNotFitAreUnknown() {
+    StringBuilder inputFile = new StringBuilder( "/home/admin/" );
+    while ( inputFile.length() < JobMetadata.MAX_LENGTH ) {
+      inputFile.append( "report/" );
+    }
+    Map<String, Object> jobParams = new HashMap<>();
+    jobParams.put( IScheduler.RESERVEDMAPKEY_ACTIONUSER, "admin" );
+    jobParams.put( JobMetadata.RESERVEDMAPKEY_INPUTFILE, inputFile.toString() );
+
+    JobMetadata metadata = JobMetadata.parse( JobMetadata.encode( jobParams ) );
+
+    assertEquals( "admin", metadata.get( IScheduler.RESERVEDMAPKEY_ACTIONUSER ) );
+    assertFalse( metadata.isKnown( JobMetadata.RESERVEDMAPKEY_INPUTFILE ) );
+  }
+
+  @Test
+  public void testParseOtherDescriptions() {
+    assertNull( JobMetadata.parse( null ) );
+    assertNull( JobMetadata.parse( "a trigger" ) );
+    assertNull( JobMetadata.parse( JobMetadata.PREFIX + "x=y;" ) );
+    // items of a later version are skipped
+    assertTrue( JobMetadata.parse( JobMetadata.PREFIX + "99=y;" ).getParams().isEmpty() );
+  }
+}
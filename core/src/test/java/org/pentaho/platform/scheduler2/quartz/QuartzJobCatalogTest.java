@@ -0,0 +1,231 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.quartz.JobKey;
+import org.quartz.TriggerKey;
+import org.quartz.impl.triggers.CalendarIntervalTriggerImpl;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class QuartzJobCatalogTest {
+
+  private static final JobKey JOB_KEY = new JobKey( "admin\tjob\tuuid", "admin" );
+
+  private QuartzJobCatalog catalog;
+
+  @Before
+  public void setUp() {
+    catalog = new QuartzJobCatalog();
+  }
+
+  @Test
+  public void testPrime() {
+    assertFalse( catalog.isPrimed() );
+
+    catalog.prime( Collections.singletonList( createEntry() ), catalog.getGeneration() );
+
+    assertTrue( catalog.isPrimed() );
+    assertEquals( 1, catalog.getEntries().size() );
+  }
+
+  @Test
+  public void testPrimeAfterInvalidateAllIsNotTrusted() {
+    long generation = catalog.getGeneration();
+    catalog.invalidateAll();
+
+    catalog.prime( Collections.singletonList( createEntry() ), generation );
+
+    assertFalse( catalog.isPrimed() );
+  }
+
+  @Test
+  public void testListenersMarkJobsStale() throws Exception {
+    catalog.prime( Collections.singletonList( createEntry() ), catalog.getGeneration() );
+
+    catalog.getSchedulerListener().jobPaused( JOB_KEY );
+    catalog.getSchedulerListener().triggerResumed( new TriggerKey( JOB_KEY.getName(), JOB_KEY.getGroup() ) );
+    catalog.getTriggerListener().triggerComplete( createEntry().getTrigger(), null, null );
+
+    assertTrue( catalog.hasStaleEntries() );
+    List<JobKey> staleKeys = catalog.drainStaleKeys();
+    assertEquals( Collections.singletonList( JOB_KEY ), staleKeys );
+    assertFalse( catalog.hasStaleEntries() );
+    assertTrue( catalog.isPrimed() );
+  }
+
+  @Test
+  public void testGroupChangeInvalidatesAll() {
+    catalog.prime( Collections.singletonList( createEntry() ), catalog.getGeneration() );
+
+    catalog.getSchedulerListener().jobsPaused( "admin" );
+
+    assertFalse( catalog.isPrimed() );
+    assertTrue( catalog.getEntries().isEmpty() );
+  }
+
+  @Test
+  public void testJobDeletedRemovesEntry() {
+    catalog.prime( Collections.singletonList( createEntry() ), catalog.getGeneration() );
+
+    catalog.getSchedulerListener().jobDeleted( JOB_KEY );
+
+    assertTrue( catalog.getEntries().isEmpty() );
+    assertTrue( catalog.hasStaleEntries() );
+  }
+
+  @Test
+  public void testChangedSince() {
+    catalog.prime( Collections.singletonList( createEntry() ), catalog.getGeneration() );
+    long version = catalog.getVersion();
+    assertTrue( catalog.getChangedSince( version ).isEmpty() );
+
+    catalog.getSchedulerListener().jobPaused( JOB_KEY );
+
+    assertEquals( Collections.singleton( JOB_KEY ), catalog.getChangedSince( version ) );
+    assertTrue( catalog.getChangedSince( catalog.getVersion() ).isEmpty() );
+    assertNull( catalog.getChangedSince( catalog.getVersion() + 1 ) );
+  }
+
+  @Test
+  public void testRemovedJobKeepsItsLastEntry() {
+    catalog.prime( Collections.singletonList( createEntry() ), catalog.getGeneration() );
+
+    catalog.getSchedulerListener().jobDeleted( JOB_KEY );
+
+    assertTrue( catalog.isRemoved( JOB_KEY ) );
+    assertEquals( "job", catalog.getEntry( JOB_KEY ).copyJob().getJobName() );
+
+    catalog.put( createEntry() );
+    assertFalse( catalog.isRemoved( JOB_KEY ) );
+  }
+
+  @Test
+  public void testChangesAreForgottenOnInvalidateAll() {
+    long version = catalog.getVersion();
+
+    catalog.invalidateAll();
+
+    assertNull( catalog.getChangedSince( version ) );
+    assertTrue( catalog.getChangedSince( catalog.getVersion() ).isEmpty() );
+  }
+
+  @Test
+  public void testRemovedJobsAreForgottenPastTheLimit() {
+    long version = catalog.getVersion();
+
+    for ( int i = 0; i <= QuartzJobCatalog.MAX_REMOVED_JOBS; i++ ) {
+      catalog.invalidate( new JobKey( "admin\tremoved" + i + "\tuuid", "admin" ) );
+      catalog.drainStaleKeys();
+    }
+
+    assertNull( catalog.getChangedSince( version ) );
+  }
+
+  @Test
+  public void testCopyJob() {
+    QuartzJobCatalog.Entry entry = createEntry();
+
+    Job copy = entry.copyJob();
+    copy.getJobParams().put( "changed", "true" );
+
+    assertNotSame( copy, entry.copyJob() );
+    assertEquals( "job", copy.getJobName() );
+    assertFalse( entry.copyJob().getJobParams().containsKey( "changed" ) );
+  }
+
+  @Test
+  public void testCopyJobWithSomeParams() {
+    QuartzJobCatalog.Entry entry = createEntry();
+
+    assertTrue( entry.copyJob( Collections.emptyList() ).getJobParams().isEmpty() );
+    assertEquals( "value", entry.copyJob( Collections.singletonList( "param" ) ).getJobParams().get( "param" ) );
+    assertEquals( "job", entry.copyJob( Collections.emptyList() ).getJobName() );
+  }
+
+  @Test
+  public void testPreviewJobLoadsOnlyWhenNeeded() throws Exception {
+    QuartzJobCatalog.JobLoader loader = mock( QuartzJobCatalog.JobLoader.class );
+    when( loader.load( any(), any() ) ).thenReturn( createEntry().copyJob() );
+    Job preview = new Job();
+    preview.setJobId( JOB_KEY.getName() );
+    preview.setJobName( "job" );
+    preview.setUserName( "admin" );
+    preview.setJobParams( Collections.singletonMap( "known", null ) );
+    QuartzJobCatalog.Entry entry = new QuartzJobCatalog.Entry( JOB_KEY, preview, createEntry().getTrigger(), loader );
+
+    Job job = entry.previewJob( Collections.singletonList( "param" ) );
+    assertEquals( "job", job.getJobName() );
+    assertEquals( "admin", job.getUserName() );
+    assertNull( job.getJobParams().get( "known" ) );
+    assertFalse( job.getJobParams().containsKey( "known" ) );
+    assertFalse( entry.isLoaded() );
+    verify( loader, never() ).load( any(), any() );
+
+    assertEquals( "value", job.getJobParams().get( "param" ) );
+    assertTrue( entry.isLoaded() );
+
+    Job resolved = LazyJob.resolve( job );
+    assertFalse( resolved instanceof LazyJob );
+    assertEquals( Collections.singletonMap( "param", "value" ), resolved.getJobParams() );
+    entry.copyJob();
+    verify( loader, times( 1 ) ).load( any(), any() );
+  }
+
+  @Test
+  public void testPreviewJobOfLoadedEntry() {
+    Job job = createEntry().previewJob( null );
+
+    assertFalse( job instanceof LazyJob );
+    assertSame( job, LazyJob.resolve( job ) );
+  }
+
+  @Test( expected = QuartzJobCatalog.JobLoadException.class )
+  public void testPreviewJobLoadFailure() throws Exception {
+    QuartzJobCatalog.JobLoader loader = mock( QuartzJobCatalog.JobLoader.class );
+    when( loader.load( any(), any() ) ).thenThrow( new org.quartz.SchedulerException( "store down" ) );
+    QuartzJobCatalog.Entry entry = new QuartzJobCatalog.Entry( JOB_KEY, new Job(), createEntry().getTrigger(), loader );
+
+    LazyJob.resolve( entry.previewJob( null ) );
+  }
+
+  private QuartzJobCatalog.Entry createEntry() {
+    Job job = new Job();
+    job.setJobId( JOB_KEY.getName() );
+    job.setJobName( "job" );
+    job.setUserName( "admin" );
+    job.setJobParams( Collections.singletonMap( "param", "value" ) );
+
+    CalendarIntervalTriggerImpl trigger = new CalendarIntervalTriggerImpl();
+    trigger.setKey( new TriggerKey( JOB_KEY.getName(), JOB_KEY.getGroup() ) );
+    trigger.setJobKey( JOB_KEY );
+    return new QuartzJobCatalog.Entry( JOB_KEY, job, trigger );
+  }
+}
@@ -16,25 +16,33 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJob;
 import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobState;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.quartz.CronExpression;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.CronTrigger;
+import org.quartz.JobBuilder;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
 import org.quartz.JobKey;
+import org.quartz.ListenerManager;
+import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerFactory;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.impl.triggers.CalendarIntervalTriggerImpl;
 import org.quartz.impl.triggers.CronTriggerImpl;
 import org.quartz.spi.MutableTrigger;
@@ -45,16 +53,27 @@ import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.pentaho.platform.api.scheduler2.IScheduler.RESERVEDMAPKEY_ACTIONUSER;
@@ -581,4 +600,448 @@ public class QuartzSchedulerTest {
     // Assert
     assertEquals( previousFireTime, lastRun );
   }
+
+  @Test
+  public void testGetJobsLoadsEachJobDetailOnce() throws Exception {
+    Set<JobKey> jobKeys = new LinkedHashSet<>();
+    Scheduler mockScheduler = mockSchedulerWithJobs( 3, jobKeys );
+
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    List<IJob> jobs = quartzScheduler.getJobs( null );
+
+    assertEquals( 3, jobs.size() );
+    assertEquals( "job0", jobs.get( 0 ).getJobName() );
+    verify( mockScheduler, never() ).getJobGroupNames();
+    verify( mockScheduler, times( 1 ) ).getJobKeys( any() );
+    for ( JobKey jobKey : jobKeys ) {
+      verify( mockScheduler, times( 1 ) ).getJobDetail( jobKey );
+    }
+  }
+
+  @Test
+  public void testFindJobsWithoutIndexFiltersTheListing() throws Exception {
+    Scheduler mockScheduler = mockSchedulerWithJobs( 3, new LinkedHashSet<>() );
+    when( mockScheduler.getSchedulerName() ).thenReturn( "notIndexed" );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    List<IJob> jobs = quartzScheduler.findJobs( Collections.singletonMap( JobMetadataIndex.Field.JOB_NAME, "job1" ) );
+
+    assertEquals( 1, jobs.size() );
+    assertEquals( "admin\tjob1\tuuid1", jobs.get( 0 ).getJobId() );
+    assertTrue( quartzScheduler.findJobs(
+      Collections.singletonMap( JobMetadataIndex.Field.ACTION_CLASS, "org.pentaho.Missing" ) ).isEmpty() );
+  }
+
+  @Test
+  public void testGetJobsByNameReadsOnlyMatchingJobs() throws Exception {
+    Set<JobKey> jobKeys = new LinkedHashSet<>();
+    Scheduler mockScheduler = mockSchedulerWithJobs( 3, jobKeys );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    List<IJob> jobs = quartzScheduler.getJobsByName( "admin", "job1" );
+
+    assertEquals( 1, jobs.size() );
+    assertEquals( "admin\tjob1\tuuid1", jobs.get( 0 ).getJobId() );
+    verify( mockScheduler ).getJobKeys( GroupMatcher.jobGroupEquals( "admin" ) );
+    verify( mockScheduler, never() ).getJobDetail( new JobKey( "admin\tjob0\tuuid0", "admin" ) );
+    verify( mockScheduler, never() ).getJobDetail( new JobKey( "admin\tjob2\tuuid2", "admin" ) );
+
+    assertEquals( 3, quartzScheduler.getJobsByName( null, name -> name.startsWith( "job" ) ).size() );
+    assertTrue( quartzScheduler.getJobsByName( null, "missing" ).isEmpty() );
+  }
+
+  @Test
+  public void testGetJobsByNameServedFromCatalog() throws Exception {
+    Scheduler mockScheduler = mockSchedulerWithJobs( 3, new LinkedHashSet<>() );
+    when( mockScheduler.getListenerManager() ).thenReturn( mock( ListenerManager.class ) );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+    quartzScheduler.getJobs( null );
+
+    List<IJob> jobs = quartzScheduler.getJobsByName( null, "job1" );
+
+    assertEquals( 1, jobs.size() );
+    assertEquals( "admin\tjob1\tuuid1", jobs.get( 0 ).getJobId() );
+    assertTrue( quartzScheduler.getJobsByName( "suzy", "job1" ).isEmpty() );
+    // the keys were only read once, to load the catalog
+    verify( mockScheduler, times( 1 ) ).getJobKeys( any() );
+  }
+
+  @Test
+  public void testRunOnceJobIsKeptWhileItsFireIsDeferred() throws Exception {
+    JobKey jobKey = new JobKey( "admin\tonce\tuuid", "admin" );
+    JobDetail jobDetail = JobBuilder.newJob( BlockingQuartzJob.class ).withIdentity( jobKey ).build();
+    Trigger lastFire = mock( Trigger.class );
+    Scheduler mockScheduler = mock( Scheduler.class );
+    when( mockScheduler.getJobDetail( jobKey ) ).thenReturn( jobDetail );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    // the only fire of the job is deferred, so Quartz would delete the job once it completed
+    quartzScheduler.retainDeferredJob( jobKey, lastFire );
+    ArgumentCaptor<JobDetail> retained = ArgumentCaptor.forClass( JobDetail.class );
+    verify( mockScheduler ).addJob( retained.capture(), eq( true ) );
+    assertTrue( retained.getValue().isDurable() );
+
+    when( mockScheduler.getJobDetail( jobKey ) ).thenReturn( retained.getValue() );
+    when( mockScheduler.checkExists( jobKey ) ).thenReturn( true );
+    when( mockScheduler.getTriggerState( any() ) ).thenReturn( Trigger.TriggerState.NONE );
+    assertTrue( quartzScheduler.releaseDeferredFire( jobKey ) );
+
+    // made non-durable again before it runs, so that it is deleted once it completed
+    ArgumentCaptor<JobDetail> released = ArgumentCaptor.forClass( JobDetail.class );
+    InOrder inOrder = Mockito.inOrder( mockScheduler );
+    inOrder.verify( mockScheduler ).addJob( released.capture(), eq( true ), eq( true ) );
+    inOrder.verify( mockScheduler ).triggerJob( eq( jobKey ), any( JobDataMap.class ) );
+    assertFalse( released.getValue().isDurable() );
+  }
+
+  @Test
+  public void testRetainedJobIsDeletedWhenItsFireIsDropped() throws Exception {
+    JobKey jobKey = new JobKey( "admin\tonce\tuuid", "admin" );
+    JobDetail jobDetail = JobBuilder.newJob( BlockingQuartzJob.class ).withIdentity( jobKey ).build();
+    Scheduler mockScheduler = mock( Scheduler.class );
+    when( mockScheduler.getJobDetail( jobKey ) ).thenReturn( jobDetail );
+    when( mockScheduler.getTriggersOfJob( jobKey ) ).thenAnswer( unused -> Collections.emptyList() );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    quartzScheduler.retainDeferredJob( jobKey, mock( Trigger.class ) );
+    ArgumentCaptor<JobDetail> retained = ArgumentCaptor.forClass( JobDetail.class );
+    verify( mockScheduler ).addJob( retained.capture(), eq( true ) );
+    when( mockScheduler.getJobDetail( jobKey ) ).thenReturn( retained.getValue() );
+    quartzScheduler.shutdown();
+
+    verify( mockScheduler ).deleteJob( jobKey );
+    verify( mockScheduler, never() ).triggerJob( eq( jobKey ), any( JobDataMap.class ) );
+  }
+
+  @Test
+  public void testRetainedJobRescheduledMeanwhileIsKept() throws Exception {
+    JobKey jobKey = new JobKey( "admin\tonce\tuuid", "admin" );
+    JobDetail jobDetail = JobBuilder.newJob( BlockingQuartzJob.class ).withIdentity( jobKey ).build();
+    Scheduler mockScheduler = mock( Scheduler.class );
+    when( mockScheduler.getJobDetail( jobKey ) ).thenReturn( jobDetail );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    quartzScheduler.retainDeferredJob( jobKey, mock( Trigger.class ) );
+    // stored again, non-durable, with a new trigger, as Run Now does
+    quartzScheduler.shutdown();
+
+    verify( mockScheduler, never() ).deleteJob( jobKey );
+    verify( mockScheduler, never() ).addJob( any(), eq( true ), eq( true ) );
+  }
+
+  @Test
+  public void testJobWithOtherTriggersIsNotRetained() throws Exception {
+    JobKey jobKey = new JobKey( "admin\tdaily\tuuid", "admin" );
+    Trigger manualFire = mock( Trigger.class );
+    when( manualFire.getKey() ).thenReturn( new TriggerKey( "MT_uuid", "admin" ) );
+    Trigger daily = mock( Trigger.class );
+    when( daily.getKey() ).thenReturn( new TriggerKey( jobKey.getName(), jobKey.getGroup() ) );
+    Scheduler mockScheduler = mock( Scheduler.class );
+    doReturn( Arrays.asList( manualFire, daily ) ).when( mockScheduler ).getTriggersOfJob( jobKey );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    quartzScheduler.retainDeferredJob( jobKey, manualFire );
+
+    verify( mockScheduler, never() ).getJobDetail( jobKey );
+    verify( mockScheduler, never() ).addJob( any(), eq( true ) );
+  }
+
+  @Test
+  public void testRecurringJobIsNotRetained() throws Exception {
+    JobKey jobKey = new JobKey( "admin\tdaily\tuuid", "admin" );
+    Trigger nextFire = mock( Trigger.class );
+    when( nextFire.getNextFireTime() ).thenReturn( new Date() );
+    Scheduler mockScheduler = mock( Scheduler.class );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    quartzScheduler.retainDeferredJob( jobKey, nextFire );
+
+    verify( mockScheduler, never() ).addJob( any(), eq( true ) );
+  }
+
+  @Test
+  public void testQueuedRunOnceJobIsFiredAgainOnItsTurn() throws Exception {
+    JobKey runningKey = new JobKey( "admin\tdaily\tuuid", "admin" );
+    JobKey queuedKey = new JobKey( "admin\tonce\tuuid", "admin" );
+    JobDetail queuedDetail = JobBuilder.newJob( BlockingQuartzJob.class ).withIdentity( queuedKey ).build();
+    Scheduler mockScheduler = mock( Scheduler.class );
+    when( mockScheduler.getJobDetail( queuedKey ) ).thenReturn( queuedDetail );
+    when( mockScheduler.checkExists( queuedKey ) ).thenReturn( true );
+    when( mockScheduler.getTriggerState( any() ) ).thenReturn( Trigger.TriggerState.NONE );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+    quartzScheduler.setExecutionLanes( ExecutionLanes.parse( "kjb.backgroundExecution=1",
+      quartzScheduler::releaseLaneTurn ) );
+
+    ExecutionLanes.Ticket running = quartzScheduler.enterExecutionLane( mockLaneContext( runningKey, new Date() ) );
+    assertNotNull( running );
+    // the only fire of the job is queued, so Quartz would delete the job once it completed
+    assertNull( quartzScheduler.enterExecutionLane( mockLaneContext( queuedKey, null ) ) );
+    ArgumentCaptor<JobDetail> retained = ArgumentCaptor.forClass( JobDetail.class );
+    verify( mockScheduler ).addJob( retained.capture(), eq( true ) );
+    assertTrue( retained.getValue().isDurable() );
+    verify( mockScheduler, never() ).triggerJob( eq( queuedKey ), any( JobDataMap.class ) );
+
+    when( mockScheduler.getJobDetail( queuedKey ) ).thenReturn( retained.getValue() );
+    running.close();
+
+    ArgumentCaptor<JobDetail> released = ArgumentCaptor.forClass( JobDetail.class );
+    ArgumentCaptor<JobDataMap> turn = ArgumentCaptor.forClass( JobDataMap.class );
+    InOrder inOrder = Mockito.inOrder( mockScheduler );
+    inOrder.verify( mockScheduler ).addJob( released.capture(), eq( true ), eq( true ) );
+    inOrder.verify( mockScheduler ).triggerJob( eq( queuedKey ), turn.capture() );
+    assertFalse( released.getValue().isDurable() );
+    assertNotNull( turn.getValue().getString( ExecutionLanes.RESERVEDMAPKEY_LANE_TURN ) );
+  }
+
+  @Test
+  public void testAdmittedFireDoesNotRetainItsJob() throws Exception {
+    JobKey jobKey = new JobKey( "admin\tonce\tuuid", "admin" );
+    Scheduler mockScheduler = mock( Scheduler.class );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+    quartzScheduler.setExecutionLanes( ExecutionLanes.parse( "kjb.backgroundExecution=1",
+      quartzScheduler::releaseLaneTurn ) );
+
+    assertNotNull( quartzScheduler.enterExecutionLane( mockLaneContext( jobKey, null ) ) );
+
+    verify( mockScheduler, never() ).getJobDetail( jobKey );
+    verify( mockScheduler, never() ).getTriggersOfJob( jobKey );
+    verify( mockScheduler, never() ).addJob( any(), eq( true ) );
+  }
+
+  private static JobExecutionContext mockLaneContext( JobKey jobKey, Date nextFireTime ) {
+    JobDataMap jobData = new JobDataMap();
+    jobData.put( QuartzScheduler.RESERVEDMAPKEY_ACTIONID, "kjb.backgroundExecution" );
+    JobDetail jobDetail = JobBuilder.newJob( BlockingQuartzJob.class ).withIdentity( jobKey ).build();
+    Trigger trigger = mock( Trigger.class );
+    when( trigger.getNextFireTime() ).thenReturn( nextFireTime );
+    when( trigger.getJobDataMap() ).thenReturn( new JobDataMap() );
+    JobExecutionContext context = mock( JobExecutionContext.class );
+    when( context.getMergedJobDataMap() ).thenReturn( jobData );
+    when( context.getJobDetail() ).thenReturn( jobDetail );
+    when( context.getTrigger() ).thenReturn( trigger );
+    return context;
+  }
+
+  @Test
+  public void testGetJobsServedFromCatalog() throws Exception {
+    Set<JobKey> jobKeys = new LinkedHashSet<>();
+    Scheduler mockScheduler = mockSchedulerWithJobs( 2, jobKeys );
+    ListenerManager listenerManager = mock( ListenerManager.class );
+    when( mockScheduler.getListenerManager() ).thenReturn( listenerManager );
+
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    List<IJob> first = quartzScheduler.getJobs( null );
+    first.get( 0 ).getJobParams().put( "modified", "true" );
+    List<IJob> second = quartzScheduler.getJobs( null );
+
+    assertEquals( 2, second.size() );
+    assertFalse( second.get( 0 ).getJobParams().containsKey( "modified" ) );
+    verify( listenerManager ).addSchedulerListener( quartzScheduler.getJobCatalog().getSchedulerListener() );
+    verify( listenerManager ).addTriggerListener( quartzScheduler.getJobCatalog().getTriggerListener() );
+    verify( listenerManager ).addJobListener( quartzScheduler.getJobEvents().getJobListener() );
+    verify( mockScheduler, times( 1 ) ).getJobKeys( any() );
+    assertEquals( 1, quartzScheduler.getJobCatalog().getMissCount() );
+    assertEquals( 1, quartzScheduler.getJobCatalog().getHitCount() );
+
+    // only the paused job is reloaded from the store
+    JobKey pausedKey = jobKeys.iterator().next();
+    quartzScheduler.pauseJob( pausedKey.getName() );
+    when( mockScheduler.getTriggerState( any() ) ).thenReturn( Trigger.TriggerState.PAUSED );
+    List<IJob> third = quartzScheduler.getJobs( null );
+
+    assertEquals( 2, third.size() );
+    verify( mockScheduler, times( 1 ) ).getJobKeys( any() );
+    for ( JobKey jobKey : jobKeys ) {
+      verify( mockScheduler, times( jobKey.equals( pausedKey ) ? 2 : 1 ) ).getJobDetail( jobKey );
+    }
+    for ( IJob job : third ) {
+      assertEquals( job.getJobId().equals( pausedKey.getName() ) ? JobState.PAUSED : JobState.NORMAL,
+        job.getState() );
+    }
+    assertEquals( 2, quartzScheduler.getJobCatalog().getHitCount() );
+  }
+
+  @Test
+  @SuppressWarnings( { "unchecked", "rawtypes" } )
+  public void testDeferredJobsAreScheduledTogether() throws Exception {
+    Scheduler mockScheduler = mock( Scheduler.class );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    quartzScheduler.deferJobs();
+    Job first = quartzScheduler.createJob( "firstJob", createJobParams(), createHourlyTrigger(), null );
+    Job second = quartzScheduler.createJob( "secondJob", createJobParams(), createHourlyTrigger(), null );
+    verify( mockScheduler, never() ).scheduleJob( any( JobDetail.class ), any( Trigger.class ) );
+
+    Map<String, SchedulerException> failures = quartzScheduler.submitDeferredJobs();
+
+    assertTrue( failures.isEmpty() );
+    ArgumentCaptor<Map> jobsCaptor = ArgumentCaptor.forClass( Map.class );
+    verify( mockScheduler ).scheduleJobs( jobsCaptor.capture(), eq( false ) );
+    Map<JobDetail, Set<? extends Trigger>> jobs = jobsCaptor.getValue();
+    assertEquals( Arrays.asList( first.getJobId(), second.getJobId() ),
+      jobs.keySet().stream().map( jobDetail -> jobDetail.getKey().getName() ).collect( Collectors.toList() ) );
+
+    // deferring stopped with the submission
+    quartzScheduler.createJob( "thirdJob", createJobParams(), createHourlyTrigger(), null );
+    verify( mockScheduler ).scheduleJob( any( JobDetail.class ), any( Trigger.class ) );
+  }
+
+  @Test
+  public void testDeferredJobsFallBackToOneAtATime() throws Exception {
+    Scheduler mockScheduler = mock( Scheduler.class );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    quartzScheduler.deferJobs();
+    Job first = quartzScheduler.createJob( "firstJob", createJobParams(), createHourlyTrigger(), null );
+    Job second = quartzScheduler.createJob( "secondJob", createJobParams(), createHourlyTrigger(), null );
+    doThrow( new ObjectAlreadyExistsException( "exists" ) ).when( mockScheduler ).scheduleJobs( any(), eq( false ) );
+    doThrow( new ObjectAlreadyExistsException( "exists" ) ).when( mockScheduler ).scheduleJob(
+      argThat( jobDetail -> jobDetail.getKey().getName().equals( second.getJobId() ) ), any(), eq( false ) );
+
+    Map<String, SchedulerException> failures = quartzScheduler.submitDeferredJobs();
+
+    assertEquals( Collections.singleton( second.getJobId() ), failures.keySet() );
+    verify( mockScheduler ).scheduleJob(
+      argThat( jobDetail -> jobDetail.getKey().getName().equals( first.getJobId() ) ), any(), eq( false ) );
+  }
+
+  @Test
+  public void testPauseJobsReportsFailuresByJob() throws Exception {
+    Scheduler mockScheduler = mock( Scheduler.class );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+    String pausedJobId = "admin\tpaused\tuuid1";
+    String failingJobId = "admin\tfailing\tuuid2";
+    doThrow( new org.quartz.SchedulerException( "failed" ) ).when( mockScheduler )
+      .pauseJob( new JobKey( failingJobId, "admin" ) );
+
+    Map<String, SchedulerException> failures =
+      quartzScheduler.pauseJobs( Arrays.asList( pausedJobId, failingJobId ) );
+
+    assertEquals( Collections.singleton( failingJobId ), failures.keySet() );
+    verify( mockScheduler ).pauseJob( new JobKey( pausedJobId, "admin" ) );
+  }
+
+  @Test
+  public void testGetJobChanges() throws Exception {
+    Set<JobKey> jobKeys = new LinkedHashSet<>();
+    Scheduler mockScheduler = mockSchedulerWithJobs( 2, jobKeys );
+    when( mockScheduler.getListenerManager() ).thenReturn( mock( ListenerManager.class ) );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+    quartzScheduler.getQuartzScheduler();
+
+    QuartzJobChanges all = quartzScheduler.getJobChanges( null, null );
+    assertTrue( all.isReset() );
+    assertEquals( 2, all.getJobs().size() );
+
+    // nothing changed, the job store is left alone
+    QuartzJobChanges none = quartzScheduler.getJobChanges( all.getVersion(), null );
+    assertFalse( none.isReset() );
+    assertTrue( none.getJobs().isEmpty() );
+    assertEquals( all.getVersion(), none.getVersion() );
+    verify( mockScheduler, times( 1 ) ).getJobKeys( any() );
+
+    JobKey[] keys = jobKeys.toArray( new JobKey[ 0 ] );
+    when( mockScheduler.getTriggerState( any() ) ).thenReturn( Trigger.TriggerState.PAUSED );
+    quartzScheduler.getJobCatalog().getSchedulerListener().jobPaused( keys[ 0 ] );
+    when( mockScheduler.getTriggersOfJob( keys[ 1 ] ) ).thenReturn( Collections.emptyList() );
+    quartzScheduler.getJobCatalog().getSchedulerListener().jobDeleted( keys[ 1 ] );
+
+    QuartzJobChanges changes = quartzScheduler.getJobChanges( none.getVersion(), null );
+    assertFalse( changes.isReset() );
+    assertEquals( 1, changes.getJobs().size() );
+    assertEquals( keys[ 0 ].getName(), changes.getJobs().get( 0 ).getJobId() );
+    assertEquals( JobState.PAUSED, changes.getJobs().get( 0 ).getState() );
+    assertEquals( Collections.singletonList( keys[ 1 ].getName() ), changes.getRemovedJobIds() );
+    assertNotEquals( none.getVersion(), changes.getVersion() );
+
+    // removed jobs of other users are not reported
+    quartzScheduler.getJobCatalog().getSchedulerListener().jobPaused( keys[ 0 ] );
+    changes = quartzScheduler.getJobChanges( none.getVersion(), job -> !job.getJobId().equals( keys[ 1 ].getName() ) );
+    assertTrue( changes.getRemovedJobIds().isEmpty() );
+
+    // versions of another run are not trusted
+    assertTrue( quartzScheduler.getJobChanges( "unknown.1", null ).isReset() );
+  }
+
+  private HashMap<String, Object> createJobParams() {
+    HashMap<String, Object> jobParams = new HashMap<>();
+    jobParams.put( RESERVEDMAPKEY_ACTIONUSER, "fooUser" );
+    return jobParams;
+  }
+
+  private SimpleJobTrigger createHourlyTrigger() {
+    return new SimpleJobTrigger( new Date(), null, -1, 3600 );
+  }
+
+  private Scheduler mockSchedulerWithJobs( int count, Set<JobKey> jobKeys ) throws Exception {
+    Scheduler mockScheduler = mock( Scheduler.class );
+    for ( int i = 0; i < count; i++ ) {
+      JobKey jobKey = new JobKey( "admin\tjob" + i + "\tuuid" + i, "admin" );
+      jobKeys.add( jobKey );
+
+      CalendarIntervalTriggerImpl trigger = new CalendarIntervalTriggerImpl();
+      trigger.setKey( new TriggerKey( jobKey.getName(), jobKey.getGroup() ) );
+      trigger.setJobKey( jobKey );
+      trigger.setStartTime( new Date() );
+      when( mockScheduler.getTriggersOfJob( jobKey ) ).thenAnswer( unused -> Collections.singletonList( trigger ) );
+
+      JobDetail jobDetail = mock( JobDetail.class );
+      when( jobDetail.getKey() ).thenReturn( jobKey );
+      when( jobDetail.getJobDataMap() ).thenReturn( new JobDataMap() );
+      when( mockScheduler.getJobDetail( jobKey ) ).thenReturn( jobDetail );
+    }
+    when( mockScheduler.getJobKeys( any() ) ).thenReturn( jobKeys );
+    when( mockScheduler.getTriggerState( any() ) ).thenReturn( Trigger.TriggerState.NORMAL );
+    return mockScheduler;
+  }
 }
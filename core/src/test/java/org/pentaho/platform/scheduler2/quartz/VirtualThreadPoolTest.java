@@ -0,0 +1,106 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.SchedulerConfigException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualThreadPoolTest {
+
+  private VirtualThreadPool pool;
+
+  @Before
+  public void setUp() throws Exception {
+    pool = new VirtualThreadPool();
+    pool.setThreadCount( 2 );
+    pool.setThreadNamePrefix( "TestPool_Worker-" );
+    pool.initialize();
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdown( false );
+  }
+
+  @Test
+  public void testJobRunsOnAThreadOfThePool() throws Exception {
+    AtomicReference<String> threadName = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch( 1 );
+
+    assertTrue( pool.runInThread( () -> {
+      threadName.set( Thread.currentThread().getName() );
+      done.countDown();
+    } ) );
+
+    assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+    assertTrue( threadName.get().startsWith( "TestPool_Worker-" ) );
+  }
+
+  @Test
+  public void testRunningJobsAreBoundedByThreadCount() throws Exception {
+    CountDownLatch release = new CountDownLatch( 1 );
+    CountDownLatch started = new CountDownLatch( 2 );
+    for ( int i = 0; i < 2; i++ ) {
+      pool.runInThread( () -> {
+        started.countDown();
+        awaitQuietly( release );
+      } );
+    }
+    assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+    assertEquals( 2, pool.getRunningCount() );
+
+    CountDownLatch third = new CountDownLatch( 1 );
+    Thread submitter = new Thread( () -> pool.runInThread( third::countDown ) );
+    submitter.start();
+    assertFalse( third.await( 200, TimeUnit.MILLISECONDS ) );
+
+    release.countDown();
+    assertTrue( third.await( 10, TimeUnit.SECONDS ) );
+    submitter.join( 10000 );
+  }
+
+  @Test
+  public void testShutDownPoolRunsNoJob() {
+    pool.shutdown( true );
+
+    assertFalse( pool.runInThread( () -> {
+    } ) );
+  }
+
+  @Test( expected = SchedulerConfigException.class )
+  public void testInvalidThreadCount() throws Exception {
+    VirtualThreadPool invalid = new VirtualThreadPool();
+    invalid.setThreadCount( 0 );
+    invalid.initialize();
+  }
+
+  private static void awaitQuietly( CountDownLatch latch ) {
+    try {
+      latch.await( 10, TimeUnit.SECONDS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
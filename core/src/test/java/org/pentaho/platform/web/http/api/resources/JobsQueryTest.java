@@ -0,0 +1,81 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JobsQueryTest {
+
+  @Test
+  public void testAcceptAll() {
+    JobsQuery query = new JobsQuery( null, null, null, null, null, null, null, null );
+
+    assertTrue( query.accept( createJob( "report", "admin", JobState.NORMAL, null ) ) );
+  }
+
+  @Test
+  public void testAccept() {
+    JobsQuery query = new JobsQuery( null, null, null, "admin", "paused", "PORT", "2024-01-02T00:00:00Z",
+      "2024-01-01T00:00:00Z" );
+    Date nextRun = new Date( 1704110400000L ); // 2024-01-01T12:00:00Z
+
+    assertTrue( query.accept( createJob( "Report", "admin", JobState.PAUSED, nextRun ) ) );
+    assertFalse( query.accept( createJob( "Report", "suzy", JobState.PAUSED, nextRun ) ) );
+    assertFalse( query.accept( createJob( "Report", "admin", JobState.NORMAL, nextRun ) ) );
+    assertFalse( query.accept( createJob( "Cleaner", "admin", JobState.PAUSED, nextRun ) ) );
+    assertFalse( query.accept( createJob( "Report", "admin", JobState.PAUSED, null ) ) );
+    assertFalse( query.accept( createJob( "Report", "admin", JobState.PAUSED, new Date( 1704240000000L ) ) ) );
+  }
+
+  @Test
+  public void testPage() {
+    List<Job> jobs = new ArrayList<>( Arrays.asList(
+      createJob( "b", "admin", JobState.NORMAL, null ),
+      createJob( "c", "admin", JobState.NORMAL, null ),
+      createJob( "a", "admin", JobState.NORMAL, null ) ) );
+
+    List<Job> page = new JobsQuery( 0, 2, "-name", null, null, null, null, null ).page( jobs );
+    assertEquals( 2, page.size() );
+    assertEquals( "c", page.get( 0 ).getJobName() );
+    assertEquals( "b", page.get( 1 ).getJobName() );
+
+    assertEquals( 1, new JobsQuery( 2, 5, null, null, null, null, null, null ).page( jobs ).size() );
+    assertTrue( new JobsQuery( 3, null, null, null, null, null, null, null ).page( jobs ).isEmpty() );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidDate() {
+    new JobsQuery( null, null, null, null, null, null, "tomorrow", null );
+  }
+
+  private Job createJob( String name, String owner, JobState state, Date nextRun ) {
+    Job job = new Job();
+    job.setJobName( name );
+    job.setUserName( owner );
+    job.setState( state );
+    job.setNextRun( nextRun );
+    return job;
+  }
+}
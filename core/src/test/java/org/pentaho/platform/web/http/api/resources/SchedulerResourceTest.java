@@ -24,12 +24,18 @@ import org.pentaho.platform.api.scheduler2.IJobTrigger;
 import org.pentaho.platform.api.scheduler2.Job;
 import org.pentaho.platform.api.scheduler2.JobState;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.scheduler2.quartz.JobEvent;
+import org.pentaho.platform.scheduler2.quartz.JobEventBroadcaster;
 import org.pentaho.platform.web.http.api.proxies.BlockStatusProxy;
 import org.pentaho.platform.web.http.api.resources.services.ISchedulerServicePlugin;
 
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
@@ -42,6 +48,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -264,6 +271,148 @@ public class SchedulerResourceTest {
     verify( schedulerResource.schedulerService, times( 1 ) ).getJobs();
   }
 
+  @Test
+  public void testGetAllJobsPaged() throws Exception {
+    List<IJob> jobs = new ArrayList<>();
+    for ( String name : new String[] { "b", "c", "a" } ) {
+      Job job = new Job();
+      job.setJobName( name );
+      jobs.add( job );
+    }
+    doReturn( jobs ).when( schedulerResource.schedulerService ).getJobs( any( JobsQuery.class ) );
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildJobsPageResponse( any(), Mockito.anyInt() );
+
+    Response testResponse = schedulerResource.getAllJobs( 1, 1, "name", null, null, null, null, null );
+
+    assertEquals( mockResponse, testResponse );
+    verify( schedulerResource ).buildJobsPageResponse( Mockito.argThat( page ->
+      page.size() == 1 && "b".equals( page.get( 0 ).getJobName() ) ), Mockito.eq( 3 ) );
+  }
+
+  @Test
+  public void testGetAllJobsSummary() throws Exception {
+    Job job = new Job();
+    job.setJobName( "job" );
+    job.getJobParams().put( "ActionAdapterQuartzJob-StreamProvider",
+      "input file = /public/report.prpt:outputFile = /home/admin/job.*" );
+    List<IJob> jobs = new ArrayList<>( Collections.singletonList( job ) );
+    doReturn( jobs ).when( schedulerResource.schedulerService ).getJobSummaries( any( JobsQuery.class ) );
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildJobSummariesResponse( any(), Mockito.anyInt() );
+
+    Response testResponse =
+      schedulerResource.getAllJobs( null, null, null, null, null, null, null, null, "summary", null );
+
+    assertEquals( mockResponse, testResponse );
+    verify( schedulerResource ).buildJobSummariesResponse( Mockito.argThat( page -> page.size() == 1
+      && "job".equals( page.get( 0 ).getJobName() )
+      && "/public/report.prpt".equals( page.get( 0 ).getInputFile() )
+      && "/home/admin/job.*".equals( page.get( 0 ).getOutputFile() ) ), Mockito.eq( 1 ) );
+    verify( schedulerResource.schedulerService, times( 0 ) ).getJobs( any() );
+  }
+
+  @Test
+  public void testGetAllJobsInvalidView() throws Exception {
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildStatusResponse( Response.Status.BAD_REQUEST );
+
+    assertEquals( mockResponse,
+      schedulerResource.getAllJobs( null, null, null, null, null, null, null, null, "unknown", null ) );
+  }
+
+  @Test
+  public void testGetAllJobsNotModified() throws Exception {
+    Request request = mock( Request.class );
+    Response.ResponseBuilder notModified = mock( Response.ResponseBuilder.class );
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( notModified ).build();
+    doReturn( "version" ).when( schedulerResource.schedulerService ).getJobsVersion();
+    doReturn( notModified ).when( request ).evaluatePreconditions( new EntityTag( "version", true ) );
+
+    Response testResponse =
+      schedulerResource.getAllJobs( null, null, null, null, null, null, null, null, null, request );
+
+    assertEquals( mockResponse, testResponse );
+    verify( schedulerResource.schedulerService, times( 0 ) ).getJobs( any() );
+  }
+
+  @Test
+  public void testGetAllJobsConditionalForbidden() throws Exception {
+    Request request = mock( Request.class );
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildStatusResponse( FORBIDDEN );
+    doThrow( new IllegalAccessException() ).when( schedulerResource.schedulerService ).getJobsVersion();
+
+    Response testResponse =
+      schedulerResource.getAllJobs( null, null, null, null, null, null, null, null, null, request );
+
+    assertEquals( mockResponse, testResponse );
+    verify( request, times( 0 ) ).evaluatePreconditions( any( EntityTag.class ) );
+    verify( schedulerResource.schedulerService, times( 0 ) ).getJobs( any() );
+  }
+
+  @Test
+  public void testGetJobChanges() throws Exception {
+    JobChanges jobChanges = new JobChanges();
+    doReturn( jobChanges ).when( schedulerResource.schedulerService ).getJobChanges( "since" );
+
+    assertEquals( jobChanges, schedulerResource.getJobChanges( "since" ) );
+  }
+
+  @Test
+  public void testGetJobEvents() throws Exception {
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildStatusResponse( Response.Status.SERVICE_UNAVAILABLE );
+    doReturn( null ).when( schedulerResource.schedulerService ).subscribeToJobEvents();
+    assertEquals( mockResponse, schedulerResource.getJobEvents() );
+
+    JobEventBroadcaster broadcaster = new JobEventBroadcaster();
+    doReturn( broadcaster.subscribe( null ) ).when( schedulerResource.schedulerService ).subscribeToJobEvents();
+    Response response = schedulerResource.getJobEvents();
+    assertEquals( OK.getStatusCode(), response.getStatus() );
+    assertTrue( response.getEntity() instanceof JobEventStream );
+  }
+
+  @Test
+  public void testGetJobEventsForbidden() throws Exception {
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildStatusResponse( FORBIDDEN );
+    doThrow( new IllegalAccessException() ).when( schedulerResource.schedulerService ).subscribeToJobEvents();
+
+    assertEquals( mockResponse, schedulerResource.getJobEvents() );
+  }
+
+  @Test
+  public void testJobEventStream() throws Exception {
+    JobEventBroadcaster broadcaster = new JobEventBroadcaster();
+    JobEventBroadcaster.Subscription subscription = broadcaster.subscribe( null );
+    broadcaster.publish( new JobEvent( JobEvent.Type.PAUSED, "admin\tjob\tuuid", "job", "admin", 1L ) );
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new JobEventStream( subscription, 10 ).write( output );
+
+    String stream = output.toString( "UTF-8" );
+    assertTrue( stream.startsWith( "retry: " ) );
+    assertTrue( stream.contains( "\ndata: {" ) );
+    assertTrue( stream.contains( "\"type\":\"PAUSED\"" ) );
+    assertTrue( stream.contains( "\"jobId\":\"admin\\tjob\\tuuid\"" ) );
+    // the subscription ends with the stream
+    assertTrue( subscription.isClosed() );
+    assertEquals( 0, broadcaster.getSubscriptionCount() );
+  }
+
+  @Test
+  public void testGetAllJobsInvalidQuery() throws Exception {
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildStatusResponse( Response.Status.BAD_REQUEST );
+
+    assertEquals( mockResponse, schedulerResource.getAllJobs( null, null, "unknown", null, null, null, null, null ) );
+    assertEquals( mockResponse, schedulerResource.getAllJobs( -1, null, null, null, null, null, null, null ) );
+    assertEquals( mockResponse, schedulerResource.getAllJobs( null, null, null, null, "NOT_A_STATE", null, null, null ) );
+    verify( schedulerResource.schedulerService, times( 0 ) ).getJobs( any() );
+  }
+
   @Test
   public void testIsScheduleAllowed() {
     String id = "id";
@@ -630,6 +779,28 @@ public class SchedulerResourceTest {
     assertTrue( Maps.difference( testResponse.getChanges(), mockJobsResponse.getChanges() ).areEqual() );
   }
 
+  @Test
+  public void testPauseJobs() throws Exception {
+    JobsRequest mockJobsRequest = mock( JobsRequest.class );
+
+    List<String> jobIds = new ArrayList<>();
+    jobIds.add( "jobId" );
+    jobIds.add( "jobId2" );
+
+    doReturn( jobIds ).when( mockJobsRequest ).getJobIds();
+    doReturn( Collections.singletonMap( "jobId", JobState.PAUSED ) ).when( schedulerResource.schedulerService )
+      .pauseJobs( jobIds );
+
+    JobsResponse mockJobsResponse = new JobsResponse();
+    mockJobsResponse.addChanges( "jobId", JobState.PAUSED.toString() );
+    mockJobsResponse.addChanges( "jobId2", SchedulerResource.ERROR_JOB_STATE );
+
+    JobsResponse testResponse = schedulerResource.pauseJobs( mockJobsRequest );
+    assertTrue( Maps.difference( testResponse.getChanges(), mockJobsResponse.getChanges() ).areEqual() );
+
+    verify( schedulerResource.schedulerService, times( 1 ) ).pauseJobs( jobIds );
+  }
+
   @Test
   public void testGetJob() throws Exception {
     String jobId = "jobId";
@@ -55,6 +55,7 @@ import org.pentaho.platform.web.http.api.resources.SessionResource;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -63,9 +64,11 @@ import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
@@ -74,11 +77,13 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 @SuppressWarnings( "unchecked" )
@@ -395,6 +400,68 @@ public class SchedulerServiceTest {
     verify( schedulerService.scheduler ).getJobs( any( IJobFilter.class ) );
   }
 
+  @Test
+  public void testGetJobsVersionDependsOnWhatTheUserSees() throws Exception {
+    QuartzScheduler quartzScheduler = mock( QuartzScheduler.class );
+    doReturn( "v1" ).when( quartzScheduler ).getJobsVersion();
+    schedulerService.scheduler = quartzScheduler;
+    IPentahoSession session = mock( IPentahoSession.class );
+    doReturn( session ).when( schedulerService ).getSession();
+    doReturn( "suzy" ).when( session ).getName();
+    doReturn( true ).when( schedulerService ).isScheduleAllowed();
+    doReturn( false ).when( schedulerService ).isExecuteScheduleAllowed();
+    doReturn( false ).when( schedulerService.policy ).isAllowed( AdministerSecurityAction.NAME );
+
+    String version = schedulerService.getJobsVersion();
+    assertTrue( version.startsWith( "v1-" ) );
+    assertFalse( version.contains( "suzy" ) );
+    assertEquals( version, schedulerService.getJobsVersion() );
+
+    doReturn( true ).when( schedulerService ).isExecuteScheduleAllowed();
+    String executeVersion = schedulerService.getJobsVersion();
+    assertNotEquals( version, executeVersion );
+
+    doReturn( true ).when( schedulerService.policy ).isAllowed( AdministerSecurityAction.NAME );
+    assertNotEquals( executeVersion, schedulerService.getJobsVersion() );
+
+    doReturn( "admin" ).when( session ).getName();
+    doReturn( false ).when( schedulerService.policy ).isAllowed( AdministerSecurityAction.NAME );
+    assertNotEquals( executeVersion, schedulerService.getJobsVersion() );
+  }
+
+  @Test( expected = IllegalAccessException.class )
+  public void testGetJobsVersionForbidden() throws Exception {
+    doReturn( false ).when( schedulerService ).isScheduleAllowed();
+    doReturn( false ).when( schedulerService ).isExecuteScheduleAllowed();
+
+    schedulerService.getJobsVersion();
+  }
+
+  @Test
+  public void testGetContentCleanerJobByActionClass() throws Exception {
+    QuartzScheduler quartzScheduler = mock( QuartzScheduler.class );
+    schedulerService.scheduler = quartzScheduler;
+
+    IPentahoSession session = mock( IPentahoSession.class );
+    doReturn( session ).when( schedulerService ).getSession();
+    doReturn( "sessionName" ).when( session ).getName();
+    doReturn( false ).when( schedulerService.policy ).isAllowed( AdministerSecurityAction.NAME );
+
+    Job otherUsersJob = new Job();
+    otherUsersJob.setUserName( "other" );
+    otherUsersJob.getJobParams().put( IScheduler.RESERVEDMAPKEY_ACTIONCLASS,
+      "org.pentaho.platform.admin.GeneratedContentCleaner" );
+    Job ownJob = new Job();
+    ownJob.setUserName( "sessionName" );
+    ownJob.getJobParams().put( IScheduler.RESERVEDMAPKEY_ACTIONCLASS,
+      "org.pentaho.platform.admin.GeneratedContentCleaner" );
+    doReturn( Arrays.asList( otherUsersJob, ownJob ) ).when( quartzScheduler )
+      .getJobsByActionClass( "org.pentaho.platform.admin.GeneratedContentCleaner" );
+
+    assertSame( ownJob, schedulerService.getContentCleanerJob() );
+    verify( quartzScheduler, never() ).getJobs( any( IJobFilter.class ) );
+  }
+
   @Test
   public void testDoGetCanSchedule() {
     doReturn( true ).when( schedulerService.policy ).isAllowed( SchedulerAction.NAME );
@@ -621,6 +688,51 @@ public class SchedulerServiceTest {
     verify( schedulerService, times( 1 ) ).isExecuteScheduleAllowed();
   }
 
+  @Test
+  public void testPauseJobs() throws Exception {
+    List<IJob> jobs = new ArrayList<>();
+    jobs.add( createJob( "mine", "user" ) );
+    jobs.add( createJob( "failing", "user" ) );
+    jobs.add( createJob( "theirs", "other" ) );
+    IPentahoSession session = mock( IPentahoSession.class );
+    doReturn( "user" ).when( session ).getName();
+    doReturn( session ).when( schedulerService ).getSession();
+    doReturn( false ).when( schedulerService ).isScheduleAllowed();
+    doReturn( false ).when( schedulerService ).isExecuteScheduleAllowed();
+    doAnswer( invocation -> {
+      IJobFilter filter = invocation.getArgument( 0 );
+      List<IJob> accepted = new ArrayList<>();
+      for ( IJob job : jobs ) {
+        if ( filter.accept( job ) ) {
+          accepted.add( job );
+        }
+      }
+      return accepted;
+    } ).when( schedulerService.scheduler ).getJobs( any() );
+    doAnswer( invocation -> {
+      ( (Job) jobs.get( 0 ) ).setState( JobState.PAUSED );
+      return null;
+    } ).when( schedulerService.scheduler ).pauseJob( "mine" );
+    doThrow( new SchedulerException( "pause-exception" ) ).when( schedulerService.scheduler ).pauseJob( "failing" );
+
+    Map<String, JobState> states = schedulerService.pauseJobs( Arrays.asList( "mine", "failing", "theirs", "missing" ) );
+
+    // jobs of other users are left alone, and failed or missing jobs left out
+    assertEquals( 2, states.size() );
+    assertEquals( JobState.PAUSED, states.get( "mine" ) );
+    assertEquals( JobState.NORMAL, states.get( "theirs" ) );
+    verify( schedulerService.scheduler, times( 0 ) ).pauseJob( "theirs" );
+    verify( schedulerService.scheduler, times( 2 ) ).getJobs( any() );
+  }
+
+  private Job createJob( String jobId, String userName ) {
+    Job job = new Job();
+    job.setJobId( jobId );
+    job.setUserName( userName );
+    job.setState( JobState.NORMAL );
+    return job;
+  }
+
   @Test
   public void testResumeJob() throws SchedulerException {
     Job job = mock( Job.class );
@@ -0,0 +1,220 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.mantle.client.workspace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Jobs of the schedules table, by job id, and the rows showing the ones accepted by the filters.
+ * <p>
+ * Updates are applied as deltas: only added, changed or removed jobs are filtered again, and only their rows are
+ * touched, so that the table redraws just the affected range. Unchanged jobs keep their row and their object, and with
+ * it their selection.
+ */
+class JobTableModel {
+
+  /**
+   * Jobs never shown in the table
+   */
+  private static final IJobFilter HIDDEN_JOBS_FILTER =
+    job -> !"GeneratedContentCleaner".equals( job.getInputFilePath() );
+
+  private final Map<String, JsJob> jobs = new LinkedHashMap<>();
+
+  /**
+   * Content of each job when it was last applied, to tell changed jobs apart
+   */
+  private final Map<String, String> signatures = new HashMap<>();
+
+  /**
+   * Position in the rows of each visible job
+   */
+  private final Map<String, Integer> rowIndexes = new HashMap<>();
+
+  private final List<JsJob> rows;
+
+  private final Function<JsJob, String> signature;
+
+  private List<IJobFilter> filters = Collections.emptyList();
+
+  /**
+   * @param rows      the rows shown in the table, usually the list of its data provider
+   * @param signature the content of a job, equal for two versions of a job only if they are shown the same
+   */
+  JobTableModel( List<JsJob> rows, Function<JsJob, String> signature ) {
+    this.rows = rows;
+    this.signature = signature;
+  }
+
+  /**
+   * Replaces the filters and shows again the jobs they accept, all of them being filtered once.
+   */
+  void setFilters( List<IJobFilter> filters ) {
+    this.filters = new ArrayList<>( filters );
+
+    List<JsJob> visible = new ArrayList<>();
+    rowIndexes.clear();
+    for ( JsJob job : jobs.values() ) {
+      if ( accept( job ) ) {
+        rowIndexes.put( job.getJobId(), visible.size() );
+        visible.add( job );
+      }
+    }
+    rows.clear();
+    rows.addAll( visible );
+  }
+
+  /**
+   * Brings the model to a full list of the jobs, applying only the difference with what it holds.
+   *
+   * @return whether any job was added, changed or removed
+   */
+  boolean update( Iterable<JsJob> allJobs ) {
+    List<JsJob> changed = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    for ( JsJob job : allJobs ) {
+      seen.add( job.getJobId() );
+      if ( !signature.apply( job ).equals( signatures.get( job.getJobId() ) ) ) {
+        changed.add( job );
+      }
+    }
+
+    List<String> removed = new ArrayList<>();
+    for ( String jobId : jobs.keySet() ) {
+      if ( !seen.contains( jobId ) ) {
+        removed.add( jobId );
+      }
+    }
+
+    applyChanges( changed, removed );
+    return !changed.isEmpty() || !removed.isEmpty();
+  }
+
+  /**
+   * Applies a delta to the model.
+   *
+   * @param changed       the jobs added or changed
+   * @param removedJobIds the ids of the jobs removed
+   */
+  void applyChanges( Collection<JsJob> changed, Collection<String> removedJobIds ) {
+    Set<String> hiddenJobIds = new HashSet<>();
+
+    for ( String jobId : removedJobIds ) {
+      if ( jobs.remove( jobId ) != null ) {
+        signatures.remove( jobId );
+        if ( rowIndexes.containsKey( jobId ) ) {
+          hiddenJobIds.add( jobId );
+        }
+      }
+    }
+
+    for ( JsJob job : changed ) {
+      String jobId = job.getJobId();
+      jobs.put( jobId, job );
+      signatures.put( jobId, signature.apply( job ) );
+
+      Integer rowIndex = getRowIndex( jobId );
+      if ( !accept( job ) ) {
+        if ( rowIndex != null ) {
+          hiddenJobIds.add( jobId );
+        }
+      } else if ( rowIndex != null ) {
+        hiddenJobIds.remove( jobId );
+        rows.set( rowIndex, job );
+      } else {
+        rowIndexes.put( jobId, rows.size() );
+        rows.add( job );
+      }
+    }
+
+    if ( !hiddenJobIds.isEmpty() ) {
+      removeRows( hiddenJobIds );
+    }
+  }
+
+  /**
+   * @return the job with the given id if it is shown in the table, null otherwise
+   */
+  JsJob getVisibleJob( String jobId ) {
+    Integer rowIndex = getRowIndex( jobId );
+    return rowIndex != null ? rows.get( rowIndex ) : null;
+  }
+
+  /**
+   * @return all the jobs, whether shown or not
+   */
+  Collection<JsJob> getJobs() {
+    return Collections.unmodifiableCollection( jobs.values() );
+  }
+
+  /**
+   * @return the position of the job in the rows, null if it is not shown
+   */
+  private Integer getRowIndex( String jobId ) {
+    Integer rowIndex = rowIndexes.get( jobId );
+    if ( rowIndex != null && ( rowIndex >= rows.size() || !jobId.equals( rows.get( rowIndex ).getJobId() ) ) ) {
+      // the rows were reordered since, e.g. by sorting a column
+      rowIndexes.clear();
+      for ( int i = 0; i < rows.size(); i++ ) {
+        rowIndexes.put( rows.get( i ).getJobId(), i );
+      }
+      rowIndex = rowIndexes.get( jobId );
+    }
+    return rowIndex;
+  }
+
+  private boolean accept( JsJob job ) {
+    if ( !HIDDEN_JOBS_FILTER.accept( job ) ) {
+      return false;
+    }
+    for ( IJobFilter filter : filters ) {
+      if ( !filter.accept( job ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Removes rows in a single pass, shifting the following rows up and truncating the end of the list, so that only
+   * the rows after the first removed one are redrawn.
+   */
+  private void removeRows( Set<String> jobIds ) {
+    int size = rows.size();
+    int kept = 0;
+    for ( int i = 0; i < size; i++ ) {
+      JsJob job = rows.get( i );
+      if ( jobIds.contains( job.getJobId() ) ) {
+        rowIndexes.remove( job.getJobId() );
+        continue;
+      }
+      if ( kept != i ) {
+        rows.set( kept, job );
+      }
+      rowIndexes.put( job.getJobId(), kept++ );
+    }
+    for ( int i = size - 1; i >= kept; i-- ) {
+      rows.remove( i );
+    }
+  }
+}
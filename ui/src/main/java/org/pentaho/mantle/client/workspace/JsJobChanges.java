@@ -0,0 +1,45 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.mantle.client.workspace;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
+
+/**
+ * Wraps the JSON response of the jobs/changes REST call, something like:
+ * {"jobs":[{...}], "removedJobIds":["..."], "reset":"false", "version":"lq7x2k3a.1527"}
+ * <p>
+ * Empty lists are left out of the response and single values may not be wrapped in an array, both are handled here.
+ */
+public class JsJobChanges extends JavaScriptObject {
+
+  // Overlay types always have protected, zero argument constructors.
+  protected JsJobChanges() {
+  }
+
+  public final native String getVersion() /*-{ return this.version || null; }-*/; //
+
+  public final native boolean isReset() /*-{ return this.reset === true || this.reset === "true"; }-*/; //
+
+  public final native JsArray<JsJob> getJobs() /*-{
+    var jobs = this.jobs;
+    return jobs == null ? [] : ( jobs instanceof Array ? jobs : [ jobs ] );
+  }-*/;
+
+  public final native JsArrayString getRemovedJobIds() /*-{
+    var ids = this.removedJobIds;
+    return ids == null ? [] : ( ids instanceof Array ? ids : [ ids ] );
+  }-*/;
+}
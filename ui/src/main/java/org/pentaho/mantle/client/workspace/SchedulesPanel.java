@@ -14,7 +14,9 @@ package org.pentaho.mantle.client.workspace;
 
 import com.google.gwt.cell.client.CheckboxCell;
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.core.client.JsonUtils;
 import com.google.gwt.dom.client.BrowserEvents;
 import com.google.gwt.dom.client.Style.Unit;
@@ -45,6 +47,7 @@ import com.google.gwt.user.cellview.client.SimplePager;
 import com.google.gwt.user.cellview.client.SimplePager.TextLocation;
 import com.google.gwt.user.cellview.client.TextColumn;
 import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.HasHorizontalAlignment;
 import com.google.gwt.user.client.ui.Label;
 import com.google.gwt.user.client.ui.SimplePanel;
@@ -110,6 +113,16 @@ public class SchedulesPanel extends SimplePanel {
 
   private static final int READ_PERMISSION = 0;
 
+  /**
+   * Milliseconds between a job event and the refresh it leads to, so that a burst of events leads to a single refresh
+   */
+  private static final int JOB_EVENTS_REFRESH_DELAY = 1000;
+
+  /**
+   * Milliseconds between two checks of whether the panel is shown, the job events being only listened to while it is
+   */
+  private static final int JOB_EVENTS_VISIBILITY_CHECK_DELAY = 5000;
+
   private static final int OUTPUT_PATH_COLUMN = 3;
   public static final String TIME_ZONE_FORMAT = " zzz";
 
@@ -128,8 +141,6 @@ public class SchedulesPanel extends SimplePanel {
 
   private Header<Boolean> selectAllHeader;
 
-  private JsArray<JsJob> allJobs;
-
   private final ArrayList<IJobFilter> filters = new ArrayList<>();
 
   private final CellTable<JsJob> table =
@@ -137,6 +148,47 @@ public class SchedulesPanel extends SimplePanel {
 
   private final ListDataProvider<JsJob> dataProvider = new ListDataProvider<>();
 
+  private final JobTableModel jobModel = new JobTableModel( dataProvider.getList(), JsonUtils::stringify );
+
+  /**
+   * Version of the jobs shown, to only fetch what changed since on refresh
+   */
+  private String jobsVersion;
+
+  /**
+   * Refreshes the jobs once a burst of job events is over
+   */
+  private final Timer jobEventsTimer = new Timer() {
+    @Override
+    public void run() {
+      jobEventsRefreshPending = false;
+      refresh();
+    }
+  };
+
+  private boolean jobEventsRefreshPending;
+
+  /**
+   * The <code>EventSource</code> of the job events, null while they are not listened to
+   */
+  private JavaScriptObject jobEventSource;
+
+  /**
+   * Whether job events were missed while they were not listened to, the jobs then being refreshed on listening again
+   */
+  private boolean jobEventsMissed;
+
+  /**
+   * Listens to the job events while the panel is shown, and stops listening while it is hidden, each listener
+   * holding a connection and a request thread on the server
+   */
+  private final Timer jobEventsVisibilityTimer = new Timer() {
+    @Override
+    public void run() {
+      updateJobEventsListener();
+    }
+  };
+
   private SimplePager pager;
 
   private FilterDialog filterDialog;
@@ -217,8 +269,25 @@ public class SchedulesPanel extends SimplePanel {
     refresh();
   }
 
+  @Override
+  protected void onLoad() {
+    super.onLoad();
+    updateJobEventsListener();
+    jobEventsVisibilityTimer.scheduleRepeating( JOB_EVENTS_VISIBILITY_CHECK_DELAY );
+  }
+
+  @Override
+  protected void onUnload() {
+    jobEventsVisibilityTimer.cancel();
+    stopListeningToJobEvents();
+    super.onUnload();
+  }
+
   public void refresh() {
-    final String apiEndpoint = "api/scheduler/getJobs";
+    String apiEndpoint = "api/scheduler/jobs/changes";
+    if ( jobsVersion != null ) {
+      apiEndpoint += "?since=" + URL.encodeQueryString( jobsVersion );
+    }
 
     RequestBuilder executableTypesRequestBuilder =
       createRequestBuilder( RequestBuilder.GET, ScheduleHelper.getPluginContextURL(), apiEndpoint );
@@ -236,8 +305,9 @@ public class SchedulesPanel extends SimplePanel {
 
         public void onResponseReceived( Request request, Response response ) {
           if ( response.getStatusCode() == Response.SC_OK ) {
-            allJobs = parseJson( JsonUtils.escapeJsonForEval( response.getText() ) );
-            filterAndShowData();
+            JsJobChanges changes = parseJsonJobChanges( JsonUtils.escapeJsonForEval( response.getText() ) );
+            showJobs( changes );
+            jobsVersion = changes.getVersion();
           } else {
             errorDialog.center();
           }
@@ -248,32 +318,49 @@ public class SchedulesPanel extends SimplePanel {
     }
   }
 
-  private void filterAndShowData() {
-    filters.add( job -> !job.getInputFilePath().equals( "GeneratedContentCleaner" ) );
-
-    ArrayList<JsJob> filteredList = new ArrayList<>();
-
-    for ( int i = 0; i < allJobs.length(); i++ ) {
-      filteredList.add( allJobs.get( i ) );
+  /**
+   * Applies the latest changes to the table, redrawing only the rows of the jobs that were added, changed or removed.
+   * Selected jobs that are still shown stay selected.
+   */
+  @SuppressWarnings( "unchecked" )
+  private void showJobs( JsJobChanges changes ) {
+    JsArray<JsJob> changedJobs = changes.getJobs();
+    List<JsJob> jobs = new ArrayList<>( changedJobs.length() );
+    for ( int i = 0; i < changedJobs.length(); i++ ) {
+      jobs.add( changedJobs.get( i ) );
+    }
 
-      // filter if needed
-      for ( IJobFilter filter : filters ) {
-        if ( !filter.accept( allJobs.get( i ) ) ) {
-          filteredList.remove( allJobs.get( i ) );
-        }
+    boolean changed;
+    if ( changes.isReset() ) {
+      changed = jobModel.update( jobs );
+    } else {
+      JsArrayString removedJobIds = changes.getRemovedJobIds();
+      List<String> removed = new ArrayList<>( removedJobIds.length() );
+      for ( int i = 0; i < removedJobIds.length(); i++ ) {
+        removed.add( removedJobIds.get( i ) );
       }
+      jobModel.applyChanges( jobs, removed );
+      changed = !jobs.isEmpty() || !removed.isEmpty();
     }
 
-    if ( filteredList.isEmpty() ) {
-      selectAllHeader.setHeaderStyleNames( "cellTableSelectAllHeader" );
-    } else {
-      selectAllHeader.setHeaderStyleNames( "" );
+    if ( changed ) {
+      Set<JsJob> selectedJobs = new HashSet<>( getSelectedJobs() );
+      for ( JsJob selectedJob : selectedJobs ) {
+        JsJob job = jobModel.getVisibleJob( selectedJob.getJobId() );
+        // a changed job is selected again for the selection to hold its latest version
+        ( (MultiSelectionModel<JsJob>) table.getSelectionModel() ).setSelected( job != null ? job : selectedJob,
+          job != null );
+      }
+      updateTableChrome();
     }
+  }
 
-    List<JsJob> list = dataProvider.getList();
-    list.clear();
-    list.addAll( filteredList );
-    pager.setVisible( filteredList.size() > PAGE_SIZE );
+  /**
+   * Filters all the jobs again and shows the first page of the result.
+   */
+  private void filterAndShowData() {
+    jobModel.setFilters( filters );
+    updateTableChrome();
 
     clearJobsSelection();
 
@@ -285,8 +372,26 @@ public class SchedulesPanel extends SimplePanel {
 
     table.setKeyboardSelectedRow( 0, false );
     table.setKeyboardSelectedColumn( 0, false );
+  }
 
-    table.redraw();
+  private void updateTableChrome() {
+    int rowCount = dataProvider.getList().size();
+    if ( rowCount == 0 ) {
+      selectAllHeader.setHeaderStyleNames( "cellTableSelectAllHeader" );
+    } else {
+      selectAllHeader.setHeaderStyleNames( "" );
+    }
+
+    pager.setVisible( rowCount > PAGE_SIZE );
+    table.redrawHeaders();
+  }
+
+  private JsArray<JsJob> getAllJobs() {
+    JsArray<JsJob> allJobs = JavaScriptObject.createArray().cast();
+    for ( JsJob job : jobModel.getJobs() ) {
+      allJobs.push( job );
+    }
+    return allJobs;
   }
 
   private void getTimeZoneData() {
@@ -891,8 +996,8 @@ public class SchedulesPanel extends SimplePanel {
 
         boolean isRunning = JOB_STATE_NORMAL.equalsIgnoreCase( job.getState() );
 
-        final String action = isRunning ? "pauseJob" : "resumeJob";
-        controlJobs( selectedJobs, action, RequestBuilder.POST, false );
+        final String action = isRunning ? "pauseJobs" : "resumeJobs";
+        controlJobs( selectedJobs, action, false );
       }
     } );
     controlScheduleButton.setEnabled( false );
@@ -927,9 +1032,9 @@ public class SchedulesPanel extends SimplePanel {
     // Add filter button
     filterButton.setCommand( () -> {
       if ( filterDialog == null ) {
-        filterDialog = new FilterDialog( allJobs, filterDialogCallback );
+        filterDialog = new FilterDialog( getAllJobs(), filterDialogCallback );
       } else {
-        filterDialog.initUI( allJobs );
+        filterDialog.initUI( getAllJobs() );
       }
 
       filterDialog.center();
@@ -1143,7 +1248,7 @@ public class SchedulesPanel extends SimplePanel {
     MessageDialogBox messageDialog = new MessageDialogBox( title, message, false, true, true );
     messageDialog.center();
 
-    controlJobs( jobs, "triggerNow", RequestBuilder.POST, true );
+    controlJobs( jobs, "triggerJobsNow", true );
   }
 
   private Set<JsJob> getExecutableJobs( Map<String, List<JsJob>> candidateJobs, Response response ) {
@@ -1211,7 +1316,7 @@ public class SchedulesPanel extends SimplePanel {
 
     prompt.setCallback( new IDialogCallback() {
       public void okPressed() {
-        controlJobs( jobs, "removeJob", RequestBuilder.DELETE, true );
+        controlJobs( jobs, "removeJobs", true );
         prompt.hide();
       }
 
@@ -1224,39 +1329,49 @@ public class SchedulesPanel extends SimplePanel {
     prompt.center();
   }
 
-  private void controlJobs( final Set<JsJob> jobs, String function, final Method method, final boolean refreshData ) {
-    for ( final JsJob job : jobs ) {
-      RequestBuilder builder =
-        createRequestBuilder( method, ScheduleHelper.getPluginContextURL(), "api/scheduler/" + function );
-
-      builder.setHeader( CONTENT_TYPE, APPLICATION_JSON );
-
-      JSONObject startJobRequest = new JSONObject();
-      startJobRequest.put( "jobId", new JSONString( job.getJobId() ) );
+  /**
+   * Applies a scheduler function to all the jobs with a single request, followed by a single refresh if requested.
+   *
+   * @param function a scheduler endpoint taking a list of job ids and answering with the new state of each job
+   */
+  private void controlJobs( final Set<JsJob> jobs, String function, final boolean refreshData ) {
+    RequestBuilder builder =
+      createRequestBuilder( RequestBuilder.POST, ScheduleHelper.getPluginContextURL(), "api/scheduler/" + function );
+    builder.setHeader( CONTENT_TYPE, APPLICATION_JSON );
+    builder.setHeader( ACCEPT, APPLICATION_JSON );
 
-      try {
-        builder.sendRequest( startJobRequest.toString(), new RequestCallback() {
+    JSONObject requestData = new JSONObject();
+    requestData.put( "jobIds", getIds( jobs ) );
 
-          public void onError( Request request, Throwable exception ) {
-            // showError(exception);
-          }
+    try {
+      builder.sendRequest( requestData.toString(), new RequestCallback() {
 
-          public void onResponseReceived( Request request, Response response ) {
-            final String jobState = response.getText();
+        public void onError( Request request, Throwable exception ) {
+          // showError(exception);
+        }
 
-            job.setState( jobState );
+        public void onResponseReceived( Request request, Response response ) {
+          if ( response.getStatusCode() == Response.SC_OK ) {
+            JSONObject responseObj = new JSONObject( JsonUtils.safeEval( response.getText() ) );
+            Map<String, String> changes = SchedulerUiUtil.getMapFromJSONResponse( responseObj, "changes" );
+
+            for ( JsJob job : jobs ) {
+              final String jobState = changes.get( job.getJobId() );
+              if ( jobState != null ) {
+                job.setState( jobState );
+                updateJobScheduleButtonStyle( jobState );
+              }
+            }
             table.redraw();
+          }
 
-            updateJobScheduleButtonStyle( jobState );
-
-            if ( refreshData ) {
-              refresh();
-            }
+          if ( refreshData ) {
+            refresh();
           }
-        } );
-      } catch ( RequestException e ) {
-        // showError(e);
-      }
+        }
+      } );
+    } catch ( RequestException e ) {
+      // showError(e);
     }
   }
 
@@ -1462,14 +1577,72 @@ public class SchedulesPanel extends SimplePanel {
     return builder;
   }
 
-  private native JsArray<JsJob> parseJson( String json ) /*-{
-    var obj = JSON.parse(json);
+  /**
+   * Called for every job event streamed by the server. The events only tell that something changed, the changes
+   * themselves are fetched by {@link #refresh()}.
+   */
+  private void onJobEvent() {
+    if ( !jobEventsRefreshPending ) {
+      jobEventsRefreshPending = true;
+      jobEventsTimer.schedule( JOB_EVENTS_REFRESH_DELAY );
+    }
+  }
 
-    if (obj != null && obj.hasOwnProperty("job")) {
-      return obj.job;
+  /**
+   * Listens to the job events while the panel is attached, laid out and in a visible browser tab, and stops listening
+   * otherwise. The jobs are refreshed when listening again, as events may have been missed in between.
+   */
+  private void updateJobEventsListener() {
+    boolean shown = isAttached() && getOffsetHeight() > 0 && !isDocumentHidden();
+    if ( shown && jobEventSource == null ) {
+      jobEventSource = listenToJobEvents( ScheduleHelper.getPluginContextURL() + "api/scheduler/jobs/events" );
+      if ( jobEventSource != null && jobEventsMissed ) {
+        jobEventsMissed = false;
+        refresh();
+      }
+    } else if ( !shown ) {
+      stopListeningToJobEvents();
     }
+  }
 
-    return [];
+  private void stopListeningToJobEvents() {
+    if ( jobEventSource != null ) {
+      closeEventSource( jobEventSource );
+      jobEventSource = null;
+      jobEventsMissed = true;
+    }
+  }
+
+  /**
+   * Refreshes the table as jobs change on the server, if the browser supports Server-Sent Events. Otherwise the table
+   * is only refreshed on demand, as before. A source refused by the server, e.g. with a 503 when it has too many
+   * listeners, is not reconnected by the browser, and is only opened again once the panel was hidden and shown.
+   *
+   * @return the <code>EventSource</code>, null if the browser does not support them
+   */
+  private native JavaScriptObject listenToJobEvents( String url ) /*-{
+    if ( !$wnd.EventSource ) {
+      return null;
+    }
+    var thisInstance = this;
+    var source = new $wnd.EventSource( url );
+    source.onmessage = function() {
+      thisInstance.@org.pentaho.mantle.client.workspace.SchedulesPanel::onJobEvent()();
+    };
+    return source;
+  }-*/;
+
+  private native void closeEventSource( JavaScriptObject source ) /*-{
+    source.onmessage = null;
+    source.close();
+  }-*/;
+
+  private native boolean isDocumentHidden() /*-{
+    return !!$doc.hidden;
+  }-*/;
+
+  private native JsJobChanges parseJsonJobChanges( String json ) /*-{
+    return JSON.parse(json);
   }-*/;
 
   private native JsJob parseJsonJob( String json ) /*-{
@@ -0,0 +1,146 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.mantle.client.workspace;
+
+import com.google.gwtmockito.GwtMockitoTestRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith( GwtMockitoTestRunner.class )
+public class JobTableModelTest {
+
+  private List<JsJob> rows;
+
+  private JobTableModel jobModel;
+
+  @Before
+  public void setUp() {
+    rows = spy( new ArrayList<>() );
+    jobModel = new JobTableModel( rows, job -> job.getJobId() + job.getState() );
+  }
+
+  @Test
+  public void testUnchangedJobsAreLeftAlone() {
+    JsJob first = createJob( "first", "NORMAL" );
+    JsJob second = createJob( "second", "NORMAL" );
+    assertTrue( jobModel.update( Arrays.asList( first, second ) ) );
+
+    assertFalse( jobModel.update( Arrays.asList( createJob( "first", "NORMAL" ), createJob( "second", "NORMAL" ) ) ) );
+
+    assertEquals( Arrays.asList( first, second ), rows );
+    assertSame( first, jobModel.getVisibleJob( "first" ) );
+  }
+
+  @Test
+  public void testChangedJobsReplaceTheirRow() {
+    jobModel.update( Arrays.asList( createJob( "first", "NORMAL" ), createJob( "second", "NORMAL" ) ) );
+
+    JsJob paused = createJob( "second", "PAUSED" );
+    assertTrue( jobModel.update( Arrays.asList( createJob( "first", "NORMAL" ), paused ) ) );
+
+    verify( rows, times( 1 ) ).set( 1, paused );
+    assertSame( paused, rows.get( 1 ) );
+  }
+
+  @Test
+  public void testRemovedJobsAreRemovedInOnePass() {
+    List<JsJob> jobs = new ArrayList<>();
+    for ( int i = 0; i < 10; i++ ) {
+      jobs.add( createJob( "job" + i, "NORMAL" ) );
+    }
+    jobModel.update( jobs );
+
+    jobModel.applyChanges( Collections.emptyList(), Arrays.asList( "job2", "job5", "missing" ) );
+
+    assertEquals( 8, rows.size() );
+    assertSame( jobs.get( 3 ), rows.get( 2 ) );
+    assertSame( jobs.get( 9 ), jobModel.getVisibleJob( "job9" ) );
+    assertNull( jobModel.getVisibleJob( "job5" ) );
+    assertEquals( 8, jobModel.getJobs().size() );
+    // rows before the first removed one are untouched
+    verify( rows, times( 0 ) ).set( 0, jobs.get( 0 ) );
+    verify( rows, times( 0 ) ).set( 1, jobs.get( 1 ) );
+  }
+
+  @Test
+  public void testFiltersAreAppliedOncePerChangedJob() {
+    IJobFilter pausedOnly = mock( IJobFilter.class );
+    when( pausedOnly.accept( any() ) ).thenAnswer(
+      invocation -> "PAUSED".equals( ( (JsJob) invocation.getArgument( 0 ) ).getState() ) );
+    JsJob first = createJob( "first", "PAUSED" );
+    JsJob second = createJob( "second", "NORMAL" );
+    jobModel.update( Arrays.asList( first, second ) );
+
+    jobModel.setFilters( Collections.singletonList( pausedOnly ) );
+    assertEquals( Collections.singletonList( first ), rows );
+
+    JsJob resumed = createJob( "first", "NORMAL" );
+    JsJob paused = createJob( "second", "PAUSED" );
+    jobModel.update( Arrays.asList( resumed, paused ) );
+
+    assertEquals( Collections.singletonList( paused ), rows );
+    verify( pausedOnly, times( 1 ) ).accept( resumed );
+    verify( pausedOnly, times( 1 ) ).accept( paused );
+  }
+
+  @Test
+  public void testReorderedRows() {
+    JsJob first = createJob( "first", "NORMAL" );
+    JsJob second = createJob( "second", "NORMAL" );
+    jobModel.update( Arrays.asList( first, second ) );
+    // e.g. sorted by a column of the table
+    Collections.reverse( rows );
+
+    JsJob paused = createJob( "first", "PAUSED" );
+    jobModel.update( Arrays.asList( paused, second ) );
+
+    assertEquals( Arrays.asList( second, paused ), rows );
+  }
+
+  @Test
+  public void testGeneratedContentCleanerIsHidden() {
+    JsJob cleaner = createJob( "cleaner", "NORMAL" );
+    when( cleaner.getInputFilePath() ).thenReturn( "GeneratedContentCleaner" );
+
+    jobModel.update( Arrays.asList( cleaner, createJob( "first", "NORMAL" ) ) );
+
+    assertEquals( 1, rows.size() );
+    assertEquals( 2, jobModel.getJobs().size() );
+  }
+
+  private JsJob createJob( String jobId, String state ) {
+    JsJob job = mock( JsJob.class );
+    when( job.getJobId() ).thenReturn( jobId );
+    when( job.getState() ).thenReturn( state );
+    return job;
+  }
+}